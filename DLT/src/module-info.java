@@ -5,4 +5,7 @@
  * 
  */
 module DLT {
+    requires transitive java.management;
+
+    exports viewer;
 }
\ No newline at end of file
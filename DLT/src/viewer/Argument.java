@@ -1,4 +1,5 @@
 package viewer;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -7,13 +8,17 @@ import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Optional;
 
-abstract class Argument {
+/**
+ * Argument of a verbose payload. The types of arguments are the subclasses in this
+ * package, see {@link #createFromBytes(ByteBuffer, int, int, Boolean, Optional)}.
+ */
+public abstract class Argument {
     protected static final int TYPE_INFO_LENGTH = 4;
     protected static Boolean msbFirstDefault = true; // or false, as per your logic
 
     protected Boolean msbFirst;
 
-    public Argument(Boolean msbFirst) {
+    Argument(Boolean msbFirst) {
         this.msbFirst = msbFirst;
     }
 
@@ -23,473 +28,305 @@ abstract class Argument {
     }
 
     protected abstract int getTypeInfo();
-    public abstract byte[] toBytes(Optional<Boolean> msbFirst);
     public abstract String _toStr();
     public abstract int getDataPayloadLength();
+
+    /**
+     * Render the human readable string of the argument into the destination,
+     * without building it as a String first.
+     *
+     * @param out Destination of the text
+     * @throws IOException if the destination cannot be written
+     */
+    public abstract void render(Appendable out) throws IOException;
     public abstract byte[] dataPayloadToBytes(Boolean msbFirst);
     public abstract Argument fromDataPayload(byte[] data, Boolean msbFirst);
 
-    public static Argument createFromBytes(byte[] data, Boolean msbFirst, Optional<String> encoding) {ByteOrder byteOrder = msbFirst ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
-    ByteBuffer buffer = ByteBuffer.wrap(data).order(byteOrder);
-    int typeInfo = buffer.getInt();
-    int typeInfoBase = typeInfo & BitMasks.MASK_BASE_TYPE;
-    Argument argument = null;
-
-    if (typeInfoBase == TypeInfo.TYPE_BOOL.getValue()) {
-        // Assuming Boolean needs to be extracted from byte[] for BOOL type
-        boolean boolValue = data[0] != 0; // Assuming 0 = false, non-zero = true
-        argument = new ArgumentBool(boolValue, msbFirst); // Directly creating instance
-    } else if (typeInfoBase == TypeInfo.TYPE_SIGNED.getValue()) {
-        int typeInfoLength = typeInfo & BitMasks.MASK_TYPE_LENGTH;
-        if (typeInfoLength == TypeInfo.TYPE_LENGTH_8BIT.getValue()) {
-            int int8Value = ByteBuffer.wrap(getDataPayload(data)).get(); // Converting 8-bit to int
-            argument = new ArgumentSInt8(int8Value, msbFirst); // Directly creating instance
-        } else if (typeInfoLength == TypeInfo.TYPE_LENGTH_16BIT.getValue()) {
-            int int16Value = ByteBuffer.wrap(getDataPayload(data)).getShort(); // Converting 16-bit to int
-            argument = new ArgumentSInt16(int16Value, msbFirst); // Directly creating instance
-        } else if (typeInfoLength == TypeInfo.TYPE_LENGTH_32BIT.getValue()) {
-            int int32Value = buffer.getInt(); // Get 32-bit signed integer
-            argument = new ArgumentSInt32(int32Value, msbFirst); // Directly creating instance
-        } else if (typeInfoLength == TypeInfo.TYPE_LENGTH_64BIT.getValue()) {
-            long int64Value = buffer.getLong(); // Get 64-bit signed integer
-            argument = new ArgumentSInt64(int64Value, msbFirst); // Directly creating instance
-        } else {
-            throw new IllegalArgumentException("Unsupported TypeInfo: " + Integer.toBinaryString(typeInfo));
-        }
-    } else if (typeInfoBase == TypeInfo.TYPE_UNSIGNED.getValue()) {
-        int typeInfoLength = typeInfo & BitMasks.MASK_TYPE_LENGTH;
-        if (typeInfoLength == TypeInfo.TYPE_LENGTH_8BIT.getValue()) {
-            int uint8Value = ByteBuffer.wrap(getDataPayload(data)).get(); // Unsigned 8-bit to integer
-            argument = new ArgumentUInt8(uint8Value, msbFirst); // Directly creating instance
-        } else if (typeInfoLength == TypeInfo.TYPE_LENGTH_16BIT.getValue()) {
-            int uint16Value = ByteBuffer.wrap(getDataPayload(data)).getShort(); // Unsigned 16-bit to integer
-            argument = new ArgumentUInt16(uint16Value, msbFirst); // Directly creating instance
-        } else if (typeInfoLength == TypeInfo.TYPE_LENGTH_32BIT.getValue()) {
-            int uint32Value = buffer.getInt(); // Unsigned 32-bit to integer
-            argument = new ArgumentUInt32(uint32Value, msbFirst); // Directly creating instance
-        } else if (typeInfoLength == TypeInfo.TYPE_LENGTH_64BIT.getValue()) {
-            long uint64Value = buffer.getLong(); // Unsigned 64-bit integer
-            argument = new ArgumentUInt64(uint64Value, msbFirst); // Directly creating instance
-        } else {
-            throw new IllegalArgumentException("Unsupported TypeInfo: " + Integer.toBinaryString(typeInfo));
-        }
-    } else if (typeInfoBase == TypeInfo.TYPE_FLOAT.getValue()) {
-        int typeInfoLength = typeInfo & BitMasks.MASK_TYPE_LENGTH;
-        if (typeInfoLength == TypeInfo.TYPE_LENGTH_32BIT.getValue()) {
-            float float32Value = buffer.getFloat(); // Get 32-bit float
-            argument = new ArgumentFloat32(float32Value, msbFirst); // Directly creating instance
-        } else if (typeInfoLength == TypeInfo.TYPE_LENGTH_64BIT.getValue()) {
-            double float64Value = buffer.getDouble(); // Get 64-bit float
-            argument = new ArgumentFloat64(float64Value, msbFirst); // Directly creating instance
-        } else {
-            throw new IllegalArgumentException("Unsupported TypeInfo: " + Integer.toBinaryString(typeInfo));
-        }
-    } else if (typeInfoBase == TypeInfo.TYPE_STRING.getValue()) {
-        int stringCoding = typeInfo & BitMasks.MASK_STRING_CODING;
-        Charset charset = Charset.forName(encoding.get());  // Convert the String encoding to a Charset
-
-        if (stringCoding == TypeInfo.STRING_CODING_ASCII.getValue()) {
-            argument = ArgumentString.fromDataPayload(getDataPayload(data), false, msbFirst, charset); // Directly creating instance
-        } else if (stringCoding == TypeInfo.STRING_CODING_UTF8.getValue()) {
-            argument = ArgumentString.fromDataPayload(getDataPayload(data), true, msbFirst, charset); // Directly creating instance
-        } else {
-            throw new IllegalArgumentException("Unsupported String Coding: " + Integer.toBinaryString(typeInfo));
-        }
-    } else if (typeInfoBase == TypeInfo.TYPE_RAW.getValue()) {
-        argument = new ArgumentRaw(getDataPayload(data), msbFirst); // Directly creating instance
-    }
-
-    if (argument == null) {
-        throw new IllegalArgumentException("Unsupported TypeInfo: " + Integer.toBinaryString(typeInfo));
-    }
-    return argument;
-}
-
-    private static byte[] getDataPayload(byte[] data) {
-        byte[] payload = new byte[data.length - TYPE_INFO_LENGTH];
-        System.arraycopy(data, TYPE_INFO_LENGTH, payload, 0, payload.length);
-        return payload;
-    }
-}
-
-
-//////////////////////////////////////////////////////////////////////////////////
-//////////////////////////////////////////////////////////////////////////////////
-// Implement other argument types (ArgumentSInt8, ArgumentSInt16, ArgumentSInt32, etc.)
-
-
-// Follow the same pattern for other types: ArgumentSInt16, ArgumentSInt32, ArgumentSInt64, ArgumentUInt8, ArgumentUInt16, ArgumentUInt32, ArgumentUInt64, ArgumentFloat32, ArgumentFloat64, ArgumentString, ArgumentRaw
-abstract class ArgumentNumBase extends Argument {
-    protected Object data;
-
-    public ArgumentNumBase(Object data, Boolean msbFirst) {
-        super(msbFirst);
-        this.data = data;
-    }
-
-    protected abstract String getStructFormat();
-    public abstract int getDataPayloadLength();
-    protected abstract int getTypeInfo();
-
-    @Override
-    public String _toStr() {
-        return data.toString();
-    }
+    /**
+     * Write the data payload (the bytes after the Type Info) at the index of the buffer.
+     *
+     * @param dst      Destination of the bytes, its order is not used
+     * @param index    Index of the data payload
+     * @param msbFirst True - big endian, False - little endian
+     */
+    protected abstract void encodeDataPayload(ByteBuffer dst, int index, boolean msbFirst);
 
-    @Override
-    public byte[] toBytes(Optional<Boolean> msbFirst) {
-        return this.dataPayloadToBytes(msbFirst.get());
+    // Get length of the bytes of the argument, Type Info and data payload
+    public int getBytesLength() {
+        return TYPE_INFO_LENGTH + getDataPayloadLength();
     }
 
-    @Override
-    public byte[] dataPayloadToBytes(Boolean msbFirst) {
-        ByteOrder byteOrder = msbFirst != null
-                ? (msbFirst ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN)
-                : (this.msbFirst != null
-                ? (this.msbFirst ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN)
-                : ByteOrder.nativeOrder());
-
-        ByteBuffer buffer = ByteBuffer.allocate(getDataPayloadLength()).order(byteOrder);
-        switch (getStructFormat()) {
-            case "?":
-                buffer.put((byte) ((Boolean) data ? 1 : 0));
-                break;
-            case "B":
-                buffer.put((byte) ((Integer) data & 0xFF));
-                break;
-            case "H":
-                buffer.putShort((short) ((Integer) data & 0xFFFF));
-                break;
-            case "I":
-                buffer.putInt((int) ((Long) data & 0xFFFFFFFF));
-                break;
-            case "Q":
-                buffer.putLong((Long) data);
-                break;
-            case "b":
-                buffer.put((byte) data);
-                break;
-            case "h":
-                buffer.putShort((Short) data);
-                break;
-            case "i":
-                buffer.putInt((Integer) data);
-                break;
-            case "q":
-                buffer.putLong((Long) data);
-                break;
-            case "f":
-                buffer.putFloat((Float) data);
-                break;
-            case "d":
-                buffer.putDouble((Double) data);
-                break;
-            default:
-                throw new IllegalArgumentException("Unsupported struct format: " + getStructFormat());
+    /**
+     * Convert to the bytes of the argument, Type Info and data payload.
+     *
+     * @param msbFirst True - big endian, False - little endian,
+     *                 empty - endian of the argument
+     * @return Bytes of the argument
+     * @throws IllegalArgumentException if the endian is not known
+     */
+    public byte[] toBytes(Optional<Boolean> msbFirst) throws IllegalArgumentException {
+        boolean endianFlag;
+        if (msbFirst.isPresent()) {
+            endianFlag = msbFirst.get();
+        } else if (this.msbFirst != null) {
+            endianFlag = this.msbFirst;
+        } else {
+            throw new IllegalArgumentException("Endian is not known");
         }
+        ByteBuffer buffer = ByteBuffer.allocate(getBytesLength());
+        encodeTo(buffer, endianFlag);
         return buffer.array();
     }
 
-    @Override
-    public Argument fromDataPayload(byte[] dataPayload, Boolean msbFirst) {
-        String structFormat = getStructFormatForClass(); // Call to return struct format for this class
-        int dataLength = getDataPayloadLengthForClass(); // Call to return the data length for this class
-
-        ByteOrder byteOrder = msbFirst ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
-        ByteBuffer buffer = ByteBuffer.wrap(dataPayload).order(byteOrder);
-
-        Object result = null;
-        
-        switch (structFormat) {
-            case "?":
-                result = buffer.get() == 1; // Boolean
-                return new ArgumentBool((Boolean)result, msbFirst);
-            case "B":
-                result = (int) buffer.get(); // Byte (Integer casting)
-                return new ArgumentUInt8((Integer)result, msbFirst);
-            case "H":
-                result = (int) buffer.getShort(); // Short to Integer
-                return new ArgumentUInt16((Integer)result, msbFirst);
-            case "I":
-                result = (int) buffer.getInt(); // Integer
-                return new ArgumentUInt32((Integer)result, msbFirst);
-            case "Q":
-                result = buffer.getLong(); // Long
-                return new ArgumentUInt64((Long)result, msbFirst);
-            case "b":
-                result = (byte) buffer.get(); // Byte
-                return new ArgumentSInt8((Integer)result, msbFirst);
-            case "h":
-                result = buffer.getShort(); // Short
-                return new ArgumentSInt16((Integer)result, msbFirst);
-            case "i":
-                result = buffer.getInt(); // Integer
-                return new ArgumentSInt32((Integer)result, msbFirst);
-            case "q":
-                result = buffer.getLong(); // Long
-                return new ArgumentSInt64((Long)result, msbFirst);
-            case "f":
-                result = buffer.getFloat(); // Float
-                return new ArgumentFloat32((Float)result, msbFirst);
-            case "d":
-                result = buffer.getDouble(); // Double
-                return new ArgumentFloat64((Double)result, msbFirst);
-            default:
-                throw new IllegalArgumentException("Unsupported struct format: " + structFormat);
-        }
-    }
-
-    // Methods for determining struct format and payload length based on subclass
-    protected static String getStructFormatForClass() {
-        return "I";  // Example format, adjust as per your classes.
-    }
-
-    protected static int getDataPayloadLengthForClass() {
-        return 4;  // Example length, adjust as needed.
-    }
-}
-
-
-class ArgumentBool extends ArgumentNumBase {
-    public ArgumentBool(Boolean data, Boolean msbFirst) {
-        super(data, msbFirst);
-    }
-
-    @Override
-    protected int getTypeInfo() {
-        return TypeInfo.TYPE_BOOL.getValue() | TypeInfo.TYPE_LENGTH_8BIT.getValue();
-    }
-
-    @Override
-    protected String getStructFormat() {
-        return "?";
-    }
-
-    @Override
-	public int getDataPayloadLength() {
-        return 1;
-    }
-}
-
-class ArgumentUInt8 extends ArgumentNumBase {
-    public ArgumentUInt8(Integer data, Boolean msbFirst) {
-        super(data, msbFirst);
-    }
-
-    @Override
-    protected int getTypeInfo() {
-        return TypeInfo.TYPE_UNSIGNED.getValue() | TypeInfo.TYPE_LENGTH_8BIT.getValue();
-    }
-
-    @Override
-    protected String getStructFormat() {
-        return "B";
-    }
-
-    @Override
-	public int getDataPayloadLength() {
-        return 1;
-    }
-
-}
-class ArgumentUInt16 extends ArgumentNumBase {
-    public ArgumentUInt16(Integer data, Boolean msbFirst) {
-        super(data, msbFirst);
-    }
-
-    @Override
-    protected int getTypeInfo() {
-        return TypeInfo.TYPE_UNSIGNED.getValue() | TypeInfo.TYPE_LENGTH_16BIT.getValue();
-    }
-
-    @Override
-    protected String getStructFormat() {
-        return "H";
-    }
-
-    @Override
-	public int getDataPayloadLength() {
-        return 2;
-    }
-}
-
-class ArgumentUInt32 extends ArgumentNumBase {
-    public ArgumentUInt32(Integer data, Boolean msbFirst) {
-        super(data, msbFirst);
-    }
-
-    @Override
-    protected int getTypeInfo() {
-        return TypeInfo.TYPE_UNSIGNED.getValue() | TypeInfo.TYPE_LENGTH_32BIT.getValue();
-    }
-
-    @Override
-    protected String getStructFormat() {
-        return "I";
-    }
-
-    @Override
-	public int getDataPayloadLength() {
-        return 4;
-    }
-}
-
-class ArgumentUInt64 extends ArgumentNumBase {
-    public ArgumentUInt64(Long data, Boolean msbFirst) {
-        super(data, msbFirst);
-    }
-
-    @Override
-    protected int getTypeInfo() {
-        return TypeInfo.TYPE_UNSIGNED.getValue() | TypeInfo.TYPE_LENGTH_64BIT.getValue();
-    }
-
-    @Override
-    protected String getStructFormat() {
-        return "Q";
-    }
-
-    @Override
-	public int getDataPayloadLength() {
-        return 8;
-    }
-}
-
-
-class ArgumentSInt8 extends ArgumentNumBase {
-    public ArgumentSInt8(Integer data, Boolean msbFirst) {
-        super(data, msbFirst);
-    }
-
-    @Override
-    protected int getTypeInfo() {
-        return TypeInfo.TYPE_SIGNED.getValue() | TypeInfo.TYPE_LENGTH_8BIT.getValue();
-    }
-
-    @Override
-    protected String getStructFormat() {
-        return "b";
-    }
-
-    @Override
-	public int getDataPayloadLength() {
-        return 1;
-    }
-}
-
-
-class ArgumentSInt16 extends ArgumentNumBase {
-    public ArgumentSInt16(Integer data, Boolean msbFirst) {
-        super(data, msbFirst);
-    }
-
-    @Override
-    protected int getTypeInfo() {
-        return TypeInfo.TYPE_SIGNED.getValue() | TypeInfo.TYPE_LENGTH_16BIT.getValue();
-    }
-
-    @Override
-    protected String getStructFormat() {
-        return "h";
-    }
-
-    @Override
-	public int getDataPayloadLength() {
-        return 2;
-    }
-}
-
-class ArgumentSInt32 extends ArgumentNumBase {
-    public ArgumentSInt32(Integer data, Boolean msbFirst) {
-        super(data, msbFirst);
+    /**
+     * Write the bytes of the argument at the position of the buffer and move the
+     * position after them.
+     *
+     * @param dst      Destination of the bytes, its order is not used
+     * @param msbFirst True - big endian, False - little endian
+     * @throws java.nio.BufferOverflowException if there are less than getBytesLength() bytes remaining
+     */
+    public void encodeTo(ByteBuffer dst, boolean msbFirst) {
+        int index = BufferUtils.reserve(dst, getBytesLength());
+        BufferUtils.putInt(dst, index, getTypeInfo(), msbFirst);
+        encodeDataPayload(dst, index + TYPE_INFO_LENGTH, msbFirst);
     }
 
-    @Override
-    protected int getTypeInfo() {
-        return TypeInfo.TYPE_SIGNED.getValue() | TypeInfo.TYPE_LENGTH_32BIT.getValue();
+    /**
+     * Create a numeric argument from its value, e.g. read from a Non-Verbose payload.
+     *
+     * @param typeCode Type code of ArgumentNumBase (0 bool to 10 float64)
+     * @param value    Bytes of the value read as unsigned number, the bits for floats
+     * @param msbFirst True - big endian, False - little endian
+     * @return Argument of the value
+     */
+    static Argument createNumber(int typeCode, long value, boolean msbFirst) {
+        return ArgumentNumBase.create(typeCode, value, msbFirst);
     }
 
-    @Override
-    protected String getStructFormat() {
-        return "i";
+    static Argument createString(String data, boolean isUtf8, boolean msbFirst, Charset encoding) {
+        return new ArgumentString(data, isUtf8, msbFirst, encoding);
     }
 
-    @Override
-	public int getDataPayloadLength() {
-        return 4;
+    static Argument createRaw(byte[] data, boolean msbFirst) {
+        return new ArgumentRaw(data, msbFirst);
     }
-}
 
-class ArgumentSInt64 extends ArgumentNumBase {
-    public ArgumentSInt64(long data, Boolean msbFirst) {
-        super(data, msbFirst);
+    public static Argument createFromBytes(byte[] data, Boolean msbFirst, Optional<String> encoding) {
+        return createFromBytes(ByteBuffer.wrap(data), 0, data.length, msbFirst, encoding);
     }
 
-    @Override
-    protected int getTypeInfo() {
-        return TypeInfo.TYPE_SIGNED.getValue() | TypeInfo.TYPE_LENGTH_64BIT.getValue();
+    /**
+     * Create an argument from the bytes at the offset of the buffer.
+     *
+     * Only the bytes of this argument are read, the buffer itself is not changed.
+     *
+     * @param src      Buffer containing the argument
+     * @param offset   Offset of the Type Info of the argument
+     * @param length   Number of bytes available for the argument
+     * @param msbFirst True - big endian, False - little endian
+     * @param encoding Encoding of the string arguments
+     * @return Decoded argument
+     * @throws IllegalArgumentException if the Type Info is not supported or the data is too short
+     */
+    public static Argument createFromBytes(ByteBuffer src, int offset, int length, Boolean msbFirst, Optional<String> encoding) {
+        return createFromBytes(src, offset, length, msbFirst, encoding, null, false);
     }
 
-    @Override
-    protected String getStructFormat() {
-        return "q";
+    /**
+     * As createFromBytes, with the options of the payloads which own their bytes.
+     *
+     * @param pool Pool to refill an argument of instead of creating one, null for none
+     * @param lazy True to decode a string when it is read, the bytes of the buffer must
+     *             not change while the argument is used
+     */
+    static Argument createFromBytes(ByteBuffer src, int offset, int length, Boolean msbFirst, Optional<String> encoding,
+                                    Pool pool, boolean lazy) {
+        // Arguments are decoded when they are read, after their message, so the errors are counted here
+        try {
+            return decode(src, offset, length, msbFirst, encoding, pool, lazy);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            DltMetrics.decodeFailed(e);
+            throw e;
+        }
     }
 
-    @Override
-	public int getDataPayloadLength() {
-        return 8;
-    }
-}
+    private static Argument decode(ByteBuffer src, int offset, int length, Boolean msbFirst, Optional<String> encoding,
+                                   Pool pool, boolean lazy) {
+        getArgumentLength(src, offset, length, msbFirst); // Check the argument is inside the data
+        int typeInfo = BufferUtils.getInt(src, offset, msbFirst);
+        int typeInfoBase = typeInfo & BitMasks.MASK_BASE_TYPE;
+        int dataOffset = offset + TYPE_INFO_LENGTH;
+        Argument argument = null;
+
+        if (typeInfoBase == TypeInfo.TYPE_STRING.getValue()) {
+            int stringCoding = typeInfo & BitMasks.MASK_STRING_CODING;
+            boolean isUtf8;
+
+            if (stringCoding == TypeInfo.STRING_CODING_ASCII.getValue()) {
+                isUtf8 = false;
+            } else if (stringCoding == TypeInfo.STRING_CODING_UTF8.getValue()) {
+                isUtf8 = true;
+            } else {
+                throw new DltDecodeException(DltMetrics.Cause.UNSUPPORTED_TYPE_INFO, "Unsupported String Coding: " + Integer.toBinaryString(typeInfo));
+            }
+            ArgumentString string = pool != null ? pool.string() : new ArgumentString();
+            string.refill(src, dataOffset, isUtf8, msbFirst, isUtf8 ? null : StringDecoder.charsetOf(encoding), lazy);
+            argument = string;
+        } else if (typeInfoBase == TypeInfo.TYPE_RAW.getValue()) {
+            argument = pool != null ? pool.raw(src, dataOffset, msbFirst) : ArgumentRaw.fromDataPayload(src, dataOffset, msbFirst);
+        } else {
+            int typeCode = ArgumentNumBase.typeCodeOf(typeInfo);
+            if (typeCode >= 0) {
+                long value = ArgumentNumBase.readValue(src, dataOffset, typeCode, msbFirst);
+                argument = pool != null ? pool.number(typeCode, value, msbFirst) : createNumber(typeCode, value, msbFirst);
+            }
+        }
 
-class ArgumentFloat32 extends ArgumentNumBase {
-    public ArgumentFloat32(Float data, Boolean msbFirst) {
-        super(data, msbFirst);
+        if (argument == null) {
+            throw new DltDecodeException(DltMetrics.Cause.UNSUPPORTED_TYPE_INFO, "Unsupported TypeInfo: " + Integer.toBinaryString(typeInfo));
+        }
+        DltMetrics.argumentDecoded(typeInfo);
+        return argument;
     }
 
-    @Override
-    protected int getTypeInfo() {
-        return TypeInfo.TYPE_FLOAT.getValue() | TypeInfo.TYPE_LENGTH_32BIT.getValue();
-    }
+    /**
+     * Get length of the argument at the offset of the buffer (Type Info and data payload)
+     * without decoding its value.
+     *
+     * @param src      Buffer containing the argument
+     * @param offset   Offset of the Type Info of the argument
+     * @param length   Number of bytes available for the argument
+     * @param msbFirst True - big endian, False - little endian
+     * @return Length of the argument in bytes
+     * @throws IllegalArgumentException if the Type Info is not supported or the data is too short
+     */
+    public static int getArgumentLength(ByteBuffer src, int offset, int length, boolean msbFirst) {
+        if (length < TYPE_INFO_LENGTH) {
+            throw new DltDecodeException(DltMetrics.Cause.LENGTH_UNDERFLOW, "Unexpected length of the data: " + length +
+                    " / Argument must be " + TYPE_INFO_LENGTH + " or more");
+        }
+        int typeInfo = BufferUtils.getInt(src, offset, msbFirst);
+        int typeInfoBase = typeInfo & BitMasks.MASK_BASE_TYPE;
+
+        int argumentLength;
+        if (typeInfoBase == TypeInfo.TYPE_STRING.getValue() || typeInfoBase == TypeInfo.TYPE_RAW.getValue()) {
+            if (length < TYPE_INFO_LENGTH + ArgumentByteBase.LENGTH_SIZE) {
+                throw new DltDecodeException(DltMetrics.Cause.LENGTH_UNDERFLOW, "Unexpected length of the data: " + length +
+                        " / Argument must be " + (TYPE_INFO_LENGTH + ArgumentByteBase.LENGTH_SIZE) + " or more");
+            }
+            argumentLength = TYPE_INFO_LENGTH + ArgumentByteBase.LENGTH_SIZE
+                    + BufferUtils.getUnsignedShort(src, offset + TYPE_INFO_LENGTH, msbFirst);
+        } else if (typeInfoBase == TypeInfo.TYPE_BOOL.getValue() || typeInfoBase == TypeInfo.TYPE_SIGNED.getValue()
+                || typeInfoBase == TypeInfo.TYPE_UNSIGNED.getValue() || typeInfoBase == TypeInfo.TYPE_FLOAT.getValue()) {
+            argumentLength = TYPE_INFO_LENGTH + getTypeLengthBytes(typeInfo);
+        } else {
+            throw new DltDecodeException(DltMetrics.Cause.UNSUPPORTED_TYPE_INFO, "Unsupported TypeInfo: " + Integer.toBinaryString(typeInfo));
+        }
 
-    @Override
-    protected String getStructFormat() {
-        return "f";
+        if (length < argumentLength) {
+            throw new DltDecodeException(DltMetrics.Cause.LENGTH_UNDERFLOW, "Unexpected length of the data: " + length +
+                    " / Argument with TypeInfo " + Integer.toBinaryString(typeInfo) + " must be " + argumentLength + " or more");
+        }
+        return argumentLength;
     }
 
-    @Override
-	public int getDataPayloadLength() {
-        return 4;
+    // Number of bytes of the value for Type Length of the Type Info
+    private static int getTypeLengthBytes(int typeInfo) {
+        int typeInfoLength = typeInfo & BitMasks.MASK_TYPE_LENGTH;
+        if (typeInfoLength == TypeInfo.TYPE_LENGTH_8BIT.getValue()) {
+            return 1;
+        } else if (typeInfoLength == TypeInfo.TYPE_LENGTH_16BIT.getValue()) {
+            return 2;
+        } else if (typeInfoLength == TypeInfo.TYPE_LENGTH_32BIT.getValue()) {
+            return 4;
+        } else if (typeInfoLength == TypeInfo.TYPE_LENGTH_64BIT.getValue()) {
+            return 8;
+        } else if (typeInfoLength == TypeInfo.TYPE_LENGTH_128BIT.getValue()) {
+            return 16;
+        }
+        throw new DltDecodeException(DltMetrics.Cause.UNSUPPORTED_TYPE_INFO, "Unsupported TypeInfo: " + Integer.toBinaryString(typeInfo));
     }
-}
 
-class ArgumentFloat64 extends ArgumentNumBase {
-    public ArgumentFloat64(Double data, Boolean msbFirst) {
-        super(data, msbFirst);
-    }
+    /**
+     * Arguments reused for the payloads of a recyclable message, see {@link DltMessage#refill}.
+     *
+     * The arguments taken since the last {@link #reset()} belong to the current payload,
+     * the others are refilled when an argument of their kind is decoded. Once the pool has
+     * as many arguments of each kind as the largest payload, decoding creates no more.
+     */
+    static final class Pool {
+        private final ArgumentNumBase[][] numbers = new ArgumentNumBase[ArgumentNumBase.TYPE_CODE_FLOAT64 + 1][0];
+        private final int[] usedNumbers = new int[numbers.length];
+        private ArgumentString[] strings = new ArgumentString[0];
+        private int usedStrings;
+        private ArgumentRaw[] raws = new ArgumentRaw[0];
+        private int usedRaws;
+
+        // Release the arguments of the previous payload
+        void reset() {
+            Arrays.fill(usedNumbers, 0);
+            usedStrings = 0;
+            usedRaws = 0;
+        }
 
-    @Override
-    protected int getTypeInfo() {
-        return TypeInfo.TYPE_FLOAT.getValue() | TypeInfo.TYPE_LENGTH_64BIT.getValue();
-    }
+        // Numeric argument of the value, given as Argument.createNumber takes it
+        Argument number(int typeCode, long value, boolean msbFirst) {
+            ArgumentNumBase[] pooled = numbers[typeCode];
+            int index = usedNumbers[typeCode]++;
+            if (index == pooled.length) {
+                pooled = Arrays.copyOf(pooled, Math.max(4, index * 2));
+                numbers[typeCode] = pooled;
+            }
+            ArgumentNumBase argument = pooled[index];
+            if (argument == null) {
+                argument = ArgumentNumBase.create(typeCode, value, msbFirst);
+                pooled[index] = argument;
+            } else {
+                argument.refill(value, msbFirst);
+            }
+            return argument;
+        }
 
-    @Override
-    protected String getStructFormat() {
-        return "d";
-    }
+        // String argument to refill
+        ArgumentString string() {
+            if (usedStrings == strings.length) {
+                strings = Arrays.copyOf(strings, Math.max(4, usedStrings * 2));
+            }
+            ArgumentString argument = strings[usedStrings];
+            if (argument == null) {
+                argument = new ArgumentString();
+                strings[usedStrings] = argument;
+            }
+            usedStrings++;
+            return argument;
+        }
 
-    @Override
-	public int getDataPayloadLength() {
-        return 8;
+        // Raw argument of the data payload at the offset of the buffer
+        Argument raw(ByteBuffer src, int offset, boolean msbFirst) {
+            if (usedRaws == raws.length) {
+                raws = Arrays.copyOf(raws, Math.max(4, usedRaws * 2));
+            }
+            ArgumentRaw argument = raws[usedRaws];
+            if (argument == null) {
+                argument = ArgumentRaw.fromDataPayload(src, offset, msbFirst);
+                raws[usedRaws] = argument;
+            } else {
+                argument.refill(src, offset, msbFirst);
+            }
+            usedRaws++;
+            return argument;
+        }
     }
 }
 
 
+//////////////////////////////////////////////////////////////////////////////////
+//////////////////////////////////////////////////////////////////////////////////
+// Implement other argument types (ArgumentSInt8, ArgumentSInt16, ArgumentSInt32, etc.)
 
 
-
-
-// Add the remaining classes (ArgumentUInt16, ArgumentUInt32, ArgumentUInt64, ArgumentSInt8, etc.)
-// using the same pattern, ensuring the `getStructFormat` and `getDataPayloadLength` align with the Python version.
+// Follow the same pattern for other types: ArgumentSInt16, ArgumentSInt32, ArgumentSInt64, ArgumentUInt8, ArgumentUInt16, ArgumentUInt32, ArgumentUInt64, ArgumentFloat32, ArgumentFloat64, ArgumentString, ArgumentRaw
 
 
 // Raw Argument - placeholder for raw bytes.
@@ -544,6 +381,13 @@ abstract class ArgumentByteBase extends Argument {
      */
     protected abstract byte[] dataToBytes();
 
+    @Override
+    protected void encodeDataPayload(ByteBuffer dst, int index, boolean msbFirst) {
+        byte[] bytes = dataToBytes();
+        BufferUtils.putShort(dst, index, (short) bytes.length, msbFirst);
+        dst.put(index + LENGTH_SIZE, bytes);
+    }
+
     /**
      * Determines the byte order based on the provided value, instance default, or global default.
      * 
@@ -576,28 +420,94 @@ abstract class ArgumentByteBase extends Argument {
 }
 
 class ArgumentString extends ArgumentByteBase {
-    private final String data;
-    private final boolean isUtf8;
-    private final Charset encoding;
+    // String, null until it is decoded from the bytes
+    private String data;
+    // Bytes of the string without the null terminator, kept until the string is read
+    private byte[] bytes;
+    private int bytesOffset;
+    private int bytesLength;
+    private boolean isUtf8;
+    private Charset encoding;
+    // Encoded data without the null terminator, set on first use
+    private byte[] encodedData;
 
     public ArgumentString(String data, boolean isUtf8, Boolean msbFirst, Charset encoding) {
         super(msbFirst);
+        refill(data, isUtf8, msbFirst, encoding);
+    }
+
+    // Empty argument, filled by refill
+    ArgumentString() {
+        super(null);
+    }
+
+    // Overwrite the string to reuse the argument
+    void refill(String data, boolean isUtf8, Boolean msbFirst, Charset encoding) {
+        this.msbFirst = msbFirst;
         this.data = data;
+        this.bytes = null;
         this.isUtf8 = isUtf8;
         // Use UTF-8 if isUtf8 is true, else fallback to a custom charset or US-ASCII
         this.encoding = isUtf8 ? StandardCharsets.UTF_8 : (encoding != null ? encoding : StandardCharsets.US_ASCII);
+        this.encodedData = null;
+    }
+
+    /**
+     * Overwrite the string with the data payload (length field and string) at the offset
+     * of the buffer.
+     *
+     * @param lazy True to keep the range of the array of the buffer and decode the string
+     *             when it is read, the bytes must not change while the argument is used
+     */
+    void refill(ByteBuffer src, int offset, boolean isUtf8, Boolean msbFirst, Charset encoding, boolean lazy) {
+        int length = BufferUtils.getUnsignedShort(src, offset, msbFirst != null && msbFirst);
+        // The string without the null terminator
+        int stringLength = Math.max(length - 1, 0);
+        refill((String) null, isUtf8, msbFirst, encoding);
+        if (lazy && src.hasArray()) {
+            bytes = src.array();
+            bytesOffset = src.arrayOffset() + offset + LENGTH_SIZE;
+            bytesLength = stringLength;
+        } else {
+            data = StringDecoder.decode(src, offset + LENGTH_SIZE, stringLength, this.encoding);
+        }
+    }
+
+    // Get the string, decoding it on first use
+    String getString() {
+        String string = data;
+        if (string == null) {
+            string = StringDecoder.decode(bytes, bytesOffset, bytesLength, encoding);
+            data = string;
+        }
+        return string;
     }
 
     @Override
     protected int getDataLength() {
         // Calculate the data length plus one for the null terminator
-        return data.getBytes(encoding).length + 1;
+        return getEncodedData().length + 1;
+    }
+
+    private byte[] getEncodedData() {
+        if (encodedData == null) {
+            encodedData = getString().getBytes(encoding);
+        }
+        return encodedData;
+    }
+
+    @Override
+    protected void encodeDataPayload(ByteBuffer dst, int index, boolean msbFirst) {
+        byte[] bytes = getEncodedData();
+        BufferUtils.putShort(dst, index, (short) (bytes.length + 1), msbFirst);
+        dst.put(index + LENGTH_SIZE, bytes);
+        dst.put(index + LENGTH_SIZE + bytes.length, (byte) 0); // Null terminator
     }
 
     @Override
     protected byte[] dataToBytes() {
         // Get the bytes for the string based on the encoding
-        byte[] encodedData = data.getBytes(encoding);
+        byte[] encodedData = getEncodedData();
         byte[] result = new byte[encodedData.length + 1]; // Add 1 byte for null terminator
         System.arraycopy(encodedData, 0, result, 0, encodedData.length);
         result[encodedData.length] = 0; // Null terminator
@@ -613,12 +523,17 @@ class ArgumentString extends ArgumentByteBase {
         Charset selectedEncoding = isUtf8 ? StandardCharsets.UTF_8 : (encoding != null ? encoding : StandardCharsets.US_ASCII);
 
         // Decode the string (excluding the length and null terminator)
-        String data = new String(dataPayload, LENGTH_SIZE, length - 1, selectedEncoding);
+        String data = StringDecoder.decode(dataPayload, LENGTH_SIZE, length - 1, selectedEncoding);
 
         return new ArgumentString(data, isUtf8, msbFirst, encoding);
     }
 
- 
+    // Decode the data payload (length field and string) at the offset of the buffer
+    public static ArgumentString fromDataPayload(ByteBuffer src, int offset, boolean isUtf8, Boolean msbFirst, Charset encoding) {
+        ArgumentString argument = new ArgumentString();
+        argument.refill(src, offset, isUtf8, msbFirst, encoding, false);
+        return argument;
+    }
 
     public int getTypeInfo() {
         int typeInfo = TypeInfo.TYPE_STRING.getValue();
@@ -629,63 +544,68 @@ class ArgumentString extends ArgumentByteBase {
     }
 
     @Override
-    public byte[] toBytes(Optional<Boolean> msbFirst) {
-        if (msbFirst == null) {
-            throw new IllegalArgumentException("msbFirst cannot be null");
-        }
-
-        // Determine byte order based on msbFirst flag
-        ByteOrder byteOrder = msbFirst.get() ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
-
-        // Create ByteBuffer for the serialized data: 2 bytes for length, data, null terminator
-        ByteBuffer buffer = ByteBuffer.allocate(2 + data.getBytes(encoding).length + 1);
-        buffer.order(byteOrder);
-
-        // Add the length field (2 bytes)
-        buffer.putShort((short) getDataLength());
-
-        // Add the actual data encoded
-        buffer.put(data.getBytes(encoding));
-
-        // Add null terminator at the end
-        buffer.put((byte) 0);
-
-        return buffer.array();
+    public String _toStr() {
+        return getString(); // Same as toStr in this case
     }
 
     @Override
-    public String _toStr() {
-        return data; // Same as toStr in this case
+    public void render(Appendable out) throws IOException {
+        if (data == null && out instanceof StringBuilder
+                && StringDecoder.appendAscii(bytes, bytesOffset, bytesLength, encoding, (StringBuilder) out)) {
+            // Not decoded, the ASCII bytes are the characters
+            return;
+        }
+        out.append(getString());
     }
 }
 
 
 class ArgumentRaw extends ArgumentByteBase {
-    private final byte[] data;
+    private byte[] data;
+    // Number of bytes of data used, the array may be larger when the argument is reused
+    private int length;
 
     public ArgumentRaw(byte[] data, Boolean msbFirst) {
         super(msbFirst);
         this.data = data;
+        this.length = data.length;
+    }
+
+    // Overwrite the bytes with the data payload at the offset of the buffer to reuse the argument
+    void refill(ByteBuffer src, int offset, boolean msbFirst) {
+        this.msbFirst = msbFirst;
+        length = BufferUtils.getUnsignedShort(src, offset, msbFirst);
+        if (data.length < length) {
+            data = new byte[Math.max(length, data.length * 2)];
+        }
+        src.get(offset + LENGTH_SIZE, data, 0, length);
     }
 
     @Override
 	public String _toStr() {
         // Return hexadecimal representation of the data
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : data) {
-            hexString.append(String.format("%02x", b));
-        }
-        return hexString.toString();
+        return RenderUtils.toString(this::render);
+    }
+
+    @Override
+    public void render(Appendable out) throws IOException {
+        RenderUtils.appendHex(data, 0, length, out);
     }
 
     @Override
     protected int getDataLength() {
-        return data.length;
+        return length;
     }
 
     @Override
     public byte[] dataToBytes() {
-        return data;
+        return length == data.length ? data : Arrays.copyOf(data, length);
+    }
+
+    @Override
+    protected void encodeDataPayload(ByteBuffer dst, int index, boolean msbFirst) {
+        BufferUtils.putShort(dst, index, (short) length, msbFirst);
+        dst.put(index + LENGTH_SIZE, data, 0, length);
     }
 
     public static ArgumentRaw fromDataPayload(byte[] dataPayload, boolean msbFirst) {
@@ -703,31 +623,18 @@ class ArgumentRaw extends ArgumentByteBase {
         return new ArgumentRaw(data, msbFirst);
     }
 
-    public int getTypeInfo() {
-        // Returning the type for raw data (depends on how TypeInfo is defined)
-        return TypeInfo.TYPE_RAW.getValue();
-    }
-    
-    @Override
-    public byte[] toBytes(Optional<Boolean> msbFirst) {
-        // Handle the endianness (big-endian or little-endian)
-        if (msbFirst == null) {
-            throw new IllegalArgumentException("msbFirst cannot be null");
-        }
+    // Decode the data payload (length field and raw bytes) at the offset of the buffer
+    public static ArgumentRaw fromDataPayload(ByteBuffer src, int offset, boolean msbFirst) {
+        int length = BufferUtils.getUnsignedShort(src, offset, msbFirst);
 
-        // Determine the byte order based on the msbFirst flag
-        ByteOrder byteOrder = msbFirst.get() ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
-        ByteBuffer buffer = ByteBuffer.allocate(2 + data.length); // Length (2 bytes) + data
-        buffer.order(byteOrder);
-
-        // Add length prefix (2 bytes)
-        buffer.putShort((short) getDataLength());
+        byte[] data = new byte[length];
+        src.get(offset + LENGTH_SIZE, data);
 
-        // Add data
-        buffer.put(data);
+        return new ArgumentRaw(data, msbFirst);
+    }
 
-        // Return the resulting byte array
-        return buffer.array();
+    public int getTypeInfo() {
+        // Returning the type for raw data (depends on how TypeInfo is defined)
+        return TypeInfo.TYPE_RAW.getValue();
     }
 }
-
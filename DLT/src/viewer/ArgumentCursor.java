@@ -0,0 +1,96 @@
+package viewer;
+
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+/**
+ * Cursor over the arguments of a verbose payload.
+ *
+ * The cursor moves through the payload in place. An argument is only decoded by
+ * {@link #next()}, {@link #skip()} just reads its length and moves on.
+ */
+public class ArgumentCursor {
+    private final ByteBuffer src;
+    private final int end;
+    private final boolean msbFirst;
+    private final int numberOfArguments;
+    private final Optional<String> encoding;
+
+    private int index;
+    private int position;
+
+    public ArgumentCursor(ByteBuffer src, int offset, int length, boolean msbFirst,
+                          int numberOfArguments, Optional<String> encoding) {
+        BufferUtils.checkRange(src, offset, length);
+        this.src = src;
+        this.end = offset + length;
+        this.msbFirst = msbFirst;
+        this.numberOfArguments = numberOfArguments;
+        this.encoding = encoding;
+        this.position = offset;
+    }
+
+    public boolean hasNext() {
+        return index < numberOfArguments;
+    }
+
+    // Index of the next argument
+    public int getIndex() {
+        return index;
+    }
+
+    // Offset of the next argument in the buffer
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Get Type Info of the next argument without decoding it.
+     *
+     * @return Type Info of the next argument
+     * @throws IllegalArgumentException if the payload ends before the Type Info, e.g. when
+     *                                  the Number of Arguments is too large
+     */
+    public int peekTypeInfo() {
+        checkNext();
+        if (end - position < Argument.TYPE_INFO_LENGTH) {
+            DltDecodeException e = new DltDecodeException(DltMetrics.Cause.LENGTH_UNDERFLOW,
+                    "Unexpected length of the data: " + (end - position) + " / Argument " + index
+                            + " must be " + Argument.TYPE_INFO_LENGTH + " or more");
+            DltMetrics.decodeFailed(e);
+            throw e;
+        }
+        return BufferUtils.getInt(src, position, msbFirst);
+    }
+
+    /**
+     * Decode the next argument and move to the one after it.
+     *
+     * @return Decoded argument
+     * @throws IllegalArgumentException if the argument cannot be decoded
+     */
+    public Argument next() {
+        checkNext();
+        Argument argument = Argument.createFromBytes(src, position, end - position, msbFirst, encoding);
+        skip();
+        return argument;
+    }
+
+    /**
+     * Move to the next argument without decoding the current one.
+     *
+     * @throws IllegalArgumentException if the length of the argument cannot be read
+     */
+    public void skip() {
+        checkNext();
+        position += Argument.getArgumentLength(src, position, end - position, msbFirst);
+        index++;
+    }
+
+    private void checkNext() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more arguments: " + numberOfArguments);
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package viewer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Numeric argument of a verbose payload: bool, signed and unsigned integers and floats.
+ * The value is read with {@link #getLong()} or {@link #getDouble()}.
+ */
+public abstract class ArgumentNumBase extends Argument {
+    // Type codes of the numeric arguments
+    public static final int TYPE_CODE_BOOL = 0;
+    public static final int TYPE_CODE_UINT8 = 1;
+    public static final int TYPE_CODE_UINT16 = 2;
+    public static final int TYPE_CODE_UINT32 = 3;
+    public static final int TYPE_CODE_UINT64 = 4;
+    public static final int TYPE_CODE_SINT8 = 5;
+    public static final int TYPE_CODE_SINT16 = 6;
+    public static final int TYPE_CODE_SINT32 = 7;
+    public static final int TYPE_CODE_SINT64 = 8;
+    public static final int TYPE_CODE_FLOAT32 = 9;
+    public static final int TYPE_CODE_FLOAT64 = 10;
+
+    // Length of the data payload for each type code
+    private static final int[] DATA_PAYLOAD_LENGTHS = {1, 1, 2, 4, 8, 1, 2, 4, 8, 4, 8};
+
+    protected final int typeCode;
+
+    // Value of the argument: the integer value (bool as 0/1), or the bits of the double value for floats
+    protected long data;
+
+    ArgumentNumBase(int typeCode, long data, Boolean msbFirst) {
+        super(msbFirst);
+        this.typeCode = typeCode;
+        this.data = data;
+    }
+
+    ArgumentNumBase(int typeCode, double data, Boolean msbFirst) {
+        this(typeCode, Double.doubleToRawLongBits(data), msbFirst);
+    }
+
+    protected abstract int getTypeInfo();
+
+    /**
+     * Get the type code for the Type Info of a numeric argument.
+     *
+     * @param typeInfo Type Info of the argument
+     * @return Type code, -1 if the Type Info is not a supported numeric type
+     */
+    static int typeCodeOf(int typeInfo) {
+        int typeInfoBase = typeInfo & BitMasks.MASK_BASE_TYPE;
+        int typeInfoLength = typeInfo & BitMasks.MASK_TYPE_LENGTH;
+        if (typeInfoBase == TypeInfo.TYPE_BOOL.getValue()) {
+            return TYPE_CODE_BOOL;
+        } else if (typeInfoBase == TypeInfo.TYPE_SIGNED.getValue()) {
+            if (typeInfoLength == TypeInfo.TYPE_LENGTH_8BIT.getValue()) {
+                return TYPE_CODE_SINT8;
+            } else if (typeInfoLength == TypeInfo.TYPE_LENGTH_16BIT.getValue()) {
+                return TYPE_CODE_SINT16;
+            } else if (typeInfoLength == TypeInfo.TYPE_LENGTH_32BIT.getValue()) {
+                return TYPE_CODE_SINT32;
+            } else if (typeInfoLength == TypeInfo.TYPE_LENGTH_64BIT.getValue()) {
+                return TYPE_CODE_SINT64;
+            }
+        } else if (typeInfoBase == TypeInfo.TYPE_UNSIGNED.getValue()) {
+            if (typeInfoLength == TypeInfo.TYPE_LENGTH_8BIT.getValue()) {
+                return TYPE_CODE_UINT8;
+            } else if (typeInfoLength == TypeInfo.TYPE_LENGTH_16BIT.getValue()) {
+                return TYPE_CODE_UINT16;
+            } else if (typeInfoLength == TypeInfo.TYPE_LENGTH_32BIT.getValue()) {
+                return TYPE_CODE_UINT32;
+            } else if (typeInfoLength == TypeInfo.TYPE_LENGTH_64BIT.getValue()) {
+                return TYPE_CODE_UINT64;
+            }
+        } else if (typeInfoBase == TypeInfo.TYPE_FLOAT.getValue()) {
+            if (typeInfoLength == TypeInfo.TYPE_LENGTH_32BIT.getValue()) {
+                return TYPE_CODE_FLOAT32;
+            } else if (typeInfoLength == TypeInfo.TYPE_LENGTH_64BIT.getValue()) {
+                return TYPE_CODE_FLOAT64;
+            }
+        }
+        return -1;
+    }
+
+    // Numeric argument of the value, see Argument.createNumber
+    static ArgumentNumBase create(int typeCode, long value, boolean msbFirst) {
+        switch (typeCode) {
+            case TYPE_CODE_BOOL:
+                return new ArgumentBool(value != 0, msbFirst);
+            case TYPE_CODE_UINT8:
+                return new ArgumentUInt8((int) value, msbFirst);
+            case TYPE_CODE_UINT16:
+                return new ArgumentUInt16((int) value, msbFirst);
+            case TYPE_CODE_UINT32:
+                return new ArgumentUInt32(value, msbFirst);
+            case TYPE_CODE_UINT64:
+                return new ArgumentUInt64(value, msbFirst);
+            case TYPE_CODE_SINT8:
+                return new ArgumentSInt8((byte) value, msbFirst);
+            case TYPE_CODE_SINT16:
+                return new ArgumentSInt16((short) value, msbFirst);
+            case TYPE_CODE_SINT32:
+                return new ArgumentSInt32((int) value, msbFirst);
+            case TYPE_CODE_SINT64:
+                return new ArgumentSInt64(value, msbFirst);
+            case TYPE_CODE_FLOAT32:
+                return new ArgumentFloat32(Float.intBitsToFloat((int) value), msbFirst);
+            case TYPE_CODE_FLOAT64:
+                return new ArgumentFloat64(Double.longBitsToDouble(value), msbFirst);
+            default:
+                throw new DltDecodeException(DltMetrics.Cause.UNSUPPORTED_TYPE_INFO, "Unsupported type code: " + typeCode);
+        }
+    }
+
+    /**
+     * Read the value of the data payload at the offset of the buffer as createNumber takes it:
+     * the bytes as unsigned number, the bits for floats.
+     *
+     * @param src      Buffer containing the data payload
+     * @param offset   Offset of the data payload
+     * @param typeCode Type code of the argument
+     * @param msbFirst True - big endian, False - little endian
+     * @return Value of the data payload
+     */
+    static long readValue(ByteBuffer src, int offset, int typeCode, boolean msbFirst) {
+        switch (DATA_PAYLOAD_LENGTHS[typeCode]) {
+            case 1:
+                return BufferUtils.getUnsignedByte(src, offset);
+            case 2:
+                return BufferUtils.getUnsignedShort(src, offset, msbFirst);
+            case 4:
+                return Integer.toUnsignedLong(BufferUtils.getInt(src, offset, msbFirst));
+            default:
+                return BufferUtils.getLong(src, offset, msbFirst);
+        }
+    }
+
+    // Overwrite the value, given as createNumber takes it, to reuse the argument
+    void refill(long value, Boolean msbFirst) {
+        this.msbFirst = msbFirst;
+        switch (typeCode) {
+            case TYPE_CODE_BOOL:
+                data = value != 0 ? 1L : 0L;
+                break;
+            case TYPE_CODE_UINT8:
+                data = value & 0xFFL;
+                break;
+            case TYPE_CODE_UINT16:
+                data = value & 0xFFFFL;
+                break;
+            case TYPE_CODE_UINT32:
+                data = value & 0xFFFFFFFFL;
+                break;
+            case TYPE_CODE_SINT8:
+                data = (byte) value;
+                break;
+            case TYPE_CODE_SINT16:
+                data = (short) value;
+                break;
+            case TYPE_CODE_SINT32:
+                data = (int) value;
+                break;
+            case TYPE_CODE_FLOAT32:
+                data = Double.doubleToRawLongBits(Float.intBitsToFloat((int) value));
+                break;
+            default:
+                data = value;
+        }
+    }
+
+    public int getTypeCode() {
+        return typeCode;
+    }
+
+    public boolean isFloatingPoint() {
+        return typeCode == TYPE_CODE_FLOAT32 || typeCode == TYPE_CODE_FLOAT64;
+    }
+
+    /**
+     * Get the value as long without boxing.
+     * UInt64 values above Long.MAX_VALUE are returned as their two's complement,
+     * floating point values are truncated.
+     *
+     * @return Value of the argument
+     */
+    public long getLong() {
+        return isFloatingPoint() ? (long) Double.longBitsToDouble(data) : data;
+    }
+
+    /**
+     * Get the value as double without boxing.
+     *
+     * @return Value of the argument
+     */
+    public double getDouble() {
+        if (isFloatingPoint()) {
+            return Double.longBitsToDouble(data);
+        }
+        if (typeCode == TYPE_CODE_UINT64 && data < 0) {
+            return (double) (data >>> 1) * 2.0 + (data & 1);
+        }
+        return data;
+    }
+
+    @Override
+    public int getDataPayloadLength() {
+        return DATA_PAYLOAD_LENGTHS[typeCode];
+    }
+
+    @Override
+    public String _toStr() {
+        switch (typeCode) {
+            case TYPE_CODE_BOOL:
+                return Boolean.toString(data != 0);
+            case TYPE_CODE_UINT64:
+                return Long.toUnsignedString(data);
+            case TYPE_CODE_FLOAT32:
+                return Float.toString((float) Double.longBitsToDouble(data));
+            case TYPE_CODE_FLOAT64:
+                return Double.toString(Double.longBitsToDouble(data));
+            default:
+                return Long.toString(data);
+        }
+    }
+
+    @Override
+    public void render(Appendable out) throws IOException {
+        switch (typeCode) {
+            case TYPE_CODE_BOOL:
+                out.append(data != 0 ? "true" : "false");
+                break;
+            case TYPE_CODE_UINT64:
+                RenderUtils.appendUnsigned(data, out);
+                break;
+            case TYPE_CODE_FLOAT32:
+                RenderUtils.append((float) Double.longBitsToDouble(data), out);
+                break;
+            case TYPE_CODE_FLOAT64:
+                RenderUtils.append(Double.longBitsToDouble(data), out);
+                break;
+            default:
+                RenderUtils.append(data, out);
+        }
+    }
+
+    @Override
+    public byte[] dataPayloadToBytes(Boolean msbFirst) {
+        boolean endianFlag = msbFirst != null ? msbFirst
+                : (this.msbFirst != null ? this.msbFirst : ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN);
+        ByteBuffer buffer = ByteBuffer.allocate(getDataPayloadLength());
+        encodeDataPayload(buffer, 0, endianFlag);
+        return buffer.array();
+    }
+
+    @Override
+    protected void encodeDataPayload(ByteBuffer dst, int index, boolean msbFirst) {
+        switch (typeCode) {
+            case TYPE_CODE_BOOL:
+            case TYPE_CODE_UINT8:
+            case TYPE_CODE_SINT8:
+                dst.put(index, (byte) data);
+                break;
+            case TYPE_CODE_UINT16:
+            case TYPE_CODE_SINT16:
+                BufferUtils.putShort(dst, index, (short) data, msbFirst);
+                break;
+            case TYPE_CODE_UINT32:
+            case TYPE_CODE_SINT32:
+                BufferUtils.putInt(dst, index, (int) data, msbFirst);
+                break;
+            case TYPE_CODE_UINT64:
+            case TYPE_CODE_SINT64:
+            case TYPE_CODE_FLOAT64:
+                BufferUtils.putLong(dst, index, data, msbFirst);
+                break;
+            case TYPE_CODE_FLOAT32:
+                BufferUtils.putInt(dst, index, Float.floatToRawIntBits((float) Double.longBitsToDouble(data)), msbFirst);
+                break;
+            default:
+                throw new DltDecodeException(DltMetrics.Cause.UNSUPPORTED_TYPE_INFO, "Unsupported type code: " + typeCode);
+        }
+    }
+
+    @Override
+    public Argument fromDataPayload(byte[] dataPayload, Boolean msbFirst) {
+        ByteBuffer buffer = ByteBuffer.wrap(dataPayload);
+        boolean msbf = msbFirst != null && msbFirst;
+
+        switch (typeCode) {
+            case TYPE_CODE_BOOL:
+                return new ArgumentBool(buffer.get(0) != 0, msbFirst);
+            case TYPE_CODE_UINT8:
+                return new ArgumentUInt8(BufferUtils.getUnsignedByte(buffer, 0), msbFirst);
+            case TYPE_CODE_UINT16:
+                return new ArgumentUInt16(BufferUtils.getUnsignedShort(buffer, 0, msbf), msbFirst);
+            case TYPE_CODE_UINT32:
+                return new ArgumentUInt32(Integer.toUnsignedLong(BufferUtils.getInt(buffer, 0, msbf)), msbFirst);
+            case TYPE_CODE_UINT64:
+                return new ArgumentUInt64(BufferUtils.getLong(buffer, 0, msbf), msbFirst);
+            case TYPE_CODE_SINT8:
+                return new ArgumentSInt8(buffer.get(0), msbFirst);
+            case TYPE_CODE_SINT16:
+                return new ArgumentSInt16(BufferUtils.getShort(buffer, 0, msbf), msbFirst);
+            case TYPE_CODE_SINT32:
+                return new ArgumentSInt32(BufferUtils.getInt(buffer, 0, msbf), msbFirst);
+            case TYPE_CODE_SINT64:
+                return new ArgumentSInt64(BufferUtils.getLong(buffer, 0, msbf), msbFirst);
+            case TYPE_CODE_FLOAT32:
+                return new ArgumentFloat32(Float.intBitsToFloat(BufferUtils.getInt(buffer, 0, msbf)), msbFirst);
+            case TYPE_CODE_FLOAT64:
+                return new ArgumentFloat64(Double.longBitsToDouble(BufferUtils.getLong(buffer, 0, msbf)), msbFirst);
+            default:
+                throw new DltDecodeException(DltMetrics.Cause.UNSUPPORTED_TYPE_INFO, "Unsupported type code: " + typeCode);
+        }
+    }
+}
+
+
+class ArgumentBool extends ArgumentNumBase {
+    public ArgumentBool(boolean data, Boolean msbFirst) {
+        super(TYPE_CODE_BOOL, data ? 1L : 0L, msbFirst);
+    }
+
+    public boolean getBoolean() {
+        return data != 0;
+    }
+
+    @Override
+    protected int getTypeInfo() {
+        return TypeInfo.TYPE_BOOL.getValue() | TypeInfo.TYPE_LENGTH_8BIT.getValue();
+    }
+}
+
+class ArgumentUInt8 extends ArgumentNumBase {
+    public ArgumentUInt8(int data, Boolean msbFirst) {
+        super(TYPE_CODE_UINT8, data & 0xFFL, msbFirst);
+    }
+
+    @Override
+    protected int getTypeInfo() {
+        return TypeInfo.TYPE_UNSIGNED.getValue() | TypeInfo.TYPE_LENGTH_8BIT.getValue();
+    }
+}
+
+class ArgumentUInt16 extends ArgumentNumBase {
+    public ArgumentUInt16(int data, Boolean msbFirst) {
+        super(TYPE_CODE_UINT16, data & 0xFFFFL, msbFirst);
+    }
+
+    @Override
+    protected int getTypeInfo() {
+        return TypeInfo.TYPE_UNSIGNED.getValue() | TypeInfo.TYPE_LENGTH_16BIT.getValue();
+    }
+}
+
+class ArgumentUInt32 extends ArgumentNumBase {
+    public ArgumentUInt32(long data, Boolean msbFirst) {
+        super(TYPE_CODE_UINT32, data & 0xFFFFFFFFL, msbFirst);
+    }
+
+    @Override
+    protected int getTypeInfo() {
+        return TypeInfo.TYPE_UNSIGNED.getValue() | TypeInfo.TYPE_LENGTH_32BIT.getValue();
+    }
+}
+
+class ArgumentUInt64 extends ArgumentNumBase {
+    public ArgumentUInt64(long data, Boolean msbFirst) {
+        super(TYPE_CODE_UINT64, data, msbFirst);
+    }
+
+    @Override
+    protected int getTypeInfo() {
+        return TypeInfo.TYPE_UNSIGNED.getValue() | TypeInfo.TYPE_LENGTH_64BIT.getValue();
+    }
+}
+
+
+class ArgumentSInt8 extends ArgumentNumBase {
+    public ArgumentSInt8(int data, Boolean msbFirst) {
+        super(TYPE_CODE_SINT8, (long) (byte) data, msbFirst);
+    }
+
+    @Override
+    protected int getTypeInfo() {
+        return TypeInfo.TYPE_SIGNED.getValue() | TypeInfo.TYPE_LENGTH_8BIT.getValue();
+    }
+}
+
+
+class ArgumentSInt16 extends ArgumentNumBase {
+    public ArgumentSInt16(int data, Boolean msbFirst) {
+        super(TYPE_CODE_SINT16, (long) (short) data, msbFirst);
+    }
+
+    @Override
+    protected int getTypeInfo() {
+        return TypeInfo.TYPE_SIGNED.getValue() | TypeInfo.TYPE_LENGTH_16BIT.getValue();
+    }
+}
+
+class ArgumentSInt32 extends ArgumentNumBase {
+    public ArgumentSInt32(int data, Boolean msbFirst) {
+        super(TYPE_CODE_SINT32, (long) data, msbFirst);
+    }
+
+    @Override
+    protected int getTypeInfo() {
+        return TypeInfo.TYPE_SIGNED.getValue() | TypeInfo.TYPE_LENGTH_32BIT.getValue();
+    }
+}
+
+class ArgumentSInt64 extends ArgumentNumBase {
+    public ArgumentSInt64(long data, Boolean msbFirst) {
+        super(TYPE_CODE_SINT64, data, msbFirst);
+    }
+
+    @Override
+    protected int getTypeInfo() {
+        return TypeInfo.TYPE_SIGNED.getValue() | TypeInfo.TYPE_LENGTH_64BIT.getValue();
+    }
+}
+
+class ArgumentFloat32 extends ArgumentNumBase {
+    public ArgumentFloat32(float data, Boolean msbFirst) {
+        super(TYPE_CODE_FLOAT32, (double) data, msbFirst);
+    }
+
+    @Override
+    protected int getTypeInfo() {
+        return TypeInfo.TYPE_FLOAT.getValue() | TypeInfo.TYPE_LENGTH_32BIT.getValue();
+    }
+}
+
+class ArgumentFloat64 extends ArgumentNumBase {
+    public ArgumentFloat64(double data, Boolean msbFirst) {
+        super(TYPE_CODE_FLOAT64, data, msbFirst);
+    }
+
+    @Override
+    protected int getTypeInfo() {
+        return TypeInfo.TYPE_FLOAT.getValue() | TypeInfo.TYPE_LENGTH_64BIT.getValue();
+    }
+}
@@ -0,0 +1,85 @@
+package viewer;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Absolute reads and writes of a ByteBuffer with an explicit endian.
+ *
+ * They neither move the position nor depend on the order of the buffer,
+ * so the same buffer can be shared by all decoders without duplicating it.
+ */
+final class BufferUtils {
+
+    private BufferUtils() {
+    }
+
+    static int getUnsignedByte(ByteBuffer src, int index) {
+        return Byte.toUnsignedInt(src.get(index));
+    }
+
+    static short getShort(ByteBuffer src, int index, boolean msbFirst) {
+        short value = src.getShort(index);
+        return isSameOrder(src, msbFirst) ? value : Short.reverseBytes(value);
+    }
+
+    static int getUnsignedShort(ByteBuffer src, int index, boolean msbFirst) {
+        return Short.toUnsignedInt(getShort(src, index, msbFirst));
+    }
+
+    static int getInt(ByteBuffer src, int index, boolean msbFirst) {
+        int value = src.getInt(index);
+        return isSameOrder(src, msbFirst) ? value : Integer.reverseBytes(value);
+    }
+
+    static long getLong(ByteBuffer src, int index, boolean msbFirst) {
+        long value = src.getLong(index);
+        return isSameOrder(src, msbFirst) ? value : Long.reverseBytes(value);
+    }
+
+    static void putShort(ByteBuffer dst, int index, short value, boolean msbFirst) {
+        dst.putShort(index, isSameOrder(dst, msbFirst) ? value : Short.reverseBytes(value));
+    }
+
+    static void putInt(ByteBuffer dst, int index, int value, boolean msbFirst) {
+        dst.putInt(index, isSameOrder(dst, msbFirst) ? value : Integer.reverseBytes(value));
+    }
+
+    static void putLong(ByteBuffer dst, int index, long value, boolean msbFirst) {
+        dst.putLong(index, isSameOrder(dst, msbFirst) ? value : Long.reverseBytes(value));
+    }
+
+    // Check there is room for length bytes at the position and reserve them, position of the room
+    static int reserve(ByteBuffer dst, int length) {
+        int position = dst.position();
+        if (dst.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        dst.position(position + length);
+        return position;
+    }
+
+    // Decode ASCII bytes at the index into string, as is
+    static String getAscii(ByteBuffer src, int index, int length) {
+        if (src.hasArray()) {
+            return new String(src.array(), src.arrayOffset() + index, length, StandardCharsets.US_ASCII);
+        }
+        byte[] ascii = new byte[length];
+        src.get(index, ascii);
+        return new String(ascii, StandardCharsets.US_ASCII);
+    }
+
+    // Check the range [offset, offset + length) is inside the buffer
+    static void checkRange(ByteBuffer src, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > src.limit()) {
+            throw new IndexOutOfBoundsException(
+                    "Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + src.limit());
+        }
+    }
+
+    private static boolean isSameOrder(ByteBuffer src, boolean msbFirst) {
+        return (src.order() == ByteOrder.BIG_ENDIAN) == msbFirst;
+    }
+}
@@ -0,0 +1,697 @@
+package viewer;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Reads a compressed DLT file, e.g. "trace.dlt.gz", decompressing it while it is read
+ * instead of to a temporary file.
+ *
+ * The compressed file is split into chunks which are decompressed by tasks of the
+ * ForkJoinPool, and the decompressed bytes are framed into records in file order, so
+ * records may straddle chunks. Damaged data is skipped as by {@link DltFileFollower}.
+ * How the file is split depends on its format:
+ * <ul>
+ * <li>gzip (".gz"): a file may have several members, e.g. written by bgzip or
+ * concatenated. Each task starts at the first gzip header in its chunk and
+ * decompresses members up to the end of the chunk. As in {@link DltParallelReader},
+ * the start of each chunk is checked against the end of the chunk before it; a chunk
+ * whose header was found inside compressed data, or which is inside a member larger
+ * than a chunk, is decompressed again, continuing the chunk before it. A file with a
+ * single member is decompressed sequentially.</li>
+ * <li>zstd (".zst"): the frames are found from their headers without decompressing
+ * them, and the frames of a chunk are decompressed by a task. A frame larger than a
+ * chunk is decompressed while it is read. The JDK has no zstd, so a codec has to be
+ * registered with {@link #registerCodec(String, Codec)}, e.g. the ZstdInputStream of
+ * zstd-jni.</li>
+ * <li>Other extensions with a registered codec are decompressed while they are read.</li>
+ * </ul>
+ */
+public class DltArchiveReader implements Closeable {
+    // Default size of a chunk of the compressed file
+    public static final long DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    // Bytes read or decompressed at once
+    private static final int BLOCK_SIZE = 64 * 1024;
+    // Minimum length of a gzip header and length of its trailer
+    private static final int GZIP_HEADER_LENGTH = 10;
+    private static final int GZIP_TRAILER_LENGTH = 8;
+    private static final int GZIP_FLAG_HCRC = 0x02;
+    private static final int GZIP_FLAG_EXTRA = 0x04;
+    private static final int GZIP_FLAG_NAME = 0x08;
+    private static final int GZIP_FLAG_COMMENT = 0x10;
+    private static final int GZIP_FLAG_RESERVED = 0xE0;
+    private static final int ZSTD_MAGIC = 0xFD2FB528;
+    private static final int ZSTD_SKIPPABLE_MAGIC = 0x184D2A50;
+    private static final int[] ZSTD_DICTIONARY_ID_LENGTHS = {0, 1, 2, 4};
+    // Offset of a chunk without a gzip member
+    private static final long NO_SYNC = -1;
+
+    private static final Map<String, Codec> CODECS = new ConcurrentHashMap<>();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long fileSize;
+    private final Optional<String> encoding;
+    private final ForkJoinPool pool;
+    private final long chunkSize;
+    private final int maxChunksInFlight;
+    private final String extension;
+
+    public DltArchiveReader(Path path) throws IOException {
+        this(path, Optional.of(StandardCharsets.US_ASCII.name()), ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param path      Path of the compressed file, its extension gives the format
+     * @param encoding  Encoding of the string arguments
+     * @param pool      Pool of the tasks decompressing the chunks
+     * @param chunkSize Size of a chunk of the compressed file
+     * @throws IOException if the file cannot be opened
+     * @throws IllegalArgumentException if there is no codec for the extension of the file
+     */
+    public DltArchiveReader(Path path, Optional<String> encoding, ForkJoinPool pool, long chunkSize) throws IOException {
+        if (chunkSize < BLOCK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be " + BLOCK_SIZE + " or more: " + chunkSize);
+        }
+        this.extension = extensionOf(path);
+        if (!extension.equals(".gz") && !CODECS.containsKey(extension)) {
+            throw new IllegalArgumentException("No codec for " + path + ", registered: .gz " + CODECS.keySet());
+        }
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.encoding = encoding;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        // Keep the workers busy while the chunks are consumed, without decompressing the whole file ahead
+        this.maxChunksInFlight = pool.getParallelism() * 2;
+    }
+
+    /**
+     * Register the codec of the files with the extension, e.g. ".zst" or ".xz".
+     * gzip is built in.
+     *
+     * @param extension Extension of the files, with dot
+     * @param codec     Codec, null to remove it
+     */
+    public static void registerCodec(String extension, Codec codec) {
+        String key = extension.toLowerCase(Locale.ROOT);
+        if (codec == null) {
+            CODECS.remove(key);
+        } else {
+            CODECS.put(key, codec);
+        }
+    }
+
+    /**
+     * Check if a file can be read, i.e. it is gzip or there is a codec for its extension.
+     *
+     * @param path Path of the file
+     * @return True if the file can be read
+     */
+    public static boolean isSupported(Path path) {
+        String extension = extensionOf(path);
+        return extension.equals(".gz") || CODECS.containsKey(extension);
+    }
+
+    // Size of the compressed file
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * Get messages of the file in file order.
+     *
+     * @return Ordered stream of the decoded messages
+     */
+    public Stream<DltMessage> stream() {
+        return stream(null);
+    }
+
+    /**
+     * Get messages of the file matching the filter in file order.
+     *
+     * @param filter Filter checked on the headers before decoding, null for all messages
+     * @return Ordered stream of the decoded messages
+     * @throws UncheckedIOException if the file cannot be read or decompressed
+     */
+    public Stream<DltMessage> stream(DltFilter filter) {
+        Iterator<DltMessage> iterator = new MessageIterator(filter, newParts());
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "DltArchiveReader{" + path + '}';
+    }
+
+    private static String extensionOf(Path path) {
+        String fileName = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? "" : fileName.substring(dot);
+    }
+
+    private Parts newParts() {
+        if (extension.equals(".gz")) {
+            return new GzipParts();
+        }
+        Codec codec = CODECS.get(extension);
+        if (codec == null) {
+            throw new IllegalStateException("The codec of " + extension + " was removed");
+        }
+        if (extension.equals(".zst")) {
+            return new ZstdParts(codec);
+        }
+        boolean[] opened = new boolean[1];
+        return () -> {
+            if (opened[0]) {
+                return null;
+            }
+            opened[0] = true;
+            return codec.decompress(new RangeInputStream(0, fileSize));
+        };
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // Read bytes of the compressed file at the offset, less only at the end of the file
+    private int read(long offset, byte[] dst, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(dst, 0, length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.position();
+    }
+
+    // gzip
+
+    // Decompress a gzip chunk in the pool and check it against the chunk before it
+    private CompletableFuture<GzipChunk> submitGzip(int index, CompletableFuture<GzipChunk> previous) {
+        long start = index * chunkSize;
+        long end = Math.min(start + chunkSize, fileSize);
+        CompletableFuture<GzipChunk> decoded = CompletableFuture.supplyAsync(() -> {
+            try {
+                return index == 0 ? inflate(start, end, null, null) : inflateFirstMember(start, end);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, pool);
+        return decoded.thenCombine(previous, (chunk, before) -> {
+            if (before == null || before.member == null && chunk.syncOffset == before.nextOffset) {
+                return chunk;
+            }
+            // The header was inside compressed data or the chunk before ended inside a member,
+            // continue the chunk before
+            GzipChunk continued = null;
+            try {
+                continued = inflate(before.nextOffset, end, before.member, chunk);
+                return continued;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                if (chunk.member != null && (continued == null || continued.member != chunk.member)) {
+                    // The speculative chunk is discarded, nothing continues its member
+                    chunk.member.inflater.end();
+                }
+            }
+        });
+    }
+
+    // Decompress from the first gzip member starting in [start, end)
+    private GzipChunk inflateFirstMember(long start, long end) throws IOException {
+        for (long candidate = findGzipHeader(start, end); candidate >= 0; candidate = findGzipHeader(candidate + 1, end)) {
+            try {
+                return inflate(candidate, end, null, null);
+            } catch (ZipException | EOFException e) {
+                // Not a member, the header was found inside compressed data
+            }
+        }
+        return new GzipChunk(NO_SYNC, new ArrayList<>(), end, null);
+    }
+
+    /**
+     * Decompress the members from the offset until a member ends at or after the end,
+     * or the input of a member reaches the end.
+     *
+     * @param offset      Offset of a member header, or of the input of the member
+     * @param end         End of the chunk
+     * @param member      Member to continue at the offset, null to start one
+     * @param speculative Chunk decompressed from a member the members may reach, to be
+     *                    reused, null for none
+     * @return Decompressed chunk
+     * @throws IOException if the file cannot be read or is not valid gzip
+     */
+    private GzipChunk inflate(long offset, long end, GzipMember member, GzipChunk speculative) throws IOException {
+        long syncOffset = offset;
+        // Decompressed into blocks, large arrays would have to be copied to grow
+        List<byte[]> out = new ArrayList<>();
+        byte[] input = new byte[BLOCK_SIZE];
+        byte[] output = new byte[BLOCK_SIZE];
+        int outputSize = 0;
+        long position = offset;
+        if (member == null) {
+            if (offset >= end || offset >= fileSize) {
+                return new GzipChunk(syncOffset, out, offset, null);
+            }
+            position = gzipDataOffset(offset);
+            if (position < 0) {
+                throw new ZipException("Not in gzip format at offset " + offset);
+            }
+            member = new GzipMember();
+        }
+        try {
+            while (true) {
+                Inflater inflater = member.inflater;
+                if (inflater.needsInput()) {
+                    if (position >= end) {
+                        // Continued by the next chunk
+                        out.add(Arrays.copyOf(output, outputSize));
+                        return new GzipChunk(syncOffset, out, position, member);
+                    }
+                    int n = read(position, input, BLOCK_SIZE);
+                    if (n == 0) {
+                        throw new EOFException("Unexpected end of the gzip member at offset " + position);
+                    }
+                    inflater.setInput(input, 0, n);
+                    position += n;
+                }
+                int n = inflater.inflate(output, outputSize, BLOCK_SIZE - outputSize);
+                member.crc.update(output, outputSize, n);
+                member.size += n;
+                outputSize += n;
+                if (outputSize == BLOCK_SIZE) {
+                    out.add(output);
+                    output = new byte[BLOCK_SIZE];
+                    outputSize = 0;
+                }
+                if (inflater.finished()) {
+                    long next = checkGzipTrailer(member, position - inflater.getRemaining());
+                    long dataOffset = next < fileSize ? gzipDataOffset(next) : -1;
+                    if (dataOffset < 0 || next >= end || speculative != null && next == speculative.syncOffset) {
+                        member.inflater.end();
+                        out.add(Arrays.copyOf(output, outputSize));
+                        if (dataOffset < 0) {
+                            // End of the file, bytes after the last member are ignored like by gzip
+                            return new GzipChunk(syncOffset, out, fileSize, null);
+                        }
+                        if (speculative != null && next == speculative.syncOffset) {
+                            out.addAll(speculative.data);
+                            return new GzipChunk(syncOffset, out, speculative.nextOffset, speculative.member);
+                        }
+                        return new GzipChunk(syncOffset, out, next, null);
+                    }
+                    member.reset();
+                    position = dataOffset;
+                } else if (n == 0 && (inflater.needsDictionary())) {
+                    throw new ZipException("gzip member needs a dictionary");
+                }
+            }
+        } catch (DataFormatException e) {
+            member.inflater.end();
+            throw new ZipException("Invalid gzip data before offset " + position + ": " + e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            member.inflater.end();
+            throw e;
+        }
+    }
+
+    // Check the trailer of the member at the offset, offset after it
+    private long checkGzipTrailer(GzipMember member, long offset) throws IOException {
+        byte[] trailer = new byte[GZIP_TRAILER_LENGTH];
+        if (read(offset, trailer, GZIP_TRAILER_LENGTH) < GZIP_TRAILER_LENGTH) {
+            throw new EOFException("Unexpected end of the gzip trailer at offset " + offset);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(trailer);
+        if (BufferUtils.getInt(buffer, 0, false) != (int) member.crc.getValue()
+                || BufferUtils.getInt(buffer, 4, false) != (int) member.size) {
+            throw new ZipException("Corrupt gzip trailer at offset " + offset);
+        }
+        return offset + GZIP_TRAILER_LENGTH;
+    }
+
+    // Offset of the compressed data of the member with the header at the offset, -1 if it is no header
+    private long gzipDataOffset(long offset) throws IOException {
+        byte[] header = new byte[GZIP_HEADER_LENGTH];
+        if (read(offset, header, GZIP_HEADER_LENGTH) < GZIP_HEADER_LENGTH || !isGzipHeader(header, 0)) {
+            return -1;
+        }
+        int flags = header[3] & 0xFF;
+        long position = offset + GZIP_HEADER_LENGTH;
+        if ((flags & GZIP_FLAG_EXTRA) != 0) {
+            if (read(position, header, 2) < 2) {
+                return -1;
+            }
+            position += 2 + (header[0] & 0xFF | (header[1] & 0xFF) << 8);
+        }
+        if ((flags & GZIP_FLAG_NAME) != 0) {
+            position = skipZeroTerminated(position);
+        }
+        if ((flags & GZIP_FLAG_COMMENT) != 0 && position >= 0) {
+            position = skipZeroTerminated(position);
+        }
+        if ((flags & GZIP_FLAG_HCRC) != 0 && position >= 0) {
+            position += 2;
+        }
+        return position >= 0 && position <= fileSize ? position : -1;
+    }
+
+    // Offset after the zero at or after the offset, -1 if there is none
+    private long skipZeroTerminated(long offset) throws IOException {
+        byte[] bytes = new byte[256];
+        while (true) {
+            int n = read(offset, bytes, bytes.length);
+            if (n == 0) {
+                return -1;
+            }
+            for (int i = 0; i < n; i++) {
+                if (bytes[i] == 0) {
+                    return offset + i + 1;
+                }
+            }
+            offset += n;
+        }
+    }
+
+    // Offset of the first gzip header in [from, end), -1 if there is none
+    private long findGzipHeader(long from, long end) throws IOException {
+        byte[] bytes = new byte[BLOCK_SIZE];
+        while (from < end) {
+            int n = read(from, bytes, (int) Math.min(BLOCK_SIZE, fileSize - from));
+            if (n < GZIP_HEADER_LENGTH) {
+                return -1;
+            }
+            int last = (int) Math.min(n - GZIP_HEADER_LENGTH, end - 1 - from);
+            for (int i = 0; i <= last; i++) {
+                if (bytes[i] == 0x1F && isGzipHeader(bytes, i)) {
+                    return from + i;
+                }
+            }
+            from += last + 1;
+        }
+        return -1;
+    }
+
+    private static boolean isGzipHeader(byte[] bytes, int index) {
+        return bytes[index] == 0x1F && bytes[index + 1] == (byte) 0x8B && bytes[index + 2] == 8
+                && (bytes[index + 3] & GZIP_FLAG_RESERVED) == 0;
+    }
+
+    // zstd
+
+    // Offset after the zstd frame at the offset
+    private long zstdFrameEnd(long offset) throws IOException {
+        byte[] bytes = new byte[8];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (read(offset, bytes, 8) < 5) {
+            throw new ZipException("Truncated zstd frame at offset " + offset);
+        }
+        int magic = BufferUtils.getInt(buffer, 0, false);
+        if ((magic & 0xFFFFFFF0) == ZSTD_SKIPPABLE_MAGIC) {
+            return offset + 8 + Integer.toUnsignedLong(BufferUtils.getInt(buffer, 4, false));
+        }
+        if (magic != ZSTD_MAGIC) {
+            throw new ZipException("Not in zstd format at offset " + offset);
+        }
+        int descriptor = bytes[4] & 0xFF;
+        int contentSizeFlag = descriptor >>> 6;
+        boolean singleSegment = (descriptor & 0x20) != 0;
+        boolean checksum = (descriptor & 0x04) != 0;
+        long position = offset + 5 + (singleSegment ? 0 : 1) + ZSTD_DICTIONARY_ID_LENGTHS[descriptor & 0x03]
+                + (contentSizeFlag == 0 ? (singleSegment ? 1 : 0) : 1 << contentSizeFlag);
+        while (true) {
+            if (read(position, bytes, 3) < 3) {
+                throw new ZipException("Truncated zstd frame at offset " + offset);
+            }
+            int blockHeader = bytes[0] & 0xFF | (bytes[1] & 0xFF) << 8 | (bytes[2] & 0xFF) << 16;
+            int blockType = (blockHeader >>> 1) & 0x03;
+            if (blockType == 3) {
+                throw new ZipException("Invalid zstd block at offset " + position);
+            }
+            position += 3 + (blockType == 1 ? 1 : blockHeader >>> 3);
+            if ((blockHeader & 1) != 0) {
+                break;
+            }
+        }
+        return position + (checksum ? 4 : 0);
+    }
+
+    /**
+     * Decompresses a format, e.g. with a class of a compression library.
+     */
+    @FunctionalInterface
+    public interface Codec {
+        /**
+         * @param in Compressed bytes
+         * @return Decompressed bytes
+         * @throws IOException if the bytes cannot be decompressed
+         */
+        InputStream decompress(InputStream in) throws IOException;
+    }
+
+    // Decompressed parts of the file in order
+    @FunctionalInterface
+    private interface Parts {
+        // Next part, null at the end
+        InputStream next() throws IOException;
+    }
+
+    // State of a gzip member decompressed up to the end of a chunk
+    private static class GzipMember {
+        final Inflater inflater = new Inflater(true);
+        final CRC32 crc = new CRC32();
+        // Decompressed bytes
+        long size;
+
+        void reset() {
+            inflater.reset();
+            crc.reset();
+            size = 0;
+        }
+    }
+
+    // Decompressed bytes of a gzip chunk
+    private static class GzipChunk {
+        // Offset the decompression started at, NO_SYNC if no member starts in the chunk
+        final long syncOffset;
+        // Decompressed bytes in blocks
+        final List<byte[]> data;
+        // Offset of the compressed file where the next chunk continues
+        final long nextOffset;
+        // Member to continue at the next offset, null if a member starts there
+        final GzipMember member;
+
+        GzipChunk(long syncOffset, List<byte[]> data, long nextOffset, GzipMember member) {
+            this.syncOffset = syncOffset;
+            this.data = data;
+            this.nextOffset = nextOffset;
+            this.member = member;
+        }
+    }
+
+    // Keeps a bounded number of gzip chunks decompressed ahead
+    private class GzipParts implements Parts {
+        private final int chunkCount = (int) ((fileSize + chunkSize - 1) / chunkSize);
+        private final Deque<CompletableFuture<GzipChunk>> pending = new ArrayDeque<>();
+        private CompletableFuture<GzipChunk> last = CompletableFuture.completedFuture(null);
+        private int submitted;
+
+        @Override
+        public InputStream next() throws IOException {
+            while (submitted < chunkCount && pending.size() < maxChunksInFlight) {
+                last = submitGzip(submitted++, last);
+                pending.add(last);
+            }
+            if (pending.isEmpty()) {
+                return null;
+            }
+            GzipChunk chunk = join(pending.poll());
+            List<InputStream> blocks = new ArrayList<>(chunk.data.size());
+            for (byte[] block : chunk.data) {
+                blocks.add(new ByteArrayInputStream(block));
+            }
+            return new SequenceInputStream(Collections.enumeration(blocks));
+        }
+    }
+
+    // Groups zstd frames to chunks, keeping a bounded number decompressed ahead
+    private class ZstdParts implements Parts {
+        private final Codec codec;
+        private final Deque<CompletableFuture<InputStream>> pending = new ArrayDeque<>();
+        private long position;
+
+        ZstdParts(Codec codec) {
+            this.codec = codec;
+        }
+
+        @Override
+        public InputStream next() throws IOException {
+            while (position < fileSize && pending.size() < maxChunksInFlight) {
+                long start = position;
+                long end = zstdFrameEnd(start);
+                int frames = 1;
+                while (end < fileSize && end - start < chunkSize) {
+                    end = zstdFrameEnd(end);
+                    frames++;
+                }
+                end = Math.min(end, fileSize);
+                position = end;
+                if (frames == 1 && end - start > chunkSize) {
+                    // Too large to hold, decompressed while it is read
+                    pending.add(CompletableFuture.completedFuture(codec.decompress(new RangeInputStream(start, end))));
+                } else {
+                    long length = end - start;
+                    pending.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            byte[] compressed = new byte[(int) length];
+                            read(start, compressed, compressed.length);
+                            try (InputStream in = codec.decompress(new ByteArrayInputStream(compressed))) {
+                                return new ByteArrayInputStream(in.readAllBytes());
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }, pool));
+                }
+            }
+            return pending.isEmpty() ? null : join(pending.poll());
+        }
+    }
+
+    // Bytes [start, end) of the compressed file
+    private class RangeInputStream extends InputStream {
+        private long position;
+        private final long end;
+
+        RangeInputStream(long start, long end) {
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= end) {
+                return -1;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, (int) Math.min(len, end - position));
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                return -1;
+            }
+            position += n;
+            return n;
+        }
+    }
+
+    // Frames the decompressed parts into messages
+    private class MessageIterator implements Iterator<DltMessage> {
+        private final DltFilter filter;
+        private final Parts parts;
+        private final RecordFramer framer = new RecordFramer(encoding, 0);
+        private final Deque<DltMessage> messages = new ArrayDeque<>();
+        private final byte[] buffer = new byte[BLOCK_SIZE];
+        private InputStream part;
+        private boolean finished;
+
+        MessageIterator(DltFilter filter, Parts parts) {
+            this.filter = filter;
+            this.parts = parts;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (messages.isEmpty() && !finished) {
+                    if (part == null) {
+                        part = parts.next();
+                        if (part == null) {
+                            framer.finish(filter, messages::add);
+                            finished = true;
+                        }
+                        continue;
+                    }
+                    int n = part.read(buffer);
+                    if (n < 0) {
+                        part.close();
+                        part = null;
+                    } else {
+                        framer.write(buffer, 0, n, filter, messages::add);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return !messages.isEmpty();
+        }
+
+        @Override
+        public DltMessage next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return messages.poll();
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package viewer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Catalog of the Non-Verbose messages, to decode their payloads like Verbose ones.
+ *
+ * The catalog is read from a descriptor file with one message per line:
+ *
+ * <pre>
+ * # Message ID  APID  CTID  Fixed texts and argument types
+ * 1001          NAV   MAIN  "Speed" uint16 "km/h"
+ * 0x2002        DIAG  -     "DTC" uint32 "set:" bool
+ * </pre>
+ *
+ * Message IDs are decimal or hexadecimal, "-" stands for an empty ID. Fixed texts are
+ * quoted, with \" and \\ as escapes. The argument types are bool, uint8, uint16,
+ * uint32, uint64, sint8, sint16, sint32, sint64, float32, float64, string (ASCII or the
+ * encoding of the catalog), utf8 and raw; the last three have a 16 bit length field,
+ * like the data payload of Verbose arguments.
+ *
+ * Each message is compiled into a plan of its items, found by Message ID in an open
+ * addressing table of int keys, so a lookup does not allocate. Rendering into a
+ * StringBuilder appends the numbers and ASCII strings in place; other strings are
+ * decoded by {@link StringDecoder}, which shares repeated ones.
+ */
+public final class DltCatalog {
+    // Kinds of the items of a plan, the numeric ones are the type codes of the numeric arguments
+    private static final int KIND_BOOL = 0;
+    private static final int KIND_UINT8 = 1;
+    private static final int KIND_UINT16 = 2;
+    private static final int KIND_UINT32 = 3;
+    private static final int KIND_UINT64 = 4;
+    private static final int KIND_SINT8 = 5;
+    private static final int KIND_SINT16 = 6;
+    private static final int KIND_SINT32 = 7;
+    private static final int KIND_SINT64 = 8;
+    private static final int KIND_FLOAT32 = 9;
+    private static final int KIND_FLOAT64 = 10;
+    private static final int KIND_STRING = 11;
+    private static final int KIND_UTF8 = 12;
+    private static final int KIND_RAW = 13;
+    private static final int KIND_TEXT = 14;
+
+    private static final String[] KIND_NAMES = {
+            "bool", "uint8", "uint16", "uint32", "uint64", "sint8", "sint16", "sint32", "sint64",
+            "float32", "float64", "string", "utf8", "raw"
+    };
+
+    // Length of the numeric kinds and of the length field of the others
+    private static final int[] KIND_LENGTHS = {1, 1, 2, 4, 8, 1, 2, 4, 8, 4, 8, 2, 2, 2};
+
+    private final Charset encoding;
+    // Message IDs and their entries, linear probing, a null entry is an empty slot
+    private final int[] keys;
+    private final Entry[] entries;
+    private final int mask;
+    private final int shift;
+    private final int size;
+
+    private DltCatalog(List<Entry> list, Charset encoding) {
+        // At most half full
+        int capacity = Integer.highestOneBit(Math.max(list.size(), 1)) << 2;
+        this.keys = new int[capacity];
+        this.entries = new Entry[capacity];
+        this.mask = capacity - 1;
+        this.shift = Integer.SIZE - Integer.numberOfTrailingZeros(capacity);
+        this.encoding = encoding;
+        for (Entry entry : list) {
+            int slot = slotOf(entry.messageId);
+            if (entries[slot] != null) {
+                throw new IllegalArgumentException("Duplicate Message ID: " + entry.messageId);
+            }
+            keys[slot] = entry.messageId;
+            entries[slot] = entry;
+        }
+        this.size = list.size();
+    }
+
+    public static DltCatalog load(Path path) throws IOException {
+        return load(path, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Read a catalog from a descriptor file.
+     *
+     * @param path     Path of the descriptor file (UTF-8)
+     * @param encoding Encoding of the string arguments
+     * @return Catalog of the messages of the file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line is not valid
+     */
+    public static DltCatalog load(Path path, Charset encoding) throws IOException {
+        List<Entry> list = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                try {
+                    Entry entry = parseLine(line);
+                    if (entry != null) {
+                        list.add(entry);
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid catalog line " + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return new DltCatalog(list, encoding);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the entry of the Message ID.
+     *
+     * @param messageId Message ID
+     * @return Entry of the message, null if the catalog does not know it
+     */
+    public Entry get(int messageId) {
+        return entries[slotOf(messageId)];
+    }
+
+    /**
+     * Decode the payload into the arguments of its message, the fixed texts become
+     * string arguments.
+     *
+     * @param payload Non-Verbose payload
+     * @return Verbose payload of the arguments, null if the message is not known or
+     *         the payload does not match its entry
+     */
+    public VerbosePayload decode(NonVerbosePayload payload) {
+        Entry entry = get(payload.getMessageId());
+        byte[] data = payload.nonStaticData();
+        boolean msbFirst = payload.isMsbFirst();
+        if (entry == null || !entry.matches(data, payload.nonStaticLength(), msbFirst)) {
+            return null;
+        }
+        List<Argument> arguments = new ArrayList<>(entry.kinds.length);
+        int index = 0;
+        for (int i = 0; i < entry.kinds.length; i++) {
+            int kind = entry.kinds[i];
+            if (kind == KIND_TEXT) {
+                arguments.add(Argument.createString(entry.texts[i], false, msbFirst, encoding));
+                continue;
+            }
+            if (kind <= KIND_FLOAT64) {
+                arguments.add(Argument.createNumber(kind, get(data, index, KIND_LENGTHS[kind], msbFirst), msbFirst));
+                index += KIND_LENGTHS[kind];
+                continue;
+            }
+            int length = (int) get(data, index, KIND_LENGTHS[kind], msbFirst);
+            index += KIND_LENGTHS[kind];
+            if (kind == KIND_RAW) {
+                byte[] raw = new byte[length];
+                System.arraycopy(data, index, raw, 0, length);
+                arguments.add(Argument.createRaw(raw, msbFirst));
+            } else {
+                arguments.add(Argument.createString(string(data, index, length, kind), kind == KIND_UTF8, msbFirst, encoding));
+            }
+            index += length;
+        }
+        return new VerbosePayload(arguments);
+    }
+
+    /**
+     * Append the payload like a Verbose payload: fixed texts and values separated by spaces.
+     *
+     * @param payload Non-Verbose payload
+     * @param out     Destination of the text
+     * @return False if the message is not known or the payload does not match its entry,
+     *         then nothing is appended
+     * @throws IOException if the destination cannot be written
+     */
+    public boolean render(NonVerbosePayload payload, Appendable out) throws IOException {
+        Entry entry = get(payload.getMessageId());
+        byte[] data = payload.nonStaticData();
+        boolean msbFirst = payload.isMsbFirst();
+        if (entry == null || !entry.matches(data, payload.nonStaticLength(), msbFirst)) {
+            return false;
+        }
+        int index = 0;
+        for (int i = 0; i < entry.kinds.length; i++) {
+            if (i > 0) {
+                out.append(' ');
+            }
+            int kind = entry.kinds[i];
+            if (kind == KIND_TEXT) {
+                out.append(entry.texts[i]);
+                continue;
+            }
+            long value = get(data, index, KIND_LENGTHS[kind], msbFirst);
+            index += KIND_LENGTHS[kind];
+            switch (kind) {
+                case KIND_BOOL:
+                    out.append(value != 0 ? "true" : "false");
+                    break;
+                case KIND_UINT64:
+                    RenderUtils.appendUnsigned(value, out);
+                    break;
+                case KIND_SINT8:
+                    RenderUtils.append((byte) value, out);
+                    break;
+                case KIND_SINT16:
+                    RenderUtils.append((short) value, out);
+                    break;
+                case KIND_SINT32:
+                    RenderUtils.append((int) value, out);
+                    break;
+                case KIND_FLOAT32:
+                    RenderUtils.append(Float.intBitsToFloat((int) value), out);
+                    break;
+                case KIND_FLOAT64:
+                    RenderUtils.append(Double.longBitsToDouble(value), out);
+                    break;
+                case KIND_STRING:
+                case KIND_UTF8:
+                    appendString(data, index, (int) value, kind, out);
+                    index += (int) value;
+                    break;
+                case KIND_RAW:
+                    RenderUtils.appendHex(data, index, (int) value, out);
+                    index += (int) value;
+                    break;
+                default:
+                    // Unsigned and SInt64, already right
+                    RenderUtils.append(value, out);
+            }
+        }
+        return true;
+    }
+
+    // Slot of the Message ID, or the empty slot where it would be
+    private int slotOf(int messageId) {
+        int slot = (messageId * 0x9E3779B9) >>> shift;
+        while (entries[slot] != null && keys[slot] != messageId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // String of a string item without the null terminator, as ArgumentString
+    private String string(byte[] data, int index, int length, int kind) {
+        return StringDecoder.decode(data, index, Math.max(length - 1, 0), charsetOf(kind));
+    }
+
+    // Append a string item, ASCII bytes are appended to a StringBuilder without a String
+    private void appendString(byte[] data, int index, int length, int kind, Appendable out) throws IOException {
+        if (out instanceof StringBuilder
+                && StringDecoder.appendAscii(data, index, Math.max(length - 1, 0), charsetOf(kind), (StringBuilder) out)) {
+            return;
+        }
+        out.append(string(data, index, length, kind));
+    }
+
+    private Charset charsetOf(int kind) {
+        return kind == KIND_UTF8 ? StandardCharsets.UTF_8 : encoding;
+    }
+
+    // Unsigned value of the bytes [index, index + length) of the data
+    private static long get(byte[] data, int index, int length, boolean msbFirst) {
+        long value = 0;
+        if (msbFirst) {
+            for (int i = 0; i < length; i++) {
+                value = (value << 8) | (data[index + i] & 0xFF);
+            }
+        } else {
+            for (int i = length - 1; i >= 0; i--) {
+                value = (value << 8) | (data[index + i] & 0xFF);
+            }
+        }
+        return value;
+    }
+
+    // Entry of a line, null for an empty line or a comment
+    private static Entry parseLine(String line) {
+        List<String> tokens = tokenize(line);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        if (tokens.size() < 3) {
+            throw new IllegalArgumentException("Message ID, APID and CTID are required");
+        }
+        int messageId = parseMessageId(tokens.get(0));
+        int applicationId = parseId(tokens.get(1));
+        int contextId = parseId(tokens.get(2));
+        int count = tokens.size() - 3;
+        int[] kinds = new int[count];
+        String[] texts = new String[count];
+        for (int i = 0; i < count; i++) {
+            String token = tokens.get(i + 3);
+            if (token.startsWith("\"")) {
+                kinds[i] = KIND_TEXT;
+                texts[i] = token.substring(1);
+            } else {
+                kinds[i] = parseKind(token);
+            }
+        }
+        return new Entry(messageId, applicationId, contextId, kinds, texts);
+    }
+
+    // Split the line into words and quoted texts, a quoted text keeps its opening quote
+    private static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        int length = line.length();
+        while (i < length) {
+            char c = line.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '#') {
+                break;
+            } else if (c == '"') {
+                StringBuilder text = new StringBuilder("\"");
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        throw new IllegalArgumentException("Unterminated text");
+                    }
+                    c = line.charAt(i++);
+                    if (c == '"') {
+                        break;
+                    }
+                    if (c == '\\' && i < length) {
+                        c = line.charAt(i++);
+                    }
+                    text.append(c);
+                }
+                tokens.add(text.toString());
+            } else {
+                int start = i;
+                while (i < length && !Character.isWhitespace(line.charAt(i))) {
+                    i++;
+                }
+                tokens.add(line.substring(start, i));
+            }
+        }
+        return tokens;
+    }
+
+    private static int parseMessageId(String token) {
+        try {
+            if (token.startsWith("0x") || token.startsWith("0X")) {
+                return Integer.parseUnsignedInt(token.substring(2), 16);
+            }
+            return Integer.parseUnsignedInt(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid Message ID: " + token, e);
+        }
+    }
+
+    private static int parseId(String token) {
+        return token.equals("-") ? 0 : DltIdTable.fromString(token);
+    }
+
+    private static int parseKind(String token) {
+        for (int kind = 0; kind < KIND_NAMES.length; kind++) {
+            if (KIND_NAMES[kind].equals(token)) {
+                return kind;
+            }
+        }
+        throw new IllegalArgumentException("Unknown argument type: " + token);
+    }
+
+    /**
+     * Compiled plan of a message: its IDs and the kinds of its items in order.
+     */
+    public static final class Entry {
+        final int messageId;
+        final int applicationId;
+        final int contextId;
+        // Kind of each item, and the text of the fixed text items
+        final int[] kinds;
+        final String[] texts;
+        // Length of the data when all items have a fixed length, else -1
+        final int fixedLength;
+
+        Entry(int messageId, int applicationId, int contextId, int[] kinds, String[] texts) {
+            this.messageId = messageId;
+            this.applicationId = applicationId;
+            this.contextId = contextId;
+            this.kinds = kinds;
+            this.texts = texts;
+            int length = 0;
+            for (int kind : kinds) {
+                if (kind == KIND_TEXT) {
+                    continue;
+                }
+                if (kind >= KIND_STRING) {
+                    length = -1;
+                    break;
+                }
+                length += KIND_LENGTHS[kind];
+            }
+            this.fixedLength = length;
+        }
+
+        public int getMessageId() {
+            return messageId;
+        }
+
+        public String getApplicationId() {
+            return DltIdTable.toString(applicationId);
+        }
+
+        public String getContextId() {
+            return DltIdTable.toString(contextId);
+        }
+
+        public int getApplicationIdKey() {
+            return applicationId;
+        }
+
+        public int getContextIdKey() {
+            return contextId;
+        }
+
+        // Number of arguments in the payload, without the fixed texts
+        public int getNumberOfArguments() {
+            int count = 0;
+            for (int kind : kinds) {
+                if (kind != KIND_TEXT) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        // Check that the items fit into the first length bytes of the data, trailing bytes are allowed
+        boolean matches(byte[] data, int length, boolean msbFirst) {
+            if (fixedLength >= 0) {
+                return fixedLength <= length;
+            }
+            int index = 0;
+            for (int kind : kinds) {
+                if (kind == KIND_TEXT) {
+                    continue;
+                }
+                if (index + KIND_LENGTHS[kind] > length) {
+                    return false;
+                }
+                if (kind >= KIND_STRING) {
+                    index += (int) get(data, index, KIND_LENGTHS[kind], msbFirst);
+                }
+                index += KIND_LENGTHS[kind];
+            }
+            return index <= length;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package viewer;
+
+/**
+ * Columns of a columnar file (.dltc), see {@link DltColumnarWriter}.
+ * Blocks store the columns in this order.
+ */
+public enum DltColumn {
+    // Storage Header time in microseconds, delta encoded
+    TIME,
+    // Standard Header timestamp (0.1 ms), delta encoded, 0 if the message has none
+    TIMESTAMP,
+    MESSAGE_COUNTER,
+    // Index into the ID dictionary of the file
+    ECU_ID,
+    APPLICATION_ID,
+    CONTEXT_ID,
+    // Header Type of the Standard Header (flags)
+    HEADER_TYPE,
+    // Message Info of the Extended Header, 0 if the message has none
+    MESSAGE_INFO,
+    // Delta encoded, 0 if the message has none
+    SESSION_ID,
+    // Index into the dictionary of argument type signatures of the file
+    SIGNATURE,
+    // Payload bytes with their length
+    PAYLOAD
+}
@@ -0,0 +1,548 @@
+package viewer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Scans a columnar file (.dltc) written by {@link DltColumnarWriter}.
+ *
+ * Only the columns needed by the filter and the caller are read. Blocks whose
+ * statistics cannot match the filter are not read at all, so narrow queries over a
+ * large file touch a small part of it.
+ */
+public class DltColumnarReader implements Closeable {
+    private static final int COLUMN_COUNT = DltColumn.values().length;
+    private static final int TIME = DltColumn.TIME.ordinal();
+    private static final int ECU_ID = DltColumn.ECU_ID.ordinal();
+    private static final int APPLICATION_ID = DltColumn.APPLICATION_ID.ordinal();
+    private static final int CONTEXT_ID = DltColumn.CONTEXT_ID.ordinal();
+    private static final int HEADER_TYPE = DltColumn.HEADER_TYPE.ordinal();
+    private static final int MESSAGE_INFO = DltColumn.MESSAGE_INFO.ordinal();
+    private static final int SESSION_ID = DltColumn.SESSION_ID.ordinal();
+    private static final int PAYLOAD = DltColumn.PAYLOAD.ordinal();
+
+    private final FileChannel channel;
+    private final long size;
+    // Keys of the IDs by dictionary index
+    private final int[] ids;
+    private final int[][] signatures;
+    private final Block[] blocks;
+
+    /**
+     * @param path Path of the columnar file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a columnar file
+     */
+    public DltColumnarReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long fileSize = channel.size();
+            if (fileSize < DltColumnarWriter.HEADER_LENGTH + DltColumnarWriter.TRAILER_LENGTH) {
+                throw new IllegalArgumentException("Unexpected size of the file: " + fileSize + " / Not a columnar file");
+            }
+            ByteBuffer header = read(0, DltColumnarWriter.HEADER_LENGTH, null);
+            checkMagic(header, 0);
+            int version = header.getInt(4);
+            if (version != DltColumnarWriter.VERSION) {
+                throw new IllegalArgumentException("Unsupported version of the columnar file: " + version);
+            }
+            ByteBuffer trailer = read(fileSize - DltColumnarWriter.TRAILER_LENGTH, DltColumnarWriter.TRAILER_LENGTH, null);
+            checkMagic(trailer, 16);
+            long footerOffset = trailer.getLong(0);
+            this.size = trailer.getLong(8);
+            long footerLength = fileSize - DltColumnarWriter.TRAILER_LENGTH - footerOffset;
+            if (footerOffset < DltColumnarWriter.HEADER_LENGTH || footerLength > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Unexpected offset of the footer: " + footerOffset);
+            }
+
+            ByteBuffer footer = read(footerOffset, (int) footerLength, null);
+            this.ids = new int[footer.getInt()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = footer.getInt();
+            }
+            this.signatures = new int[footer.getInt()][];
+            for (int i = 0; i < signatures.length; i++) {
+                int[] types = new int[Short.toUnsignedInt(footer.getShort())];
+                for (int j = 0; j < types.length; j++) {
+                    types[j] = footer.getInt();
+                }
+                signatures[i] = types;
+            }
+            this.blocks = new Block[footer.getInt()];
+            for (int i = 0; i < blocks.length; i++) {
+                blocks[i] = new Block(footer);
+            }
+        } catch (RuntimeException | IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Number of messages in the file
+    public long size() {
+        return size;
+    }
+
+    public int getBlockCount() {
+        return blocks.length;
+    }
+
+    /**
+     * Count the messages matching the filter.
+     *
+     * @param filter Filter of the messages, null for all messages
+     * @return Number of matching messages
+     * @throws IOException if the file cannot be read
+     */
+    public long count(DltFilter filter) throws IOException {
+        return filter == null ? size : scan(filter, EnumSet.noneOf(DltColumn.class), null);
+    }
+
+    /**
+     * Scan the messages matching the filter in file order.
+     *
+     * The row is reused for every message and only valid during the call of the action.
+     * Its getters of columns which were not requested throw an IllegalStateException,
+     * unless the filter needed them.
+     *
+     * @param filter  Filter of the messages, null for all messages
+     * @param columns Columns the action reads
+     * @param action  Action called for each matching message
+     * @throws IOException if the file cannot be read
+     */
+    public void forEach(DltFilter filter, Set<DltColumn> columns, Consumer<? super Row> action) throws IOException {
+        scan(filter, columns, action);
+    }
+
+    // Columns of each block are decoded into arrays at once, then the rows are checked against them
+    private long scan(DltFilter filter, Set<DltColumn> columns, Consumer<? super Row> action) throws IOException {
+        Query query = filter != null ? new Query(filter) : null;
+        EnumSet<DltColumn> needed = EnumSet.noneOf(DltColumn.class);
+        needed.addAll(columns);
+        if (query != null) {
+            needed.addAll(query.columns);
+        }
+        ByteBuffer[] data = new ByteBuffer[COLUMN_COUNT];
+        Row row = new Row(this, needed);
+        // Indexes of the rows of the block which match
+        int[] selected = new int[0];
+        long count = 0;
+        for (Block block : blocks) {
+            if (query != null && !query.mayMatch(block)) {
+                continue;
+            }
+            for (DltColumn column : needed) {
+                int ordinal = column.ordinal();
+                data[ordinal] = read(block.offset + block.columnOffsets[ordinal], block.columnLengths[ordinal], data[ordinal]);
+                if (row.values[ordinal] == null || row.values[ordinal].length < block.count) {
+                    row.values[ordinal] = new long[block.count];
+                }
+                decode(column, data[ordinal], row.values[ordinal], block.count);
+            }
+            row.payloads = data[PAYLOAD];
+            if (selected.length < block.count) {
+                selected = new int[block.count];
+            }
+            int matching = block.count;
+            for (int i = 0; i < matching; i++) {
+                selected[i] = i;
+            }
+            if (query != null) {
+                matching = query.select(row.values, selected, matching);
+            }
+            count += matching;
+            if (action != null) {
+                for (int i = 0; i < matching; i++) {
+                    row.index = selected[i];
+                    action.accept(row);
+                }
+            }
+        }
+        return count;
+    }
+
+    // Decode the values of a column of a block
+    private static void decode(DltColumn column, ByteBuffer src, long[] dst, int count) {
+        byte[] data = src.array();
+        switch (column) {
+            case MESSAGE_COUNTER:
+            case HEADER_TYPE:
+            case MESSAGE_INFO:
+                for (int i = 0; i < count; i++) {
+                    dst[i] = data[i] & 0xFF;
+                }
+                break;
+            case PAYLOAD:
+                // Offset of the bytes in the upper half, length in the lower half
+                for (int i = 0, index = 0; i < count; i++) {
+                    long length = 0;
+                    int shift = 0;
+                    int b;
+                    do {
+                        b = data[index++];
+                        length |= (long) (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    dst[i] = (long) index << 32 | length;
+                    index += (int) length;
+                }
+                break;
+            default:
+                for (int i = 0, index = 0; i < count; i++) {
+                    long value = data[index++];
+                    if (value < 0) {
+                        value &= 0x7F;
+                        int shift = 7;
+                        int b;
+                        do {
+                            b = data[index++];
+                            value |= (long) (b & 0x7F) << shift;
+                            shift += 7;
+                        } while (b < 0);
+                    }
+                    dst[i] = value;
+                }
+                if (column == DltColumn.TIME || column == DltColumn.TIMESTAMP || column == DltColumn.SESSION_ID) {
+                    // Zigzag deltas
+                    long value = 0;
+                    for (int i = 0; i < count; i++) {
+                        value += (dst[i] >>> 1) ^ -(dst[i] & 1);
+                        dst[i] = value;
+                    }
+                }
+                break;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Read the bytes [offset, offset + length) of the file into the buffer, reallocated if too small
+    private ByteBuffer read(long offset, int length, ByteBuffer buffer) throws IOException {
+        if (buffer == null || buffer.capacity() < length) {
+            buffer = ByteBuffer.allocate(Math.max(length, buffer == null ? 0 : buffer.capacity() * 2))
+                    .order(ByteOrder.BIG_ENDIAN);
+        }
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IllegalArgumentException("Unexpected end of the columnar file at " + (offset + buffer.position()));
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void checkMagic(ByteBuffer buffer, int index) {
+        for (int i = 0; i < DltColumnarWriter.MAGIC.length; i++) {
+            if (buffer.get(index + i) != DltColumnarWriter.MAGIC[i]) {
+                throw new IllegalArgumentException("Not a columnar file / Missing " + new String(DltColumnarWriter.MAGIC, StandardCharsets.US_ASCII));
+            }
+        }
+    }
+
+    // Entry of the block directory
+    private static final class Block {
+        final long offset;
+        final int count;
+        final int[] columnOffsets = new int[COLUMN_COUNT];
+        final int[] columnLengths = new int[COLUMN_COUNT];
+        final long minTime;
+        final long maxTime;
+        final long minTimestamp;
+        final long maxTimestamp;
+        final long ecuMask;
+        final long applicationMask;
+        final long contextMask;
+        final long messageTypeMask;
+
+        Block(ByteBuffer src) {
+            this.offset = src.getLong();
+            this.count = src.getInt();
+            int columnOffset = 0;
+            for (int i = 0; i < COLUMN_COUNT; i++) {
+                columnOffsets[i] = columnOffset;
+                columnLengths[i] = src.getInt();
+                columnOffset += columnLengths[i];
+            }
+            this.minTime = src.getLong();
+            this.maxTime = src.getLong();
+            this.minTimestamp = src.getLong();
+            this.maxTimestamp = src.getLong();
+            this.ecuMask = src.getLong();
+            this.applicationMask = src.getLong();
+            this.contextMask = src.getLong();
+            this.messageTypeMask = src.getLong();
+        }
+    }
+
+    // Terms of a filter against the statistics of the blocks and the values of the rows
+    private final class Query {
+        private final DltFilter filter;
+        // Columns the terms read
+        private final EnumSet<DltColumn> columns = EnumSet.noneOf(DltColumn.class);
+        private long ecuMask = -1L;
+        private long applicationMask = -1L;
+        private long contextMask = -1L;
+        private long messageTypeMask = -1L;
+        // Matching values by Header Type, Message Info and dictionary index, null if not checked
+        private boolean[] headerTypes;
+        private boolean[] messageInfos;
+        private boolean[] ecuIds;
+        private boolean[] applicationIds;
+        private boolean[] contextIds;
+
+        Query(DltFilter filter) {
+            this.filter = filter;
+            boolean extended = filter.requiresExtendedHeader();
+            if (extended || filter.withSessionId) {
+                headerTypes = new boolean[256];
+                for (int headerType = 0; headerType < headerTypes.length; headerType++) {
+                    headerTypes[headerType] = (!extended || (headerType & StandardHeader.USE_EXTENDED_HEADER_MASK) != 0)
+                            && (!filter.withSessionId || (headerType & StandardHeader.WITH_SESSION_ID_MASK) != 0);
+                }
+                columns.add(DltColumn.HEADER_TYPE);
+            }
+            if (filter.messageType >= 0) {
+                messageInfos = new boolean[256];
+                messageTypeMask = 0;
+                for (int messageInfo = 0; messageInfo < messageInfos.length; messageInfo++) {
+                    int messageType = (messageInfo & ExtendedHeader.MESSAGE_TYPE_MASK) >> ExtendedHeader.MESSAGE_TYPE_SHIFT;
+                    int messageTypeInfo = (messageInfo & ExtendedHeader.MESSAGE_TYPE_INFO_MASK)
+                            >> ExtendedHeader.MESSAGE_TYPE_INFO_SHIFT;
+                    if (filter.matchesMessageType(messageType, messageTypeInfo)) {
+                        messageInfos[messageInfo] = true;
+                        messageTypeMask |= 1L << DltColumnarWriter.messageTypeBit(messageInfo);
+                    }
+                }
+                columns.add(DltColumn.MESSAGE_INFO);
+            }
+            if (filter.ecuIds != null) {
+                ecuIds = matchingIds(filter::matchesEcuId);
+                ecuMask = mask(ecuIds);
+                columns.add(DltColumn.ECU_ID);
+            }
+            if (filter.applicationIds != null) {
+                applicationIds = matchingIds(filter::matchesApplicationId);
+                applicationMask = mask(applicationIds);
+                columns.add(DltColumn.APPLICATION_ID);
+            }
+            if (filter.contextIds != null) {
+                contextIds = matchingIds(filter::matchesContextId);
+                contextMask = mask(contextIds);
+                columns.add(DltColumn.CONTEXT_ID);
+            }
+            if (filter.withSessionId) {
+                columns.add(DltColumn.SESSION_ID);
+            }
+            if (filter.withTimeRange) {
+                columns.add(DltColumn.TIME);
+            }
+        }
+
+        boolean mayMatch(Block block) {
+            if (filter.withTimeRange && (block.maxTime < filter.fromMicros || block.minTime >= filter.toMicros)) {
+                return false;
+            }
+            // The Message Type bits are only set by messages with an Extended Header
+            return (block.ecuMask & ecuMask) != 0 && (block.applicationMask & applicationMask) != 0
+                    && (block.contextMask & contextMask) != 0
+                    && (filter.messageType < 0 || (block.messageTypeMask & messageTypeMask) != 0);
+        }
+
+        /**
+         * Keep the rows matching all terms, one column after another.
+         *
+         * @return Number of the rows kept at the beginning of selected
+         */
+        int select(long[][] values, int[] selected, int count) {
+            count = select(headerTypes, values[HEADER_TYPE], selected, count);
+            count = select(messageInfos, values[MESSAGE_INFO], selected, count);
+            count = select(ecuIds, values[ECU_ID], selected, count);
+            count = select(applicationIds, values[APPLICATION_ID], selected, count);
+            count = select(contextIds, values[CONTEXT_ID], selected, count);
+            if (filter.withSessionId) {
+                long[] sessionIds = values[SESSION_ID];
+                int kept = 0;
+                for (int i = 0; i < count; i++) {
+                    int index = selected[i];
+                    selected[kept] = index;
+                    kept += (int) sessionIds[index] == filter.sessionId ? 1 : 0;
+                }
+                count = kept;
+            }
+            if (filter.withTimeRange) {
+                long[] times = values[TIME];
+                int kept = 0;
+                for (int i = 0; i < count; i++) {
+                    int index = selected[i];
+                    selected[kept] = index;
+                    kept += filter.matchesTime(times[index]) ? 1 : 0;
+                }
+                count = kept;
+            }
+            return count;
+        }
+
+        // Without branches on the values, they are often in random order
+        private int select(boolean[] matching, long[] values, int[] selected, int count) {
+            if (matching == null) {
+                return count;
+            }
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                int index = selected[i];
+                selected[kept] = index;
+                kept += matching[(int) values[index]] ? 1 : 0;
+            }
+            return kept;
+        }
+
+        private boolean[] matchingIds(IntPredicate term) {
+            boolean[] matching = new boolean[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                matching[i] = term.test(ids[i]);
+            }
+            return matching;
+        }
+
+        // Mask of the matching dictionary indexes, as in the statistics of the blocks
+        private long mask(boolean[] matching) {
+            long mask = 0;
+            for (int i = 0; i < matching.length; i++) {
+                if (matching[i]) {
+                    mask |= 1L << i;
+                }
+            }
+            return mask;
+        }
+    }
+
+    /**
+     * Message of a columnar file, decoded from the columns that were read.
+     */
+    public static final class Row {
+        private final DltColumnarReader reader;
+        private final Set<DltColumn> columns;
+        // Values of the columns of the current block, null if not read
+        private final long[][] values = new long[COLUMN_COUNT][];
+        private ByteBuffer payloads;
+        private int index;
+
+        private Row(DltColumnarReader reader, Set<DltColumn> columns) {
+            this.reader = reader;
+            this.columns = columns;
+        }
+
+        // Storage Header time in microseconds, 0 if the message has none
+        public long getTime() {
+            return get(DltColumn.TIME);
+        }
+
+        public int getSeconds() {
+            return (int) (getTime() / 1_000_000L);
+        }
+
+        public int getMicroseconds() {
+            return (int) (getTime() % 1_000_000L);
+        }
+
+        public int getTimestamp() {
+            return (int) get(DltColumn.TIMESTAMP);
+        }
+
+        public int getMessageCounter() {
+            return (int) get(DltColumn.MESSAGE_COUNTER);
+        }
+
+        public int getEcuIdKey() {
+            return reader.ids[(int) get(DltColumn.ECU_ID)];
+        }
+
+        public int getApplicationIdKey() {
+            return reader.ids[(int) get(DltColumn.APPLICATION_ID)];
+        }
+
+        public int getContextIdKey() {
+            return reader.ids[(int) get(DltColumn.CONTEXT_ID)];
+        }
+
+        public String getEcuId() {
+            return DltIdTable.toString(getEcuIdKey());
+        }
+
+        public String getApplicationId() {
+            return DltIdTable.toString(getApplicationIdKey());
+        }
+
+        public String getContextId() {
+            return DltIdTable.toString(getContextIdKey());
+        }
+
+        public boolean useExtendedHeader() {
+            return (get(DltColumn.HEADER_TYPE) & StandardHeader.USE_EXTENDED_HEADER_MASK) != 0;
+        }
+
+        public boolean isMsbFirst() {
+            return (get(DltColumn.HEADER_TYPE) & StandardHeader.MSB_FIRST_MASK) != 0;
+        }
+
+        public boolean withSessionId() {
+            return (get(DltColumn.HEADER_TYPE) & StandardHeader.WITH_SESSION_ID_MASK) != 0;
+        }
+
+        public boolean withTimestamp() {
+            return (get(DltColumn.HEADER_TYPE) & StandardHeader.WITH_TIMESTAMP_MASK) != 0;
+        }
+
+        public int getSessionId() {
+            return (int) get(DltColumn.SESSION_ID);
+        }
+
+        public boolean isVerbose() {
+            return (get(DltColumn.MESSAGE_INFO) & ExtendedHeader.VERBOSE_MASK) != 0;
+        }
+
+        public int getMessageType() {
+            return (int) (get(DltColumn.MESSAGE_INFO) & ExtendedHeader.MESSAGE_TYPE_MASK) >> ExtendedHeader.MESSAGE_TYPE_SHIFT;
+        }
+
+        public int getMessageTypeInfo() {
+            return (int) (get(DltColumn.MESSAGE_INFO) & ExtendedHeader.MESSAGE_TYPE_INFO_MASK)
+                    >> ExtendedHeader.MESSAGE_TYPE_INFO_SHIFT;
+        }
+
+        // Number of the arguments whose Type Info is known, 0 for Non-Verbose Mode
+        public int getNumberOfArguments() {
+            return reader.signatures[(int) get(DltColumn.SIGNATURE)].length;
+        }
+
+        public int getArgumentTypeInfo(int index) {
+            return reader.signatures[(int) get(DltColumn.SIGNATURE)][index];
+        }
+
+        // Payload bytes, only valid during the call of the action
+        public ByteBuffer getPayload() {
+            long value = get(DltColumn.PAYLOAD);
+            return payloads.slice((int) (value >>> 32), (int) value).asReadOnlyBuffer();
+        }
+
+        private long get(DltColumn column) {
+            if (!columns.contains(column)) {
+                throw new IllegalStateException("The column was not read: " + column);
+            }
+            return values[column.ordinal()][index];
+        }
+    }
+}
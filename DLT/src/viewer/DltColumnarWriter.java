@@ -0,0 +1,424 @@
+package viewer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the messages of DLT files into a columnar file (.dltc) for repeated scans.
+ *
+ * Messages are grouped into blocks; a block stores each {@link DltColumn} separately so
+ * a reader only reads the columns it needs. IDs and argument type signatures are
+ * dictionary encoded for the whole file. The footer has the statistics of each block
+ * (time ranges and masks of the IDs and Message Types present), so a reader can skip
+ * blocks which cannot match a filter.
+ *
+ * Layout (big endian):
+ * <pre>
+ * Header (16 bytes): "DLTC", version, block size, reserved
+ * Blocks:            the columns of each block, one after another
+ * Footer:            ID dictionary: count, keys
+ *                    Signature dictionary: count, for each: count (2), Type Infos (4 each)
+ *                    Blocks: count, for each: offset (8), number of messages (4),
+ *                            length of each column (4 each), min/max time (8 each),
+ *                            min/max timestamp (8 each), masks of ECU ID, APID, CTID and
+ *                            Message Type/Info (8 each)
+ * Trailer (20 bytes): offset of the footer (8), number of messages (8), "DLTC"
+ * </pre>
+ * Numbers in the columns are unsigned LEB128 varints, delta encoded ones in zigzag.
+ * A mask has the bit (index % 64) for each dictionary index present; the Message
+ * Type/Info mask has the bit (Message Type * 16 + Message Type Info).
+ */
+public class DltColumnarWriter implements Closeable {
+    public static final String FILE_EXTENSION = ".dltc";
+    // Default number of messages of a block
+    public static final int DEFAULT_BLOCK_SIZE = 16 * 1024;
+
+    static final byte[] MAGIC = new byte[] {(byte) 0x44, (byte) 0x4C, (byte) 0x54, (byte) 0x43};
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = 16;
+    static final int TRAILER_LENGTH = 20;
+
+    private static final int COLUMN_COUNT = DltColumn.values().length;
+
+    private final FileChannel channel;
+    private final int blockSize;
+    private final ColumnBuilder[] columns = new ColumnBuilder[COLUMN_COUNT];
+    // Scratch buffer to encode a message for write(DltMessage)
+    private ByteBuffer scratch;
+
+    // Dictionaries: key or signature -> index
+    private final Map<Integer, Integer> idIndexes = new HashMap<>();
+    private final List<Integer> ids = new ArrayList<>();
+    private final Map<Signature, Integer> signatureIndexes = new HashMap<>();
+    private final List<int[]> signatures = new ArrayList<>();
+    private final Signature probe = new Signature(new int[16], 0);
+
+    // Directory of the blocks written
+    private final ByteArrayBuilder directory = new ByteArrayBuilder(4096);
+    private int blockCount;
+    private long position = HEADER_LENGTH;
+    private long size;
+
+    // State of the current block
+    private int count;
+    private long previousTime;
+    private long previousTimestamp;
+    private long previousSessionId;
+    private long minTime;
+    private long maxTime;
+    private long minTimestamp;
+    private long maxTimestamp;
+    private long ecuMask;
+    private long applicationMask;
+    private long contextMask;
+    private long messageTypeMask;
+
+    public DltColumnarWriter(Path path) throws IOException {
+        this(path, DEFAULT_BLOCK_SIZE);
+    }
+
+    public DltColumnarWriter(Path path, int blockSize) throws IOException {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be 1 or more: " + blockSize);
+        }
+        this.blockSize = blockSize;
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            columns[i] = new ColumnBuilder(1024);
+        }
+        // The empty signature has index 0, for the messages without arguments or Non-Verbose
+        signatureIndex(probe);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.BIG_ENDIAN);
+        header.put(MAGIC).putInt(VERSION).putInt(blockSize).putInt(0).flip();
+        write(header, 0);
+        resetBlock();
+    }
+
+    /**
+     * Export all messages of a DLT file without decoding them.
+     *
+     * @param dltPath  Path of the DLT file
+     * @param dltcPath Path of the columnar file
+     * @return Number of messages exported
+     * @throws IOException if a file cannot be read or written
+     */
+    public static long export(Path dltPath, Path dltcPath) throws IOException {
+        try (DltFileReader reader = new DltFileReader(dltPath);
+                DltColumnarWriter writer = new DltColumnarWriter(dltcPath)) {
+            reader.forEachView(writer::write);
+            return writer.size();
+        }
+    }
+
+    public void write(DltMessage message) {
+        int length = message.getBytesLength();
+        if (scratch == null || scratch.capacity() < length) {
+            scratch = ByteBuffer.allocate(Math.max(length, DltFileReader.MAX_RECORD_LENGTH)).order(ByteOrder.BIG_ENDIAN);
+        }
+        scratch.clear();
+        message.encodeTo(scratch);
+        write(new DltMessageView(message.getStorageHeader() != null).bind(scratch, 0));
+    }
+
+    /**
+     * Add the message the view is bound to.
+     *
+     * @param view View bound to a message
+     * @throws UncheckedIOException if a full block cannot be written
+     */
+    public void write(DltMessageView view) {
+        long time = view.withStorageHeader()
+                ? Integer.toUnsignedLong(view.getSeconds()) * 1_000_000L + Integer.toUnsignedLong(view.getMicroseconds())
+                : 0;
+        long timestamp = view.withTimestamp() ? Integer.toUnsignedLong(view.getTimestamp()) : 0;
+        long sessionId = view.withSessionId() ? Integer.toUnsignedLong(view.getSessionId()) : 0;
+        boolean extended = view.useExtendedHeader();
+
+        columns[DltColumn.TIME.ordinal()].putZigZag(time - previousTime);
+        columns[DltColumn.TIMESTAMP.ordinal()].putZigZag(timestamp - previousTimestamp);
+        columns[DltColumn.MESSAGE_COUNTER.ordinal()].put(view.getMessageCounter());
+        int ecu = idIndex(view.getEcuIdKey());
+        int application = idIndex(view.getApplicationIdKey());
+        int context = idIndex(view.getContextIdKey());
+        columns[DltColumn.ECU_ID.ordinal()].putVarint(ecu);
+        columns[DltColumn.APPLICATION_ID.ordinal()].putVarint(application);
+        columns[DltColumn.CONTEXT_ID.ordinal()].putVarint(context);
+        columns[DltColumn.HEADER_TYPE.ordinal()].put(view.headerType());
+        int messageInfo = extended ? view.messageInfo() : 0;
+        columns[DltColumn.MESSAGE_INFO.ordinal()].put(messageInfo);
+        columns[DltColumn.SESSION_ID.ordinal()].putZigZag(sessionId - previousSessionId);
+
+        int payloadOffset = view.payloadOffset();
+        int payloadLength = view.getOffset() + view.getBytesLength() - payloadOffset;
+        columns[DltColumn.SIGNATURE.ordinal()].putVarint(view.isVerbose()
+                ? signatureIndex(view.getBuffer(), payloadOffset, payloadLength, view.isMsbFirst(), view.getNumberOfArguments())
+                : 0);
+        ColumnBuilder payload = columns[DltColumn.PAYLOAD.ordinal()];
+        payload.putVarint(payloadLength);
+        payload.put(view.getBuffer(), payloadOffset, payloadLength);
+
+        previousTime = time;
+        previousTimestamp = timestamp;
+        previousSessionId = sessionId;
+        minTime = Math.min(minTime, time);
+        maxTime = Math.max(maxTime, time);
+        minTimestamp = Math.min(minTimestamp, timestamp);
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+        ecuMask |= 1L << ecu;
+        applicationMask |= 1L << application;
+        contextMask |= 1L << context;
+        if (extended) {
+            messageTypeMask |= 1L << messageTypeBit(messageInfo);
+        }
+        size++;
+        if (++count == blockSize) {
+            try {
+                writeBlock();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Number of messages written
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Write the last block and the footer.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (count > 0) {
+                writeBlock();
+            }
+            writeFooter();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        long blockOffset = position;
+        directory.putLong(blockOffset);
+        directory.putInt(count);
+        for (ColumnBuilder column : columns) {
+            directory.putInt(column.size);
+            write(ByteBuffer.wrap(column.data, 0, column.size), position);
+            position += column.size;
+        }
+        directory.putLong(minTime);
+        directory.putLong(maxTime);
+        directory.putLong(minTimestamp);
+        directory.putLong(maxTimestamp);
+        directory.putLong(ecuMask);
+        directory.putLong(applicationMask);
+        directory.putLong(contextMask);
+        directory.putLong(messageTypeMask);
+        blockCount++;
+        resetBlock();
+    }
+
+    private void writeFooter() throws IOException {
+        ByteArrayBuilder footer = new ByteArrayBuilder(1024 + directory.size);
+        footer.putInt(ids.size());
+        for (int key : ids) {
+            footer.putInt(key);
+        }
+        footer.putInt(signatures.size());
+        for (int[] signature : signatures) {
+            footer.putShort(signature.length);
+            for (int typeInfo : signature) {
+                footer.putInt(typeInfo);
+            }
+        }
+        footer.putInt(blockCount);
+        footer.put(directory.data, 0, directory.size);
+        footer.putLong(position);
+        footer.putLong(size);
+        footer.put(MAGIC, 0, MAGIC.length);
+        write(ByteBuffer.wrap(footer.data, 0, footer.size), position);
+    }
+
+    private void resetBlock() {
+        for (ColumnBuilder column : columns) {
+            column.size = 0;
+        }
+        count = 0;
+        previousTime = 0;
+        previousTimestamp = 0;
+        previousSessionId = 0;
+        minTime = Long.MAX_VALUE;
+        maxTime = Long.MIN_VALUE;
+        minTimestamp = Long.MAX_VALUE;
+        maxTimestamp = Long.MIN_VALUE;
+        ecuMask = 0;
+        applicationMask = 0;
+        contextMask = 0;
+        messageTypeMask = 0;
+    }
+
+    // Bit of the Message Type and Message Type Info in the mask of a block
+    static int messageTypeBit(int messageInfo) {
+        int messageType = (messageInfo & ExtendedHeader.MESSAGE_TYPE_MASK) >> ExtendedHeader.MESSAGE_TYPE_SHIFT;
+        int messageTypeInfo = (messageInfo & ExtendedHeader.MESSAGE_TYPE_INFO_MASK) >> ExtendedHeader.MESSAGE_TYPE_INFO_SHIFT;
+        return (messageType << 4 | messageTypeInfo) & 63;
+    }
+
+    private void write(ByteBuffer src, long offset) throws IOException {
+        while (src.hasRemaining()) {
+            offset += channel.write(src, offset);
+        }
+    }
+
+    private int idIndex(int key) {
+        Integer index = idIndexes.get(key);
+        if (index == null) {
+            index = ids.size();
+            ids.add(key);
+            idIndexes.put(key, index);
+        }
+        return index;
+    }
+
+    // Index of the Type Infos of the arguments of the payload
+    private int signatureIndex(ByteBuffer src, int offset, int length, boolean msbFirst, int numberOfArguments) {
+        if (probe.types.length < numberOfArguments) {
+            probe.types = new int[numberOfArguments];
+        }
+        int end = offset + length;
+        int index = offset;
+        int count = 0;
+        try {
+            for (; count < numberOfArguments && index < end; count++) {
+                probe.types[count] = BufferUtils.getInt(src, index, msbFirst);
+                index += Argument.getArgumentLength(src, index, end - index, msbFirst);
+            }
+        } catch (IllegalArgumentException e) {
+            // Damaged payload, the Type Infos read so far
+        }
+        probe.length = count;
+        return signatureIndex(probe);
+    }
+
+    private int signatureIndex(Signature signature) {
+        Integer index = signatureIndexes.get(signature);
+        if (index == null) {
+            int[] types = Arrays.copyOf(signature.types, signature.length);
+            index = signatures.size();
+            signatures.add(types);
+            signatureIndexes.put(new Signature(types, types.length), index);
+        }
+        return index;
+    }
+
+    // Type Infos of the arguments of a message, the probe is reused for lookups
+    private static final class Signature {
+        int[] types;
+        int length;
+
+        Signature(int[] types, int length) {
+            this.types = types;
+            this.length = length;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Signature)) {
+                return false;
+            }
+            Signature signature = (Signature) other;
+            return Arrays.equals(types, 0, length, signature.types, 0, signature.length);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 1;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + types[i];
+            }
+            return hash;
+        }
+    }
+
+    // Growable array of bytes, numbers in big endian
+    static class ByteArrayBuilder {
+        byte[] data;
+        int size;
+
+        ByteArrayBuilder(int capacity) {
+            this.data = new byte[capacity];
+        }
+
+        void put(int value) {
+            ensure(1);
+            data[size++] = (byte) value;
+        }
+
+        void put(byte[] src, int offset, int length) {
+            ensure(length);
+            System.arraycopy(src, offset, data, size, length);
+            size += length;
+        }
+
+        void put(ByteBuffer src, int offset, int length) {
+            ensure(length);
+            src.get(offset, data, size, length);
+            size += length;
+        }
+
+        void putShort(int value) {
+            put(value >>> 8);
+            put(value);
+        }
+
+        void putInt(int value) {
+            putShort(value >>> 16);
+            putShort(value);
+        }
+
+        void putLong(long value) {
+            putInt((int) (value >>> 32));
+            putInt((int) value);
+        }
+
+        private void ensure(int length) {
+            if (size + length > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + length));
+            }
+        }
+    }
+
+    // Bytes of a column of the current block
+    private static final class ColumnBuilder extends ByteArrayBuilder {
+        ColumnBuilder(int capacity) {
+            super(capacity);
+        }
+
+        void putVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                put((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            put((int) value);
+        }
+
+        void putZigZag(long value) {
+            putVarint((value << 1) ^ (value >> 63));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package viewer;
+
+/**
+ * Invalid data found by a decoder. The cause of the error is counted by
+ * {@link DltMetrics}; other IllegalArgumentExceptions of the decoders count as
+ * {@link DltMetrics.Cause#INVALID}.
+ */
+public class DltDecodeException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final DltMetrics.Cause reason;
+
+    DltDecodeException(DltMetrics.Cause reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public DltMetrics.Cause getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,202 @@
+package viewer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Reads the messages appended to a DLT file while it is being written, like "tail -f".
+ *
+ * Only the bytes after the last complete message are read. A record written partially
+ * stays in the buffer until the bytes given by its length field have arrived. Growth is
+ * notified by a {@link WatchService} on the directory of the file; the file is checked
+ * at least every poll interval in case the notification is late or not supported.
+ * Damaged data is skipped up to the next plausible record, a record which fails to
+ * decode is skipped as a whole.
+ *
+ * If the file gets shorter than the offset, it was truncated or replaced and is read
+ * again from the start.
+ */
+public class DltFileFollower implements Closeable {
+    // Default maximum time between two checks of the file
+    public static final long DEFAULT_POLL_INTERVAL_MILLIS = 50;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long pollIntervalMillis;
+    // Frames the bytes read after the offset of the last complete message
+    private final RecordFramer framer;
+    private WatchService watchService;
+    private volatile boolean closed;
+
+    public DltFileFollower(Path path) throws IOException {
+        this(path, Optional.of(StandardCharsets.US_ASCII.name()), 0, DEFAULT_POLL_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param path               Path of the file
+     * @param encoding           Encoding of the string arguments
+     * @param offset             Offset to start at, e.g. the file size to skip the existing messages
+     * @param pollIntervalMillis Maximum time between two checks of the file
+     * @throws IOException if the file cannot be opened
+     */
+    public DltFileFollower(Path path, Optional<String> encoding, long offset, long pollIntervalMillis) throws IOException {
+        if (pollIntervalMillis < 1) {
+            throw new IllegalArgumentException("Poll interval must be 1 or more: " + pollIntervalMillis);
+        }
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.framer = new RecordFramer(encoding, offset);
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+    /**
+     * Refill one message for all messages passed to the sinks instead of creating a new
+     * one for each, see {@link DltMessage#refill}. A message is then only valid during
+     * the call of the sink.
+     *
+     * @param recycling True to refill one message
+     */
+    public void setRecycling(boolean recycling) {
+        framer.recycled = recycling ? DltMessage.createRecyclable() : null;
+    }
+
+    // Offset of the file after the last complete message passed on
+    public long getOffset() {
+        return framer.getOffset();
+    }
+
+    /**
+     * Read the messages appended since the last call.
+     *
+     * @param sink Called for each new message
+     * @return Number of messages passed to the sink
+     * @throws IOException if the file cannot be read
+     */
+    public int poll(Consumer<? super DltMessage> sink) throws IOException {
+        return poll(null, sink);
+    }
+
+    /**
+     * Read the messages appended since the last call that match the filter.
+     *
+     * @param filter Filter checked on the headers before decoding, null for all messages
+     * @param sink   Called for each new matching message
+     * @return Number of messages passed to the sink
+     * @throws IOException if the file cannot be read
+     */
+    public int poll(DltFilter filter, Consumer<? super DltMessage> sink) throws IOException {
+        ByteBuffer buffer = framer.buffer;
+        long size = channel.size();
+        if (size < framer.getOffset() + buffer.position()) {
+            // Truncated or replaced, start again
+            framer.reset(0);
+        }
+        int count = 0;
+        while (true) {
+            int read = channel.read(buffer, framer.getOffset() + buffer.position());
+            if (read <= 0) {
+                return count;
+            }
+            buffer.flip();
+            count += framer.parse(filter, sink, false);
+            buffer.compact();
+        }
+    }
+
+    /**
+     * Pass the new messages to the sink until {@link #close()} is called.
+     *
+     * @param sink Called for each new message
+     * @throws IOException if the file cannot be read
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void follow(Consumer<? super DltMessage> sink) throws IOException, InterruptedException {
+        follow(null, sink);
+    }
+
+    /**
+     * Pass the new messages matching the filter to the sink until {@link #close()} is called.
+     *
+     * @param filter Filter checked on the headers before decoding, null for all messages
+     * @param sink   Called for each new matching message
+     * @throws IOException if the file cannot be read
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void follow(DltFilter filter, Consumer<? super DltMessage> sink) throws IOException, InterruptedException {
+        try {
+            watch();
+            while (!closed) {
+                poll(filter, sink);
+                awaitChange();
+            }
+        } catch (ClosedChannelException | ClosedWatchServiceException e) {
+            if (!closed) {
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            if (watchService != null) {
+                watchService.close();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Watch the directory of the file, polling only if that is not possible
+    private void watch() {
+        Path directory = path.toAbsolutePath().getParent();
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+        } catch (IOException | UnsupportedOperationException e) {
+            closeWatchService();
+        }
+    }
+
+    // Wait until the file may have changed, at most the poll interval
+    private void awaitChange() throws InterruptedException {
+        if (watchService == null) {
+            Thread.sleep(pollIntervalMillis);
+            return;
+        }
+        WatchKey key = watchService.poll(pollIntervalMillis, TimeUnit.MILLISECONDS);
+        if (key != null) {
+            // Any event of the directory is a reason to check, the events are not needed
+            key.pollEvents();
+            if (!key.reset()) {
+                // The directory is gone, fall back to polling
+                closeWatchService();
+            }
+        }
+    }
+
+    private void closeWatchService() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // Nothing to do, polling is used instead
+            }
+            watchService = null;
+        }
+    }
+}
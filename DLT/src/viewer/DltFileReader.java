@@ -0,0 +1,580 @@
+package viewer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads DLT messages (with Storage Header) from a file.
+ *
+ * The file is mapped into memory in windows of {@link #WINDOW_SIZE} bytes, so files
+ * larger than 2 GB can be read without copying them through the Java heap.
+ * Records are located with {@link StorageHeader#DLT_PATTERN} and the length field of
+ * the Standard Header, and are decoded lazily while iterating. After damaged data,
+ * reading continues at the next plausible record. A record which fails to decode is
+ * skipped as a whole. The skipped bytes can be reported with
+ * {@link #setSkipListener(SkipListener)}.
+ */
+public class DltFileReader implements Iterable<DltMessage>, Closeable {
+    // Size of one mapped window of the file
+    public static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    // Maximum length of a record (Storage Header + maximum of the length field)
+    public static final int MAX_RECORD_LENGTH = StorageHeader.DATA_LENGTH + 0xFFFF;
+
+    // Offset of the length field inside a record (Storage Header + HTYP + MCNT)
+    private static final int LENGTH_FIELD_OFFSET = StorageHeader.DATA_LENGTH + 2;
+
+    // Maximum length of the headers of a record (Storage, Standard and Extended Header)
+    private static final int MAX_HEADERS_LENGTH = StorageHeader.DATA_LENGTH + StandardHeader.DATA_MIN_LENGTH + 12
+            + ExtendedHeader.DATA_LENGTH;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long fileSize;
+    // Modification time (ms) taken before the size, for the sidecar indexes written by the passes
+    private final long modifiedTime;
+    private final Optional<String> encoding;
+
+    private boolean indexing;
+    private boolean recycling;
+    private DltIndexWriter indexWriter;
+    private SkipListener skipListener;
+
+    public DltFileReader(Path path) throws IOException {
+        this(path, Optional.of(StandardCharsets.US_ASCII.name()));
+    }
+
+    public DltFileReader(Path path, Optional<String> encoding) throws IOException {
+        this.path = path;
+        this.modifiedTime = Files.getLastModifiedTime(path).toMillis();
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.encoding = encoding;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    // Modification time of the file in ms when it was opened, a file modified later has a newer one
+    long getModifiedTime() {
+        return modifiedTime;
+    }
+
+    public Optional<String> getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Write the sidecar index (.dlti) as a by-product of the next complete pass over
+     * the file by {@link #iterator()} or {@link #forEachView(Consumer)}, if there is no
+     * valid index yet.
+     *
+     * @param indexing True to write the index
+     */
+    public void setIndexing(boolean indexing) {
+        this.indexing = indexing;
+    }
+
+    /**
+     * Refill one message for all messages of each {@link #iterator()} or {@link #stream()}
+     * instead of creating a new one for each, see {@link DltMessage#refill}.
+     *
+     * A message is then only valid until the next one is read, so it must not be kept,
+     * e.g. collected from the stream, or read by another thread. Such a reader cannot
+     * be a source of a {@link DltMerger}, which rejects recyclable messages.
+     *
+     * @param recycling True to refill one message
+     */
+    public void setRecycling(boolean recycling) {
+        this.recycling = recycling;
+    }
+
+    /**
+     * Report the bytes skipped because they are not part of a valid record during the
+     * passes over the file by {@link #iterator()} and {@link #forEachView(Consumer)}.
+     *
+     * @param skipListener Called for each skipped range, null for none
+     */
+    public void setSkipListener(SkipListener skipListener) {
+        this.skipListener = skipListener;
+    }
+
+    /**
+     * Open the sidecar index of the file if it is up to date.
+     *
+     * @return Index, empty if there is no valid index
+     * @throws IOException if the index cannot be read
+     */
+    public Optional<DltIndex> openIndex() throws IOException {
+        return DltIndex.open(path);
+    }
+
+    /**
+     * Count the messages of the file, from the index if it is up to date.
+     *
+     * @return Number of messages
+     * @throws IOException if the file cannot be read
+     */
+    public long countMessages() throws IOException {
+        Optional<DltIndex> index = openIndex();
+        if (index.isPresent()) {
+            try (DltIndex dltIndex = index.get()) {
+                return dltIndex.size();
+            }
+        }
+        long[] count = new long[1];
+        forEachView(view -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Decode the message at the offset of the file, e.g. an offset from the index.
+     *
+     * @param offset Offset of the Storage Header of the message
+     * @return Decoded message
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if there is no complete message at the offset
+     */
+    public DltMessage readMessage(long offset) throws IOException {
+        RecordCursor cursor = newCursor(offset);
+        if (!cursor.advance() || cursor.getRecordOffset() != offset) {
+            throw new IllegalArgumentException("No message at offset " + offset);
+        }
+        try {
+            return DltMessage.createFromBytes(cursor.getWindow(), cursor.windowIndex(), cursor.getRecordLength(), true, encoding);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("No valid message at offset " + offset, e);
+        }
+    }
+
+    @Override
+    public Iterator<DltMessage> iterator() {
+        return iterator(null);
+    }
+
+    /**
+     * Get the messages of the file matching the filter.
+     *
+     * The filter is checked on the headers in the file, only the matching messages
+     * are decoded.
+     *
+     * @param filter Filter of the messages, null for all messages
+     * @return Iterator over the decoded messages
+     */
+    public Iterator<DltMessage> iterator(DltFilter filter) {
+        try {
+            return new MessageIterator(newIndexingCursor(), filter, recycling ? DltMessage.createRecyclable() : null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get messages of the file as a sequential, ordered stream.
+     *
+     * @return Stream of the decoded messages
+     */
+    public Stream<DltMessage> stream() {
+        return stream(null);
+    }
+
+    /**
+     * Get the messages of the file matching the filter as a sequential, ordered stream.
+     *
+     * @param filter Filter of the messages, null for all messages
+     * @return Stream of the decoded messages
+     * @see #iterator(DltFilter)
+     */
+    public Stream<DltMessage> stream(DltFilter filter) {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator(filter), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Scan the messages of the file with a single reused {@link DltMessageView}.
+     *
+     * Nothing is decoded unless the action reads it, so scanning does not allocate
+     * per message. The view is only valid during the call of the action.
+     *
+     * @param action Action called for each message
+     * @throws IOException if the file cannot be read
+     */
+    public void forEachView(Consumer<? super DltMessageView> action) throws IOException {
+        DltMessageView view = new DltMessageView(true);
+        RecordCursor cursor = newIndexingCursor();
+        while (cursor.advance()) {
+            action.accept(view.bind(cursor.getWindow(), cursor.windowIndex()));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (indexWriter != null) {
+            indexWriter.close();
+            indexWriter = null;
+        }
+        channel.close();
+    }
+
+    // Create a cursor from the start of the file, writing the index if it is enabled and needed
+    private RecordCursor newIndexingCursor() throws IOException {
+        RecordCursor cursor = newCursor(0);
+        cursor.skipListener = skipListener;
+        if (indexing) {
+            if (indexWriter != null) {
+                // The previous pass was abandoned
+                indexWriter.close();
+                indexWriter = null;
+            }
+            Optional<DltIndex> index = openIndex();
+            if (index.isPresent()) {
+                index.get().close();
+            } else {
+                // The index is of the file as it was opened, not as it may have grown since
+                indexWriter = new DltIndexWriter(path, fileSize, modifiedTime);
+                cursor.indexWriter = indexWriter;
+            }
+        }
+        return cursor;
+    }
+
+    // Commit the index when a pass writing it reaches the end of the file
+    private void commitIndex(DltIndexWriter writer) throws IOException {
+        if (writer == indexWriter) {
+            indexWriter = null;
+            writer.commit();
+        }
+    }
+
+    // Create a cursor starting at the position of the file, each cursor maps its own windows
+    RecordCursor newCursor(long position) {
+        return new RecordCursor(position);
+    }
+
+    // Decode the record the cursor is at, null if it fails to decode
+    DltMessage decode(RecordCursor cursor) {
+        return decode(cursor, null);
+    }
+
+    // Decode the record the cursor is at, into the recyclable message if it is not null.
+    // A record which fails to decode is skipped like damaged data, then the result is null.
+    DltMessage decode(RecordCursor cursor, DltMessage recycled) {
+        try {
+            if (recycled != null) {
+                return recycled.refill(cursor.getWindow(), cursor.windowIndex(), cursor.getRecordLength(), true, encoding);
+            }
+            return DltMessage.createFromBytes(cursor.getWindow(), cursor.windowIndex(), cursor.getRecordLength(), true, encoding);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            cursor.skipRecord();
+            return null;
+        }
+    }
+
+    // Locates the complete records of the file one after another
+    class RecordCursor {
+        private long position;
+        private long recordOffset;
+        private int recordLength;
+
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        // Index written while the cursor moves, if any
+        private DltIndexWriter indexWriter;
+        private DltMessageView indexView;
+
+        // Start of the bytes skipped since the last record, -1 if none, and why they were skipped
+        private long skipStart = -1;
+        private DltMetrics.Cause skipCause;
+        private SkipListener skipListener;
+
+        RecordCursor(long position) {
+            this.position = position;
+        }
+
+        // Move to the next complete record, false at the end of the file.
+        // The record stays mapped until the next call.
+        boolean advance() throws IOException {
+            boolean found = findNextRecord();
+            if (indexWriter != null && indexWriter != DltFileReader.this.indexWriter) {
+                // Another pass took over writing the index
+                indexWriter = null;
+            }
+            if (indexWriter != null) {
+                if (found) {
+                    if (indexView == null) {
+                        indexView = new DltMessageView(true);
+                    }
+                    indexWriter.add(indexView.bind(window, windowIndex()), recordOffset);
+                } else {
+                    commitIndex(indexWriter);
+                    indexWriter = null;
+                }
+            }
+            return found;
+        }
+
+        private boolean findNextRecord() throws IOException {
+            while (position + LENGTH_FIELD_OFFSET + 2 <= fileSize) {
+                ensureMapped(position, LENGTH_FIELD_OFFSET + 2);
+                if (!isPatternAt(position)) {
+                    skip(DltMetrics.Cause.BAD_PATTERN);
+                    position = findPattern(position + 1);
+                    if (position < 0) {
+                        position = fileSize;
+                        break;
+                    }
+                    continue;
+                }
+
+                int length = lengthAt(position);
+                int totalLength = StorageHeader.DATA_LENGTH + length;
+                if (length < PatternScanner.headersLength(headerTypeAt(position)) || position + totalLength > fileSize
+                        || !isAcceptableAt(position)) {
+                    // Not a valid record or truncated, look for the next pattern
+                    skip(length < StandardHeader.DATA_MIN_LENGTH ? DltMetrics.Cause.LENGTH_UNDERFLOW
+                            : position + totalLength > fileSize ? DltMetrics.Cause.TRUNCATED : DltMetrics.Cause.INVALID);
+                    position++;
+                    continue;
+                }
+
+                reportSkipped(position);
+                ensureMapped(position, totalLength);
+                recordOffset = position;
+                recordLength = totalLength;
+                DltMetrics.recordRead(totalLength);
+                position += totalLength;
+                return true;
+            }
+            if (position < fileSize) {
+                // Bytes too short for a record
+                skip(DltMetrics.Cause.TRUNCATED);
+                position = fileSize;
+            }
+            reportSkipped(position);
+            return false;
+        }
+
+        // Mark the position as the start of skipped bytes, unless they started before
+        private void skip(DltMetrics.Cause cause) {
+            if (skipStart < 0) {
+                skipStart = position;
+                skipCause = cause;
+            }
+        }
+
+        // Report the current record as skipped, e.g. because it failed to decode
+        void skipRecord() {
+            // The decoder counted the error
+            DltMetrics.recordSkipped(recordLength);
+            if (skipListener != null) {
+                skipListener.skipped(recordOffset, recordLength);
+            }
+        }
+
+        private void reportSkipped(long end) {
+            if (skipStart >= 0) {
+                DltMetrics.skipped(end - skipStart, skipCause);
+                if (skipListener != null) {
+                    skipListener.skipped(skipStart, end - skipStart);
+                }
+                skipStart = -1;
+            }
+        }
+
+        /**
+         * Move to the first plausible record at or after the current position.
+         *
+         * A record is plausible when its headers pass {@link PatternScanner#isPlausibleRecord}
+         * and it is followed by another DLT-Pattern or the end of the file.
+         *
+         * @return Offset of the record, or the file size if there is none
+         */
+        long resync() throws IOException {
+            while (true) {
+                long candidate = findPattern(position);
+                if (candidate < 0) {
+                    position = fileSize;
+                    return position;
+                }
+                if (isPlausibleAt(candidate)) {
+                    position = candidate;
+                    return position;
+                }
+                position = candidate + 1;
+            }
+        }
+
+        long getPosition() {
+            return position;
+        }
+
+        long getRecordOffset() {
+            return recordOffset;
+        }
+
+        int getRecordLength() {
+            return recordLength;
+        }
+
+        MappedByteBuffer getWindow() {
+            return window;
+        }
+
+        // Index of the current record in the mapped window
+        int windowIndex() {
+            return (int) (recordOffset - windowStart);
+        }
+
+        // A plausible record is followed by another DLT-Pattern or the end of the file
+        private boolean isPlausibleAt(long offset) throws IOException {
+            return hasPlausibleHeadersAt(offset) && isFollowedAt(offset);
+        }
+
+        // A record right after the record before it is accepted as it is. After damaged data,
+        // a record needs plausible headers, and unless it is followed by another record an
+        // Extended Header, whose checks are strong enough to tell it from random bytes.
+        private boolean isAcceptableAt(long offset) throws IOException {
+            if (skipStart < 0) {
+                return true;
+            }
+            if (!hasPlausibleHeadersAt(offset)) {
+                return false;
+            }
+            return isFollowedAt(offset) || (headerTypeAt(offset) & StandardHeader.USE_EXTENDED_HEADER_MASK) != 0;
+        }
+
+        private boolean hasPlausibleHeadersAt(long offset) throws IOException {
+            if (offset + LENGTH_FIELD_OFFSET + 2 > fileSize) {
+                return false;
+            }
+            int headersLength = (int) Math.min(MAX_HEADERS_LENGTH, fileSize - offset);
+            ensureMapped(offset, headersLength);
+            return PatternScanner.isPlausibleRecord(window, (int) (offset - windowStart), headersLength);
+        }
+
+        // Check that the record at the offset ends at a DLT-Pattern or the end of the file
+        private boolean isFollowedAt(long offset) throws IOException {
+            ensureMapped(offset, LENGTH_FIELD_OFFSET + 2);
+            long next = offset + StorageHeader.DATA_LENGTH + lengthAt(offset);
+            if (next == fileSize) {
+                return true;
+            }
+            if (next + StorageHeader.DLT_PATTERN.length > fileSize) {
+                return false;
+            }
+            ensureMapped(next, StorageHeader.DLT_PATTERN.length);
+            return isPatternAt(next);
+        }
+
+        // Make sure that [position, position + length) is inside the mapped window
+        private void ensureMapped(long position, int length) throws IOException {
+            if (window != null && position >= windowStart && position + length <= windowStart + window.limit()) {
+                return;
+            }
+            long size = Math.min(WINDOW_SIZE, fileSize - position);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            window.order(ByteOrder.BIG_ENDIAN);
+            windowStart = position;
+        }
+
+        private int headerTypeAt(long position) {
+            return BufferUtils.getUnsignedByte(window, (int) (position - windowStart) + StorageHeader.DATA_LENGTH);
+        }
+
+        private int lengthAt(long position) {
+            return BufferUtils.getUnsignedShort(window, (int) (position - windowStart) + LENGTH_FIELD_OFFSET, true);
+        }
+
+        private boolean isPatternAt(long position) {
+            return PatternScanner.isPatternAt(window, (int) (position - windowStart));
+        }
+
+        // Search the next DLT-Pattern from the position, -1 if not found
+        private long findPattern(long position) throws IOException {
+            int patternLength = StorageHeader.DLT_PATTERN.length;
+            while (position + patternLength <= fileSize) {
+                if (window == null || position < windowStart || position + patternLength > windowStart + window.limit()) {
+                    ensureMapped(position, patternLength);
+                }
+                // Search the rest of the window, then continue where a pattern may span two windows
+                int from = (int) (position - windowStart);
+                int index = PatternScanner.indexOf(window, from, window.limit());
+                if (index >= 0) {
+                    return windowStart + index;
+                }
+                position = windowStart + Math.max(from, window.limit() - patternLength + 1);
+            }
+            return -1;
+        }
+    }
+
+    private class MessageIterator implements Iterator<DltMessage> {
+        private final RecordCursor cursor;
+        private final DltFilter filter;
+        private final DltMessageView view;
+        // Message refilled for each record, null to decode new ones
+        private final DltMessage recycled;
+        private DltMessage next;
+
+        MessageIterator(RecordCursor cursor, DltFilter filter, DltMessage recycled) {
+            this.cursor = cursor;
+            this.filter = filter;
+            this.view = filter != null ? new DltMessageView(true) : null;
+            this.recycled = recycled;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null && cursor.advance()) {
+                    if (filter == null || filter.test(view.bind(cursor.getWindow(), cursor.windowIndex()))) {
+                        next = decode(cursor, recycled);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return next != null;
+        }
+
+        @Override
+        public DltMessage next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            DltMessage message = next;
+            next = null;
+            return message;
+        }
+    }
+
+    /**
+     * Receives the ranges of the file skipped because they are not part of a valid record.
+     */
+    @FunctionalInterface
+    public interface SkipListener {
+        /**
+         * @param offset Offset of the first skipped byte
+         * @param length Number of skipped bytes
+         */
+        void skipped(long offset, long length);
+    }
+}
@@ -0,0 +1,201 @@
+package viewer;
+
+import java.time.Instant;
+import java.util.function.Predicate;
+
+import viewer.StandardHeader.MessageLogInfo;
+import viewer.StandardHeader.MessageType;
+
+/**
+ * Filter of DLT messages on the fields of their headers.
+ *
+ * The filter is checked against a {@link DltMessageView}, so the headers are read in
+ * place and a message that does not match is never decoded. All terms that are set
+ * must match; a term with several values matches any of them.
+ *
+ * <pre>
+ * // ERROR and FATAL of APID "NAV" on ECU "ECU1"
+ * DltFilter filter = new DltFilter()
+ *         .ecuId("ECU1")
+ *         .applicationId("NAV")
+ *         .logLevel(MessageLogInfo.DLT_LOG_FATAL, MessageLogInfo.DLT_LOG_ERROR);
+ * </pre>
+ *
+ * Set the terms before using the filter; it is not changed while messages are
+ * checked, so it can then be shared between threads.
+ *
+ * The same filter also selects the rows of a columnar file, see {@link DltColumnarReader}.
+ */
+public class DltFilter implements Predicate<DltMessageView> {
+    // Keys of the IDs (see DltIdTable), null for any
+    int[] ecuIds;
+    int[] applicationIds;
+    int[] contextIds;
+
+    // Message Type, -1 for any
+    int messageType = -1;
+    // Range of the Message Type Info, 0 for any
+    int minMessageTypeInfo;
+    int maxMessageTypeInfo;
+
+    boolean withSessionId;
+    int sessionId;
+
+    // Time window of the Storage Header in microseconds, [from, to)
+    boolean withTimeRange;
+    long fromMicros;
+    long toMicros;
+
+    /**
+     * Create a filter which matches all messages, until terms are set.
+     */
+    public DltFilter() {
+    }
+
+    /**
+     * Match messages of the ECUs, with the ECU ID of the Standard Header or else of
+     * the Storage Header.
+     *
+     * @param ids ECU IDs
+     * @return This filter
+     */
+    public DltFilter ecuId(String... ids) {
+        this.ecuIds = toKeys(ids);
+        return this;
+    }
+
+    public DltFilter applicationId(String... ids) {
+        this.applicationIds = toKeys(ids);
+        return this;
+    }
+
+    public DltFilter contextId(String... ids) {
+        this.contextIds = toKeys(ids);
+        return this;
+    }
+
+    public DltFilter messageType(MessageType type) {
+        this.messageType = type.getValue();
+        return this;
+    }
+
+    /**
+     * Match log messages from one log level to another, e.g. FATAL to ERROR.
+     *
+     * @param first Log level at one end of the range
+     * @param last  Log level at the other end of the range
+     * @return This filter
+     */
+    public DltFilter logLevel(MessageLogInfo first, MessageLogInfo last) {
+        this.messageType = MessageType.DLT_TYPE_LOG.getValue();
+        this.minMessageTypeInfo = Math.min(first.getValue(), last.getValue());
+        this.maxMessageTypeInfo = Math.max(first.getValue(), last.getValue());
+        return this;
+    }
+
+    public DltFilter sessionId(int sessionId) {
+        this.withSessionId = true;
+        this.sessionId = sessionId;
+        return this;
+    }
+
+    /**
+     * Match messages with a time of the Storage Header in [from, to). Messages without
+     * Storage Header have time 0.
+     *
+     * @param from First time of the window
+     * @param to   End of the window, excluded
+     * @return This filter
+     */
+    public DltFilter timeRange(Instant from, Instant to) {
+        this.withTimeRange = true;
+        this.fromMicros = toMicros(from);
+        this.toMicros = toMicros(to);
+        return this;
+    }
+
+    /**
+     * Check the headers of the message the view is bound to.
+     *
+     * @param view View bound to a message
+     * @return True if the message matches all terms
+     */
+    @Override
+    public boolean test(DltMessageView view) {
+        if (requiresExtendedHeader()) {
+            if (!view.useExtendedHeader()) {
+                return false;
+            }
+            if (messageType >= 0 && !matchesMessageType(view.getMessageType(), view.getMessageTypeInfo())) {
+                return false;
+            }
+            if (!matchesApplicationId(view.getApplicationIdKey()) || !matchesContextId(view.getContextIdKey())) {
+                return false;
+            }
+        }
+        if (!matchesEcuId(view.getEcuIdKey())) {
+            return false;
+        }
+        if (withSessionId && (!view.withSessionId() || view.getSessionId() != sessionId)) {
+            return false;
+        }
+        if (!withTimeRange) {
+            return true;
+        }
+        // A message without Storage Header has time 0, as in the columnar files
+        return matchesTime(view.withStorageHeader()
+                ? Integer.toUnsignedLong(view.getSeconds()) * 1_000_000L + view.getMicroseconds() : 0);
+    }
+
+    // Single terms, also checked on the columns of a columnar file; true if the term is not set
+
+    boolean requiresExtendedHeader() {
+        return messageType >= 0 || applicationIds != null || contextIds != null;
+    }
+
+    boolean matchesMessageType(int messageType, int messageTypeInfo) {
+        if (this.messageType >= 0 && messageType != this.messageType) {
+            return false;
+        }
+        return minMessageTypeInfo == 0
+                || (messageTypeInfo >= minMessageTypeInfo && messageTypeInfo <= maxMessageTypeInfo);
+    }
+
+    boolean matchesApplicationId(int key) {
+        return applicationIds == null || contains(applicationIds, key);
+    }
+
+    boolean matchesContextId(int key) {
+        return contextIds == null || contains(contextIds, key);
+    }
+
+    boolean matchesEcuId(int key) {
+        return ecuIds == null || contains(ecuIds, key);
+    }
+
+    boolean matchesTime(long micros) {
+        return !withTimeRange || (micros >= fromMicros && micros < toMicros);
+    }
+
+    private static int[] toKeys(String[] ids) {
+        int[] keys = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            keys[i] = DltIdTable.fromString(ids[i]);
+        }
+        return keys;
+    }
+
+    // There are only a few IDs in a term, a linear search is the fastest
+    private static boolean contains(int[] keys, int key) {
+        for (int k : keys) {
+            if (k == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static long toMicros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1000;
+    }
+}
@@ -0,0 +1,133 @@
+package viewer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Table of the 4 character IDs (ECU ID, APID, CTID).
+ *
+ * Headers keep an ID as an int key made of its 4 ASCII bytes (big endian), so
+ * decoding an ID does not allocate and comparing IDs is a single int compare.
+ * The bytes are trimmed like the String of the ID with String.trim(), left-aligned
+ * and padded with null bytes, so "APP " and "APP\0" have the same key.
+ * The String of an ID is only resolved for display, through a bounded cache
+ * shared by all decoders. The key 0 stands for an empty ID.
+ */
+public final class DltIdTable {
+    // Number of cached IDs, must be a power of 2
+    private static final int CACHE_SIZE = 4096;
+    private static final int CACHE_SHIFT = Integer.SIZE - Integer.numberOfTrailingZeros(CACHE_SIZE);
+
+    // Entries are immutable, so the slots can be replaced without locking
+    private static final Entry[] CACHE = new Entry[CACHE_SIZE];
+
+    private DltIdTable() {
+    }
+
+    /**
+     * Get the key of the ID at the offset of the buffer.
+     *
+     * @param src    Buffer containing the ID
+     * @param offset Offset of the 4 bytes of the ID
+     * @return Key of the ID
+     */
+    public static int fromBytes(ByteBuffer src, int offset) {
+        return normalize(BufferUtils.getInt(src, offset, true));
+    }
+
+    /**
+     * Get the key of the ID, trimmed and padded with null bytes up to 4 characters.
+     *
+     * @param id ID of 4 ASCII characters or less, null for none
+     * @return Key of the ID
+     * @throws IllegalArgumentException if the ID is too long or not ASCII
+     */
+    public static int fromString(String id) throws IllegalArgumentException {
+        if (id == null) {
+            return 0;
+        }
+        if (id.length() > 4) {
+            throw new IllegalArgumentException("ID must be 4 characters or less: \"" + id + "\"");
+        }
+        int key = 0;
+        for (int i = 0; i < 4; i++) {
+            int c = i < id.length() ? id.charAt(i) : 0;
+            if (c > 0x7F) {
+                throw new IllegalArgumentException("ID must be ASCII: \"" + id + "\"");
+            }
+            key = (key << 8) | c;
+        }
+        return normalize(key);
+    }
+
+    /**
+     * Get the ID of the key as String, without null bytes and surrounding spaces.
+     *
+     * @param key Key of the ID
+     * @return ID of the key
+     */
+    public static String toString(int key) {
+        int slot = (key * 0x9E3779B9) >>> CACHE_SHIFT;
+        Entry entry = CACHE[slot];
+        if (entry != null && entry.key == key) {
+            return entry.id;
+        }
+        String id = decode(key);
+        CACHE[slot] = new Entry(key, id);
+        return id;
+    }
+
+    // Put the bytes of the key at the offset of the buffer
+    static void put(ByteBuffer dst, int offset, int key) {
+        dst.put(offset, (byte) (key >>> 24));
+        dst.put(offset + 1, (byte) (key >>> 16));
+        dst.put(offset + 2, (byte) (key >>> 8));
+        dst.put(offset + 3, (byte) key);
+    }
+
+    // Remove the bytes String.trim() removes (up to ' ') at both ends, left-align the
+    // rest and pad it with null bytes
+    static int normalize(int key) {
+        if ((key >>> 24) > ' ' && (key & 0xFF) > ' ') {
+            // Neither leading nor trailing bytes to remove, the common case of 4 characters
+            return key;
+        }
+        int start = 0;
+        while (start < 4 && byteAt(key, start) <= ' ') {
+            start++;
+        }
+        if (start == 4) {
+            return 0;
+        }
+        int end = 4;
+        while (byteAt(key, end - 1) <= ' ') {
+            end--;
+        }
+        int length = end - start;
+        int aligned = key << (8 * start);
+        return length == 4 ? aligned : aligned & (-1 << (8 * (4 - length)));
+    }
+
+    private static int byteAt(int key, int index) {
+        return (key >>> (24 - 8 * index)) & 0xFF;
+    }
+
+    // String of the key as new String(bytes, US_ASCII).trim() of the header bytes
+    private static String decode(int key) {
+        char[] chars = new char[4];
+        for (int i = 0; i < 4; i++) {
+            int c = byteAt(key, i);
+            chars[i] = c <= 0x7F ? (char) c : '\uFFFD';
+        }
+        return new String(chars).trim();
+    }
+
+    private static final class Entry {
+        final int key;
+        final String id;
+
+        Entry(int key, String id) {
+            this.key = key;
+            this.id = id;
+        }
+    }
+}
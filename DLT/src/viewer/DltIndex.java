@@ -0,0 +1,181 @@
+package viewer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Sidecar index (.dlti) of a DLT file.
+ *
+ * The index has a fixed-width record for each message of the DLT file, so it can be
+ * memory-mapped and accessed by message number without reading the DLT file.
+ * Like the other sidecars (see DltSidecar), it is valid only for the DLT file of the
+ * same size and modification time.
+ *
+ * Layout (big endian):
+ * <pre>
+ * Header (40 bytes): "DLTI", version, record length, reserved,
+ *                    size of the DLT file, modification time of the DLT file (ms), number of records
+ * Record (40 bytes): file offset (8), length including Storage Header (4),
+ *                    seconds (4), microseconds (4), timestamp (4),
+ *                    ECU ID (4), APID (4), CTID (4),
+ *                    Header Type (1), Message Info (1), Number of Arguments (1), reserved (1)
+ * </pre>
+ * IDs are keys of {@link DltIdTable}, 0 if the message has none.
+ */
+public class DltIndex implements Closeable {
+    public static final String FILE_EXTENSION = ".dlti";
+
+    static final byte[] MAGIC = new byte[] {(byte) 0x44, (byte) 0x4C, (byte) 0x54, (byte) 0x49};
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = 40;
+    static final int RECORD_LENGTH = 40;
+
+    // Offsets of the fields inside a record
+    static final int OFFSET_FIELD = 0;
+    static final int LENGTH_FIELD = 8;
+    static final int SECONDS_FIELD = 12;
+    static final int MICROSECONDS_FIELD = 16;
+    static final int TIMESTAMP_FIELD = 20;
+    static final int ECU_ID_FIELD = 24;
+    static final int APPLICATION_ID_FIELD = 28;
+    static final int CONTEXT_ID_FIELD = 32;
+    static final int HEADER_TYPE_FIELD = 36;
+    static final int MESSAGE_INFO_FIELD = 37;
+    static final int NUMBER_OF_ARGUMENTS_FIELD = 38;
+
+    // Number of records in one mapped window of the index
+    private static final int RECORDS_PER_WINDOW = Integer.MAX_VALUE / RECORD_LENGTH;
+
+    private final FileChannel channel;
+    private final long size;
+    private final MappedByteBuffer[] windows;
+
+    private DltIndex(FileChannel channel, long size) throws IOException {
+        this.channel = channel;
+        this.size = size;
+        this.windows = new MappedByteBuffer[(int) ((size + RECORDS_PER_WINDOW - 1) / RECORDS_PER_WINDOW)];
+        for (int i = 0; i < windows.length; i++) {
+            long first = (long) i * RECORDS_PER_WINDOW;
+            long records = Math.min(RECORDS_PER_WINDOW, size - first);
+            windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_LENGTH + first * RECORD_LENGTH, records * RECORD_LENGTH);
+            windows[i].order(ByteOrder.BIG_ENDIAN);
+        }
+    }
+
+    /**
+     * Get path of the index for the DLT file ("trace.dlt" -> "trace.dlti").
+     *
+     * @param dltPath Path of the DLT file
+     * @return Path of the index
+     */
+    public static Path indexPathFor(Path dltPath) {
+        return DltSidecar.pathFor(dltPath, FILE_EXTENSION);
+    }
+
+    /**
+     * Open the index of the DLT file if it exists and is up to date.
+     *
+     * @param dltPath Path of the DLT file
+     * @return Index, empty if there is no valid index
+     * @throws IOException if the files cannot be read
+     */
+    public static Optional<DltIndex> open(Path dltPath) throws IOException {
+        Path indexPath = indexPathFor(dltPath);
+        if (!Files.exists(indexPath) || !Files.exists(dltPath)) {
+            return Optional.empty();
+        }
+        FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = DltSidecar.readHeader(channel, HEADER_LENGTH);
+            if (header.remaining() < HEADER_LENGTH || !DltSidecar.isValid(header, MAGIC, VERSION, dltPath)
+                    || header.getInt(8) != RECORD_LENGTH
+                    || channel.size() != HEADER_LENGTH + header.getLong(32) * RECORD_LENGTH) {
+                channel.close();
+                return Optional.empty();
+            }
+            return Optional.of(new DltIndex(channel, header.getLong(32)));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Number of messages in the DLT file
+    public long size() {
+        return size;
+    }
+
+    public long getOffset(long index) {
+        return window(index).getLong(position(index) + OFFSET_FIELD);
+    }
+
+    // Length of the message including Storage Header
+    public int getLength(long index) {
+        return window(index).getInt(position(index) + LENGTH_FIELD);
+    }
+
+    public int getSeconds(long index) {
+        return window(index).getInt(position(index) + SECONDS_FIELD);
+    }
+
+    public int getMicroseconds(long index) {
+        return window(index).getInt(position(index) + MICROSECONDS_FIELD);
+    }
+
+    public boolean withTimestamp(long index) {
+        return (getHeaderType(index) & StandardHeader.WITH_TIMESTAMP_MASK) != 0;
+    }
+
+    public int getTimestamp(long index) {
+        return window(index).getInt(position(index) + TIMESTAMP_FIELD);
+    }
+
+    public int getEcuId(long index) {
+        return window(index).getInt(position(index) + ECU_ID_FIELD);
+    }
+
+    public int getApplicationId(long index) {
+        return window(index).getInt(position(index) + APPLICATION_ID_FIELD);
+    }
+
+    public int getContextId(long index) {
+        return window(index).getInt(position(index) + CONTEXT_ID_FIELD);
+    }
+
+    public int getHeaderType(long index) {
+        return Byte.toUnsignedInt(window(index).get(position(index) + HEADER_TYPE_FIELD));
+    }
+
+    // Message Info of the Extended Header, 0 if the message has none
+    public int getMessageInfo(long index) {
+        return Byte.toUnsignedInt(window(index).get(position(index) + MESSAGE_INFO_FIELD));
+    }
+
+    public int getNumberOfArguments(long index) {
+        return Byte.toUnsignedInt(window(index).get(position(index) + NUMBER_OF_ARGUMENTS_FIELD));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private MappedByteBuffer window(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return windows[(int) (index / RECORDS_PER_WINDOW)];
+    }
+
+    private static int position(long index) {
+        return (int) (index % RECORDS_PER_WINDOW) * RECORD_LENGTH;
+    }
+}
@@ -0,0 +1,129 @@
+package viewer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes the sidecar index (.dlti) of a DLT file, see {@link DltIndex} for the format.
+ *
+ * Records are added in file order while the DLT file is parsed. The index is written
+ * to a temporary file and moved in place by {@link #commit()}, so a parse that is
+ * abandoned never leaves a partial index behind.
+ */
+public class DltIndexWriter implements Closeable {
+    private static final int RECORDS_PER_BUFFER = 4096;
+
+    private final Path dltPath;
+    private final Path indexPath;
+    private final Path tempPath;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final long fileSize;
+    private final long modifiedTime;
+
+    private long size;
+    private boolean committed;
+
+    public DltIndexWriter(Path dltPath) throws IOException {
+        // Take size and time before parsing, a file modified meanwhile gets an invalid index
+        this(dltPath, Files.size(dltPath), Files.getLastModifiedTime(dltPath).toMillis());
+    }
+
+    /**
+     * Create the writer of the index of the DLT file as it was opened for parsing.
+     *
+     * @param dltPath      Path of the DLT file
+     * @param fileSize     Size of the DLT file being parsed
+     * @param modifiedTime Modification time (ms) of the DLT file taken when it was opened,
+     *                     so a file appended meanwhile gets an invalid index
+     * @throws IOException if the index cannot be created
+     */
+    public DltIndexWriter(Path dltPath, long fileSize, long modifiedTime) throws IOException {
+        this.dltPath = dltPath;
+        this.indexPath = DltIndex.indexPathFor(dltPath);
+        this.tempPath = DltSidecar.tempPathFor(indexPath);
+        this.fileSize = fileSize;
+        this.modifiedTime = modifiedTime;
+        this.channel = DltSidecar.create(tempPath);
+        this.buffer = ByteBuffer.allocateDirect(DltIndex.RECORD_LENGTH * RECORDS_PER_BUFFER).order(ByteOrder.BIG_ENDIAN);
+        this.buffer.position(DltIndex.HEADER_LENGTH); // Space of the header, it is written by commit
+    }
+
+    /**
+     * Add the record of the message the view is bound to.
+     *
+     * @param view       View bound to the message (with Storage Header)
+     * @param fileOffset Offset of the message in the DLT file
+     * @throws IOException if the index cannot be written
+     */
+    public void add(DltMessageView view, long fileOffset) throws IOException {
+        if (buffer.remaining() < DltIndex.RECORD_LENGTH) {
+            flush();
+        }
+        boolean extended = view.useExtendedHeader();
+        buffer.putLong(fileOffset);
+        buffer.putInt(view.getBytesLength());
+        buffer.putInt(view.getSeconds());
+        buffer.putInt(view.getMicroseconds());
+        buffer.putInt(view.withTimestamp() ? view.getTimestamp() : 0);
+        buffer.putInt(view.getEcuIdKey());
+        buffer.putInt(view.getApplicationIdKey());
+        buffer.putInt(view.getContextIdKey());
+        buffer.put((byte) view.headerType());
+        buffer.put((byte) (extended ? view.messageInfo() : 0));
+        buffer.put((byte) (extended ? view.getNumberOfArguments() : 0));
+        buffer.put((byte) 0);
+        size++;
+    }
+
+    // Number of records added so far
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Write the header and move the index in place.
+     *
+     * @throws IOException if the index cannot be written
+     */
+    public void commit() throws IOException {
+        flush();
+        ByteBuffer header = ByteBuffer.allocate(DltIndex.HEADER_LENGTH).order(ByteOrder.BIG_ENDIAN);
+        DltSidecar.putHeader(header, DltIndex.MAGIC, DltIndex.VERSION, DltIndex.RECORD_LENGTH, 0, fileSize, modifiedTime);
+        header.putLong(size);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.close();
+        DltSidecar.commit(tempPath, indexPath);
+        committed = true;
+    }
+
+    // Discards the index if it is not committed
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            channel.close();
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DltIndexWriter{" + dltPath + ", size=" + size + '}';
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,381 @@
+package viewer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Merges messages of several sources, e.g. one DLT file per ECU, into one sequence
+ * ordered by time.
+ *
+ * Messages are ordered by the time of the Storage Header, then by the timestamp of the
+ * Standard Header; messages without one of them count as 0. Messages with equal times
+ * keep the order of the sources. Each source must already be in this order, as a trace
+ * file normally is.
+ *
+ * Each source is iterated, and so decoded, by its own thread. A thread reads at most
+ * the read-ahead number of messages before the merge consumes them, so the memory is
+ * bounded whatever the lengths of the sources are. The messages are kept until the
+ * merge consumes them, so sources must not recycle messages (see
+ * {@link DltFileReader#setRecycling(boolean)}).
+ *
+ * Messages are handed over in batches. When the merge has waited a short idle time for
+ * a source, it takes the messages read so far, so a live source is not delayed until a
+ * batch is full.
+ */
+public class DltMerger implements Iterator<DltMessage>, Closeable {
+    // Default number of messages read ahead per source
+    public static final int DEFAULT_READ_AHEAD = 4096;
+
+    // Messages are handed over in batches to keep the queues cheap
+    private static final int BATCH_SIZE = 256;
+    // Time the merge waits for a full batch before it takes the messages read so far
+    private static final long IDLE_MILLIS = 10;
+    // Interval to check for close() while the read-ahead is used up
+    private static final long ACQUIRE_TIMEOUT_MILLIS = 100;
+    // Time close() waits for the threads of the sources to stop
+    private static final long CLOSE_TIMEOUT_MILLIS = 1000;
+
+    private final List<? extends Iterable<DltMessage>> sources;
+    private final List<Closeable> resources;
+    private final int readAhead;
+    private final List<Thread> threads = new ArrayList<>();
+    private final PriorityQueue<Head> heads = new PriorityQueue<>();
+
+    private volatile boolean closed;
+    private boolean started;
+
+    public DltMerger(List<? extends Iterable<DltMessage>> sources) {
+        this(sources, DEFAULT_READ_AHEAD);
+    }
+
+    /**
+     * @param sources   Sources of messages, each ordered by time, which return a new
+     *                  message each time
+     * @param readAhead Maximum number of messages read ahead per source
+     */
+    public DltMerger(List<? extends Iterable<DltMessage>> sources, int readAhead) {
+        this(sources, readAhead, Collections.emptyList());
+    }
+
+    private DltMerger(List<? extends Iterable<DltMessage>> sources, int readAhead, List<Closeable> resources) {
+        if (readAhead < 1) {
+            throw new IllegalArgumentException("Read-ahead must be 1 or more: " + readAhead);
+        }
+        this.sources = sources;
+        this.resources = resources;
+        this.readAhead = readAhead;
+    }
+
+    /**
+     * Merge DLT files; the files are closed with the merger.
+     *
+     * @param paths    Paths of the files
+     * @param encoding Encoding of the string arguments
+     * @return Merger of the messages of all files
+     * @throws IOException if a file cannot be opened
+     */
+    public static DltMerger ofFiles(List<Path> paths, Optional<String> encoding) throws IOException {
+        List<DltFileReader> readers = new ArrayList<>();
+        try {
+            for (Path path : paths) {
+                readers.add(new DltFileReader(path, encoding));
+            }
+        } catch (IOException e) {
+            for (DltFileReader reader : readers) {
+                reader.close();
+            }
+            throw e;
+        }
+        return new DltMerger(readers, DEFAULT_READ_AHEAD, new ArrayList<>(readers));
+    }
+
+    /**
+     * Get the merged messages; the stream and this iterator share their position.
+     *
+     * @return Ordered stream of the messages
+     */
+    public Stream<DltMessage> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * @throws IllegalStateException if the merger is closed
+     * @throws RuntimeException      thrown by a source
+     */
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            throw new IllegalStateException("The merger is closed.");
+        }
+        if (!started) {
+            start();
+        }
+        return !heads.isEmpty();
+    }
+
+    @Override
+    public DltMessage next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Head head = heads.poll();
+        DltMessage message = head.message;
+        if (head.advance()) {
+            heads.add(head);
+        }
+        return message;
+    }
+
+    /**
+     * Stop the threads of the sources and close the files opened by {@link #ofFiles}.
+     * A thread blocked in a live source is interrupted. Close waits for the threads at
+     * most a second; a thread which ignores the interrupt is a daemon and stops once
+     * its source returns.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CLOSE_TIMEOUT_MILLIS);
+        for (Thread thread : threads) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                break;
+            }
+            try {
+                thread.join(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        IOException error = null;
+        for (Closeable resource : resources) {
+            try {
+                resource.close();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    // Start a thread per source and wait for the first message of each
+    private void start() {
+        started = true;
+        List<Head> all = new ArrayList<>();
+        for (int i = 0; i < sources.size(); i++) {
+            Head head = new Head(i, new Channel(readAhead));
+            Iterable<DltMessage> source = sources.get(i);
+            Thread thread = new Thread(() -> produce(source, head.channel), "dlt-merge-" + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+            all.add(head);
+            thread.start();
+        }
+        for (Head head : all) {
+            if (head.advance()) {
+                heads.add(head);
+            }
+        }
+    }
+
+    // Iterate the source in the thread of the source, handing over batches until its end
+    private void produce(Iterable<DltMessage> source, Channel channel) {
+        RuntimeException error = null;
+        try {
+            Iterator<DltMessage> messages = source.iterator();
+            // Take the permit first, so no more than the read-ahead is read from the source
+            while (true) {
+                if (!acquire(channel.permits)) {
+                    return;
+                }
+                if (!messages.hasNext()) {
+                    break;
+                }
+                DltMessage message = messages.next();
+                if (message.isRecyclable()) {
+                    // Refilled by the source while the merge still reads it
+                    throw new IllegalArgumentException("A source with recycling cannot be merged.");
+                }
+                channel.add(message);
+            }
+        } catch (RuntimeException e) {
+            error = e;
+        }
+        channel.end(error);
+    }
+
+    // Take a permit of the read-ahead, false if the merger was closed meanwhile
+    private boolean acquire(Semaphore permits) {
+        try {
+            while (!closed) {
+                if (permits.tryAcquire(ACQUIRE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    // Sort key of the message, Storage Header time in microseconds
+    private static long storageTime(DltMessage message) {
+        StorageHeader strHeader = message.getStorageHeader();
+        if (strHeader == null) {
+            return 0;
+        }
+        return Integer.toUnsignedLong(strHeader.seconds) * 1_000_000 + Integer.toUnsignedLong(strHeader.microseconds);
+    }
+
+    private static long timestamp(DltMessage message) {
+        StandardHeader stdHeader = message.getStandardHeader();
+        return stdHeader.withTimestamp ? Integer.toUnsignedLong(stdHeader.timestamp) : 0;
+    }
+
+    // Messages of a source handed over by its thread
+    private static class Batch {
+        static final Batch END = new Batch(Collections.emptyList(), null);
+
+        final List<DltMessage> messages;
+        // Thrown by the source, rethrown by the merge
+        final RuntimeException error;
+
+        Batch(List<DltMessage> messages, RuntimeException error) {
+            this.messages = messages;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Hand-over of the messages of a source from its thread to the merge.
+     *
+     * The thread of the source takes a permit for each message and the merge returns it
+     * when it moves on, so at most the read-ahead number of messages are in the batch
+     * being filled, in the queue and in the batch being merged. Batches are put into the
+     * queue under the lock, so a batch taken before it is full stays in order.
+     */
+    private static class Channel {
+        final Semaphore permits;
+        private final int batchSize;
+        private final BlockingQueue<Batch> queue = new LinkedBlockingQueue<>();
+        // Batch being filled by the thread of the source
+        private List<DltMessage> filling;
+
+        Channel(int readAhead) {
+            this.permits = new Semaphore(readAhead);
+            this.batchSize = Math.min(BATCH_SIZE, readAhead);
+            this.filling = new ArrayList<>(batchSize);
+        }
+
+        synchronized void add(DltMessage message) {
+            filling.add(message);
+            if (filling.size() == batchSize) {
+                flush();
+            }
+        }
+
+        // End of the source, with the error thrown by it or null
+        synchronized void end(RuntimeException error) {
+            if (!filling.isEmpty()) {
+                flush();
+            }
+            queue.add(error != null ? new Batch(Collections.emptyList(), error) : Batch.END);
+        }
+
+        // Next batch, the messages read so far if no batch was handed over within the idle time
+        Batch take() throws InterruptedException {
+            while (true) {
+                Batch batch = queue.poll(IDLE_MILLIS, TimeUnit.MILLISECONDS);
+                if (batch != null) {
+                    return batch;
+                }
+                synchronized (this) {
+                    if (queue.isEmpty() && !filling.isEmpty()) {
+                        flush();
+                    }
+                }
+            }
+        }
+
+        private void flush() {
+            queue.add(new Batch(filling, null));
+            filling = new ArrayList<>(batchSize);
+        }
+    }
+
+    // Next message of a source with its sort keys
+    private class Head implements Comparable<Head> {
+        final int source;
+        final Channel channel;
+        Iterator<DltMessage> batch = Collections.emptyIterator();
+        DltMessage message;
+        long time;
+        long timestamp;
+
+        Head(int source, Channel channel) {
+            this.source = source;
+            this.channel = channel;
+        }
+
+        // Move to the next message, false at the end of the source
+        boolean advance() {
+            if (message != null) {
+                // The message is consumed, the source may read one more
+                message = null;
+                channel.permits.release();
+            }
+            while (!batch.hasNext()) {
+                Batch next;
+                try {
+                    next = channel.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while merging", e);
+                }
+                if (next.error != null) {
+                    throw next.error;
+                }
+                if (next == Batch.END) {
+                    return false;
+                }
+                batch = next.messages.iterator();
+            }
+            message = batch.next();
+            time = storageTime(message);
+            timestamp = timestamp(message);
+            return true;
+        }
+
+        @Override
+        public int compareTo(Head other) {
+            int result = Long.compare(time, other.time);
+            if (result == 0) {
+                result = Long.compare(timestamp, other.timestamp);
+            }
+            return result != 0 ? result : Integer.compare(source, other.source);
+        }
+    }
+}
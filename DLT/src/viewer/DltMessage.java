@@ -1,10 +1,7 @@
 package viewer;
 
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,25 +14,8 @@ public class DltMessage {
     private ExtendedHeader extHeader;
     private Payload payload;
 
-    private static final String[] _MESSAGE_TYPE_STR = {
-            "log", "app_trace", "nw_trace", "control"
-    };
-
-    private static final String[] _MESSAGE_LOG_INFO_STR = {
-            "fatal", "error", "warn", "info", "debug", "verbose"
-    };
-
-    private static final String[] _MESSAGE_TRACE_INFO_STR = {
-            "variable", "func_in", "func_out", "state", "vfb"
-    };
-
-    private static final String[] _MESSAGE_BUS_INFO_STR = {
-            "ipc", "can", "flexray", "most"
-    };
-
-    private static final String[] _MESSAGE_CONTROL_INFO_STR = {
-            "request", "response", "time"
-    };
+    // Instances refilled for each message, null if the message is not recyclable
+    private Recycler recycler;
 
     public DltMessage(StorageHeader strHeader, StandardHeader stdHeader, ExtendedHeader extHeader, Payload payload) {
         this.strHeader = strHeader;
@@ -60,66 +40,27 @@ public class DltMessage {
     @Override
     public String toString() {
         StringBuilder ret = new StringBuilder();
-        
-        // Format the timestamp similar to Python version
-        if (strHeader != null) {
-            // Combine seconds and microseconds into a LocalDateTime object, adjusting the microseconds
-            LocalDateTime dateTime = LocalDateTime.ofEpochSecond(strHeader.seconds, strHeader.microseconds * 1000, ZoneOffset.UTC);
-            String timestamp = dateTime.format(DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss"));
-            ret.append(timestamp).append(".").append(String.format("%06d", strHeader.microseconds));
-        }
-
-        // Process the remaining parts of the message as in your original code
-        if (stdHeader.timestamp != null) {
-            ret.append(stdHeader.timestamp / 10000).append(".").append(String.format("%04d", (stdHeader.timestamp % 10000)));
-        }
-        
-        ret.append(stdHeader.messageCounter);
-
-        if (stdHeader.ecuId != null) {
-            ret.append(stdHeader.ecuId);
-        } else if (strHeader != null) {
-            ret.append(strHeader.ecuId);
-        }
-
-        if (extHeader != null) {
-            ret.append(extHeader.applicationId).append(extHeader.contextId);
-        }
-
-        if (stdHeader.sessionId != null) {
-            ret.append(stdHeader.sessionId);
-        }
-
-        if (extHeader != null) {
-            ret.append(_MESSAGE_TYPE_STR[extHeader.messageType]);
-            if (extHeader.messageType == MessageType.DLT_TYPE_LOG.getValue()) {
-                ret.append(_MESSAGE_LOG_INFO_STR[extHeader.getMessageLogInfo().getValue()]);
-            } else if (extHeader.messageType == MessageType.DLT_TYPE_APP_TRACE.getValue()) {
-                ret.append(_MESSAGE_TRACE_INFO_STR[extHeader.getMessageTraceInfo().getValue()]);
-            } else if (extHeader.messageType == MessageType.DLT_TYPE_NW_TRACE.getValue()) {
-                ret.append(_MESSAGE_BUS_INFO_STR[extHeader.getMessageBusInfo().getValue()]);
-            } else if (extHeader.messageType == MessageType.DLT_TYPE_CONTROL.getValue()) {
-                ret.append(_MESSAGE_CONTROL_INFO_STR[extHeader.getMessageControlInfo().getValue()]);
-            }
-        }
-
-        if (extHeader != null && extHeader.verbose) {
-            ret.append(" verbose");
-        } else {
-            ret.append(" non-verbose");
-        }
+        new DltTextFormat().format(this, ret);
+        return ret.toString();
+    }
 
-        if (extHeader != null) {
-            ret.append(extHeader.numberOfArguments);
-        }
+    // Storage Header, null if the message was created without one
+    public StorageHeader getStorageHeader() {
+        return strHeader;
+    }
 
-        if (payload != null) {
-            ret.append(payload);
-        }
+    public StandardHeader getStandardHeader() {
+        return stdHeader;
+    }
 
-        return ret.toString();
+    // Extended Header, null if the message has none
+    public ExtendedHeader getExtendedHeader() {
+        return extHeader;
     }
 
+    public Payload getPayload() {
+        return payload;
+    }
 
     public static DltMessage createNonVerboseMessage(int messageId, byte[] nonStaticData,
                                                      ExtendedHeader extHeader, Optional<Integer> timestamp,
@@ -158,67 +99,207 @@ public class DltMessage {
     }
 
     public static DltMessage createFromBytes(byte[] data, boolean withStorageHeader, Optional<String> encoding) throws Exception {
-        int seekPos = 0;
-        StorageHeader strHeader = null;
+        return createFromBytes(data, 0, data.length, withStorageHeader, encoding);
+    }
+
+    public static DltMessage createFromBytes(byte[] src, int offset, int length, boolean withStorageHeader,
+                                             Optional<String> encoding) throws IllegalArgumentException {
+        return createFromBytes(ByteBuffer.wrap(src), offset, length, withStorageHeader, encoding);
+    }
+
+    /**
+     * Create a message from the bytes [offset, offset + length) of the buffer.
+     *
+     * The headers are decoded in place, only the payload of the message is copied.
+     * The position and the order of the buffer are not changed.
+     *
+     * @param src               Buffer containing the message
+     * @param offset            Offset of the message in the buffer
+     * @param length            Number of bytes available for the message
+     * @param withStorageHeader True if the message starts with a Storage Header
+     * @param encoding          Encoding of the string arguments
+     * @return Decoded message
+     * @throws IllegalArgumentException if the bytes are not a valid message
+     */
+    public static DltMessage createFromBytes(ByteBuffer src, int offset, int length, boolean withStorageHeader,
+                                             Optional<String> encoding) throws IllegalArgumentException {
+        DltMessage message = new DltMessage(null, null, null, null);
+        message.decode(src, offset, length, withStorageHeader, encoding);
+        return message;
+    }
+
+    /**
+     * Create an empty message which is refilled by {@link #refill} with one message after
+     * another, for consumers which handle each message before reading the next one.
+     *
+     * @return Recyclable message, without headers until it is refilled
+     */
+    public static DltMessage createRecyclable() {
+        DltMessage message = new DltMessage(null, null, null, null);
+        message.recycler = new Recycler();
+        return message;
+    }
+
+    public boolean isRecyclable() {
+        return recycler != null;
+    }
+
+    /**
+     * Overwrite this message with the message in the bytes [offset, offset + length) of the buffer.
+     *
+     * The headers, the payload and the arguments are refilled in place instead of being
+     * created, so once the buffers have grown to the largest message, decoding allocates
+     * nothing but the strings of string arguments. Everything got from the message
+     * before, e.g. its headers or arguments, changes with it.
+     *
+     * @param src               Buffer containing the message
+     * @param offset            Offset of the message in the buffer
+     * @param length            Number of bytes available for the message
+     * @param withStorageHeader True if the message starts with a Storage Header
+     * @param encoding          Encoding of the string arguments
+     * @return This message
+     * @throws IllegalStateException if the message is not created by {@link #createRecyclable()}
+     * @throws IllegalArgumentException if the bytes are not a valid message, the content of
+     *                                  the message is undefined then
+     */
+    public DltMessage refill(ByteBuffer src, int offset, int length, boolean withStorageHeader,
+                             Optional<String> encoding) throws IllegalArgumentException {
+        if (recycler == null) {
+            throw new IllegalStateException("This message is not recyclable.");
+        }
+        decode(src, offset, length, withStorageHeader, encoding);
+        return this;
+    }
+
+    private void decode(ByteBuffer src, int offset, int length, boolean withStorageHeader,
+                        Optional<String> encoding) {
+        try {
+            decodeFields(src, offset, length, withStorageHeader, encoding);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            DltMetrics.decodeFailed(e);
+            throw e;
+        }
+    }
+
+    // Decode the fields, refilling the instances of the recycler if there is one
+    private void decodeFields(ByteBuffer src, int offset, int length, boolean withStorageHeader,
+                              Optional<String> encoding) {
+        long start = DltMetrics.startTimer();
+        int end = offset + length;
+        int seekPos = offset;
+        strHeader = null;
+        extHeader = null;
+        payload = null;
         int strHeaderLength = 0;
         
         // Handle StorageHeader if needed
         if (withStorageHeader) {
-            strHeader = StorageHeader.createFromBytes(data);
+            strHeader = recycler != null ? recycler.strHeader : new StorageHeader();
+            strHeader.refill(src, seekPos, end - seekPos);
             seekPos += strHeader.getBytesLength();
             strHeaderLength = strHeader.getBytesLength();
         }
 
         // Create StandardHeader using data from 'seekPos' onwards
-        StandardHeader stdHeader = StandardHeader.createFromBytes(Arrays.copyOfRange(data, seekPos, data.length));
+        stdHeader = recycler != null ? recycler.stdHeader : new StandardHeader();
+        stdHeader.refill(src, seekPos, end - seekPos);
         seekPos += stdHeader.bytesLength();
 
-        ExtendedHeader extHeader = null;
+        int messageEnd = offset + strHeaderLength + stdHeader.length;
+        if (messageEnd > end) {
+            throw new DltDecodeException(DltMetrics.Cause.TRUNCATED, "Unexpected length of the data: " + (end - offset - strHeaderLength) +
+                    " / Message length in Standard Header is " + stdHeader.length);
+        }
+
         int extHeaderLength = 0;
 
         // Handle ExtendedHeader if needed
         if (stdHeader.useExtendedHeader) {
-            extHeader = ExtendedHeader.createFromBytes(Arrays.copyOfRange(data, seekPos, data.length));
+            extHeader = recycler != null ? recycler.extHeader : new ExtendedHeader();
+            extHeader.refill(src, seekPos, messageEnd - seekPos);
             extHeaderLength = extHeader.getBytesLength();
             seekPos += extHeader.getBytesLength();
         }
 
-        Payload payload = null;
+        start = DltMetrics.lap(DltMetrics.Stage.HEADER_DECODE, start);
         
         // Check if Payload exists and create it based on length
         if (stdHeader.length > stdHeader.bytesLength() + extHeaderLength) {
             if (extHeader != null && extHeader.verbose) {
-                payload = VerbosePayload.createFromBytes(
-                    Arrays.copyOfRange(data, seekPos, stdHeader.length + strHeaderLength), 
-                    stdHeader.msbFirst,
-                    extHeader.numberOfArguments,
-                    encoding
-                );
+                if (recycler != null) {
+                    recycler.verbosePayload.refill(src, seekPos, messageEnd - seekPos, stdHeader.msbFirst,
+                            extHeader.numberOfArguments, encoding);
+                    payload = recycler.verbosePayload;
+                } else {
+                    payload = VerbosePayload.createFromBytes(
+                        src,
+                        seekPos,
+                        messageEnd - seekPos,
+                        stdHeader.msbFirst,
+                        extHeader.numberOfArguments,
+                        encoding
+                    );
+                }
+            } else if (recycler != null) {
+                recycler.nonVerbosePayload.refill(src, seekPos, messageEnd - seekPos, stdHeader.msbFirst);
+                payload = recycler.nonVerbosePayload;
             } else {
                 payload = NonVerbosePayload.createFromBytes(
-                    Arrays.copyOfRange(data, seekPos, stdHeader.length + strHeaderLength), 
+                    src,
+                    seekPos,
+                    messageEnd - seekPos,
                     stdHeader.msbFirst
                 );
             }
         }
 
-        return new DltMessage(strHeader, stdHeader, extHeader, payload);
+        DltMetrics.lap(DltMetrics.Stage.PAYLOAD_DECODE, start);
+        DltMetrics.messageDecoded(messageEnd - offset, extHeader != null && extHeader.verbose);
     }
 
 
     public byte[] toBytes() {
-        ByteBuffer buffer = ByteBuffer.allocate(1024); // Arbitrary large size, should adjust based on actual size
+        ByteBuffer buffer = ByteBuffer.allocate(getBytesLength());
+        encodeTo(buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Write the bytes of the message at the position of the buffer and move the
+     * position after them. The payload is written with the endian of the Standard Header.
+     *
+     * @param dst Destination of the bytes, its order is not used
+     * @throws BufferOverflowException if there are less than getBytesLength() bytes remaining
+     */
+    public void encodeTo(ByteBuffer dst) {
+        if (dst.remaining() < getBytesLength()) {
+            throw new BufferOverflowException();
+        }
         if (strHeader != null) {
-            buffer.put(strHeader.toBytes());
+            strHeader.encodeTo(dst);
         }
-        buffer.put(stdHeader.toBytes());
+        stdHeader.encodeTo(dst);
         if (extHeader != null) {
-            buffer.put(extHeader.toBytes());
+            extHeader.encodeTo(dst);
         }
         if (payload != null) {
-        	buffer.put(payload.toBytes(Optional.of(stdHeader.msbFirst)));
+            payload.encodeTo(dst, stdHeader.msbFirst);
         }
-        return buffer.array();
+    }
+
+    // Get length of the bytes of the message, including the Storage Header if any
+    public int getBytesLength() {
+        int length = stdHeader.bytesLength();
+        if (strHeader != null) {
+            length += strHeader.getBytesLength();
+        }
+        if (extHeader != null) {
+            length += extHeader.getBytesLength();
+        }
+        if (payload != null) {
+            length += payload.getBytesLength();
+        }
+        return length;
     }
 
     public boolean isVerbose() {
@@ -238,4 +319,13 @@ public class DltMessage {
         }
         throw new IllegalStateException("This message is not in verbose mode.");
     }
+
+    // Headers and payloads of a recyclable message, refilled for each message
+    private static final class Recycler {
+        final StorageHeader strHeader = new StorageHeader();
+        final StandardHeader stdHeader = new StandardHeader();
+        final ExtendedHeader extHeader = new ExtendedHeader();
+        final VerbosePayload verbosePayload = new VerbosePayload();
+        final NonVerbosePayload nonVerbosePayload = new NonVerbosePayload();
+    }
 }
@@ -0,0 +1,279 @@
+package viewer;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+import viewer.StandardHeader.MessageLogInfo;
+
+/**
+ * Flyweight view of a DLT message inside a ByteBuffer.
+ *
+ * The view does not decode anything when it is bound, each accessor reads the
+ * needed bits from the buffer on demand. The same instance can be bound to the
+ * next message again, so scanning messages with a view does not allocate.
+ * {@link #toDltMessage(Optional)} decodes the full message when it is needed.
+ *
+ * The view is only valid while the underlying bytes are not changed.
+ */
+public class DltMessageView {
+    private final boolean withStorageHeader;
+
+    private ByteBuffer buffer;
+    private int offset;
+    private int stdOffset;
+    private int headerType;
+
+    public DltMessageView(boolean withStorageHeader) {
+        this.withStorageHeader = withStorageHeader;
+    }
+
+    /**
+     * Bind this view to the message at the offset of the buffer.
+     *
+     * @param buffer Buffer containing the message
+     * @param offset Offset of the message (its Storage Header if withStorageHeader)
+     * @return This view
+     */
+    public DltMessageView bind(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.stdOffset = withStorageHeader ? offset + StorageHeader.DATA_LENGTH : offset;
+        this.headerType = BufferUtils.getUnsignedByte(buffer, stdOffset);
+        return this;
+    }
+
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    // Storage Header
+
+    public boolean withStorageHeader() {
+        return withStorageHeader;
+    }
+
+    public int getSeconds() {
+        checkStorageHeader();
+        return BufferUtils.getInt(buffer, offset + 4, false);
+    }
+
+    public int getMicroseconds() {
+        checkStorageHeader();
+        return BufferUtils.getInt(buffer, offset + 8, false);
+    }
+
+    public String getStorageEcuId() {
+        checkStorageHeader();
+        return DltIdTable.toString(DltIdTable.fromBytes(buffer, offset + 12));
+    }
+
+    // Standard Header
+
+    public boolean useExtendedHeader() {
+        return (headerType & StandardHeader.USE_EXTENDED_HEADER_MASK) != 0;
+    }
+
+    public boolean isMsbFirst() {
+        return (headerType & StandardHeader.MSB_FIRST_MASK) != 0;
+    }
+
+    public boolean withEcuId() {
+        return (headerType & StandardHeader.WITH_ECU_ID_MASK) != 0;
+    }
+
+    public boolean withSessionId() {
+        return (headerType & StandardHeader.WITH_SESSION_ID_MASK) != 0;
+    }
+
+    public boolean withTimestamp() {
+        return (headerType & StandardHeader.WITH_TIMESTAMP_MASK) != 0;
+    }
+
+    public int getVersionNumber() {
+        return (headerType & StandardHeader.VERSION_NUMBER_MASK) >> StandardHeader.VERSION_NUMBER_SHIFT;
+    }
+
+    public int getMessageCounter() {
+        return BufferUtils.getUnsignedByte(buffer, stdOffset + 1);
+    }
+
+    /**
+     * Get length field of the Standard Header (message without Storage Header).
+     *
+     * @return Length of the message
+     */
+    public int getLength() {
+        return BufferUtils.getUnsignedShort(buffer, stdOffset + 2, true);
+    }
+
+    /**
+     * Get length of the whole message in the buffer, including Storage Header.
+     *
+     * @return Length of the bytes of the message
+     */
+    public int getBytesLength() {
+        return (stdOffset - offset) + getLength();
+    }
+
+    /**
+     * Get ECU ID of the Standard Header, or of the Storage Header if the
+     * Standard Header has no ECU ID.
+     *
+     * @return ECU ID, null if the message has none
+     */
+    public String getEcuId() {
+        if (!withEcuId() && !withStorageHeader) {
+            return null;
+        }
+        return DltIdTable.toString(getEcuIdKey());
+    }
+
+    public int getSessionId() {
+        if (!withSessionId()) {
+            throw new IllegalStateException("This message has no session ID.");
+        }
+        int index = stdOffset + StandardHeader.DATA_MIN_LENGTH;
+        if (withEcuId()) {
+            index += 4;
+        }
+        return BufferUtils.getInt(buffer, index, true);
+    }
+
+    public int getTimestamp() {
+        if (!withTimestamp()) {
+            throw new IllegalStateException("This message has no timestamp.");
+        }
+        int index = stdOffset + StandardHeader.DATA_MIN_LENGTH;
+        if (withEcuId()) {
+            index += 4;
+        }
+        if (withSessionId()) {
+            index += 4;
+        }
+        return BufferUtils.getInt(buffer, index, true);
+    }
+
+    public int getStandardHeaderLength() {
+        int length = StandardHeader.DATA_MIN_LENGTH;
+        if (withEcuId()) {
+            length += 4;
+        }
+        if (withSessionId()) {
+            length += 4;
+        }
+        if (withTimestamp()) {
+            length += 4;
+        }
+        return length;
+    }
+
+    // Extended Header
+
+    public boolean isVerbose() {
+        return useExtendedHeader() && (messageInfo() & ExtendedHeader.VERBOSE_MASK) != 0;
+    }
+
+    public int getMessageType() {
+        return (messageInfo() & ExtendedHeader.MESSAGE_TYPE_MASK) >> ExtendedHeader.MESSAGE_TYPE_SHIFT;
+    }
+
+    public int getMessageTypeInfo() {
+        return (messageInfo() & ExtendedHeader.MESSAGE_TYPE_INFO_MASK) >> ExtendedHeader.MESSAGE_TYPE_INFO_SHIFT;
+    }
+
+    public MessageLogInfo getMessageLogInfo() {
+        return MessageLogInfo.get(getMessageTypeInfo());
+    }
+
+    public int getNumberOfArguments() {
+        return BufferUtils.getUnsignedByte(buffer, extOffset() + 1);
+    }
+
+    public String getApplicationId() {
+        return DltIdTable.toString(getApplicationIdKey());
+    }
+
+    public String getContextId() {
+        return DltIdTable.toString(getContextIdKey());
+    }
+
+    /**
+     * Get a cursor over the verbose arguments directly in the buffer, without
+     * decoding the rest of the message.
+     *
+     * @param encoding Encoding of the string arguments
+     * @return Cursor at the first argument
+     */
+    public ArgumentCursor arguments(Optional<String> encoding) {
+        if (!isVerbose()) {
+            throw new IllegalStateException("This message is not in verbose mode.");
+        }
+        int payloadOffset = extOffset() + ExtendedHeader.DATA_LENGTH;
+        int payloadLength = offset + getBytesLength() - payloadOffset;
+        return new ArgumentCursor(buffer, payloadOffset, payloadLength, isMsbFirst(), getNumberOfArguments(), encoding);
+    }
+
+    /**
+     * Decode the whole message the view is bound to.
+     *
+     * @param encoding Encoding of the string arguments
+     * @return Decoded message
+     * @throws IllegalArgumentException if the bytes are not a valid message
+     */
+    public DltMessage toDltMessage(Optional<String> encoding) throws IllegalArgumentException {
+        return DltMessage.createFromBytes(buffer, offset, getBytesLength(), withStorageHeader, encoding);
+    }
+
+    @Override
+    public String toString() {
+        return "DltMessageView{offset=" + offset + ", length=" + getBytesLength() + '}';
+    }
+
+    // Keys of the IDs (see DltIdTable), 0 if the message has none
+
+    public int getEcuIdKey() {
+        if (withEcuId()) {
+            return DltIdTable.fromBytes(buffer, stdOffset + StandardHeader.DATA_MIN_LENGTH);
+        }
+        return withStorageHeader ? DltIdTable.fromBytes(buffer, offset + 12) : 0;
+    }
+
+    public int getApplicationIdKey() {
+        return useExtendedHeader() ? DltIdTable.fromBytes(buffer, extOffset() + 2) : 0;
+    }
+
+    public int getContextIdKey() {
+        return useExtendedHeader() ? DltIdTable.fromBytes(buffer, extOffset() + 6) : 0;
+    }
+
+    int headerType() {
+        return headerType;
+    }
+
+    // Offset of the payload in the buffer
+    int payloadOffset() {
+        int index = stdOffset + getStandardHeaderLength();
+        return useExtendedHeader() ? index + ExtendedHeader.DATA_LENGTH : index;
+    }
+
+    int messageInfo() {
+        return BufferUtils.getUnsignedByte(buffer, extOffset());
+    }
+
+    private int extOffset() {
+        if (!useExtendedHeader()) {
+            throw new IllegalStateException("This message has no Extended Header.");
+        }
+        return stdOffset + getStandardHeaderLength();
+    }
+
+    private void checkStorageHeader() {
+        if (!withStorageHeader) {
+            throw new IllegalStateException("This message has no Storage Header.");
+        }
+    }
+}
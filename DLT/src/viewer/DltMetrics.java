@@ -0,0 +1,381 @@
+package viewer;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters of the decoders and readers, exposed as an MXBean.
+ *
+ * The counters are always on: they are LongAdders, so threads decoding in parallel
+ * update separate cells instead of contending on one. Latencies of the stages are only
+ * measured after {@link #setLatencyEnabled(boolean)}, since that reads the clock twice
+ * per stage.
+ *
+ * <pre>
+ * DltMetrics.register();  // then e.g. jconsole shows viewer:type=DltMetrics
+ * </pre>
+ */
+public final class DltMetrics implements DltMetricsMXBean {
+    public static final String OBJECT_NAME = "viewer:type=DltMetrics";
+
+    /**
+     * Causes of decode errors and skipped ranges.
+     */
+    public enum Cause {
+        // No DLT-Pattern where a Storage Header was expected
+        BAD_PATTERN,
+        // Fewer bytes than a header, an argument or a length field requires
+        LENGTH_UNDERFLOW,
+        // Record cut off by the end of the data
+        TRUNCATED,
+        // Type Info, type code or String Coding not supported (see Argument.createFromBytes)
+        UNSUPPORTED_TYPE_INFO,
+        // Any other invalid data
+        INVALID
+    }
+
+    /**
+     * Measured stages of the pipeline.
+     */
+    public enum Stage {
+        // Storage, Standard and Extended Header in DltMessage.createFromBytes
+        HEADER_DECODE,
+        // Payload in DltMessage.createFromBytes. Verbose arguments are decoded later, when
+        // they are read, so this is mostly the copy of the payload bytes
+        PAYLOAD_DECODE,
+        // Text of a message in DltTextWriter
+        RENDER
+    }
+
+    // Base types of the arguments, by the number of trailing zeros of the base type bit
+    private static final String[] BASE_TYPES = {"BOOL", "SINT", "UINT", "FLOAT", "STRING", "RAW", "OTHER"};
+    private static final int[] BASE_TYPE_INDEXES = new int[Integer.SIZE];
+    // Counters of the arguments by base type * 8 + type length
+    private static final int TYPE_LENGTHS = 8;
+
+    // Buckets of the latencies: bucket b counts [2^(b-1), 2^b) ns, bucket 0 counts 0 ns
+    private static final int LATENCY_BUCKETS = 40;
+    private static final long RATE_INTERVAL_NANOS = 1_000_000_000L;
+
+    static {
+        Arrays.fill(BASE_TYPE_INDEXES, BASE_TYPES.length - 1);
+        BASE_TYPE_INDEXES[Integer.numberOfTrailingZeros(TypeInfo.TYPE_BOOL.getValue())] = 0;
+        BASE_TYPE_INDEXES[Integer.numberOfTrailingZeros(TypeInfo.TYPE_SIGNED.getValue())] = 1;
+        BASE_TYPE_INDEXES[Integer.numberOfTrailingZeros(TypeInfo.TYPE_UNSIGNED.getValue())] = 2;
+        BASE_TYPE_INDEXES[Integer.numberOfTrailingZeros(TypeInfo.TYPE_FLOAT.getValue())] = 3;
+        BASE_TYPE_INDEXES[Integer.numberOfTrailingZeros(TypeInfo.TYPE_STRING.getValue())] = 4;
+        BASE_TYPE_INDEXES[Integer.numberOfTrailingZeros(TypeInfo.TYPE_RAW.getValue())] = 5;
+    }
+
+    private static final DltMetrics INSTANCE = new DltMetrics();
+
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder verboseMessages = new LongAdder();
+    private final LongAdder records = new LongAdder();
+    private final LongAdder recordBytes = new LongAdder();
+    private final LongAdder skippedBytes = new LongAdder();
+    private final LongAdder[] arguments = newAdders(BASE_TYPES.length * TYPE_LENGTHS);
+    private final LongAdder[] errors = newAdders(Cause.values().length);
+    private final LongAdder[][] latencies = new LongAdder[Stage.values().length][];
+
+    private volatile boolean latencyEnabled;
+
+    // Counts at the start of the rate interval and the rates of the previous one
+    private long intervalStart = System.nanoTime();
+    private final long[] intervalCounts = new long[3];
+    private final double[] rates = new double[3];
+
+    private DltMetrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = newAdders(LATENCY_BUCKETS);
+        }
+    }
+
+    public static DltMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Register the metrics with the platform MBean server, if they are not registered yet.
+     *
+     * @throws IllegalStateException if the MBean cannot be registered
+     */
+    public static void register() {
+        register(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public static void register(MBeanServer server) {
+        try {
+            server.registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Registered before
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register " + OBJECT_NAME, e);
+        }
+    }
+
+    // Recording, called by the decoders and readers
+
+    static void messageDecoded(int length, boolean verbose) {
+        INSTANCE.messages.increment();
+        INSTANCE.bytes.add(length);
+        if (verbose) {
+            INSTANCE.verboseMessages.increment();
+        }
+    }
+
+    static void argumentDecoded(int typeInfo) {
+        int baseType = BASE_TYPE_INDEXES[Integer.numberOfTrailingZeros(typeInfo & BitMasks.MASK_BASE_TYPE)];
+        int typeLength = baseType < 4 ? typeInfo & (TYPE_LENGTHS - 1) : 0;
+        INSTANCE.arguments[baseType * TYPE_LENGTHS + typeLength].increment();
+    }
+
+    static void recordRead(int length) {
+        INSTANCE.records.increment();
+        INSTANCE.recordBytes.add(length);
+    }
+
+    static void skipped(long length, Cause cause) {
+        INSTANCE.skippedBytes.add(length);
+        INSTANCE.errors[cause.ordinal()].increment();
+    }
+
+    // Record skipped because it failed to decode, the decoder counted the error
+    static void recordSkipped(long length) {
+        INSTANCE.skippedBytes.add(length);
+    }
+
+    static void error(Cause cause) {
+        INSTANCE.errors[cause.ordinal()].increment();
+    }
+
+    // The decoders throw DltDecodeException with the cause, other exceptions count as INVALID
+    static void decodeFailed(RuntimeException e) {
+        error(causeOf(e));
+    }
+
+    static Cause causeOf(RuntimeException e) {
+        if (e instanceof DltDecodeException) {
+            return ((DltDecodeException) e).getReason();
+        } else if (e instanceof IndexOutOfBoundsException) {
+            // A range checked by BufferUtils goes beyond the data
+            return Cause.TRUNCATED;
+        }
+        return Cause.INVALID;
+    }
+
+    // Start of a measured stage, 0 if latencies are not measured
+    static long startTimer() {
+        return INSTANCE.latencyEnabled ? System.nanoTime() : 0;
+    }
+
+    // End the stage started at start, returns the start of the next stage
+    static long lap(Stage stage, long start) {
+        if (start == 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        long nanos = Math.max(0, now - start);
+        int bucket = Math.min(LATENCY_BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(nanos));
+        INSTANCE.latencies[stage.ordinal()][bucket].increment();
+        return now;
+    }
+
+    // MXBean
+
+    @Override
+    public long getMessageCount() {
+        return messages.sum();
+    }
+
+    @Override
+    public long getByteCount() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getVerboseMessageCount() {
+        return verboseMessages.sum();
+    }
+
+    @Override
+    public long getNonVerboseMessageCount() {
+        // Read in this order so it does not become negative while messages are decoded
+        long verbose = verboseMessages.sum();
+        return Math.max(0, messages.sum() - verbose);
+    }
+
+    @Override
+    public long getRecordCount() {
+        return records.sum();
+    }
+
+    @Override
+    public long getRecordByteCount() {
+        return recordBytes.sum();
+    }
+
+    @Override
+    public long getSkippedByteCount() {
+        return skippedBytes.sum();
+    }
+
+    @Override
+    public double getMessagesPerSecond() {
+        return rate(0);
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return rate(1);
+    }
+
+    @Override
+    public double getRecordsPerSecond() {
+        return rate(2);
+    }
+
+    @Override
+    public Map<String, Long> getArgumentCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < arguments.length; i++) {
+            long count = arguments[i].sum();
+            if (count > 0) {
+                counts.put(argumentTypeName(i / TYPE_LENGTHS, i % TYPE_LENGTHS), count);
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Cause cause : Cause.values()) {
+            counts.put(cause.name(), errors[cause.ordinal()].sum());
+        }
+        return counts;
+    }
+
+    @Override
+    public boolean isLatencyEnabled() {
+        return latencyEnabled;
+    }
+
+    @Override
+    public void setLatencyEnabled(boolean enabled) {
+        this.latencyEnabled = enabled;
+    }
+
+    @Override
+    public long[] getLatencyBucketBounds() {
+        long[] bounds = new long[LATENCY_BUCKETS];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = 1L << i;
+        }
+        return bounds;
+    }
+
+    @Override
+    public Map<String, long[]> getLatencyHistograms() {
+        Map<String, long[]> histograms = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            histograms.put(stage.name(), histogram(stage));
+        }
+        return histograms;
+    }
+
+    @Override
+    public long getLatencyPercentile(String stage, double percentile) {
+        long[] histogram = histogram(Stage.valueOf(stage));
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank && histogram[i] > 0) {
+                return 1L << i;
+            }
+        }
+        return 1L << (histogram.length - 1);
+    }
+
+    /**
+     * Set all counters to 0. Updates while resetting may be lost.
+     */
+    @Override
+    public synchronized void reset() {
+        for (LongAdder adder : new LongAdder[] {messages, bytes, verboseMessages, records, recordBytes, skippedBytes}) {
+            adder.reset();
+        }
+        for (LongAdder adder : arguments) {
+            adder.reset();
+        }
+        for (LongAdder adder : errors) {
+            adder.reset();
+        }
+        for (LongAdder[] histogram : latencies) {
+            for (LongAdder adder : histogram) {
+                adder.reset();
+            }
+        }
+        intervalStart = System.nanoTime();
+        Arrays.fill(intervalCounts, 0);
+        Arrays.fill(rates, 0);
+    }
+
+    // Rate of the counter, the interval moves on when it is read after one second or more
+    private synchronized double rate(int index) {
+        long now = System.nanoTime();
+        long elapsed = now - intervalStart;
+        if (elapsed >= RATE_INTERVAL_NANOS) {
+            long[] counts = {messages.sum(), bytes.sum(), records.sum()};
+            for (int i = 0; i < counts.length; i++) {
+                rates[i] = (counts[i] - intervalCounts[i]) * 1e9 / elapsed;
+                intervalCounts[i] = counts[i];
+            }
+            intervalStart = now;
+        }
+        return rates[index];
+    }
+
+    private long[] histogram(Stage stage) {
+        LongAdder[] adders = latencies[stage.ordinal()];
+        long[] histogram = new long[adders.length];
+        for (int i = 0; i < adders.length; i++) {
+            histogram[i] = adders[i].sum();
+        }
+        return histogram;
+    }
+
+    private static String argumentTypeName(int baseType, int typeLength) {
+        String name = BASE_TYPES[baseType];
+        if (baseType == 0 || baseType >= 4 || typeLength == 0) {
+            return name;
+        }
+        // Type Length 1 is 8 bit, 2 is 16 bit and so on
+        return name + (8 << (typeLength - 1));
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
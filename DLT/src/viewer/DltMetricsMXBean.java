@@ -0,0 +1,57 @@
+package viewer;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link DltMetrics}, registered as {@link DltMetrics#OBJECT_NAME}.
+ */
+public interface DltMetricsMXBean {
+    // Messages decoded by DltMessage.createFromBytes and their bytes
+    long getMessageCount();
+
+    long getByteCount();
+
+    long getVerboseMessageCount();
+
+    long getNonVerboseMessageCount();
+
+    // Records framed by the readers, decoded or not
+    long getRecordCount();
+
+    long getRecordByteCount();
+
+    // Bytes the readers skipped to find the next record
+    long getSkippedByteCount();
+
+    // Rates over the last completed interval of about one second
+    double getMessagesPerSecond();
+
+    double getBytesPerSecond();
+
+    double getRecordsPerSecond();
+
+    // Decoded arguments by type, e.g. "UINT32" or "STRING"
+    Map<String, Long> getArgumentCounts();
+
+    // Decode errors and skipped ranges by cause, see DltMetrics.Cause
+    Map<String, Long> getErrorCounts();
+
+    boolean isLatencyEnabled();
+
+    void setLatencyEnabled(boolean enabled);
+
+    // Upper bounds of the buckets of the latency histograms in nanoseconds
+    long[] getLatencyBucketBounds();
+
+    // Counts of the buckets by stage, see DltMetrics.Stage
+    Map<String, long[]> getLatencyHistograms();
+
+    /**
+     * @param stage      Name of the stage, see DltMetrics.Stage
+     * @param percentile Percentile from 0 to 100
+     * @return Upper bound of the bucket of the percentile in nanoseconds, 0 if nothing was measured
+     */
+    long getLatencyPercentile(String stage, double percentile);
+
+    void reset();
+}
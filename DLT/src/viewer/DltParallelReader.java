@@ -0,0 +1,230 @@
+package viewer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Decodes a DLT file in parallel.
+ *
+ * The file is split into chunks of bytes. Each chunk is decoded by a task of the
+ * ForkJoinPool which first resynchronizes on the first plausible record of its chunk,
+ * and owns the records starting inside the chunk. The start of each chunk is checked
+ * against the end of the chunk before it; if they differ (the resync hit a DLT-Pattern
+ * inside a payload), the chunk is decoded again from the correct offset. So the result
+ * is always the same as reading the file with {@link DltFileReader}.
+ */
+public class DltParallelReader implements Closeable {
+    // Default size of a chunk
+    public static final long DEFAULT_CHUNK_SIZE = 16L * 1024 * 1024;
+
+    private final DltFileReader reader;
+    private final ForkJoinPool pool;
+    private final long chunkSize;
+    private final int maxChunksInFlight;
+
+    public DltParallelReader(Path path) throws IOException {
+        this(path, Optional.of(StandardCharsets.US_ASCII.name()), ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public DltParallelReader(Path path, Optional<String> encoding, ForkJoinPool pool, long chunkSize) throws IOException {
+        if (chunkSize < DltFileReader.MAX_RECORD_LENGTH) {
+            throw new IllegalArgumentException("Chunk size must be " + DltFileReader.MAX_RECORD_LENGTH + " or more: " + chunkSize);
+        }
+        this.reader = new DltFileReader(path, encoding);
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        // Keep the workers busy while the chunks are consumed, without decoding the whole file ahead
+        this.maxChunksInFlight = pool.getParallelism() * 2;
+    }
+
+    /**
+     * Get messages of the file in file order, decoded in parallel.
+     *
+     * @return Ordered stream of the decoded messages
+     */
+    public Stream<DltMessage> stream() {
+        return stream(null);
+    }
+
+    /**
+     * Get messages of the file matching the filter in file order, decoded in parallel.
+     *
+     * @param filter Filter checked on the headers before decoding, null for all messages
+     * @return Ordered stream of the decoded messages
+     */
+    public Stream<DltMessage> stream(DltFilter filter) {
+        Iterator<DltMessage> iterator = new OrderedIterator(filter);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Decode all messages in parallel and pass them to the sink in no particular order.
+     *
+     * The sink is called from the threads of the pool and must be thread-safe.
+     * Messages of one chunk are passed in file order.
+     *
+     * @param sink Called for each message
+     */
+    public void forEach(Consumer<? super DltMessage> sink) {
+        forEach(null, sink);
+    }
+
+    /**
+     * Decode the messages matching the filter in parallel and pass them to the sink
+     * in no particular order.
+     *
+     * @param filter Filter checked on the headers before decoding, null for all messages
+     * @param sink   Called for each matching message
+     * @see #forEach(Consumer)
+     */
+    public void forEach(DltFilter filter, Consumer<? super DltMessage> sink) {
+        int chunkCount = getChunkCount();
+        Semaphore inFlight = new Semaphore(maxChunksInFlight);
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>();
+        CompletableFuture<Chunk> previous = CompletableFuture.completedFuture(null);
+
+        for (int i = 0; i < chunkCount; i++) {
+            inFlight.acquireUninterruptibly();
+            CompletableFuture<Chunk> verified = submit(i, previous, filter);
+            deliveries.add(verified
+                    .thenAcceptAsync(chunk -> chunk.messages.forEach(sink), pool)
+                    .whenComplete((result, error) -> inFlight.release()));
+            previous = verified;
+        }
+        join(CompletableFuture.allOf(deliveries.toArray(new CompletableFuture<?>[0])));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int getChunkCount() {
+        return (int) ((reader.getFileSize() + chunkSize - 1) / chunkSize);
+    }
+
+    // Decode the chunk in the pool and check it against the chunk before it
+    private CompletableFuture<Chunk> submit(int index, CompletableFuture<Chunk> previous, DltFilter filter) {
+        long start = index * chunkSize;
+        long end = Math.min(start + chunkSize, reader.getFileSize());
+        CompletableFuture<Chunk> decoded = CompletableFuture.supplyAsync(() -> decodeChunk(start, end, index > 0, filter), pool);
+        return decoded.thenCombine(previous, (chunk, before) -> {
+            long expectedStart = before == null ? 0 : before.nextRecordOffset;
+            if (chunk.syncOffset == expectedStart) {
+                return chunk;
+            }
+            // Resync was wrong or the chunk before ended beyond it, decode again from the real boundary
+            return decodeChunk(expectedStart, end, false, filter);
+        });
+    }
+
+    // Decode the records starting in [start, end) that match the filter
+    private Chunk decodeChunk(long start, long end, boolean resync, DltFilter filter) {
+        try {
+            DltFileReader.RecordCursor cursor = reader.newCursor(start);
+            long syncOffset = resync ? cursor.resync() : start;
+            List<DltMessage> messages = new ArrayList<>();
+            DltMessageView view = filter != null ? new DltMessageView(true) : null;
+            long nextRecordOffset = reader.getFileSize();
+            while (cursor.advance()) {
+                if (cursor.getRecordOffset() >= end) {
+                    nextRecordOffset = cursor.getRecordOffset();
+                    break;
+                }
+                if (filter == null || filter.test(view.bind(cursor.getWindow(), cursor.windowIndex()))) {
+                    DltMessage message = reader.decode(cursor);
+                    if (message != null) {
+                        messages.add(message);
+                    }
+                }
+            }
+            return new Chunk(syncOffset, messages, nextRecordOffset);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // Decoded messages of a chunk
+    private static class Chunk {
+        // Offset the decoding started at
+        final long syncOffset;
+        final List<DltMessage> messages;
+        // Offset of the first record after the chunk, where the next chunk has to start
+        final long nextRecordOffset;
+
+        Chunk(long syncOffset, List<DltMessage> messages, long nextRecordOffset) {
+            this.syncOffset = syncOffset;
+            this.messages = messages;
+            this.nextRecordOffset = nextRecordOffset;
+        }
+    }
+
+    // Consumes the chunks in order, keeping a bounded number of chunks decoded ahead
+    private class OrderedIterator implements Iterator<DltMessage> {
+        private final DltFilter filter;
+        private final int chunkCount = getChunkCount();
+        private final Deque<CompletableFuture<Chunk>> pending = new ArrayDeque<>();
+        private CompletableFuture<Chunk> last = CompletableFuture.completedFuture(null);
+        private int submitted;
+        private Iterator<DltMessage> current = Collections.emptyIterator();
+
+        OrderedIterator(DltFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                while (submitted < chunkCount && pending.size() < maxChunksInFlight) {
+                    last = submit(submitted++, last, filter);
+                    pending.add(last);
+                }
+                if (pending.isEmpty()) {
+                    return false;
+                }
+                current = join(pending.poll()).messages.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public DltMessage next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package viewer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Files and headers shared by the sidecar indexes of a DLT file ({@link DltIndex},
+ * {@link DltTimeIndex} and {@link DltTrigramIndex}).
+ *
+ * A sidecar is valid only for the DLT file of the same size and modification time,
+ * which it records in its header. It is written to a temporary file which is moved in
+ * place once it is complete, so a reader never sees a partial index.
+ *
+ * Header (big endian), each index defines the fields marked as its own:
+ * <pre>
+ * magic (4), version (4), own field (4), own field (4),
+ * size of the DLT file (8), modification time of the DLT file (ms) (8), own fields...
+ * </pre>
+ */
+final class DltSidecar {
+    // Length of the shared fields at the start of the header
+    static final int SHARED_HEADER_LENGTH = 32;
+
+    private static final int FILE_SIZE_FIELD = 16;
+    private static final int MODIFIED_TIME_FIELD = 24;
+
+    private DltSidecar() {
+    }
+
+    /**
+     * Get path of a sidecar of the DLT file, e.g. "trace.dlt" -> "trace.dlti" for
+     * ".dlti", other names get the whole extension.
+     *
+     * @param dltPath   Path of the DLT file
+     * @param extension Extension of the sidecar, ".dlt" and one letter
+     * @return Path of the sidecar
+     */
+    static Path pathFor(Path dltPath, String extension) {
+        String fileName = dltPath.getFileName().toString();
+        if (fileName.endsWith(".dlt")) {
+            return dltPath.resolveSibling(fileName + extension.substring(".dlt".length()));
+        }
+        return dltPath.resolveSibling(fileName + extension);
+    }
+
+    // Temporary file the sidecar is written to before commit
+    static Path tempPathFor(Path indexPath) {
+        return indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+    }
+
+    static FileChannel create(Path tempPath) throws IOException {
+        return FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    // Move the complete sidecar in place of the previous one
+    static void commit(Path tempPath, Path indexPath) throws IOException {
+        Files.move(tempPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read the start of the sidecar.
+     *
+     * @param channel Channel of the sidecar
+     * @param length  Number of bytes to read
+     * @return Bytes read from position 0, fewer than the length if the file is shorter
+     * @throws IOException if the sidecar cannot be read
+     */
+    static ByteBuffer readHeader(FileChannel channel, int length) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(length).order(ByteOrder.BIG_ENDIAN);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // Read until the header is complete
+        }
+        return header.flip();
+    }
+
+    /**
+     * Put the shared fields of the header at the position of the buffer.
+     *
+     * @param header       Big endian buffer of the header
+     * @param magic        Magic of the sidecar
+     * @param version      Version of the format
+     * @param own0         First field of the index
+     * @param own1         Second field of the index
+     * @param fileSize     Size of the DLT file as it was parsed
+     * @param modifiedTime Modification time (ms) of the DLT file when it was opened
+     */
+    static void putHeader(ByteBuffer header, byte[] magic, int version, int own0, int own1,
+                          long fileSize, long modifiedTime) {
+        header.put(magic).putInt(version).putInt(own0).putInt(own1).putLong(fileSize).putLong(modifiedTime);
+    }
+
+    /**
+     * Check the shared fields of the header against the DLT file.
+     *
+     * @param header  Header read by {@link #readHeader}, not moved
+     * @param magic   Magic of the sidecar
+     * @param version Version of the format
+     * @param dltPath Path of the DLT file
+     * @return False if the header is short, of another format or of another DLT file
+     * @throws IOException if the DLT file cannot be read
+     */
+    static boolean isValid(ByteBuffer header, byte[] magic, int version, Path dltPath) throws IOException {
+        if (header.remaining() < SHARED_HEADER_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (header.get(i) != magic[i]) {
+                return false;
+            }
+        }
+        return header.getInt(magic.length) == version
+                && header.getLong(FILE_SIZE_FIELD) == Files.size(dltPath)
+                && header.getLong(MODIFIED_TIME_FIELD) == Files.getLastModifiedTime(dltPath).toMillis();
+    }
+
+    // Size of the DLT file recorded in a valid header
+    static long fileSize(ByteBuffer header) {
+        return header.getLong(FILE_SIZE_FIELD);
+    }
+}
@@ -0,0 +1,300 @@
+package viewer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Receives DLT messages from TCP streams, e.g. from dlt-daemon on port {@link #DEFAULT_PORT}.
+ *
+ * A stream carries messages without Storage Header, one after another. The messages are
+ * framed with the length field of the Standard Header, so they can be split across reads
+ * in any way. All connections are served by the thread calling {@link #run()} with one
+ * selector; the sink is called from that thread. A RuntimeException of the sink is
+ * counted (see {@link #getSinkErrorCount()}) and the source goes on with the next message.
+ *
+ * <pre>
+ * DltTcpSource source = new DltTcpSource(message -&gt; ..., Optional.of("US-ASCII"));
+ * source.setStorageHeaderStamping(true);
+ * source.connect(new InetSocketAddress("ecu1", DltTcpSource.DEFAULT_PORT), "ECU1");
+ * new Thread(source).start();
+ * </pre>
+ */
+public class DltTcpSource implements Runnable, Closeable {
+    // Port of dlt-daemon
+    public static final int DEFAULT_PORT = 3490;
+
+    // Maximum length of a message (maximum of the length field)
+    private static final int MAX_MESSAGE_LENGTH = 0xFFFF;
+    // Offset of the length field inside a message (HTYP + MCNT)
+    private static final int LENGTH_FIELD_OFFSET = 2;
+
+    private final Consumer<? super DltMessage> sink;
+    private final Optional<String> encoding;
+    private final Selector selector;
+    // Connections to register by the selector thread
+    private final ConcurrentLinkedQueue<Connection> pending = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean stampStorageHeader;
+    private volatile boolean closed;
+    private boolean running;
+
+    // Written by the selector thread only
+    private volatile long messageCount;
+    private volatile long errorCount;
+    private volatile long sinkErrorCount;
+
+    public DltTcpSource(Consumer<? super DltMessage> sink, Optional<String> encoding) throws IOException {
+        this.sink = sink;
+        this.encoding = encoding;
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Add a Storage Header with the time of arrival to the received messages.
+     * Its ECU ID is the one of the Standard Header, or else the one of the connection.
+     *
+     * @param stampStorageHeader True to add a Storage Header
+     */
+    public void setStorageHeaderStamping(boolean stampStorageHeader) {
+        this.stampStorageHeader = stampStorageHeader;
+    }
+
+    public void connect(InetSocketAddress address) throws IOException {
+        connect(address, null);
+    }
+
+    /**
+     * Open a connection; it is served once {@link #run()} is running.
+     * This can be called from any thread.
+     *
+     * @param address Address of the sender
+     * @param ecuId   ECU ID of the Storage Headers added to the messages without one, null for none
+     * @throws IOException if the connection cannot be opened
+     */
+    public void connect(InetSocketAddress address, String ecuId) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("The source is closed.");
+        }
+        SocketChannel channel = SocketChannel.open();
+        try {
+            channel.configureBlocking(false);
+            channel.connect(address);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        pending.add(new Connection(channel, address, DltIdTable.fromString(ecuId)));
+        selector.wakeup();
+    }
+
+    // Number of messages passed to the sink
+    public long getMessageCount() {
+        return messageCount;
+    }
+
+    // Number of messages that could not be decoded, connections closed on a framing error
+    // and connections that could not be established
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    // Number of messages the sink threw an exception for; the source goes on with the next one
+    public long getSinkErrorCount() {
+        return sinkErrorCount;
+    }
+
+    /**
+     * Serve the connections until {@link #close()} is called.
+     *
+     * @throws UncheckedIOException if the selector fails
+     */
+    @Override
+    public void run() {
+        synchronized (this) {
+            if (running || closed) {
+                throw new IllegalStateException("The source is already running or closed.");
+            }
+            running = true;
+        }
+        try {
+            while (!closed) {
+                registerPending();
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isValid() && key.isConnectable()) {
+                            connection.finishConnect(key);
+                        } else if (key.isValid() && key.isReadable()) {
+                            connection.read();
+                        }
+                    } catch (IOException e) {
+                        connection.close();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            closeAll();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        boolean stopSelector;
+        synchronized (this) {
+            closed = true;
+            stopSelector = running;
+        }
+        if (stopSelector) {
+            selector.wakeup(); // run() closes the connections when it stops
+        } else {
+            closeAll();
+        }
+    }
+
+    private void registerPending() throws IOException {
+        Connection connection;
+        while ((connection = pending.poll()) != null) {
+            connection.channel.register(selector, SelectionKey.OP_CONNECT, connection);
+        }
+    }
+
+    private void closeAll() {
+        List<Connection> connections = new ArrayList<>();
+        if (selector.isOpen()) {
+            for (SelectionKey key : selector.keys()) {
+                connections.add((Connection) key.attachment());
+            }
+        }
+        connections.addAll(pending);
+        pending.clear();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            // Nothing to do, the source is closed anyway
+        }
+    }
+
+    // A stream of messages, messages split across reads are kept in the buffer
+    private class Connection {
+        private final SocketChannel channel;
+        private final InetSocketAddress address;
+        private final int ecuId;
+        // Received bytes, in write mode between the reads
+        private final ByteBuffer buffer = ByteBuffer.allocate(2 * MAX_MESSAGE_LENGTH);
+
+        Connection(SocketChannel channel, InetSocketAddress address, int ecuId) {
+            this.channel = channel;
+            this.address = address;
+            this.ecuId = ecuId;
+        }
+
+        void finishConnect(SelectionKey key) throws IOException {
+            boolean connected;
+            try {
+                connected = channel.finishConnect();
+            } catch (IOException e) {
+                errorCount++;
+                throw e;
+            }
+            if (connected) {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        void read() throws IOException {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                close();
+                return;
+            }
+            if (read == 0) {
+                return;
+            }
+            buffer.flip();
+            StorageHeader arrival = stampStorageHeader ? arrivalHeader() : null;
+            while (buffer.remaining() >= StandardHeader.DATA_MIN_LENGTH) {
+                int offset = buffer.position();
+                int length = BufferUtils.getUnsignedShort(buffer, offset + LENGTH_FIELD_OFFSET, true);
+                if (length < StandardHeader.DATA_MIN_LENGTH) {
+                    // The stream is out of sync, there is no pattern to find the next message
+                    errorCount++;
+                    DltMetrics.error(DltMetrics.Cause.LENGTH_UNDERFLOW);
+                    close();
+                    return;
+                }
+                if (buffer.remaining() < length) {
+                    break;
+                }
+                DltMetrics.recordRead(length);
+                deliver(offset, length, arrival);
+                buffer.position(offset + length);
+            }
+            buffer.compact();
+        }
+
+        private void deliver(int offset, int length, StorageHeader arrival) {
+            DltMessage message;
+            try {
+                message = DltMessage.createFromBytes(buffer, offset, length, false, encoding);
+            } catch (IllegalArgumentException e) {
+                errorCount++;
+                return;
+            }
+            if (arrival != null) {
+                StandardHeader stdHeader = message.getStandardHeader();
+                StorageHeader strHeader = stdHeader.withEcuId && stdHeader.ecuId != arrival.ecuId
+                        ? new StorageHeader(arrival.seconds, arrival.microseconds, stdHeader.ecuId)
+                        : arrival;
+                message = new DltMessage(strHeader, stdHeader, message.getExtendedHeader(), message.getPayload());
+            }
+            messageCount++;
+            try {
+                sink.accept(message);
+            } catch (RuntimeException e) {
+                // A failing message must not stop the source and drop the other connections
+                sinkErrorCount++;
+            }
+        }
+
+        // Storage Header of the messages of one read
+        private StorageHeader arrivalHeader() {
+            Instant now = Instant.now();
+            return new StorageHeader((int) now.getEpochSecond(), now.getNano() / 1000, ecuId);
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing to do, the connection is dropped anyway
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Connection{" + address + '}';
+        }
+    }
+}
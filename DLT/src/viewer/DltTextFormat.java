@@ -0,0 +1,206 @@
+package viewer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import viewer.StandardHeader.MessageBusInfo;
+import viewer.StandardHeader.MessageControlInfo;
+import viewer.StandardHeader.MessageLogInfo;
+import viewer.StandardHeader.MessageTraceInfo;
+import viewer.StandardHeader.MessageType;
+
+/**
+ * Formats messages as text lines, see {@link DltMessage#toString()}.
+ *
+ * The date and time of the Storage Header is formatted once per distinct second and
+ * numbers and the payload are rendered directly into the destination, so formatting
+ * a line creates no intermediate Strings. An instance is not thread-safe.
+ *
+ * With a catalog, the known Non-Verbose payloads are shown with their texts and values,
+ * and with the APID and CTID of the catalog if the message has no Extended Header.
+ */
+final class DltTextFormat {
+    private static final String[] MESSAGE_TYPE_STR = {
+            "log", "app_trace", "nw_trace", "control"
+    };
+
+    private static final String[] MESSAGE_LOG_INFO_STR = {
+            "fatal", "error", "warn", "info", "debug", "verbose"
+    };
+
+    private static final String[] MESSAGE_TRACE_INFO_STR = {
+            "variable", "func_in", "func_out", "state", "vfb"
+    };
+
+    private static final String[] MESSAGE_BUS_INFO_STR = {
+            "ipc", "can", "flexray", "most"
+    };
+
+    private static final String[] MESSAGE_CONTROL_INFO_STR = {
+            "request", "response", "time"
+    };
+
+    // Catalog of the Non-Verbose messages, null for none
+    private final DltCatalog catalog;
+
+    // "yyyy/MM/dd HH:mm:ss" of the last seconds formatted
+    private final StringBuilder dateTime = new StringBuilder(19);
+    private boolean withDateTime;
+    private int dateTimeSeconds;
+
+    DltTextFormat() {
+        this(null);
+    }
+
+    DltTextFormat(DltCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Append the text of the message.
+     *
+     * @param message Message to format
+     * @param out     Destination of the text
+     * @throws IllegalArgumentException if the Message Type Info is not valid for the Message Type
+     */
+    void format(DltMessage message, StringBuilder out) throws IllegalArgumentException {
+        StorageHeader strHeader = message.getStorageHeader();
+        StandardHeader stdHeader = message.getStandardHeader();
+        ExtendedHeader extHeader = message.getExtendedHeader();
+        DltCatalog.Entry entry = null;
+        if (catalog != null && message.getPayload() instanceof NonVerbosePayload) {
+            entry = catalog.get(((NonVerbosePayload) message.getPayload()).getMessageId());
+        }
+
+        if (strHeader != null) {
+            appendDateTime(strHeader.seconds, out);
+            out.append('.');
+            appendPadded(strHeader.microseconds, 6, out);
+        }
+
+        if (stdHeader.withTimestamp) {
+            int timestamp = stdHeader.timestamp;
+            out.append(timestamp / 10000).append('.');
+            appendPadded(timestamp % 10000, 4, out);
+        }
+
+        out.append(stdHeader.messageCounter);
+
+        if (stdHeader.withEcuId) {
+            out.append(DltIdTable.toString(stdHeader.ecuId));
+        } else if (strHeader != null) {
+            out.append(DltIdTable.toString(strHeader.ecuId));
+        }
+
+        if (extHeader != null) {
+            out.append(DltIdTable.toString(extHeader.applicationId)).append(DltIdTable.toString(extHeader.contextId));
+        } else if (entry != null) {
+            out.append(DltIdTable.toString(entry.applicationId)).append(DltIdTable.toString(entry.contextId));
+        }
+
+        if (stdHeader.withSessionId) {
+            out.append(stdHeader.sessionId);
+        }
+
+        if (extHeader != null) {
+            out.append(MESSAGE_TYPE_STR[extHeader.messageType]);
+            out.append(messageTypeInfoStr(extHeader.messageType, extHeader.messageTypeInfo));
+        }
+
+        if (extHeader != null && extHeader.verbose) {
+            out.append(" verbose");
+        } else {
+            out.append(" non-verbose");
+        }
+
+        if (extHeader != null) {
+            out.append(extHeader.numberOfArguments);
+        }
+
+        if (message.getPayload() != null) {
+            try {
+                if (entry == null || !catalog.render((NonVerbosePayload) message.getPayload(), out)) {
+                    message.getPayload().render(out);
+                }
+            } catch (IOException e) {
+                // A StringBuilder does not throw
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Text of the Message Type Info, empty for the Message Types without one
+    private static String messageTypeInfoStr(int messageType, int messageTypeInfo) {
+        String[] names;
+        if (messageType == MessageType.DLT_TYPE_LOG.getValue()) {
+            names = MESSAGE_LOG_INFO_STR;
+        } else if (messageType == MessageType.DLT_TYPE_APP_TRACE.getValue()) {
+            names = MESSAGE_TRACE_INFO_STR;
+        } else if (messageType == MessageType.DLT_TYPE_NW_TRACE.getValue()) {
+            names = MESSAGE_BUS_INFO_STR;
+        } else if (messageType == MessageType.DLT_TYPE_CONTROL.getValue()) {
+            names = MESSAGE_CONTROL_INFO_STR;
+        } else {
+            return "";
+        }
+        if (messageTypeInfo < 1 || messageTypeInfo > names.length) {
+            // Same error as the lookup of the enum
+            if (names == MESSAGE_LOG_INFO_STR) {
+                MessageLogInfo.get(messageTypeInfo);
+            } else if (names == MESSAGE_TRACE_INFO_STR) {
+                MessageTraceInfo.get(messageTypeInfo);
+            } else if (names == MESSAGE_BUS_INFO_STR) {
+                MessageBusInfo.get(messageTypeInfo);
+            } else {
+                MessageControlInfo.get(messageTypeInfo);
+            }
+        }
+        return names[messageTypeInfo - 1];
+    }
+
+    // Append the date and time of the seconds (UTC), formatted again only when the seconds change
+    private void appendDateTime(int seconds, StringBuilder out) {
+        if (!withDateTime || seconds != dateTimeSeconds) {
+            LocalDateTime dt = LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+            dateTime.setLength(0);
+            appendPadded(dt.getYear(), 4, dateTime);
+            dateTime.append('/');
+            appendPadded(dt.getMonthValue(), 2, dateTime);
+            dateTime.append('/');
+            appendPadded(dt.getDayOfMonth(), 2, dateTime);
+            dateTime.append(' ');
+            appendPadded(dt.getHour(), 2, dateTime);
+            dateTime.append(':');
+            appendPadded(dt.getMinute(), 2, dateTime);
+            dateTime.append(':');
+            appendPadded(dt.getSecond(), 2, dateTime);
+            withDateTime = true;
+            dateTimeSeconds = seconds;
+        }
+        out.append(dateTime);
+    }
+
+    /**
+     * Append the number with leading zeros up to the width, like "%0<width>d".
+     *
+     * @param value Number to append
+     * @param width Minimum number of characters
+     * @param out   Destination of the text
+     */
+    static void appendPadded(int value, int width, StringBuilder out) {
+        long abs = value;
+        if (value < 0) {
+            out.append('-');
+            abs = -abs;
+            width--;
+        }
+        for (long limit = 10; width > 1; width--, limit *= 10) {
+            if (abs < limit) {
+                out.append('0');
+            }
+        }
+        out.append(abs);
+    }
+}
@@ -0,0 +1,115 @@
+package viewer;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes messages as text lines (UTF-8), one line per message in the format of
+ * {@link DltMessage#toString()}.
+ *
+ * Each line is formatted into a reused buffer and copied into a byte buffer which is
+ * written to the channel when it is full, so writing a message creates no
+ * intermediate Strings for the headers.
+ */
+public class DltTextWriter implements Closeable, Flushable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final StringBuilder line = new StringBuilder(256);
+    private final DltTextFormat format;
+    private final String lineSeparator = System.lineSeparator();
+    // Only used for the lines with non-ASCII characters
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    public DltTextWriter(Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    public DltTextWriter(WritableByteChannel channel) {
+        this(channel, null);
+    }
+
+    /**
+     * @param channel Destination of the lines
+     * @param catalog Catalog to show the known Non-Verbose payloads decoded, null for none
+     */
+    public DltTextWriter(WritableByteChannel channel, DltCatalog catalog) {
+        this.channel = channel;
+        this.format = new DltTextFormat(catalog);
+    }
+
+    /**
+     * Write the line of the message.
+     *
+     * @param message Message to write
+     * @throws IOException if the channel cannot be written
+     */
+    public void write(DltMessage message) throws IOException {
+        long start = DltMetrics.startTimer();
+        line.setLength(0);
+        format.format(message, line);
+        line.append(lineSeparator);
+        DltMetrics.lap(DltMetrics.Stage.RENDER, start);
+        writeLine();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeLine() throws IOException {
+        int length = line.length();
+        for (int i = 0; i < length; i++) {
+            char c = line.charAt(i);
+            if (c >= 0x80) {
+                writeEncoded(i);
+                return;
+            }
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put((byte) c);
+        }
+    }
+
+    // Encode the rest of the line from the index
+    private void writeEncoded(int index) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(line, index, line.length());
+        encoder.reset();
+        while (encoder.encode(chars, buffer, true) == CoderResult.OVERFLOW) {
+            flush();
+        }
+        while (encoder.flush(buffer) == CoderResult.OVERFLOW) {
+            flush();
+        }
+    }
+}
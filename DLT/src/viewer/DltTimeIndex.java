@@ -0,0 +1,307 @@
+package viewer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Sparse time index (.dlts) of a DLT file, for reading the messages of a time window
+ * without scanning the file from the start.
+ *
+ * The index has an entry with the time of the Storage Header and the file offset of a
+ * message every {@link #DEFAULT_INTERVAL_MESSAGES} messages or
+ * {@link #DEFAULT_INTERVAL_BYTES} bytes, whichever comes first. It is small enough to
+ * be held in memory, and it is checked against the DLT file and written like the
+ * {@link DltIndex}.
+ *
+ * Storage times are not always in order, e.g. when the logger buffers messages. A
+ * window query starts the look-back before the window and stops the look-back after
+ * it, so it finds every message which is at most the look-back older than a message
+ * before it in the file.
+ *
+ * Layout (big endian):
+ * <pre>
+ * Header (48 bytes): "DLTS", version, interval of messages, interval of bytes,
+ *                    size of the DLT file, modification time of the DLT file (ms),
+ *                    number of messages, number of entries
+ * Entry (16 bytes):  file offset (8), time (us) (8)
+ * </pre>
+ */
+public class DltTimeIndex {
+    public static final String FILE_EXTENSION = ".dlts";
+
+    public static final int DEFAULT_INTERVAL_MESSAGES = 1024;
+    public static final int DEFAULT_INTERVAL_BYTES = 256 * 1024;
+    public static final Duration DEFAULT_LOOK_BACK = Duration.ofSeconds(2);
+
+    static final byte[] MAGIC = new byte[] {(byte) 0x44, (byte) 0x4C, (byte) 0x54, (byte) 0x53};
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = 48;
+    static final int ENTRY_LENGTH = 16;
+
+    private final long fileSize;
+    private final long size;
+    private final long[] offsets;
+    private final long[] times;
+    private long lookBackMicros = DEFAULT_LOOK_BACK.toNanos() / 1000;
+
+    private DltTimeIndex(long fileSize, long size, long[] offsets, long[] times) {
+        this.fileSize = fileSize;
+        this.size = size;
+        this.offsets = offsets;
+        this.times = times;
+    }
+
+    /**
+     * Get path of the index for the DLT file ("trace.dlt" -> "trace.dlts").
+     *
+     * @param dltPath Path of the DLT file
+     * @return Path of the index
+     */
+    public static Path indexPathFor(Path dltPath) {
+        return DltSidecar.pathFor(dltPath, FILE_EXTENSION);
+    }
+
+    /**
+     * Open the index of the DLT file if it exists and is up to date.
+     *
+     * @param dltPath Path of the DLT file
+     * @return Index, empty if there is no valid index
+     * @throws IOException if the files cannot be read
+     */
+    public static Optional<DltTimeIndex> open(Path dltPath) throws IOException {
+        Path indexPath = indexPathFor(dltPath);
+        if (!Files.exists(indexPath) || !Files.exists(dltPath)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            long indexSize = channel.size();
+            if (indexSize < HEADER_LENGTH || indexSize > HEADER_LENGTH + (long) Integer.MAX_VALUE) {
+                return Optional.empty();
+            }
+            ByteBuffer buffer = DltSidecar.readHeader(channel, (int) indexSize);
+            if (!DltSidecar.isValid(buffer, MAGIC, VERSION, dltPath)) {
+                return Optional.empty();
+            }
+            long size = buffer.getLong(32);
+            long entryCount = buffer.getLong(40);
+            if (indexSize != HEADER_LENGTH + entryCount * ENTRY_LENGTH) {
+                return Optional.empty();
+            }
+            buffer.position(HEADER_LENGTH);
+            int count = (int) entryCount;
+            long[] offsets = new long[count];
+            long[] times = new long[count];
+            for (int i = 0; i < count; i++) {
+                offsets[i] = buffer.getLong();
+                times[i] = buffer.getLong();
+            }
+            return Optional.of(new DltTimeIndex(DltSidecar.fileSize(buffer), size, offsets, times));
+        }
+    }
+
+    /**
+     * Open the index of the DLT file, build it first if there is no valid index.
+     *
+     * @param dltPath Path of the DLT file
+     * @return Index
+     * @throws IOException if the files cannot be read or written
+     */
+    public static DltTimeIndex openOrBuild(Path dltPath) throws IOException {
+        Optional<DltTimeIndex> index = open(dltPath);
+        return index.isPresent() ? index.get() : build(dltPath, DEFAULT_INTERVAL_MESSAGES, DEFAULT_INTERVAL_BYTES);
+    }
+
+    /**
+     * Scan the DLT file and write its index.
+     *
+     * @param dltPath          Path of the DLT file
+     * @param intervalMessages Maximum number of messages between entries
+     * @param intervalBytes    Maximum number of bytes between entries
+     * @return Index
+     * @throws IOException if the files cannot be read or written
+     */
+    public static DltTimeIndex build(Path dltPath, int intervalMessages, int intervalBytes) throws IOException {
+        if (intervalMessages <= 0 || intervalBytes <= 0) {
+            throw new IllegalArgumentException("Invalid interval: " + intervalMessages + " messages, " + intervalBytes + " bytes");
+        }
+        Path indexPath = indexPathFor(dltPath);
+        Path tempPath = DltSidecar.tempPathFor(indexPath);
+
+        long fileSize;
+        long modifiedTime;
+        long[] offsets = new long[64];
+        long[] times = new long[64];
+        int count = 0;
+        long size = 0;
+        try (DltFileReader reader = new DltFileReader(dltPath)) {
+            // The index is of the file as the reader opened it, not as it may have grown since
+            fileSize = reader.getFileSize();
+            modifiedTime = reader.getModifiedTime();
+            DltFileReader.RecordCursor cursor = reader.newCursor(0);
+            DltMessageView view = new DltMessageView(true);
+            long lastOrdinal = 0;
+            long lastOffset = 0;
+            while (cursor.advance()) {
+                long offset = cursor.getRecordOffset();
+                if (count == 0 || size - lastOrdinal >= intervalMessages || offset - lastOffset >= intervalBytes) {
+                    if (count == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, count * 2);
+                        times = Arrays.copyOf(times, count * 2);
+                    }
+                    offsets[count] = offset;
+                    times[count] = micros(view.bind(cursor.getWindow(), cursor.windowIndex()));
+                    count++;
+                    lastOrdinal = size;
+                    lastOffset = offset;
+                }
+                size++;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + count * ENTRY_LENGTH).order(ByteOrder.BIG_ENDIAN);
+        DltSidecar.putHeader(buffer, MAGIC, VERSION, intervalMessages, intervalBytes, fileSize, modifiedTime);
+        buffer.putLong(size);
+        buffer.putLong(count);
+        for (int i = 0; i < count; i++) {
+            buffer.putLong(offsets[i]).putLong(times[i]);
+        }
+        buffer.flip();
+        try (FileChannel channel = DltSidecar.create(tempPath)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+        DltSidecar.commit(tempPath, indexPath);
+        return new DltTimeIndex(fileSize, size,
+                Arrays.copyOf(offsets, count), Arrays.copyOf(times, count));
+    }
+
+    // Number of messages in the DLT file
+    public long size() {
+        return size;
+    }
+
+    public int getEntryCount() {
+        return offsets.length;
+    }
+
+    public Duration getLookBack() {
+        return Duration.ofNanos(lookBackMicros * 1000);
+    }
+
+    /**
+     * Set how far the storage times may go back in the file. Larger values find
+     * messages which are further out of order, but read more messages around a window.
+     *
+     * @param lookBack Look-back, not negative
+     */
+    public void setLookBack(Duration lookBack) {
+        if (lookBack.isNegative()) {
+            throw new IllegalArgumentException("Negative look-back: " + lookBack);
+        }
+        this.lookBackMicros = lookBack.toNanos() / 1000;
+    }
+
+    /**
+     * Get the offset to read from for the messages from the time on: the last entry
+     * before the time minus the look-back.
+     *
+     * @param from Time
+     * @return Offset of the Storage Header of a message in the DLT file
+     */
+    public long seek(Instant from) {
+        int entry = entryBefore(DltFilter.toMicros(from) - lookBackMicros);
+        return entry < 0 ? 0 : offsets[entry];
+    }
+
+    /**
+     * Pass on the messages with a time of the Storage Header in [from, to).
+     *
+     * @param reader Reader of the DLT file of this index
+     * @param from   First time of the window
+     * @param to     End of the window, excluded
+     * @param action Action called for each message in file order
+     * @throws IOException if the file cannot be read
+     * @see #forEachInRange(DltFileReader, Instant, Instant, DltFilter, Consumer)
+     */
+    public void forEachInRange(DltFileReader reader, Instant from, Instant to, Consumer<? super DltMessage> action)
+            throws IOException {
+        forEachInRange(reader, from, to, null, action);
+    }
+
+    /**
+     * Pass on the messages with a time of the Storage Header in [from, to) which match
+     * the filter.
+     *
+     * Reading starts at {@link #seek(Instant)} and ends at the first message after the
+     * window plus the look-back, so it reads the messages of the window and of the
+     * look-back around it plus at most one interval of the index.
+     *
+     * @param reader Reader of the DLT file of this index
+     * @param from   First time of the window
+     * @param to     End of the window, excluded
+     * @param filter Filter of the messages, null for all messages
+     * @param action Action called for each message in file order
+     * @throws IOException if the file cannot be read
+     */
+    public void forEachInRange(DltFileReader reader, Instant from, Instant to, DltFilter filter,
+                               Consumer<? super DltMessage> action) throws IOException {
+        if (reader.getFileSize() != fileSize) {
+            throw new IllegalArgumentException("Index of a file of " + fileSize + " bytes, not " + reader.getFileSize());
+        }
+        long fromMicros = DltFilter.toMicros(from);
+        long toMicros = DltFilter.toMicros(to);
+        long endMicros = toMicros + lookBackMicros;
+        DltFileReader.RecordCursor cursor = reader.newCursor(seek(from));
+        DltMessageView view = new DltMessageView(true);
+        while (cursor.advance()) {
+            long micros = micros(view.bind(cursor.getWindow(), cursor.windowIndex()));
+            if (micros >= endMicros) {
+                break;
+            }
+            if (micros >= fromMicros && micros < toMicros && (filter == null || filter.test(view))) {
+                DltMessage message = reader.decode(cursor);
+                if (message != null) {
+                    action.accept(message);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DltTimeIndex{size=" + size + ", entries=" + offsets.length + '}';
+    }
+
+    // Last entry with a time before the time, -1 if there is none
+    private int entryBefore(long micros) {
+        int low = 0;
+        int high = times.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (times[middle] < micros) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+
+    private static long micros(DltMessageView view) {
+        return Integer.toUnsignedLong(view.getSeconds()) * 1_000_000L + view.getMicroseconds();
+    }
+}
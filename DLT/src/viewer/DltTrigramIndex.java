@@ -0,0 +1,624 @@
+package viewer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Trigram index (.dltt) of the string arguments of a DLT file, for substring and regex search.
+ *
+ * For each trigram (three characters, lower case) of the string arguments the index has
+ * the ordinals of the messages containing it. A search intersects the postings of the
+ * trigrams of the text, then decodes only the candidate messages to check them. The
+ * candidates are found in the DLT file through the {@link DltIndex}, which is written
+ * together with this index by {@link #build(Path, Optional)}, and it is checked
+ * against the DLT file and written like that index.
+ *
+ * Layout (big endian):
+ * <pre>
+ * Header (48 bytes): "DLTT", version, number of segments, reserved,
+ *                    size of the DLT file, modification time of the DLT file (ms),
+ *                    number of messages, offset of the segment directory
+ * Segments:          postings of each trigram, then the dictionary of the segment:
+ *                    for each trigram in ascending order: trigram (8), offset of the postings (8),
+ *                    number of postings (4)
+ * Segment directory: for each segment: first ordinal (8), end ordinal (8),
+ *                    offset of the dictionary (8), number of trigrams (4), reserved (4)
+ * </pre>
+ * A trigram is its characters c0 * 2^32 + c1 * 2^16 + c2. Postings are the ordinals of
+ * the messages as varint deltas, the first one from the first ordinal of the segment.
+ */
+public class DltTrigramIndex implements Closeable {
+    public static final String FILE_EXTENSION = ".dltt";
+
+    static final byte[] MAGIC = new byte[] {(byte) 0x44, (byte) 0x4C, (byte) 0x54, (byte) 0x54};
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = 48;
+    static final int ENTRY_LENGTH = 20;
+    static final int DIRECTORY_ENTRY_LENGTH = 32;
+    // Candidates are read through the DltIndex if they are less than this fraction of the messages
+    private static final int SCAN_FRACTION = 16;
+
+    private final FileChannel channel;
+    private final long size;
+    private final Segment[] segments;
+
+    private DltTrigramIndex(FileChannel channel, long size, int segmentCount, long directoryOffset) throws IOException {
+        this.channel = channel;
+        this.size = size;
+        this.segments = new Segment[segmentCount];
+        ByteBuffer directory = read(directoryOffset, segmentCount * DIRECTORY_ENTRY_LENGTH);
+        for (int i = 0; i < segmentCount; i++) {
+            long start = directory.getLong();
+            long end = directory.getLong();
+            long dictionaryOffset = directory.getLong();
+            int trigramCount = directory.getInt();
+            directory.getInt(); // reserved
+            MappedByteBuffer dictionary = channel.map(FileChannel.MapMode.READ_ONLY, dictionaryOffset,
+                    (long) trigramCount * ENTRY_LENGTH);
+            dictionary.order(ByteOrder.BIG_ENDIAN);
+            segments[i] = new Segment(start, end, dictionaryOffset, trigramCount, dictionary);
+        }
+    }
+
+    /**
+     * Get path of the index for the DLT file ("trace.dlt" -> "trace.dltt").
+     *
+     * @param dltPath Path of the DLT file
+     * @return Path of the index
+     */
+    public static Path indexPathFor(Path dltPath) {
+        return DltSidecar.pathFor(dltPath, FILE_EXTENSION);
+    }
+
+    /**
+     * Open the index of the DLT file if it exists and is up to date.
+     *
+     * @param dltPath Path of the DLT file
+     * @return Index, empty if there is no valid index
+     * @throws IOException if the files cannot be read
+     */
+    public static Optional<DltTrigramIndex> open(Path dltPath) throws IOException {
+        Path indexPath = indexPathFor(dltPath);
+        if (!Files.exists(indexPath) || !Files.exists(dltPath)) {
+            return Optional.empty();
+        }
+        FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = DltSidecar.readHeader(channel, HEADER_LENGTH);
+            if (header.remaining() < HEADER_LENGTH || !DltSidecar.isValid(header, MAGIC, VERSION, dltPath)) {
+                channel.close();
+                return Optional.empty();
+            }
+            int segmentCount = header.getInt(8);
+            long size = header.getLong(32);
+            long directoryOffset = header.getLong(40);
+            if (directoryOffset + (long) segmentCount * DIRECTORY_ENTRY_LENGTH != channel.size()) {
+                channel.close();
+                return Optional.empty();
+            }
+            return Optional.of(new DltTrigramIndex(channel, size, segmentCount, directoryOffset));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Index the string arguments of the DLT file. The {@link DltIndex} of the file is
+     * written in the same pass if it is not up to date.
+     *
+     * @param dltPath  Path of the DLT file
+     * @param encoding Encoding of the string arguments
+     * @return Index
+     * @throws IOException if the files cannot be read or written
+     */
+    public static DltTrigramIndex build(Path dltPath, Optional<String> encoding) throws IOException {
+        try (DltFileReader reader = new DltFileReader(dltPath, encoding);
+                // The index is of the file as the reader opened it, not as it may have grown since
+                DltTrigramIndexWriter writer = new DltTrigramIndexWriter(dltPath, reader.getFileSize(),
+                        reader.getModifiedTime(), DltTrigramIndexWriter.DEFAULT_MEMORY_BUDGET)) {
+            reader.setIndexing(true);
+            long[] ordinal = new long[1];
+            StringConsumer strings = text -> {
+                try {
+                    writer.add(ordinal[0], text);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return false;
+            };
+            try {
+                reader.forEachView(view -> {
+                    anyString(view, encoding, strings);
+                    ordinal[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.setSize(ordinal[0]);
+            writer.commit();
+        }
+        return open(dltPath).orElseThrow(() -> new IOException("Index of " + dltPath + " was modified while building it"));
+    }
+
+    // Number of messages in the DLT file
+    public long size() {
+        return size;
+    }
+
+    public int getSegmentCount() {
+        return segments.length;
+    }
+
+    /**
+     * Get the messages which may contain the text in a string argument.
+     *
+     * @param text Text to search, not case-sensitive
+     * @return Ascending ordinals of the candidates, null if the index cannot narrow the search
+     *         (texts shorter than 3 characters)
+     * @throws IOException if the index cannot be read
+     */
+    public long[] candidates(String text) throws IOException {
+        return candidates(List.of(text));
+    }
+
+    /**
+     * Get the messages which may contain a match of the pattern in a string argument.
+     *
+     * The index is narrowed by the literal texts every match must contain, see
+     * {@link #requiredLiterals(String)}.
+     *
+     * @param pattern Pattern to search
+     * @return Ascending ordinals of the candidates, null if the index cannot narrow the search
+     * @throws IOException if the index cannot be read
+     */
+    public long[] candidates(Pattern pattern) throws IOException {
+        if ((pattern.flags() & Pattern.LITERAL) != 0) {
+            return candidates(pattern.pattern());
+        }
+        if ((pattern.flags() & (Pattern.COMMENTS | Pattern.CANON_EQ)) != 0) {
+            return null;
+        }
+        return candidates(requiredLiterals(pattern.pattern()));
+    }
+
+    /**
+     * Pass on the messages with the text in a string argument (case-sensitive).
+     *
+     * @param reader Reader of the DLT file of this index
+     * @param text   Text to search
+     * @param action Action called for each matching message in file order
+     * @throws IOException if the files cannot be read
+     */
+    public void search(DltFileReader reader, String text, Consumer<? super DltMessage> action) throws IOException {
+        search(reader, candidates(text), value -> value.contains(text), action);
+    }
+
+    /**
+     * Pass on the messages with a match of the pattern in a string argument.
+     *
+     * @param reader  Reader of the DLT file of this index
+     * @param pattern Pattern to search
+     * @param action  Action called for each matching message in file order
+     * @throws IOException if the files cannot be read
+     */
+    public void search(DltFileReader reader, Pattern pattern, Consumer<? super DltMessage> action) throws IOException {
+        search(reader, candidates(pattern), value -> pattern.matcher(value).find(), action);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Get the literal texts every match of the regex contains, for narrowing a search.
+     *
+     * This is conservative: texts inside groups, character classes and optional or
+     * repeated characters are left out, and a regex with alternatives has none.
+     *
+     * @param regex Regex
+     * @return Literal texts of 3 or more characters, empty if there is none
+     */
+    static List<String> requiredLiterals(String regex) {
+        List<String> literals = new ArrayList<>();
+        StringBuilder run = new StringBuilder();
+        int depth = 0;
+        // True if the last atom was a literal character appended to the run
+        boolean literal = false;
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            boolean appended = false;
+            if (c == '\\' && i + 1 < regex.length()) {
+                char next = regex.charAt(i + 1);
+                if (next == 'Q') {
+                    int end = regex.indexOf("\\E", i + 2);
+                    String quoted = regex.substring(i + 2, end < 0 ? regex.length() : end);
+                    if (depth == 0) {
+                        run.append(quoted);
+                        appended = !quoted.isEmpty();
+                    }
+                    i = end < 0 ? regex.length() : end + 2;
+                } else if (Character.isLetterOrDigit(next)) {
+                    // Character class, boundary, back reference or character code
+                    flush(run, literals);
+                    i = skipEscape(regex, i);
+                } else {
+                    if (depth == 0) {
+                        run.append(next);
+                        appended = true;
+                    }
+                    i += 2;
+                }
+            } else if (c == '|') {
+                return List.of();
+            } else if (c == '[') {
+                flush(run, literals);
+                i = skipCharacterClass(regex, i);
+            } else if (c == '(' || c == ')') {
+                if (c == '(' && hasCommentsFlag(regex, i)) {
+                    return List.of();
+                }
+                depth += c == '(' ? 1 : -1;
+                flush(run, literals);
+                i++;
+            } else if (c == '*' || c == '?' || c == '{') {
+                if (literal) {
+                    // The character before may not be there
+                    run.setLength(run.length() - 1);
+                }
+                flush(run, literals);
+                if (c == '{') {
+                    int end = regex.indexOf('}', i);
+                    i = end < 0 ? regex.length() : end + 1;
+                } else {
+                    i++;
+                }
+            } else if (c == '+' || c == '.' || c == '^' || c == '$') {
+                flush(run, literals);
+                i++;
+            } else {
+                if (depth == 0) {
+                    run.append(c);
+                    appended = true;
+                }
+                i++;
+            }
+            literal = appended;
+        }
+        flush(run, literals);
+        return literals;
+    }
+
+    private static void flush(StringBuilder run, List<String> literals) {
+        if (run.length() >= 3) {
+            literals.add(run.toString());
+        }
+        run.setLength(0);
+    }
+
+    // Index after the escape with a letter or digit starting at the index
+    private static int skipEscape(String regex, int index) {
+        int i = index + 2;
+        switch (regex.charAt(index + 1)) {
+            case 'x':
+                if (i < regex.length() && regex.charAt(i) == '{') {
+                    return skipPast(regex, i, '}');
+                }
+                return Math.min(regex.length(), i + 2);
+            case 'u':
+                return Math.min(regex.length(), i + 4);
+            case 'c':
+                return Math.min(regex.length(), i + 1);
+            case 'p':
+            case 'P':
+                if (i < regex.length() && regex.charAt(i) == '{') {
+                    return skipPast(regex, i, '}');
+                }
+                return Math.min(regex.length(), i + 1);
+            case 'N':
+                return skipPast(regex, i, '}');
+            case 'k':
+                return skipPast(regex, i, '>');
+            default:
+                // Octal code or back reference
+                while (i < regex.length() && Character.isDigit(regex.charAt(i))) {
+                    i++;
+                }
+                return i;
+        }
+    }
+
+    private static int skipPast(String regex, int index, char end) {
+        int i = regex.indexOf(end, index);
+        return i < 0 ? regex.length() : i + 1;
+    }
+
+    // True if the group at the index turns on comments mode, e.g. "(?x)" or "(?ix:"
+    private static boolean hasCommentsFlag(String regex, int index) {
+        if (index + 1 >= regex.length() || regex.charAt(index + 1) != '?') {
+            return false;
+        }
+        for (int i = index + 2; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == 'x') {
+                return true;
+            }
+            if (c == '-' || !Character.isLetter(c)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // Index after the character class starting at the index
+    private static int skipCharacterClass(String regex, int index) {
+        int i = index + 1;
+        if (i < regex.length() && regex.charAt(i) == '^') {
+            i++;
+        }
+        if (i < regex.length() && regex.charAt(i) == ']') {
+            i++;
+        }
+        int nesting = 1;
+        while (i < regex.length() && nesting > 0) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                nesting++;
+            } else if (c == ']') {
+                nesting--;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    // Key of the trigram of the characters (lower case)
+    static long trigram(char c0, char c1, char c2) {
+        return (long) c0 << 32 | (long) c1 << 16 | c2;
+    }
+
+    static int hash(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    // Ordinals of the messages containing all trigrams of all literals
+    private long[] candidates(List<String> literals) throws IOException {
+        int count = 0;
+        for (String literal : literals) {
+            count += Math.max(0, literal.length() - 2);
+        }
+        if (count == 0) {
+            return null;
+        }
+        long[] keys = new long[count];
+        count = 0;
+        for (String literal : literals) {
+            for (int i = 2; i < literal.length(); i++) {
+                keys[count++] = trigram(Character.toLowerCase(literal.charAt(i - 2)),
+                        Character.toLowerCase(literal.charAt(i - 1)), Character.toLowerCase(literal.charAt(i)));
+            }
+        }
+        keys = Arrays.stream(keys).distinct().toArray();
+
+        long[] result = new long[0];
+        for (Segment segment : segments) {
+            long[] ordinals = segment.candidates(keys);
+            if (ordinals.length > 0) {
+                int length = result.length;
+                result = Arrays.copyOf(result, length + ordinals.length);
+                System.arraycopy(ordinals, 0, result, length, ordinals.length);
+            }
+        }
+        return result;
+    }
+
+    private void search(DltFileReader reader, long[] candidates, Predicate<String> matches,
+                        Consumer<? super DltMessage> action) throws IOException {
+        Optional<String> encoding = reader.getEncoding();
+        StringConsumer check = matches::test;
+        if (candidates == null) {
+            reader.forEachView(view -> {
+                if (anyString(view, encoding, check)) {
+                    action.accept(view.toDltMessage(encoding));
+                }
+            });
+            return;
+        }
+        // Reading many candidates one by one is slower than scanning the file
+        Optional<DltIndex> index = candidates.length > size / SCAN_FRACTION ? Optional.empty() : reader.openIndex();
+        if (index.isPresent()) {
+            try (DltIndex dltIndex = index.get()) {
+                for (long ordinal : candidates) {
+                    DltMessage message = reader.readMessage(dltIndex.getOffset(ordinal));
+                    if (anyString(message, check)) {
+                        action.accept(message);
+                    }
+                }
+            }
+            return;
+        }
+        // Count the messages up to the candidates
+        long[] ordinal = new long[1];
+        int[] next = new int[1];
+        reader.forEachView(view -> {
+            if (next[0] < candidates.length && candidates[next[0]] == ordinal[0]) {
+                next[0]++;
+                if (anyString(view, encoding, check)) {
+                    action.accept(view.toDltMessage(encoding));
+                }
+            }
+            ordinal[0]++;
+        });
+    }
+
+    // Pass the string arguments of the message to the consumer until it returns true
+    private static boolean anyString(DltMessageView view, Optional<String> encoding, StringConsumer consumer) {
+        if (!view.useExtendedHeader() || !view.isVerbose()) {
+            return false;
+        }
+        try {
+            ArgumentCursor cursor = view.arguments(encoding);
+            while (cursor.hasNext()) {
+                if ((cursor.peekTypeInfo() & BitMasks.MASK_BASE_TYPE) == TypeInfo.TYPE_STRING.getValue()) {
+                    if (consumer.accept(cursor.next()._toStr())) {
+                        return true;
+                    }
+                } else {
+                    cursor.skip();
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Damaged payload, the arguments before are checked
+        }
+        return false;
+    }
+
+    private static boolean anyString(DltMessage message, StringConsumer consumer) {
+        if (!message.isVerbose()) {
+            return false;
+        }
+        for (Argument argument : message.getVerbosePayload().getArguments()) {
+            if ((argument.getTypeInfo() & BitMasks.MASK_BASE_TYPE) == TypeInfo.TYPE_STRING.getValue()
+                    && consumer.accept(argument._toStr())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface StringConsumer {
+        // True to stop
+        boolean accept(String value);
+    }
+
+    private ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.BIG_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the trigram index at " + (offset + buffer.position()));
+            }
+        }
+        return buffer.flip();
+    }
+
+    // Postings of the messages [start, end)
+    private final class Segment {
+        final long start;
+        final long end;
+        final long dictionaryOffset;
+        final int trigramCount;
+        final MappedByteBuffer dictionary;
+
+        Segment(long start, long end, long dictionaryOffset, int trigramCount, MappedByteBuffer dictionary) {
+            this.start = start;
+            this.end = end;
+            this.dictionaryOffset = dictionaryOffset;
+            this.trigramCount = trigramCount;
+            this.dictionary = dictionary;
+        }
+
+        long[] candidates(long[] keys) throws IOException {
+            int[] entries = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                entries[i] = find(keys[i]);
+                if (entries[i] < 0) {
+                    return new long[0];
+                }
+            }
+            // Fewest postings first, the intersection only gets smaller
+            Integer[] order = new Integer[entries.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = entries[i];
+            }
+            Arrays.sort(order, (a, b) -> Integer.compare(count(a), count(b)));
+            long[] result = postings(order[0]);
+            for (int i = 1; i < order.length && result.length > 0; i++) {
+                result = intersect(result, postings(order[i]));
+            }
+            return result;
+        }
+
+        // Index of the entry of the trigram, -1 if the segment does not have it
+        private int find(long key) {
+            int low = 0;
+            int high = trigramCount - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long middleKey = dictionary.getLong(middle * ENTRY_LENGTH);
+                if (middleKey < key) {
+                    low = middle + 1;
+                } else if (middleKey > key) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+
+        private int count(int entry) {
+            return dictionary.getInt(entry * ENTRY_LENGTH + 16);
+        }
+
+        private long[] postings(int entry) throws IOException {
+            long offset = dictionary.getLong(entry * ENTRY_LENGTH + 8);
+            long endOffset = entry + 1 < trigramCount ? dictionary.getLong((entry + 1) * ENTRY_LENGTH + 8) : dictionaryOffset;
+            byte[] data = read(offset, (int) (endOffset - offset)).array();
+            long[] ordinals = new long[count(entry)];
+            long ordinal = start;
+            int index = 0;
+            for (int i = 0; i < ordinals.length; i++) {
+                long delta = 0;
+                int shift = 0;
+                int b;
+                do {
+                    b = data[index++];
+                    delta |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                ordinal += delta;
+                ordinals[i] = ordinal;
+            }
+            return ordinals;
+        }
+    }
+
+    private static long[] intersect(long[] a, long[] b) {
+        long[] result = new long[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
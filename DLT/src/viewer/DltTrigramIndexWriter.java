@@ -0,0 +1,285 @@
+package viewer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Writes the trigram index (.dltt) of a DLT file, see {@link DltTrigramIndex} for the format.
+ *
+ * Texts are added with the ordinal of their message, in file order. Postings are kept
+ * compressed in memory until they reach the memory budget, then they are written as a
+ * segment, so the memory needed does not grow with the size of the DLT file. Like
+ * {@link DltIndexWriter}, the index is moved in place by {@link #commit()}.
+ */
+public class DltTrigramIndexWriter implements Closeable {
+    // Default memory for the postings of a segment
+    public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+
+    private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+
+    private final Path dltPath;
+    private final Path indexPath;
+    private final Path tempPath;
+    private final FileChannel channel;
+    private final long fileSize;
+    private final long modifiedTime;
+    private final long memoryBudget;
+
+    // Open addressing table of the trigrams of the current segment
+    private long[] keys = new long[1 << 16];
+    private PostingList[] postings = new PostingList[keys.length];
+    private int trigramCount;
+    private long memory;
+
+    private long segmentStart;
+    private long size;
+    private long position = DltTrigramIndex.HEADER_LENGTH;
+    // Segment directory, written by commit
+    private ByteBuffer directory = ByteBuffer.allocate(32 * DltTrigramIndex.DIRECTORY_ENTRY_LENGTH);
+    private int segmentCount;
+    private boolean committed;
+
+    public DltTrigramIndexWriter(Path dltPath) throws IOException {
+        this(dltPath, DEFAULT_MEMORY_BUDGET);
+    }
+
+    public DltTrigramIndexWriter(Path dltPath, long memoryBudget) throws IOException {
+        this(dltPath, Files.size(dltPath), Files.getLastModifiedTime(dltPath).toMillis(), memoryBudget);
+    }
+
+    /**
+     * Create the writer of the index of the DLT file as it was opened for parsing.
+     *
+     * @param dltPath      Path of the DLT file
+     * @param fileSize     Size of the DLT file being parsed
+     * @param modifiedTime Modification time (ms) of the DLT file taken when it was opened,
+     *                     so a file appended meanwhile gets an invalid index
+     * @param memoryBudget Bytes of postings held before a segment is written
+     * @throws IOException if the index cannot be created
+     */
+    public DltTrigramIndexWriter(Path dltPath, long fileSize, long modifiedTime, long memoryBudget) throws IOException {
+        this.dltPath = dltPath;
+        this.indexPath = DltTrigramIndex.indexPathFor(dltPath);
+        this.tempPath = DltSidecar.tempPathFor(indexPath);
+        this.fileSize = fileSize;
+        this.modifiedTime = modifiedTime;
+        this.memoryBudget = memoryBudget;
+        this.channel = DltSidecar.create(tempPath);
+    }
+
+    /**
+     * Add the trigrams of a text of a message.
+     *
+     * @param ordinal Number of the message in the DLT file, not less than the ordinals added before
+     * @param text    Text, e.g. a string argument
+     * @throws IOException if the index cannot be written
+     */
+    public void add(long ordinal, CharSequence text) throws IOException {
+        if (ordinal < size - 1) {
+            throw new IllegalArgumentException("Ordinals must be added in order: " + ordinal + " after " + (size - 1));
+        }
+        if (ordinal >= size && memory >= memoryBudget) {
+            // Segments end between messages
+            writeSegment();
+        }
+        size = ordinal + 1;
+        int length = text.length();
+        if (length < 3) {
+            return;
+        }
+        char c0 = Character.toLowerCase(text.charAt(0));
+        char c1 = Character.toLowerCase(text.charAt(1));
+        for (int i = 2; i < length; i++) {
+            char c2 = Character.toLowerCase(text.charAt(i));
+            posting(DltTrigramIndex.trigram(c0, c1, c2)).add(ordinal);
+            c0 = c1;
+            c1 = c2;
+        }
+    }
+
+    /**
+     * Set the number of messages of the DLT file, including those without text.
+     *
+     * @param size Number of messages
+     */
+    public void setSize(long size) {
+        this.size = Math.max(this.size, size);
+    }
+
+    /**
+     * Write the last segment and the header and move the index in place.
+     *
+     * @throws IOException if the index cannot be written
+     */
+    public void commit() throws IOException {
+        if (trigramCount > 0) {
+            writeSegment();
+        }
+        long directoryOffset = position;
+        write(directory.flip(), position);
+        ByteBuffer header = ByteBuffer.allocate(DltTrigramIndex.HEADER_LENGTH).order(ByteOrder.BIG_ENDIAN);
+        DltSidecar.putHeader(header, DltTrigramIndex.MAGIC, DltTrigramIndex.VERSION, segmentCount, 0, fileSize, modifiedTime);
+        header.putLong(size);
+        header.putLong(directoryOffset);
+        header.flip();
+        write(header, 0);
+        channel.close();
+        DltSidecar.commit(tempPath, indexPath);
+        committed = true;
+    }
+
+    // Discards the index if it is not committed
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            channel.close();
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DltTrigramIndexWriter{" + dltPath + ", size=" + size + ", segments=" + segmentCount + '}';
+    }
+
+    // Postings of the trigram in the current segment
+    private PostingList posting(long key) {
+        int mask = keys.length - 1;
+        int slot = DltTrigramIndex.hash(key) & mask;
+        while (postings[slot] != null) {
+            if (keys[slot] == key) {
+                return postings[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        PostingList posting = new PostingList(segmentStart);
+        keys[slot] = key;
+        postings[slot] = posting;
+        memory += PostingList.OVERHEAD;
+        if (++trigramCount * 2 > keys.length) {
+            grow();
+        }
+        return posting;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        PostingList[] oldPostings = postings;
+        keys = new long[oldKeys.length * 2];
+        postings = new PostingList[keys.length];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldPostings[i] != null) {
+                int slot = DltTrigramIndex.hash(oldKeys[i]) & mask;
+                while (postings[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                postings[slot] = oldPostings[i];
+            }
+        }
+    }
+
+    // Write the postings of the current segment sorted by trigram, then its dictionary
+    private void writeSegment() throws IOException {
+        long[] sorted = new long[trigramCount];
+        PostingList[] sortedPostings = new PostingList[trigramCount];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (postings[i] != null) {
+                sorted[count++] = keys[i];
+            }
+        }
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            sortedPostings[i] = posting(sorted[i]);
+        }
+
+        ByteBuffer dictionary = ByteBuffer.allocate(trigramCount * DltTrigramIndex.ENTRY_LENGTH).order(ByteOrder.BIG_ENDIAN);
+        ByteBuffer out = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        for (int i = 0; i < sorted.length; i++) {
+            PostingList posting = sortedPostings[i];
+            dictionary.putLong(sorted[i]).putLong(position + out.position()).putInt(posting.count);
+            if (out.remaining() < posting.size) {
+                flush(out);
+            }
+            if (posting.size > out.capacity()) {
+                // Larger than the buffer, written as it is
+                write(ByteBuffer.wrap(posting.data, 0, posting.size), position);
+                position += posting.size;
+            } else {
+                out.put(posting.data, 0, posting.size);
+            }
+        }
+        flush(out);
+        long dictionaryOffset = position;
+        dictionary.flip();
+        write(dictionary, position);
+        position += dictionary.limit();
+
+        if (directory.remaining() < DltTrigramIndex.DIRECTORY_ENTRY_LENGTH) {
+            directory = ByteBuffer.allocate(directory.capacity() * 2).put(directory.flip());
+        }
+        directory.putLong(segmentStart).putLong(size).putLong(dictionaryOffset).putInt(trigramCount).putInt(0);
+        segmentCount++;
+
+        segmentStart = size;
+        Arrays.fill(postings, null);
+        trigramCount = 0;
+        memory = 0;
+    }
+
+    // Write the buffered postings at the position
+    private void flush(ByteBuffer out) throws IOException {
+        out.flip();
+        write(out, position);
+        position += out.limit();
+        out.clear();
+    }
+
+    private void write(ByteBuffer src, long offset) throws IOException {
+        while (src.hasRemaining()) {
+            offset += channel.write(src, offset);
+        }
+    }
+
+    // Ordinals of the messages with a trigram, delta encoded as varints
+    private final class PostingList {
+        // Approximate memory of an empty list
+        static final int OVERHEAD = 64;
+
+        byte[] data = new byte[4];
+        int size;
+        int count;
+        long last;
+
+        PostingList(long segmentStart) {
+            this.last = segmentStart;
+        }
+
+        void add(long ordinal) {
+            if (count > 0 && ordinal == last) {
+                return;
+            }
+            long delta = ordinal - last;
+            last = ordinal;
+            count++;
+            if (size + 10 > data.length) {
+                int grown = data.length * 2;
+                memory += grown - data.length;
+                data = Arrays.copyOf(data, grown);
+            }
+            while ((delta & ~0x7FL) != 0) {
+                data[size++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            data[size++] = (byte) delta;
+        }
+    }
+}
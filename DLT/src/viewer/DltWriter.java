@@ -0,0 +1,127 @@
+package viewer;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes DLT messages to a channel.
+ *
+ * Messages are encoded directly into a set of direct buffers. When all buffers are
+ * full they are written with a single gathering write, so a large number of small
+ * messages costs few system calls and no intermediate byte arrays.
+ *
+ * Messages are written as they are, so a DLT file needs messages with Storage Header.
+ */
+public class DltWriter implements Closeable, Flushable {
+    // Default size of one buffer
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+    // Default number of buffers written together
+    public static final int DEFAULT_BUFFER_COUNT = 8;
+
+    private final GatheringByteChannel channel;
+    private final ByteBuffer[] buffers;
+    // Index of the buffer being filled
+    private int current;
+    private long bytesWritten;
+
+    public DltWriter(Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    public DltWriter(GatheringByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT);
+    }
+
+    public DltWriter(GatheringByteChannel channel, int bufferSize, int bufferCount) {
+        if (bufferSize < DltFileReader.MAX_RECORD_LENGTH) {
+            throw new IllegalArgumentException("Buffer size must be " + DltFileReader.MAX_RECORD_LENGTH + " or more: " + bufferSize);
+        }
+        if (bufferCount < 1) {
+            throw new IllegalArgumentException("Buffer count must be 1 or more: " + bufferCount);
+        }
+        this.channel = channel;
+        this.buffers = new ByteBuffer[bufferCount];
+        for (int i = 0; i < bufferCount; i++) {
+            buffers[i] = ByteBuffer.allocateDirect(bufferSize);
+        }
+    }
+
+    /**
+     * Encode the message into the buffers.
+     *
+     * @param message Message to write
+     * @throws IOException if the buffers are full and cannot be written
+     */
+    public void write(DltMessage message) throws IOException {
+        message.encodeTo(room(message.getBytesLength()));
+    }
+
+    /**
+     * Copy the bytes of the message the view is bound to, e.g. to filter a file
+     * without decoding the messages.
+     *
+     * @param view View bound to a message
+     * @throws IOException if the buffers are full and cannot be written
+     */
+    public void write(DltMessageView view) throws IOException {
+        int length = view.getBytesLength();
+        ByteBuffer buffer = room(length);
+        buffer.put(buffer.position(), view.getBuffer(), view.getOffset(), length);
+        buffer.position(buffer.position() + length);
+    }
+
+    // Number of bytes written to the channel so far, without the ones still in the buffers
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        int count = current + 1;
+        long remaining = 0;
+        for (int i = 0; i < count; i++) {
+            buffers[i].flip();
+            remaining += buffers[i].remaining();
+        }
+        while (remaining > 0) {
+            long written = channel.write(buffers, 0, count);
+            remaining -= written;
+            bytesWritten += written;
+        }
+        for (int i = 0; i < count; i++) {
+            buffers[i].clear();
+        }
+        current = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Get the buffer with room for the length, writing the buffers if they are all full
+    private ByteBuffer room(int length) throws IOException {
+        if (buffers[current].remaining() < length) {
+            if (current + 1 < buffers.length) {
+                current++;
+            } else {
+                flush();
+            }
+            if (buffers[current].remaining() < length) {
+                throw new IllegalArgumentException("Message is longer than a buffer: " + length);
+            }
+        }
+        return buffers[current];
+    }
+}
@@ -9,9 +9,6 @@ import viewer.StandardHeader.MessageControlInfo;
 import viewer.StandardHeader.MessageLogInfo;
 import viewer.StandardHeader.MessageTraceInfo;
 
-import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
-
 public class ExtendedHeader {
     // Length of the bytes data
     public static final int DATA_LENGTH = 10;
@@ -21,8 +18,8 @@ public class ExtendedHeader {
     public static final int MESSAGE_TYPE_MASK = 0b00001110;
     public static final int MESSAGE_TYPE_INFO_MASK = 0b11110000;
 
-    private static final int MESSAGE_TYPE_SHIFT = 1;
-    private static final int MESSAGE_TYPE_INFO_SHIFT = 4;
+    static final int MESSAGE_TYPE_SHIFT = 1;
+    static final int MESSAGE_TYPE_INFO_SHIFT = 4;
 
     // Struct format for pack/unpack
     // In Java, we can use ByteBuffer instead of struct.
@@ -32,12 +29,19 @@ public class ExtendedHeader {
     int messageType;
     int messageTypeInfo;
     int numberOfArguments;
-    String applicationId;
-    String contextId;
+    // Keys of the IDs, see DltIdTable
+    int applicationId;
+    int contextId;
 
     // Constructor
     public ExtendedHeader(boolean verbose, int messageType, int messageTypeInfo,
                           int numberOfArguments, String applicationId, String contextId) {
+        this(verbose, messageType, messageTypeInfo, numberOfArguments,
+                DltIdTable.fromString(applicationId), DltIdTable.fromString(contextId));
+    }
+
+    ExtendedHeader(boolean verbose, int messageType, int messageTypeInfo,
+                   int numberOfArguments, int applicationId, int contextId) {
         this.verbose = verbose;
         this.messageType = messageType;
         this.messageTypeInfo = messageTypeInfo;
@@ -46,6 +50,26 @@ public class ExtendedHeader {
         this.contextId = contextId;
     }
 
+    // Empty header, filled by refill
+    ExtendedHeader() {
+    }
+
+    public String getApplicationId() {
+        return DltIdTable.toString(applicationId);
+    }
+
+    public String getContextId() {
+        return DltIdTable.toString(contextId);
+    }
+
+    public int getApplicationIdKey() {
+        return applicationId;
+    }
+
+    public int getContextIdKey() {
+        return contextId;
+    }
+
     @Override
     public String toString() {
         return "ExtendedHeader{" +
@@ -53,8 +77,8 @@ public class ExtendedHeader {
                 ", messageType=" + messageType +
                 ", messageTypeInfo=" + messageTypeInfo +
                 ", numberOfArguments=" + numberOfArguments +
-                ", applicationId='" + applicationId + '\'' +
-                ", contextId='" + contextId + '\'' +
+                ", applicationId='" + getApplicationId() + '\'' +
+                ", contextId='" + getContextId() + '\'' +
                 '}';
     }
 
@@ -67,54 +91,74 @@ public class ExtendedHeader {
                 messageType == that.messageType &&
                 messageTypeInfo == that.messageTypeInfo &&
                 numberOfArguments == that.numberOfArguments &&
-                applicationId.equals(that.applicationId) &&
-                contextId.equals(that.contextId);
+                applicationId == that.applicationId &&
+                contextId == that.contextId;
     }
 
     // Method to create ExtendedHeader object from bytes
     public static ExtendedHeader createFromBytes(byte[] data) throws IllegalArgumentException {
-        int dataLength = data.length;
-        if (dataLength < DATA_LENGTH) {
-            throw new IllegalArgumentException("Unexpected length of the data: " + dataLength + " / Extended Header must be " + DATA_LENGTH + " or more");
-        }
+        return createFromBytes(data, 0, data.length);
+    }
 
-        ByteBuffer byteBuffer = ByteBuffer.wrap(data);
+    public static ExtendedHeader createFromBytes(byte[] src, int offset, int length) throws IllegalArgumentException {
+        return createFromBytes(ByteBuffer.wrap(src), offset, length);
+    }
 
-        int msin = byteBuffer.get(); // first byte
-        boolean verb = (msin & VERBOSE_MASK) != 0;
-        int mstp = (msin & MESSAGE_TYPE_MASK) >> MESSAGE_TYPE_SHIFT;
-        int mtin = (msin & MESSAGE_TYPE_INFO_MASK) >> MESSAGE_TYPE_INFO_SHIFT;
-        int noar = byteBuffer.get();
-        byte[] apidBytes = new byte[4];
-        byte[] ctidBytes = new byte[4];
-        byteBuffer.get(apidBytes);
-        byteBuffer.get(ctidBytes);
+    // Create ExtendedHeader from the bytes [offset, offset + length) of the buffer without copying them
+    public static ExtendedHeader createFromBytes(ByteBuffer src, int offset, int length) throws IllegalArgumentException {
+        ExtendedHeader header = new ExtendedHeader();
+        header.refill(src, offset, length);
+        return header;
+    }
 
-        String apid = new String(apidBytes, StandardCharsets.US_ASCII).trim();
-        String ctid = new String(ctidBytes, StandardCharsets.US_ASCII).trim();
+    // Overwrite the fields with the header in the bytes [offset, offset + length) of the buffer
+    void refill(ByteBuffer src, int offset, int length) throws IllegalArgumentException {
+        int dataLength = length;
+        if (dataLength < DATA_LENGTH) {
+            throw new DltDecodeException(DltMetrics.Cause.LENGTH_UNDERFLOW, "Unexpected length of the data: " + dataLength + " / Extended Header must be " + DATA_LENGTH + " or more");
+        }
+        BufferUtils.checkRange(src, offset, DATA_LENGTH);
 
-        return new ExtendedHeader(verb, mstp, mtin, noar, apid, ctid);
+        int msin = BufferUtils.getUnsignedByte(src, offset); // first byte
+        verbose = (msin & VERBOSE_MASK) != 0;
+        messageType = (msin & MESSAGE_TYPE_MASK) >> MESSAGE_TYPE_SHIFT;
+        messageTypeInfo = (msin & MESSAGE_TYPE_INFO_MASK) >> MESSAGE_TYPE_INFO_SHIFT;
+        numberOfArguments = BufferUtils.getUnsignedByte(src, offset + 1);
+
+        applicationId = DltIdTable.fromBytes(src, offset + 2);
+        contextId = DltIdTable.fromBytes(src, offset + 6);
     }
 
     // Convert to data bytes
     public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(DATA_LENGTH);
+        encodeTo(buffer);
+        return buffer.array();
+    }
+
+    // Message Info (MSIN) byte of the fields
+    int messageInfo() {
         int msin = 0;
         if (verbose) {
             msin |= VERBOSE_MASK;
         }
         msin |= (messageType << MESSAGE_TYPE_SHIFT) & MESSAGE_TYPE_MASK;
         msin |= (messageTypeInfo << MESSAGE_TYPE_INFO_SHIFT) & MESSAGE_TYPE_INFO_MASK;
+        return msin;
+    }
 
-        byte[] apidBytes = applicationId.getBytes(StandardCharsets.US_ASCII);
-        byte[] ctidBytes = contextId.getBytes(StandardCharsets.US_ASCII);
-
-        ByteBuffer byteBuffer = ByteBuffer.allocate(DATA_LENGTH);
-        byteBuffer.put((byte) msin);
-        byteBuffer.put((byte) numberOfArguments);
-        byteBuffer.put(apidBytes);
-        byteBuffer.put(ctidBytes);
-
-        return byteBuffer.array();
+    /**
+     * Write the bytes at the position of the buffer and move the position after them.
+     *
+     * @param dst Destination of the bytes, its order is not used
+     * @throws java.nio.BufferOverflowException if there are less than DATA_LENGTH bytes remaining
+     */
+    public void encodeTo(ByteBuffer dst) {
+        int index = BufferUtils.reserve(dst, DATA_LENGTH);
+        dst.put(index, (byte) messageInfo());
+        dst.put(index + 1, (byte) numberOfArguments);
+        DltIdTable.put(dst, index + 2, applicationId);
+        DltIdTable.put(dst, index + 6, contextId);
     }
 
     public int getBytesLength() {
@@ -1,35 +1,92 @@
 package viewer;
+import java.io.IOException;
 import java.util.Optional;
 
 public class NonVerbosePayload extends Payload {
     // Minimum length of the bytes data
     private static final int MESSAGE_ID_LENGTH = 4;
 
-    private final int messageId;
-    private final byte[] nonStaticData;
-    private final Optional<Boolean> msbFirst;
+    private static final Optional<Boolean> MSB_FIRST = Optional.of(true);
+    private static final Optional<Boolean> LSB_FIRST = Optional.of(false);
+
+    private int messageId;
+    private byte[] nonStaticData;
+    // Number of bytes of the non-static data, the array may be larger when the payload is refilled
+    private int nonStaticLength;
+    private Optional<Boolean> msbFirst;
 
     public NonVerbosePayload(int messageId, byte[] nonStaticData, Optional<Boolean> msbFirst) {
         this.messageId = messageId;
         this.nonStaticData = nonStaticData;
+        this.nonStaticLength = nonStaticData.length;
         this.msbFirst = msbFirst;
     }
 
+    // Empty payload for refill
+    NonVerbosePayload() {
+        this(0, new byte[64], LSB_FIRST);
+        this.nonStaticLength = 0;
+    }
+
     // Factory method to create NonVerbosePayload from bytes
     public static NonVerbosePayload createFromBytes(byte[] data, boolean msbFirst) throws IllegalArgumentException {
-        if (data.length < MESSAGE_ID_LENGTH) {
-            throw new IllegalArgumentException("Unexpected length of the data: " + data.length +
+        return createFromBytes(data, 0, data.length, msbFirst);
+    }
+
+    public static NonVerbosePayload createFromBytes(byte[] src, int offset, int length, boolean msbFirst) throws IllegalArgumentException {
+        return createFromBytes(java.nio.ByteBuffer.wrap(src), offset, length, msbFirst);
+    }
+
+    // Create NonVerbosePayload from the bytes [offset, offset + length) of the buffer, only the non-static data is copied
+    public static NonVerbosePayload createFromBytes(java.nio.ByteBuffer src, int offset, int length, boolean msbFirst) throws IllegalArgumentException {
+        checkLength(src, offset, length);
+
+        // Parse the bytes based on endianness
+        int messageId = BufferUtils.getInt(src, offset, msbFirst);
+
+        byte[] nonStaticData = new byte[length - MESSAGE_ID_LENGTH];
+        src.get(offset + MESSAGE_ID_LENGTH, nonStaticData);
+
+        return new NonVerbosePayload(messageId, nonStaticData, msbFirst ? MSB_FIRST : LSB_FIRST);
+    }
+
+    // Overwrite the payload with the bytes [offset, offset + length) of the buffer, reusing the array of the non-static data
+    void refill(java.nio.ByteBuffer src, int offset, int length, boolean msbFirst) throws IllegalArgumentException {
+        checkLength(src, offset, length);
+        int dataLength = length - MESSAGE_ID_LENGTH;
+        if (nonStaticData.length < dataLength) {
+            nonStaticData = new byte[Math.max(dataLength, nonStaticData.length * 2)];
+        }
+        messageId = BufferUtils.getInt(src, offset, msbFirst);
+        src.get(offset + MESSAGE_ID_LENGTH, nonStaticData, 0, dataLength);
+        nonStaticLength = dataLength;
+        this.msbFirst = msbFirst ? MSB_FIRST : LSB_FIRST;
+    }
+
+    private static void checkLength(java.nio.ByteBuffer src, int offset, int length) {
+        if (length < MESSAGE_ID_LENGTH) {
+            throw new DltDecodeException(DltMetrics.Cause.LENGTH_UNDERFLOW, "Unexpected length of the data: " + length +
                     " / Payload of Non-Verbose Mode must not be < " + MESSAGE_ID_LENGTH);
         }
+        BufferUtils.checkRange(src, offset, length);
+    }
 
-        // Parse the bytes based on endianness
-        String endian = msbFirst ? ">" : "<";
-        int messageId = (int) java.nio.ByteBuffer.wrap(data, 0, 4).getInt();
-        
-        byte[] nonStaticData = new byte[data.length - MESSAGE_ID_LENGTH];
-        System.arraycopy(data, MESSAGE_ID_LENGTH, nonStaticData, 0, nonStaticData.length);
-        
-        return new NonVerbosePayload(messageId, nonStaticData, Optional.of(msbFirst));
+    public int getMessageId() {
+        return messageId;
+    }
+
+    // Non-static data without copy, must not be modified, the first nonStaticLength() bytes are used
+    byte[] nonStaticData() {
+        return nonStaticData;
+    }
+
+    int nonStaticLength() {
+        return nonStaticLength;
+    }
+
+    // Endian of the non-static data, little endian if not known
+    boolean isMsbFirst() {
+        return msbFirst.orElse(false);
     }
 
     // Convert to bytes considering the specified or stored endianness
@@ -43,32 +100,34 @@ public class NonVerbosePayload extends Payload {
             throw new IllegalArgumentException("Endian is not known");
         }
 
-        java.nio.ByteBuffer buffer = java.nio.ByteBuffer.allocate(MESSAGE_ID_LENGTH + nonStaticData.length);
-        buffer.putInt(messageId); // write messageId as 4-byte integer
-        buffer.put(nonStaticData); // append non-static data
+        java.nio.ByteBuffer buffer = java.nio.ByteBuffer.allocate(getBytesLength());
+        encodeTo(buffer, endianFlag);
         return buffer.array();
     }
 
+    @Override
+    public void encodeTo(java.nio.ByteBuffer dst, boolean msbFirst) {
+        int index = BufferUtils.reserve(dst, getBytesLength());
+        BufferUtils.putInt(dst, index, messageId, msbFirst); // write messageId as 4-byte integer
+        dst.put(index + MESSAGE_ID_LENGTH, nonStaticData, 0, nonStaticLength); // append non-static data
+    }
+
     // Get length of the data bytes
     public int getBytesLength() {
-        return MESSAGE_ID_LENGTH + nonStaticData.length;
+        return MESSAGE_ID_LENGTH + nonStaticLength;
     }
 
     // Implement the _toStr method from Payload abstract class
     @Override
     public String _toStr() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("[").append(messageId).append("] ");
-        sb.append(bytesToHex(nonStaticData));
-        return sb.toString();
+        return RenderUtils.toString(this::render);
     }
 
-    // Helper method to convert byte array to hex string
-    private static String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02x", b));
-        }
-        return sb.toString();
+    @Override
+    public void render(Appendable out) throws IOException {
+        out.append('[');
+        RenderUtils.append(messageId, out);
+        out.append("] ");
+        RenderUtils.appendHex(nonStaticData, 0, nonStaticLength, out);
     }
 }
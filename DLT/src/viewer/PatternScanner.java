@@ -0,0 +1,134 @@
+package viewer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Finds DLT records in damaged data.
+ *
+ * The DLT-Pattern is searched eight bytes at a time: a word is checked for a byte equal
+ * to the first byte of the pattern with the "has zero byte" bit trick, and only those
+ * positions are compared with the whole pattern. Candidates are then checked for a
+ * plausible Standard Header and Extended Header before they are trusted.
+ */
+final class PatternScanner {
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+    // First byte of the pattern in each byte of a word
+    private static final long FIRST = (StorageHeader.DLT_PATTERN[0] & 0xFFL) * ONES;
+    // The pattern as an int, in big endian
+    private static final int PATTERN = (StorageHeader.DLT_PATTERN[0] & 0xFF) << 24
+            | (StorageHeader.DLT_PATTERN[1] & 0xFF) << 16
+            | (StorageHeader.DLT_PATTERN[2] & 0xFF) << 8
+            | (StorageHeader.DLT_PATTERN[3] & 0xFF);
+
+    private PatternScanner() {
+    }
+
+    /**
+     * Search the DLT-Pattern in [from, to) of the buffer.
+     *
+     * @param src  Buffer to search, its position and limit are ignored
+     * @param from Index to start at
+     * @param to   Index after the last byte a pattern may contain
+     * @return Index of the first pattern, -1 if not found
+     */
+    static int indexOf(ByteBuffer src, int from, int to) {
+        int last = to - StorageHeader.DLT_PATTERN.length;
+        boolean bigEndian = src.order() == ByteOrder.BIG_ENDIAN;
+        int index = from;
+        for (; index + Long.BYTES <= to; index += Long.BYTES) {
+            long x = src.getLong(index) ^ FIRST;
+            // High bit set in the bytes equal to the first byte (and maybe some after them)
+            long found = (x - ONES) & ~x & HIGHS;
+            while (found != 0) {
+                int bit = bigEndian ? Long.numberOfLeadingZeros(found) : Long.numberOfTrailingZeros(found);
+                int candidate = index + (bit >>> 3);
+                if (candidate <= last && isPatternAt(src, candidate)) {
+                    return candidate;
+                }
+                found &= bigEndian ? ~(Long.MIN_VALUE >>> bit) : found - 1;
+            }
+        }
+        for (; index <= last; index++) {
+            if (isPatternAt(src, index)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    static boolean isPatternAt(ByteBuffer src, int index) {
+        int value = src.getInt(index);
+        return (src.order() == ByteOrder.BIG_ENDIAN ? value : Integer.reverseBytes(value)) == PATTERN;
+    }
+
+    /**
+     * Check that the headers of a record look valid: Standard Header version 1, a length
+     * large enough for the headers it announces, and an Extended Header with a known
+     * Message Type and IDs of printable ASCII characters.
+     *
+     * @param src       Buffer with the record
+     * @param index     Index of the Storage Header of the record
+     * @param available Number of bytes available from the index
+     * @return True if the record is plausible, false if not or if the headers are not available
+     */
+    static boolean isPlausibleRecord(ByteBuffer src, int index, int available) {
+        int stdIndex = index + StorageHeader.DATA_LENGTH;
+        if (available < StorageHeader.DATA_LENGTH + StandardHeader.DATA_MIN_LENGTH) {
+            return false;
+        }
+        int headerType = BufferUtils.getUnsignedByte(src, stdIndex);
+        if ((headerType & StandardHeader.VERSION_NUMBER_MASK) >> StandardHeader.VERSION_NUMBER_SHIFT != 1) {
+            return false;
+        }
+        int length = BufferUtils.getUnsignedShort(src, stdIndex + 2, true);
+        if (length < headersLength(headerType)) {
+            return false;
+        }
+        if ((headerType & StandardHeader.USE_EXTENDED_HEADER_MASK) == 0) {
+            return true;
+        }
+        int extIndex = stdIndex + headersLength(headerType) - ExtendedHeader.DATA_LENGTH;
+        if (available < StorageHeader.DATA_LENGTH + headersLength(headerType)) {
+            return false;
+        }
+        int messageInfo = BufferUtils.getUnsignedByte(src, extIndex);
+        int messageType = (messageInfo & ExtendedHeader.MESSAGE_TYPE_MASK) >> ExtendedHeader.MESSAGE_TYPE_SHIFT;
+        if (messageType > StandardHeader.MessageType.DLT_TYPE_CONTROL.getValue()) {
+            return false;
+        }
+        // Application ID and Context ID
+        for (int i = extIndex + 2; i < extIndex + ExtendedHeader.DATA_LENGTH; i++) {
+            byte b = src.get(i);
+            if (b != 0 && (b < 0x20 || b > 0x7E)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the length of the Standard Header and Extended Header announced by the Header
+     * Type, the least value of the length field of a record with it.
+     *
+     * @param headerType Header Type of the Standard Header
+     * @return Length in bytes
+     */
+    static int headersLength(int headerType) {
+        int length = StandardHeader.DATA_MIN_LENGTH;
+        if ((headerType & StandardHeader.WITH_ECU_ID_MASK) != 0) {
+            length += 4;
+        }
+        if ((headerType & StandardHeader.WITH_SESSION_ID_MASK) != 0) {
+            length += 4;
+        }
+        if ((headerType & StandardHeader.WITH_TIMESTAMP_MASK) != 0) {
+            length += 4;
+        }
+        if ((headerType & StandardHeader.USE_EXTENDED_HEADER_MASK) != 0) {
+            length += ExtendedHeader.DATA_LENGTH;
+        }
+        return length;
+    }
+}
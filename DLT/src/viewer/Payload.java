@@ -1,5 +1,7 @@
 package viewer;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -35,6 +37,15 @@ public abstract class Payload {
      */
     public abstract byte[] toBytes(Optional<Boolean> msbFirst) throws IllegalArgumentException;
 
+    /**
+     * Write the data bytes at the position of the buffer and move the position after them.
+     *
+     * @param dst      Destination of the bytes, its order is not used
+     * @param msbFirst True - big endian, False - little endian
+     * @throws java.nio.BufferOverflowException if there are less than getBytesLength() bytes remaining
+     */
+    public abstract void encodeTo(ByteBuffer dst, boolean msbFirst);
+
     /**
      * Get length of the data bytes.
      *
@@ -48,4 +59,13 @@ public abstract class Payload {
      * @return Human readable string
      */
     protected abstract String _toStr();
+
+    /**
+     * Render the human readable string of the payload into the destination,
+     * without building it as a String first.
+     *
+     * @param out Destination of the text
+     * @throws IOException if the destination cannot be written
+     */
+    public abstract void render(Appendable out) throws IOException;
 }
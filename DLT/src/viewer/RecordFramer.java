@@ -0,0 +1,168 @@
+package viewer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Frames the records (with Storage Header) of a byte stream which arrives in pieces,
+ * e.g. a growing file or decompressed data.
+ *
+ * A record split across pieces stays in the buffer until the bytes given by its length
+ * field have arrived. Damaged data is skipped up to the next plausible record, a record
+ * which fails to decode is skipped as a whole. The offset moves past each record before it
+ * is passed on, so an exception of the sink does not pass it again.
+ */
+final class RecordFramer {
+    // Offset of the length field inside a record (Storage Header + HTYP + MCNT)
+    private static final int LENGTH_FIELD_OFFSET = StorageHeader.DATA_LENGTH + 2;
+
+    // Bytes after the offset, in write mode between the calls
+    final ByteBuffer buffer = ByteBuffer.allocate(2 * DltFileReader.MAX_RECORD_LENGTH).order(ByteOrder.BIG_ENDIAN);
+
+    private final Optional<String> encoding;
+    private final DltMessageView view = new DltMessageView(true);
+    // Offset of the stream after the last complete record
+    private long offset;
+    // True after damaged data, until a plausible record is found
+    private boolean resyncing;
+    // Message refilled for each record, null to decode new ones
+    DltMessage recycled;
+
+    RecordFramer(Optional<String> encoding, long offset) {
+        this.encoding = encoding;
+        this.offset = offset;
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    // Start again at the offset, dropping the bytes in the buffer and the state of a resync
+    void reset(long offset) {
+        this.offset = offset;
+        buffer.clear();
+        resyncing = false;
+    }
+
+    /**
+     * Add bytes of the stream and pass on the records completed by them.
+     *
+     * @param src    Bytes
+     * @param from   Index of the first byte
+     * @param length Number of bytes
+     * @param filter Filter checked on the headers before decoding, null for all records
+     * @param sink   Called for each complete matching record
+     * @return Number of records passed to the sink
+     */
+    int write(byte[] src, int from, int length, DltFilter filter, Consumer<? super DltMessage> sink) {
+        int count = 0;
+        while (length > 0) {
+            int n = Math.min(length, buffer.remaining());
+            buffer.put(src, from, n);
+            from += n;
+            length -= n;
+            buffer.flip();
+            count += parse(filter, sink, false);
+            buffer.compact();
+        }
+        return count;
+    }
+
+    /**
+     * End of the stream: pass on the records after a record cut off at the end, and drop
+     * the bytes which are not a complete record.
+     *
+     * @param filter Filter checked on the headers before decoding, null for all records
+     * @param sink   Called for each complete matching record
+     * @return Number of records passed to the sink
+     */
+    int finish(DltFilter filter, Consumer<? super DltMessage> sink) {
+        buffer.flip();
+        int count = parse(filter, sink, true);
+        if (buffer.hasRemaining()) {
+            DltMetrics.skipped(buffer.remaining(), DltMetrics.Cause.TRUNCATED);
+            offset += buffer.remaining();
+        }
+        buffer.clear();
+        return count;
+    }
+
+    /**
+     * Pass on the complete records in the buffer (in read mode), leaving its position
+     * after the last one.
+     *
+     * @param filter Filter checked on the headers before decoding, null for all records
+     * @param sink   Called for each complete matching record
+     * @param last   True if no more bytes follow, then an incomplete record is skipped
+     * @return Number of records passed to the sink
+     */
+    int parse(DltFilter filter, Consumer<? super DltMessage> sink, boolean last) {
+        int count = 0;
+        int start = buffer.position();
+        int position = start;
+        int limit = buffer.limit();
+        try {
+            while (position + LENGTH_FIELD_OFFSET + 2 <= limit) {
+                if (!PatternScanner.isPatternAt(buffer, position)) {
+                    if (!resyncing) {
+                        DltMetrics.error(DltMetrics.Cause.BAD_PATTERN);
+                    }
+                    int found = PatternScanner.indexOf(buffer, position + 1, limit);
+                    // Keep the bytes a pattern may start with
+                    position = found >= 0 ? found : Math.max(position + 1, limit - StorageHeader.DLT_PATTERN.length + 1);
+                    resyncing = true;
+                    continue;
+                }
+                int length = BufferUtils.getUnsignedShort(buffer, position + LENGTH_FIELD_OFFSET, true);
+                int totalLength = StorageHeader.DATA_LENGTH + length;
+                if (length >= StandardHeader.DATA_MIN_LENGTH && position + totalLength > limit && !last) {
+                    // Not complete yet
+                    break;
+                }
+                if (length < PatternScanner.headersLength(BufferUtils.getUnsignedByte(buffer, position + StorageHeader.DATA_LENGTH))
+                        || position + totalLength > limit || resyncing && !PatternScanner.isPlausibleRecord(buffer, position, totalLength)) {
+                    // Not a valid record, look for the next pattern
+                    if (!resyncing) {
+                        DltMetrics.error(length < StandardHeader.DATA_MIN_LENGTH ? DltMetrics.Cause.LENGTH_UNDERFLOW
+                                : position + totalLength > limit ? DltMetrics.Cause.TRUNCATED : DltMetrics.Cause.INVALID);
+                    }
+                    position++;
+                    resyncing = true;
+                    continue;
+                }
+                resyncing = false;
+                DltMetrics.recordRead(totalLength);
+                int record = position;
+                // Move on first, so the record is not passed again if the sink throws
+                position += totalLength;
+                if (filter == null || filter.test(view.bind(buffer, record))) {
+                    DltMessage message = decode(record, totalLength);
+                    if (message != null) {
+                        sink.accept(message);
+                        count++;
+                    }
+                }
+            }
+        } finally {
+            buffer.position(position);
+            offset += position - start;
+        }
+        return count;
+    }
+
+    // Decode the record, null if it is framed correctly but its content is not valid
+    private DltMessage decode(int position, int length) {
+        try {
+            if (recycled != null) {
+                return recycled.refill(buffer, position, length, true, encoding);
+            }
+            return DltMessage.createFromBytes(buffer, position, length, true, encoding);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            // The decoder counted the error, skip the record like damaged data
+            DltMetrics.recordSkipped(length);
+            return null;
+        }
+    }
+}
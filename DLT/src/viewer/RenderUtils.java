@@ -0,0 +1,186 @@
+package viewer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Helpers to render values as text into an {@link Appendable} without intermediate
+ * Strings when the destination is a StringBuilder (the common case).
+ */
+final class RenderUtils {
+    // Two lowercase hex digits for each byte value
+    private static final char[] HEX = new char[256 * 2];
+
+    static {
+        char[] digits = "0123456789abcdef".toCharArray();
+        for (int i = 0; i < 256; i++) {
+            HEX[i * 2] = digits[i >>> 4];
+            HEX[i * 2 + 1] = digits[i & 0x0F];
+        }
+    }
+
+    private RenderUtils() {
+    }
+
+    /**
+     * Append the bytes as lowercase hex, two digits per byte.
+     *
+     * @param src    Bytes to append
+     * @param offset Offset of the first byte
+     * @param length Number of bytes
+     * @param out    Destination of the text
+     * @throws IOException if the destination cannot be written
+     */
+    static void appendHex(byte[] src, int offset, int length, Appendable out) throws IOException {
+        if (out instanceof StringBuilder) {
+            StringBuilder sb = (StringBuilder) out;
+            sb.ensureCapacity(sb.length() + length * 2);
+            for (int i = offset; i < offset + length; i++) {
+                sb.append(HEX, (src[i] & 0xFF) * 2, 2);
+            }
+        } else {
+            for (int i = offset; i < offset + length; i++) {
+                int index = (src[i] & 0xFF) * 2;
+                out.append(HEX[index]).append(HEX[index + 1]);
+            }
+        }
+    }
+
+    static void appendHex(byte[] src, Appendable out) throws IOException {
+        appendHex(src, 0, src.length, out);
+    }
+
+    static void append(long value, Appendable out) throws IOException {
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(value);
+        } else {
+            out.append(Long.toString(value));
+        }
+    }
+
+    static void append(float value, Appendable out) throws IOException {
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(value);
+        } else {
+            out.append(Float.toString(value));
+        }
+    }
+
+    static void append(double value, Appendable out) throws IOException {
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(value);
+        } else {
+            out.append(Double.toString(value));
+        }
+    }
+
+    // Append the value as an unsigned 64 bit number
+    static void appendUnsigned(long value, Appendable out) throws IOException {
+        if (value >= 0) {
+            append(value, out);
+        } else {
+            // Divide by 10 unsigned, then the last digit
+            long quotient = (value >>> 1) / 5;
+            append(quotient, out);
+            append(value - quotient * 10, out);
+        }
+    }
+
+    /**
+     * Render into a new String.
+     *
+     * @param renderable Writes its text into the StringBuilder
+     * @return Text written
+     */
+    static String toString(Renderable renderable) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            renderable.render(sb);
+        } catch (IOException e) {
+            // A StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Appendable which drops the leading and trailing whitespace of the text written to
+     * it, as String.trim(). Whitespace is held back until a character follows it, so the
+     * text is trimmed without being collected first.
+     */
+    static final class TrimmingAppendable implements Appendable {
+        private final Appendable out;
+        private boolean started;
+        // Whitespace held back since the last character
+        private char[] pending = new char[16];
+        private int pendingLength;
+
+        TrimmingAppendable(Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            if (c <= ' ') {
+                hold(c);
+            } else {
+                flushPending();
+                out.append(c);
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            CharSequence text = csq != null ? csq : "null";
+            return append(text, 0, text.length());
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            CharSequence text = csq != null ? csq : "null";
+            // Runs of characters without whitespace are written at once
+            int run = start;
+            for (int i = start; i < end; i++) {
+                if (text.charAt(i) <= ' ') {
+                    if (run < i) {
+                        flushPending();
+                        out.append(text, run, i);
+                    }
+                    hold(text.charAt(i));
+                    run = i + 1;
+                }
+            }
+            if (run < end) {
+                flushPending();
+                out.append(text, run, end);
+            }
+            return this;
+        }
+
+        private void hold(char c) {
+            if (!started) {
+                // Leading whitespace
+                return;
+            }
+            if (pendingLength == pending.length) {
+                pending = Arrays.copyOf(pending, pending.length * 2);
+            }
+            pending[pendingLength++] = c;
+        }
+
+        private void flushPending() throws IOException {
+            for (int i = 0; i < pendingLength; i++) {
+                out.append(pending[i]);
+            }
+            pendingLength = 0;
+            started = true;
+        }
+    }
+
+    // Something that renders its text into an Appendable
+    interface Renderable {
+        void render(Appendable out) throws IOException;
+    }
+}
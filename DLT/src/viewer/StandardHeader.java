@@ -4,10 +4,6 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Optional;
 
-import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
-import java.util.Optional;
-
 public class StandardHeader {
 
     // length of the bytes data
@@ -21,7 +17,7 @@ public class StandardHeader {
     public static final int WITH_TIMESTAMP_MASK = 0b00010000;
     public static final int VERSION_NUMBER_MASK = 0b11100000;
 
-    private static final int VERSION_NUMBER_SHIFT = 5;
+    static final int VERSION_NUMBER_SHIFT = 5;
 
     private static final String STRUCT_MIN_FORMAT = ">BBH";
 
@@ -30,9 +26,18 @@ public class StandardHeader {
     int versionNumber;
     int messageCounter;
     int length;
-    String ecuId;
-    Integer sessionId;
-    Integer timestamp;
+    boolean withEcuId;
+    // Key of the ECU ID, see DltIdTable
+    int ecuId;
+    // Session ID and timestamp are 0 if the header has none, kept unboxed for refill
+    boolean withSessionId;
+    int sessionId;
+    boolean withTimestamp;
+    int timestamp;
+
+    // Empty header, filled by refill
+    StandardHeader() {
+    }
 
     public StandardHeader(
             boolean useExtendedHeader,
@@ -43,14 +48,40 @@ public class StandardHeader {
             Optional<String> ecuId,
             Optional<Integer> sessionId,
             Optional<Integer> timestamp) {
+        this(useExtendedHeader, msbFirst, versionNumber, messageCounter, length,
+                ecuId.isPresent(), DltIdTable.fromString(ecuId.orElse(null)), sessionId, timestamp);
+    }
+
+    StandardHeader(
+            boolean useExtendedHeader,
+            boolean msbFirst,
+            int versionNumber,
+            int messageCounter,
+            int length,
+            boolean withEcuId,
+            int ecuId,
+            Optional<Integer> sessionId,
+            Optional<Integer> timestamp) {
         this.useExtendedHeader = useExtendedHeader;
         this.msbFirst = msbFirst;
         this.versionNumber = versionNumber;
         this.messageCounter = messageCounter;
         this.length = length;
-        this.ecuId = ecuId.orElse(null);
-        this.sessionId = sessionId.orElse(null);
-        this.timestamp = timestamp.orElse(null);
+        this.withEcuId = withEcuId;
+        this.ecuId = ecuId;
+        this.withSessionId = sessionId.isPresent();
+        this.sessionId = sessionId.orElse(0);
+        this.withTimestamp = timestamp.isPresent();
+        this.timestamp = timestamp.orElse(0);
+    }
+
+    public Optional<String> getEcuId() {
+        return withEcuId ? Optional.of(DltIdTable.toString(ecuId)) : Optional.empty();
+    }
+
+    // Key of the ECU ID, 0 if the header has none
+    public int getEcuIdKey() {
+        return ecuId;
     }
 
     @Override
@@ -58,13 +89,13 @@ public class StandardHeader {
         StringBuilder val = new StringBuilder(
                 String.format("StandardHeader(useExtendedHeader=%b, msbFirst=%b, versionNumber=%d, messageCounter=%d, length=%d", 
                         useExtendedHeader, msbFirst, versionNumber, messageCounter, length));
-        if (ecuId != null) {
-            val.append(String.format(", ecuId=\"%s\"", ecuId));
+        if (withEcuId) {
+            val.append(String.format(", ecuId=\"%s\"", DltIdTable.toString(ecuId)));
         }
-        if (sessionId != null) {
+        if (withSessionId) {
             val.append(String.format(", sessionId=%d", sessionId));
         }
-        if (timestamp != null) {
+        if (withTimestamp) {
             val.append(String.format(", timestamp=%d", timestamp));
         }
         val.append(")");
@@ -79,19 +110,40 @@ public class StandardHeader {
         return useExtendedHeader == other.useExtendedHeader && msbFirst == other.msbFirst && 
                 versionNumber == other.versionNumber && messageCounter == other.messageCounter &&
                 length == other.length && 
-                (ecuId == null ? other.ecuId == null : ecuId.equals(other.ecuId)) &&
-                (sessionId == null ? other.sessionId == null : sessionId.equals(other.sessionId)) && 
-                (timestamp == null ? other.timestamp == null : timestamp.equals(other.timestamp));
+                withEcuId == other.withEcuId && ecuId == other.ecuId &&
+                withSessionId == other.withSessionId && sessionId == other.sessionId &&
+                withTimestamp == other.withTimestamp && timestamp == other.timestamp;
     }
 
     public static StandardHeader createFromBytes(byte[] data) throws IllegalArgumentException {
-        int dataLength = data.length;
+        return createFromBytes(data, 0, data.length);
+    }
+
+    public static StandardHeader createFromBytes(byte[] src, int offset, int length) throws IllegalArgumentException {
+        return createFromBytes(ByteBuffer.wrap(src), offset, length);
+    }
+
+    // Create StandardHeader from the bytes [offset, offset + length) of the buffer without copying them
+    public static StandardHeader createFromBytes(ByteBuffer src, int offset, int length) throws IllegalArgumentException {
+        StandardHeader header = new StandardHeader();
+        header.refill(src, offset, length);
+        return header;
+    }
+
+    /**
+     * Overwrite the fields with the header in the bytes [offset, offset + length) of the
+     * buffer, e.g. to reuse the instance for the next message.
+     *
+     * @throws IllegalArgumentException if the bytes are not a valid header, the fields are undefined then
+     */
+    void refill(ByteBuffer src, int offset, int length) throws IllegalArgumentException {
+        int dataLength = length;
         if (dataLength < DATA_MIN_LENGTH) {
-            throw new IllegalArgumentException("Unexpected length of the data: " + dataLength + " / " + 
+            throw new DltDecodeException(DltMetrics.Cause.LENGTH_UNDERFLOW, "Unexpected length of the data: " + dataLength + " / " + 
                     "Standard Header must be " + DATA_MIN_LENGTH + " or more.");
         }
 
-        byte firstByte = data[0];
+        byte firstByte = src.get(offset);
         boolean ueh = (firstByte & USE_EXTENDED_HEADER_MASK) != 0;
         boolean msbf = (firstByte & MSB_FIRST_MASK) != 0;
         boolean weid = (firstByte & WITH_ECU_ID_MASK) != 0;
@@ -100,87 +152,94 @@ public class StandardHeader {
         int vers = (firstByte & VERSION_NUMBER_MASK) >> VERSION_NUMBER_SHIFT;
 
         int expectedDataLength = DATA_MIN_LENGTH;
-        StringBuilder unpackFormat = new StringBuilder(STRUCT_MIN_FORMAT);
-
         if (weid) {
             expectedDataLength += 4;
-            unpackFormat.append("4s");
         }
         if (wsid) {
             expectedDataLength += 4;
-            unpackFormat.append("I");
         }
         if (wtms) {
             expectedDataLength += 4;
-            unpackFormat.append("I");
         }
 
         if (dataLength < expectedDataLength) {
-            throw new IllegalArgumentException("Unexpected length of the data: " + dataLength + " / " +
+            throw new DltDecodeException(DltMetrics.Cause.LENGTH_UNDERFLOW, "Unexpected length of the data: " + dataLength + " / " +
                     "Standard Header with Header Type: WEID=" + weid + " WSID=" + wsid + " WTMS=" + wtms +
                     " must be " + expectedDataLength + " or more.");
         }
-
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        buffer.order(msbf ? java.nio.ByteOrder.BIG_ENDIAN : java.nio.ByteOrder.LITTLE_ENDIAN);
-
-        byte[] structBytes = new byte[expectedDataLength];
-        buffer.get(structBytes);
-
-        int messageCounter = ByteBuffer.wrap(structBytes, 1, 2).getShort();
-        int length = ByteBuffer.wrap(structBytes, 3, 2).getShort();
-
-        String ecu = null;
-        Integer sessionId = null;
-        Integer timestamp = null;
+        BufferUtils.checkRange(src, offset, expectedDataLength);
+
+        // Fields of Standard Header are always big endian, MSBF only applies to the payload
+        useExtendedHeader = ueh;
+        msbFirst = msbf;
+        versionNumber = vers;
+        messageCounter = BufferUtils.getUnsignedByte(src, offset + 1);
+        this.length = BufferUtils.getUnsignedShort(src, offset + 2, true);
+        int seekPos = offset + DATA_MIN_LENGTH;
+
+        withEcuId = weid;
+        ecuId = 0;
+        withSessionId = wsid;
+        sessionId = 0;
+        withTimestamp = wtms;
+        timestamp = 0;
 
         if (weid) {
-            byte[] ecuBytes = new byte[4];
-            buffer.get(ecuBytes);
-            ecu = new String(ecuBytes, StandardCharsets.US_ASCII);
+            ecuId = DltIdTable.fromBytes(src, seekPos);
+            seekPos += 4;
         }
 
         if (wsid) {
-            sessionId = buffer.getInt();
+            sessionId = BufferUtils.getInt(src, seekPos, true);
+            seekPos += 4;
         }
 
         if (wtms) {
-            timestamp = buffer.getInt();
+            timestamp = BufferUtils.getInt(src, seekPos, true);
         }
-
-        return new StandardHeader(ueh, msbf, vers, messageCounter, length, Optional.ofNullable(ecu), Optional.ofNullable(sessionId), Optional.ofNullable(timestamp));
     }
 
     public byte[] toBytes() {
-        int totalLength = bytesLength();
-        ByteBuffer buffer = ByteBuffer.allocate(totalLength);
-        buffer.put((byte) headerType());
-
-        buffer.putShort((short) messageCounter);
-        buffer.putShort((short) length);
+        ByteBuffer buffer = ByteBuffer.allocate(bytesLength());
+        encodeTo(buffer);
+        return buffer.array();
+    }
 
-        if (ecuId != null) {
-            buffer.put(ecuId.getBytes(StandardCharsets.US_ASCII));
+    /**
+     * Write the bytes at the position of the buffer and move the position after them.
+     *
+     * @param dst Destination of the bytes, its order is not used
+     * @throws java.nio.BufferOverflowException if there are less than bytesLength() bytes remaining
+     */
+    public void encodeTo(ByteBuffer dst) {
+        int index = BufferUtils.reserve(dst, bytesLength());
+        dst.put(index, (byte) headerType());
+        dst.put(index + 1, (byte) messageCounter);
+        BufferUtils.putShort(dst, index + 2, (short) length, true);
+        index += DATA_MIN_LENGTH;
+
+        if (withEcuId) {
+            DltIdTable.put(dst, index, ecuId);
+            index += 4;
         }
-        if (sessionId != null) {
-            buffer.putInt(sessionId);
+        if (withSessionId) {
+            BufferUtils.putInt(dst, index, sessionId, true);
+            index += 4;
         }
-        if (timestamp != null) {
-            buffer.putInt(timestamp);
+        if (withTimestamp) {
+            BufferUtils.putInt(dst, index, timestamp, true);
         }
-
-        return buffer.array();
     }
 
     public int bytesLength() {
         int length = DATA_MIN_LENGTH;
-        if (ecuId != null) {
+        if (withEcuId) {
             length += 4;
         }
-        if (sessionId != null) {
+        if (withSessionId) {
             length += 4;
         }
-        if (timestamp != null) {
+        if (withTimestamp) {
             length += 4;
         }
         return length;
@@ -197,15 +256,15 @@ public class StandardHeader {
     }
 
     public boolean withEcuId() {
-        return ecuId != null;
+        return withEcuId;
     }
 
     public boolean withSessionId() {
-        return sessionId != null;
+        return withSessionId;
     }
 
     public boolean withTimestamp() {
-        return timestamp != null;
+        return withTimestamp;
     }
 
     public interface MessageTypeInfo {}
@@ -1,9 +1,5 @@
 package viewer;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-
-import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 public class StorageHeader {
@@ -18,20 +14,37 @@ public class StorageHeader {
 
     int seconds;
     int microseconds;
-    String ecuId;
+    // Key of the ECU ID, see DltIdTable
+    int ecuId;
 
     // Constructor to initialize StorageHeader
     public StorageHeader(int seconds, int microseconds, String ecuId) {
+        this(seconds, microseconds, DltIdTable.fromString(ecuId));
+    }
+
+    StorageHeader(int seconds, int microseconds, int ecuId) {
         this.seconds = seconds;
         this.microseconds = microseconds;
         this.ecuId = ecuId;
     }
 
+    // Empty header, filled by refill
+    StorageHeader() {
+    }
+
+    public String getEcuId() {
+        return DltIdTable.toString(ecuId);
+    }
+
+    public int getEcuIdKey() {
+        return ecuId;
+    }
+
     @Override
     public String toString() {
         return String.format(
             "StorageHeader(seconds=%d, microseconds=%d, ecu_id=\"%s\")",
-            this.seconds, this.microseconds, this.ecuId
+            this.seconds, this.microseconds, getEcuId()
         );
     }
 
@@ -44,57 +57,71 @@ public class StorageHeader {
             StorageHeader other = (StorageHeader) obj;
             return this.seconds == other.seconds
                     && this.microseconds == other.microseconds
-                    && this.ecuId.equals(other.ecuId);
+                    && this.ecuId == other.ecuId;
         }
         return false;
     }
 
     public static StorageHeader createFromBytes(byte[] data) {
-        if (data.length < DATA_LENGTH) {
-            throw new IllegalArgumentException(
-                String.format("Unexpected length of the data: %d / Storage Header must be %d or more", data.length, DATA_LENGTH)
-            );
-        }
+        return createFromBytes(data, 0, data.length);
+    }
 
-        byte[] dltPattern = Arrays.copyOfRange(data, 0, 4);
-        if (!Arrays.equals(dltPattern, DLT_PATTERN)) {
-            throw new IllegalArgumentException(
-                String.format("DLT-Pattern is not found in the data: %s / Beginning of Storage Header must be %s", Arrays.toString(dltPattern), Arrays.toString(DLT_PATTERN))
+    public static StorageHeader createFromBytes(byte[] src, int offset, int length) {
+        return createFromBytes(ByteBuffer.wrap(src), offset, length);
+    }
+
+    // Create StorageHeader from the bytes [offset, offset + length) of the buffer without copying them
+    public static StorageHeader createFromBytes(ByteBuffer src, int offset, int length) {
+        StorageHeader header = new StorageHeader();
+        header.refill(src, offset, length);
+        return header;
+    }
+
+    // Overwrite the fields with the header in the bytes [offset, offset + length) of the buffer
+    void refill(ByteBuffer src, int offset, int length) {
+        if (length < DATA_LENGTH) {
+            throw new DltDecodeException(DltMetrics.Cause.LENGTH_UNDERFLOW,
+                String.format("Unexpected length of the data: %d / Storage Header must be %d or more", length, DATA_LENGTH)
             );
         }
+        BufferUtils.checkRange(src, offset, DATA_LENGTH);
+
+        for (int i = 0; i < DLT_PATTERN.length; i++) {
+            if (src.get(offset + i) != DLT_PATTERN[i]) {
+                byte[] dltPattern = new byte[DLT_PATTERN.length];
+                src.get(offset, dltPattern);
+                throw new DltDecodeException(DltMetrics.Cause.BAD_PATTERN,
+                    String.format("DLT-Pattern is not found in the data: %s / Beginning of Storage Header must be %s", Arrays.toString(dltPattern), Arrays.toString(DLT_PATTERN))
+                );
+            }
+        }
 
-        ByteBuffer buffer = ByteBuffer.wrap(data, 4, data.length - 4);
-        int seconds = buffer.getInt();
-        int microseconds = buffer.getInt();
-        byte[] ecuIdBytes = new byte[4];
-        buffer.get(ecuIdBytes);
-        String ecuId = _asciiDecode(ecuIdBytes);
-
-        return new StorageHeader(seconds, microseconds, ecuId);
+        seconds = BufferUtils.getInt(src, offset + 4, false);
+        microseconds = BufferUtils.getInt(src, offset + 8, false);
+        ecuId = DltIdTable.fromBytes(src, offset + 12);
     }
 
     public byte[] toBytes() {
-        byte[] ecuIdBytes = _asciiEncode(this.ecuId);
         ByteBuffer buffer = ByteBuffer.allocate(DATA_LENGTH);
-        buffer.put(DLT_PATTERN);
-        buffer.putInt(this.seconds);
-        buffer.putInt(this.microseconds);
-        buffer.put(ecuIdBytes);
+        encodeTo(buffer);
         return buffer.array();
     }
 
-    public int getBytesLength() {
-        return DATA_LENGTH;
-    }
-
-    // Helper method to decode ASCII byte array into string
-    private static String _asciiDecode(byte[] ascii) {
-        return new String(ascii, StandardCharsets.US_ASCII).replace("\u0000", "");
+    /**
+     * Write the bytes at the position of the buffer and move the position after them.
+     *
+     * @param dst Destination of the bytes, its order is not used
+     * @throws java.nio.BufferOverflowException if there are less than DATA_LENGTH bytes remaining
+     */
+    public void encodeTo(ByteBuffer dst) {
+        int index = BufferUtils.reserve(dst, DATA_LENGTH);
+        dst.put(index, DLT_PATTERN);
+        BufferUtils.putInt(dst, index + 4, this.seconds, false);
+        BufferUtils.putInt(dst, index + 8, this.microseconds, false);
+        DltIdTable.put(dst, index + 12, this.ecuId);
     }
 
-    // Helper method to encode a string into an ASCII byte array
-    private static byte[] _asciiEncode(String ascii) {
-        return ascii.getBytes(StandardCharsets.US_ASCII);
+    public int getBytesLength() {
+        return DATA_LENGTH;
     }
 }
-
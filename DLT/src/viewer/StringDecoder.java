@@ -0,0 +1,264 @@
+package viewer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Decodes the strings of string arguments, with the state kept per thread.
+ *
+ * <ul>
+ * <li>The Charsets of the encodings and a CharsetDecoder for each are looked up once.</li>
+ * <li>ASCII bytes of a charset which maps them to the same characters, and all bytes of
+ *     ISO-8859-1, are copied into a Latin-1 String without a decoder.</li>
+ * <li>Strings of up to {@link #MAX_CACHED_LENGTH} bytes seen twice are kept in a
+ *     direct-mapped cache of {@link #CACHE_SLOTS} strings, so repeated strings such as
+ *     format strings are shared instead of being created for each message.</li>
+ * </ul>
+ *
+ * Malformed bytes are replaced as by {@link String#String(byte[], Charset)}.
+ */
+final class StringDecoder {
+    // Number of strings kept by the cache of each thread
+    static final int CACHE_SLOTS = 2048;
+    // Longer strings are decoded without the cache
+    static final int MAX_CACHED_LENGTH = 256;
+
+    private static final int CACHE_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(CACHE_SLOTS);
+    // Reads the bytes of the strings eight at a time for the hash
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long HIGHS = 0x8080808080808080L;
+
+    private static final ThreadLocal<StringDecoder> DECODERS = ThreadLocal.withInitial(StringDecoder::new);
+
+    // Encoding and state of the charset used last
+    private Optional<String> lastEncoding;
+    private Charset lastEncodingCharset;
+    private CharsetState last;
+    private final Map<Charset, CharsetState> states = new HashMap<>();
+
+    // Cached strings with their bytes and charset, and the hashes of the strings seen once
+    private final String[] strings = new String[CACHE_SLOTS];
+    private final byte[][] keys = new byte[CACHE_SLOTS][];
+    private final Charset[] charsets = new Charset[CACHE_SLOTS];
+    private final int[] hashes = new int[CACHE_SLOTS];
+    private final int[] seen = new int[CACHE_SLOTS];
+
+    // Bytes of a buffer without an array
+    private byte[] scratch = new byte[256];
+
+    private StringDecoder() {
+    }
+
+    /**
+     * Get the Charset of the encoding of string arguments.
+     *
+     * @param encoding Name of the encoding, empty for US-ASCII
+     * @return Charset
+     * @throws IllegalArgumentException if the encoding is not supported
+     */
+    static Charset charsetOf(Optional<String> encoding) {
+        return DECODERS.get().resolve(encoding);
+    }
+
+    /**
+     * Decode the bytes [offset, offset + length) of the buffer.
+     *
+     * @param src     Buffer containing the string
+     * @param offset  Offset of the string in the buffer
+     * @param length  Number of bytes, without a null terminator
+     * @param charset Charset of the string
+     * @return Decoded string, possibly shared with earlier calls
+     */
+    static String decode(ByteBuffer src, int offset, int length, Charset charset) {
+        StringDecoder decoder = DECODERS.get();
+        if (src.hasArray()) {
+            return decoder.lookup(src.array(), src.arrayOffset() + offset, length, charset);
+        }
+        if (decoder.scratch.length < length) {
+            decoder.scratch = new byte[Math.max(length, decoder.scratch.length * 2)];
+        }
+        src.get(offset, decoder.scratch, 0, length);
+        return decoder.lookup(decoder.scratch, 0, length, charset);
+    }
+
+    /**
+     * Decode the bytes [offset, offset + length) of the array.
+     *
+     * @param src     Bytes containing the string
+     * @param offset  Index of the string
+     * @param length  Number of bytes, without a null terminator
+     * @param charset Charset of the string
+     * @return Decoded string, possibly shared with earlier calls
+     */
+    static String decode(byte[] src, int offset, int length, Charset charset) {
+        return DECODERS.get().lookup(src, offset, length, charset);
+    }
+
+    /**
+     * Append the bytes [offset, offset + length) of the array as characters without
+     * creating a String, if they are ASCII in an ASCII compatible charset.
+     *
+     * @param src     Bytes containing the string
+     * @param offset  Index of the string
+     * @param length  Number of bytes, without a null terminator
+     * @param charset Charset of the string
+     * @param out     Destination of the characters
+     * @return False if the bytes need decoding, then nothing is appended
+     */
+    static boolean appendAscii(byte[] src, int offset, int length, Charset charset, StringBuilder out) {
+        if (!DECODERS.get().state(charset).asciiCompatible) {
+            return false;
+        }
+        int start = out.length();
+        out.ensureCapacity(start + length);
+        for (int i = offset; i < offset + length; i++) {
+            byte b = src[i];
+            if (b < 0) {
+                out.setLength(start);
+                return false;
+            }
+            out.append((char) b);
+        }
+        return true;
+    }
+
+    private Charset resolve(Optional<String> encoding) {
+        if (encoding.equals(lastEncoding)) {
+            return lastEncodingCharset;
+        }
+        Charset charset = encoding.isPresent() ? Charset.forName(encoding.get()) : StandardCharsets.US_ASCII;
+        lastEncoding = encoding;
+        lastEncodingCharset = charset;
+        return charset;
+    }
+
+    // String of the bytes from the cache, or decoded and possibly cached
+    private String lookup(byte[] src, int offset, int length, Charset charset) {
+        if (length == 0) {
+            return "";
+        }
+        if (length > MAX_CACHED_LENGTH) {
+            return create(src, offset, length, charset, !isDecodedByString(charset) && isAscii(src, offset, length));
+        }
+        // Hash and ASCII check in one pass, eight bytes at a time
+        int end = offset + length;
+        int i = offset;
+        long h = length;
+        long bits = 0;
+        for (; i + Long.BYTES <= end; i += Long.BYTES) {
+            long word = (long) LONGS.get(src, i);
+            bits |= word;
+            h = Long.rotateLeft((h ^ word) * 0x9E3779B97F4A7C15L, 31);
+        }
+        for (; i < end; i++) {
+            bits |= src[i] & 0xFF;
+            h = (h ^ src[i]) * 0x9E3779B97F4A7C15L;
+        }
+        h *= 0xBF58476D1CE4E5B9L;
+        int hash = (int) (h ^ (h >>> 32));
+        int slot = (int) (h >>> CACHE_SHIFT);
+        String cached = strings[slot];
+        if (cached != null && hashes[slot] == hash && charsets[slot] == charset
+                && Arrays.equals(keys[slot], 0, keys[slot].length, src, offset, offset + length)) {
+            return cached;
+        }
+        String string = create(src, offset, length, charset, (bits & HIGHS) == 0);
+        if (seen[slot] == hash) {
+            // Seen before, likely to repeat
+            strings[slot] = string;
+            keys[slot] = Arrays.copyOfRange(src, offset, offset + length);
+            charsets[slot] = charset;
+            hashes[slot] = hash;
+        } else {
+            seen[slot] = hash;
+        }
+        return string;
+    }
+
+    private String create(byte[] src, int offset, int length, Charset charset, boolean ascii) {
+        if (isDecodedByString(charset)) {
+            return new String(src, offset, length, charset);
+        }
+        CharsetState state = state(charset);
+        if (ascii && state.asciiCompatible) {
+            return new String(src, offset, length, StandardCharsets.ISO_8859_1);
+        }
+        return state.decode(src, offset, length);
+    }
+
+    private CharsetState state(Charset charset) {
+        CharsetState state = last;
+        if (state == null || state.charset != charset) {
+            state = states.computeIfAbsent(charset, CharsetState::new);
+            last = state;
+        }
+        return state;
+    }
+
+    // Charsets String decodes without a CharsetDecoder, ASCII and ISO-8859-1 by copying into a Latin-1 String
+    private static boolean isDecodedByString(Charset charset) {
+        return charset == StandardCharsets.ISO_8859_1 || charset == StandardCharsets.UTF_8
+                || charset == StandardCharsets.US_ASCII;
+    }
+
+    private static boolean isAscii(byte[] src, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (src[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Decoder of a charset and whether it maps the ASCII bytes to the same characters
+    private static final class CharsetState {
+        final Charset charset;
+        final boolean asciiCompatible;
+        private CharsetDecoder decoder;
+        private CharBuffer chars = CharBuffer.allocate(256);
+
+        CharsetState(Charset charset) {
+            this.charset = charset;
+            byte[] ascii = new byte[0x80];
+            for (int i = 0; i < ascii.length; i++) {
+                ascii[i] = (byte) i;
+            }
+            String decoded = new String(ascii, charset);
+            boolean compatible = decoded.length() == ascii.length;
+            for (int i = 0; compatible && i < ascii.length; i++) {
+                compatible = decoded.charAt(i) == i;
+            }
+            this.asciiCompatible = compatible;
+        }
+
+        String decode(byte[] src, int offset, int length) {
+            if (decoder == null) {
+                decoder = charset.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+            int capacity = (int) Math.ceil(length * (double) decoder.maxCharsPerByte());
+            if (chars.capacity() < capacity) {
+                chars = CharBuffer.allocate(Math.max(capacity, chars.capacity() * 2));
+            }
+            chars.clear();
+            ByteBuffer in = ByteBuffer.wrap(src, offset, length);
+            decoder.reset();
+            decoder.decode(in, chars, true);
+            decoder.flush(chars);
+            chars.flip();
+            return chars.toString();
+        }
+    }
+}
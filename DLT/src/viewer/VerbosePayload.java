@@ -1,33 +1,220 @@
 package viewer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class VerbosePayload extends Payload {
-    private final List<Argument> arguments;
+    // Decoded arguments, null until all arguments of data bytes are decoded
+    private List<Argument> arguments;
+
+    // Data bytes of the arguments, decoded lazily (null if created from arguments)
+    private ByteBuffer data;
+    private boolean msbFirst;
+    private int numberOfArguments;
+    private Optional<String> encoding;
+
+    // Offsets of the arguments found so far and the arguments decoded so far
+    private int[] offsets;
+    private int scannedArguments;
+    private Argument[] decodedArguments;
+
+    // Arguments reused by refill, null if the payload is not refilled
+    private Argument.Pool pool;
+    private List<Argument> argumentView;
 
     public VerbosePayload(List<Argument> arguments) {
         this.arguments = arguments;
+        this.data = null;
+        this.msbFirst = false;
+        this.numberOfArguments = arguments.size();
+        this.encoding = Optional.empty();
+    }
+
+    private VerbosePayload(byte[] data, boolean msbFirst, int numberOfArguments, Optional<String> encoding) {
+        this.data = ByteBuffer.wrap(data);
+        this.msbFirst = msbFirst;
+        this.numberOfArguments = numberOfArguments;
+        this.encoding = encoding;
+        this.offsets = new int[numberOfArguments + 1];
+        this.decodedArguments = new Argument[numberOfArguments];
+    }
+
+    // Empty payload for refill
+    VerbosePayload() {
+        this.data = ByteBuffer.allocate(256);
+        this.data.limit(0);
+        this.encoding = Optional.empty();
+        this.offsets = new int[1];
+        this.decodedArguments = new Argument[0];
+        this.pool = new Argument.Pool();
+    }
+
+    // Factory method to create VerbosePayload from the bytes [offset, offset + length) of the buffer
+    public static VerbosePayload createFromBytes(
+            ByteBuffer src,
+            int offset,
+            int length,
+            boolean msbFirst,
+            int numberOfArguments,
+            Optional<String> encoding) throws IllegalArgumentException {
+        BufferUtils.checkRange(src, offset, length);
+        // Keep a copy of the payload of this message only, the source buffer may be reused
+        byte[] data = new byte[length];
+        src.get(offset, data);
+        return createFromBytes(data, msbFirst, numberOfArguments, encoding);
+    }
+
+    public static VerbosePayload createFromBytes(
+            byte[] src,
+            int offset,
+            int length,
+            boolean msbFirst,
+            int numberOfArguments,
+            Optional<String> encoding) throws IllegalArgumentException {
+        return createFromBytes(ByteBuffer.wrap(src), offset, length, msbFirst, numberOfArguments, encoding);
     }
 
-    // Factory method to create VerbosePayload from data bytes
+    /**
+     * Create VerbosePayload from data bytes.
+     *
+     * The arguments are not decoded here. They are decoded in place when they are
+     * accessed by {@link #argumentAt(int)}, {@link #forEachArgument(Consumer)} or
+     * {@link #getArguments()}, so errors in the arguments are reported at that time.
+     */
     public static VerbosePayload createFromBytes(
             byte[] data, 
             boolean msbFirst, 
             int numberOfArguments, 
             Optional<String> encoding) throws IllegalArgumentException {
-        
-        List<Argument> arguments = new ArrayList<>();
-        int offset = 0;
+        return new VerbosePayload(data, msbFirst, numberOfArguments, encoding);
+    }
+
+    /**
+     * Overwrite the payload with the bytes [offset, offset + length) of the buffer, for
+     * the next message of a recycled {@link DltMessage}.
+     *
+     * The data bytes are copied into the buffer of this payload and the arguments are
+     * refilled from its pool, so the arguments got before are overwritten as well.
+     */
+    void refill(ByteBuffer src, int offset, int length, boolean msbFirst, int numberOfArguments,
+                Optional<String> encoding) throws IllegalArgumentException {
+        BufferUtils.checkRange(src, offset, length);
+        if (data.capacity() < length) {
+            data = ByteBuffer.allocate(Math.max(length, data.capacity() * 2));
+        }
+        data.clear().limit(length);
+        data.put(0, src, offset, length);
+        Arrays.fill(decodedArguments, 0, this.numberOfArguments, null);
+        if (offsets.length <= numberOfArguments) {
+            offsets = new int[numberOfArguments + 1];
+            decodedArguments = new Argument[numberOfArguments];
+        }
+        this.msbFirst = msbFirst;
+        this.numberOfArguments = numberOfArguments;
+        this.encoding = encoding;
+        scannedArguments = 0;
+        pool.reset();
+    }
+
+    public int getNumberOfArguments() {
+        return numberOfArguments;
+    }
+
+    /**
+     * Get the argument at the index, decoding only this argument if needed.
+     *
+     * @param index Index of the argument
+     * @return Argument at the index
+     * @throws IllegalArgumentException if the argument cannot be decoded
+     */
+    public Argument argumentAt(int index) {
+        if (arguments != null) {
+            return arguments.get(index);
+        }
+        Objects.checkIndex(index, numberOfArguments);
+        Argument argument = decodedArguments[index];
+        if (argument == null) {
+            int offset;
+            try {
+                offset = offsetOf(index);
+            } catch (IllegalArgumentException e) {
+                // Argument.createFromBytes counts the errors of the argument itself
+                DltMetrics.decodeFailed(e);
+                throw e;
+            }
+            // The data bytes belong to this payload, strings are decoded when they are read
+            argument = Argument.createFromBytes(data, offset, data.limit() - offset, msbFirst, encoding, pool, true);
+            decodedArguments[index] = argument;
+        }
+        return argument;
+    }
 
-        // Create arguments based on the provided byte data
+    /**
+     * Visit the arguments in order, decoding each one just before it is visited.
+     *
+     * @param visitor Called for each argument
+     */
+    public void forEachArgument(Consumer<? super Argument> visitor) {
         for (int i = 0; i < numberOfArguments; i++) {
-            Argument arg = Argument.createFromBytes(data, msbFirst, encoding);
-            arguments.add(arg);
-            offset += arg.getDataPayloadLength(); // Move the offset for the next argument
+            visitor.accept(argumentAt(i));
         }
+    }
+
+    /**
+     * Get a cursor over the arguments which decodes nothing by itself.
+     *
+     * @return Cursor at the first argument
+     */
+    public ArgumentCursor cursor() {
+        if (data == null) {
+            throw new IllegalStateException("This payload is not created from data bytes.");
+        }
+        return new ArgumentCursor(data, 0, data.limit(), msbFirst, numberOfArguments, encoding);
+    }
 
-        return new VerbosePayload(arguments);
+    // Get all arguments, decoding the ones not decoded yet
+    public List<Argument> getArguments() {
+        if (pool != null) {
+            // Refilled payload, a view which stays valid for the next message
+            if (argumentView == null) {
+                argumentView = new AbstractList<Argument>() {
+                    @Override
+                    public Argument get(int index) {
+                        return argumentAt(index);
+                    }
+
+                    @Override
+                    public int size() {
+                        return numberOfArguments;
+                    }
+                };
+            }
+            return argumentView;
+        }
+        if (arguments == null) {
+            List<Argument> decoded = new ArrayList<>(numberOfArguments);
+            forEachArgument(decoded::add);
+            arguments = Collections.unmodifiableList(decoded);
+        }
+        return arguments;
+    }
+
+    // Offset of the argument at the index, skipping over the arguments before it
+    private int offsetOf(int index) {
+        while (scannedArguments < index) {
+            int offset = offsets[scannedArguments];
+            offsets[scannedArguments + 1] = offset
+                    + Argument.getArgumentLength(data, offset, data.limit() - offset, msbFirst);
+            scannedArguments++;
+        }
+        return offsets[index];
     }
 
     // Convert to data bytes considering the specified or stored endianness
@@ -39,19 +226,33 @@ public class VerbosePayload extends Payload {
             throw new IllegalArgumentException("Endian is not known");
         }
 
-        byte[] data = new byte[0];
-        for (Argument arg : arguments) {
-            byte[] argBytes = arg.toBytes(msbFirstOption);
-            data = concatenateByteArrays(data, argBytes);
+        ByteBuffer buffer = ByteBuffer.allocate(getBytesLength());
+        encodeTo(buffer, endianFlag);
+        return buffer.array();
+    }
+
+    @Override
+    public void encodeTo(ByteBuffer dst, boolean msbFirst) {
+        if (data != null && msbFirst == this.msbFirst) {
+            // Same endian as the data bytes, copy them as they are
+            int index = BufferUtils.reserve(dst, data.limit());
+            dst.put(index, data, 0, data.limit());
+            return;
+        }
+        int count = getNumberOfArguments();
+        for (int i = 0; i < count; i++) {
+            argumentAt(i).encodeTo(dst, msbFirst);
         }
-        return data;
     }
 
     // Get length of the data bytes
     public int getBytesLength() {
+        if (data != null) {
+            return data.limit();
+        }
         int length = 0;
         for (Argument arg : arguments) {
-            length += arg.getDataPayloadLength();
+            length += arg.getBytesLength();
         }
         return length;
     }
@@ -59,18 +260,46 @@ public class VerbosePayload extends Payload {
     // Helper method to convert list of arguments to a human-readable string
     @Override
     public String _toStr() {
-        StringBuilder sb = new StringBuilder();
-        for (Argument arg : arguments) {
-            sb.append(arg.toString()).append(" ");
+        return RenderUtils.toString(this::render);
+    }
+
+    // Arguments separated by spaces, trimmed like the String of the payload
+    @Override
+    public void render(Appendable out) throws IOException {
+        if (!(out instanceof StringBuilder)) {
+            renderArguments(new RenderUtils.TrimmingAppendable(out));
+            return;
         }
-        return sb.toString().trim();
+        // Trimmed in place
+        StringBuilder sb = (StringBuilder) out;
+        int start = sb.length();
+        renderArguments(sb);
+        trim(sb, start);
     }
 
-    // Helper method to concatenate byte arrays
-    private static byte[] concatenateByteArrays(byte[] first, byte[] second) {
-        byte[] result = new byte[first.length + second.length];
-        System.arraycopy(first, 0, result, 0, first.length);
-        System.arraycopy(second, 0, result, first.length, second.length);
-        return result;
+    private void renderArguments(Appendable out) throws IOException {
+        int count = getNumberOfArguments();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                out.append(' ');
+            }
+            argumentAt(i).render(out);
+        }
+    }
+
+    // Remove the leading and trailing whitespace of the text from the start, as String.trim()
+    private static void trim(StringBuilder sb, int start) {
+        int end = sb.length();
+        while (end > start && sb.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        sb.setLength(end);
+        int first = start;
+        while (first < end && sb.charAt(first) <= ' ') {
+            first++;
+        }
+        if (first > start) {
+            sb.delete(start, first);
+        }
     }
 }
@@ -0,0 +1,71 @@
+package viewer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DltArchiveReaderTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsTheSameMessagesAsTheUncompressedFile() throws IOException {
+        Records records = Records.trace(3000).truncated(0, StandardHeader.USE_EXTENDED_HEADER_MASK, 4);
+        records.garbage(100, 1).raw(Records.trace(3000).toBytes());
+        Path path = records.write(dir.resolve("trace.dlt"));
+        Path archive = dir.resolve("trace.dlt.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(archive))) {
+            Files.copy(path, out);
+        }
+
+        try (DltFileReader reader = new DltFileReader(path); DltArchiveReader archiveReader = new DltArchiveReader(archive)) {
+            assertEquals(reader.stream().map(DltMessage::toString).collect(Collectors.toList()),
+                    archiveReader.stream().map(DltMessage::toString).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void readsMembersAndRecordsAcrossChunks() throws IOException {
+        Records records = Records.trace(60000).garbage(400000, 2).raw(Records.trace(20000).toBytes());
+        Path path = records.write(dir.resolve("trace.dlt"));
+        byte[] bytes = Files.readAllBytes(path);
+        // Members of a concatenated gzip file, split in the middle of the records
+        Path archive = dir.resolve("trace.dlt.gz");
+        try (OutputStream file = Files.newOutputStream(archive)) {
+            int members = 5;
+            for (int i = 0; i < members; i++) {
+                OutputStream member = new FilterOutputStream(file) {
+                    @Override
+                    public void close() throws IOException {
+                        flush();
+                    }
+                };
+                try (OutputStream out = new GZIPOutputStream(member)) {
+                    int from = (int) ((long) bytes.length * i / members) + i * 7;
+                    int to = i + 1 < members ? (int) ((long) bytes.length * (i + 1) / members) + (i + 1) * 7 : bytes.length;
+                    out.write(bytes, from, to - from);
+                }
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try (DltFileReader reader = new DltFileReader(path);
+                DltArchiveReader archiveReader = new DltArchiveReader(archive, Optional.empty(), pool, 64 * 1024)) {
+            assertEquals(reader.stream().map(DltMessage::toString).collect(Collectors.toList()),
+                    archiveReader.stream().map(DltMessage::toString).collect(Collectors.toList()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
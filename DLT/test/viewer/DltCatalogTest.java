@@ -0,0 +1,63 @@
+package viewer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DltCatalogTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void decodesNonVerboseMessagesOfTheCatalog() throws Exception {
+        Path path = Files.write(dir.resolve("catalog.txt"), List.of(
+                "# Message ID  APID  CTID  Fixed texts and argument types",
+                "1001          NAV   MAIN  \"Speed\" uint16 \"km/h\"",
+                "0x2002        DIAG  -     \"DTC\" uint32 \"set:\" bool string sint8"));
+        DltCatalog catalog = DltCatalog.load(path);
+        assertEquals(2, catalog.size());
+
+        ByteBuffer speed = payload(1001).putShort((short) 120);
+        assertDecoded(catalog, speed, "Speed 120 km/h");
+        byte[] name = "brake\0".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer dtc = payload(0x2002).putInt(0xC0DE).put((byte) 1).putShort((short) name.length).put(name).put((byte) -3);
+        assertDecoded(catalog, dtc, "DTC 49374 set: true brake -3");
+
+        // Unknown Message ID, and a payload shorter than the entry
+        assertNull(catalog.decode(nonVerbose(payload(1002).putShort((short) 120))));
+        assertNull(catalog.decode(nonVerbose(payload(1001).put((byte) 120))));
+        assertFalse(catalog.render(nonVerbose(payload(1001)), new StringBuilder()));
+    }
+
+    private static void assertDecoded(DltCatalog catalog, ByteBuffer payload, String text) throws Exception {
+        NonVerbosePayload nonVerbose = nonVerbose(payload);
+        assertEquals(text, catalog.decode(nonVerbose).toString());
+        StringBuilder sb = new StringBuilder();
+        catalog.render(nonVerbose, sb);
+        assertEquals(text, sb.toString());
+    }
+
+    // Little endian payload starting with the Message ID
+    private static ByteBuffer payload(int messageId) {
+        return ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN).putInt(messageId);
+    }
+
+    // Payload of a message without Extended Header, read back from its record
+    private static NonVerbosePayload nonVerbose(ByteBuffer payload) throws Exception {
+        byte[] bytes = new byte[payload.position()];
+        payload.flip().get(bytes);
+        byte[] record = new Records().nonExtended(0, "ECU1", bytes).toBytes();
+        return DltMessage.createFromBytes(record, true, Optional.empty()).getNonVerbosePayload();
+    }
+}
@@ -0,0 +1,68 @@
+package viewer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import viewer.StandardHeader.MessageType;
+
+class DltColumnarReaderTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void exportedColumnsMatchTheMessages() throws IOException {
+        Path path = Records.trace(3000).write(dir.resolve("trace.dlt"));
+        Path columnar = dir.resolve("trace" + DltColumnarWriter.FILE_EXTENSION);
+        assertEquals(3000, DltColumnarWriter.export(path, columnar));
+
+        List<DltMessage> messages = new ArrayList<>();
+        try (DltFileReader reader = new DltFileReader(path)) {
+            reader.forEach(messages::add);
+        }
+        try (DltColumnarReader reader = new DltColumnarReader(columnar)) {
+            assertEquals(3000, reader.count(null));
+            List<String> rows = new ArrayList<>();
+            reader.forEach(null, EnumSet.allOf(DltColumn.class), row -> rows.add(
+                    row.getSeconds() + " " + row.getMicroseconds() + " " + row.getMessageCounter() + " "
+                    + row.getEcuId() + " " + row.getApplicationId() + " " + row.getContextId()));
+            List<String> expected = new ArrayList<>();
+            for (DltMessage message : messages) {
+                StandardHeader stdHeader = message.getStandardHeader();
+                expected.add(message.getStorageHeader().seconds + " " + message.getStorageHeader().microseconds + " "
+                        + stdHeader.messageCounter + " " + stdHeader.getEcuId().orElse("") + " "
+                        + message.getExtendedHeader().getApplicationId() + " " + message.getExtendedHeader().getContextId());
+            }
+            assertEquals(expected, rows);
+            assertEquals(messages.stream().filter(m -> "SYS".equals(m.getExtendedHeader().getApplicationId())).count(),
+                    reader.count(new DltFilter().applicationId("SYS")));
+        }
+    }
+
+    @Test
+    void filtersBlocksWithoutExtendedHeaders() throws IOException {
+        Records records = new Records();
+        for (int i = 0; i < 10; i++) {
+            records.nonExtended(i, "ECU1", new byte[] {1, 0, 0, 0, 42});
+        }
+        Path path = records.write(dir.resolve("trace.dlt"));
+        Path columnar = dir.resolve("trace" + DltColumnarWriter.FILE_EXTENSION);
+        DltColumnarWriter.export(path, columnar);
+
+        Instant from = Instant.ofEpochSecond(Records.BASE_SECONDS);
+        try (DltColumnarReader reader = new DltColumnarReader(columnar)) {
+            assertEquals(10, reader.count(null));
+            assertEquals(10, reader.count(new DltFilter().ecuId("ECU1")));
+            assertEquals(5, reader.count(new DltFilter().timeRange(from, from.plusMillis(5))));
+            assertEquals(0, reader.count(new DltFilter().messageType(MessageType.DLT_TYPE_LOG)));
+        }
+    }
+}
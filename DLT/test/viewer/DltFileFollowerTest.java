@@ -0,0 +1,61 @@
+package viewer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DltFileFollowerTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void skipsRecordWhichFailsToDecode() throws IOException {
+        // Extended Header announced, but the length leaves no room for it
+        Records records = Records.trace(10).truncated(10, StandardHeader.USE_EXTENDED_HEADER_MASK, 4);
+        Path path = records.raw(Records.trace(10).toBytes()).write(dir.resolve("trace.dlt"));
+
+        List<DltMessage> messages = new ArrayList<>();
+        try (DltFileFollower follower = new DltFileFollower(path, Optional.of(StandardCharsets.US_ASCII.name()), 0, 10)) {
+            assertEquals(20, follower.poll(messages::add));
+            assertEquals(Files.size(path), follower.getOffset());
+            assertEquals(0, follower.poll(messages::add));
+        }
+        assertEquals(20, messages.size());
+    }
+
+    @Test
+    void passesOnlyNewMessages() throws IOException {
+        Path path = Records.trace(10).write(dir.resolve("trace.dlt"));
+        try (DltFileFollower follower = new DltFileFollower(path)) {
+            assertEquals(10, follower.poll(message -> { }));
+            Files.write(path, Records.trace(5).toBytes(), StandardOpenOption.APPEND);
+            assertEquals(5, follower.poll(message -> { }));
+            assertEquals(Files.size(path), follower.getOffset());
+        }
+    }
+
+    @Test
+    void startsAgainInSyncAfterTheFileIsReplaced() throws IOException {
+        // Ends in damaged data, so the follower is looking for the next record
+        Path path = Records.trace(10).garbage(100, 1).write(dir.resolve("trace.dlt"));
+        try (DltFileFollower follower = new DltFileFollower(path)) {
+            assertEquals(10, follower.poll(message -> { }));
+            Files.write(path, new Records().garbage(50, 2).raw(Records.trace(5).toBytes()).toBytes());
+
+            long badPatterns = DltMetrics.get().getErrorCounts().get(DltMetrics.Cause.BAD_PATTERN.name());
+            assertEquals(5, follower.poll(message -> { }));
+            // The damaged data of the new file is counted as such
+            assertEquals(badPatterns + 1, DltMetrics.get().getErrorCounts().get(DltMetrics.Cause.BAD_PATTERN.name()));
+        }
+    }
+}
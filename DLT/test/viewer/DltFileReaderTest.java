@@ -0,0 +1,137 @@
+package viewer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DltFileReaderTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void skipsGarbageBetweenRecords() throws IOException {
+        Records records = Records.trace(10);
+        records.garbage(100, 1);
+        Path path = records.raw(Records.trace(10).toBytes()).write(dir.resolve("damaged.dlt"));
+
+        List<String> skipped = new ArrayList<>();
+        try (DltFileReader reader = new DltFileReader(path)) {
+            reader.setSkipListener((offset, length) -> skipped.add(offset + "+" + length));
+            assertEquals(20, reader.stream().count());
+        }
+        int end = Records.trace(10).toBytes().length;
+        assertEquals(List.of(end + "+100"), skipped);
+    }
+
+    @Test
+    void skipsRecordCutOffAtTheEnd() throws IOException {
+        Records records = Records.trace(10);
+        byte[] last = new Records().verbose(10, "ECU1", "APP1", "CTX1", "cut off").toBytes();
+        records.raw(Arrays.copyOf(last, last.length - 3));
+        Path path = records.write(dir.resolve("truncated.dlt"));
+
+        List<String> skipped = new ArrayList<>();
+        try (DltFileReader reader = new DltFileReader(path)) {
+            reader.setSkipListener((offset, length) -> skipped.add(offset + "+" + length));
+            assertEquals(10, reader.stream().count());
+        }
+        assertEquals(List.of(Records.trace(10).toBytes().length + "+" + (last.length - 3)), skipped);
+    }
+
+    @Test
+    void skipsRecordsWhichFailToDecode() throws IOException {
+        // Extended Header announced without room for it, and a non-verbose payload shorter than a message ID
+        Records records = Records.trace(10).truncated(10, StandardHeader.USE_EXTENDED_HEADER_MASK, 4);
+        records.raw(Records.trace(5).toBytes()).nonExtended(11, "ECU1", new byte[] {1, 2});
+        Path path = records.raw(Records.trace(5).toBytes()).write(dir.resolve("damaged.dlt"));
+
+        List<String> skipped = new ArrayList<>();
+        try (DltFileReader reader = new DltFileReader(path)) {
+            reader.setSkipListener((offset, length) -> skipped.add(offset + "+" + length));
+            assertEquals(20, reader.stream().count());
+        }
+        int bad = Records.trace(10).toBytes().length;
+        int badNonVerbose = bad + StorageHeader.DATA_LENGTH + StandardHeader.DATA_MIN_LENGTH + Records.trace(5).toBytes().length;
+        assertEquals(List.of(bad + "+20", badNonVerbose + "+22"), skipped);
+    }
+
+    @Test
+    void keepsRecordFollowedByGarbage() throws IOException {
+        Records records = new Records();
+        for (int i = 0; i < 10; i++) {
+            records.nonExtended(i, "ECU1", new byte[] {1, 0, 0, 0, 42});
+        }
+        int end = records.toBytes().length;
+        Path path = records.garbage(100, 2).raw(Records.trace(10).toBytes()).write(dir.resolve("damaged.dlt"));
+
+        List<String> skipped = new ArrayList<>();
+        try (DltFileReader reader = new DltFileReader(path)) {
+            reader.setSkipListener((offset, length) -> skipped.add(offset + "+" + length));
+            assertEquals(20, reader.stream().count());
+        }
+        assertEquals(List.of(end + "+100"), skipped);
+    }
+
+    @Test
+    void recycledMessagesReadLikeFreshOnes() throws IOException {
+        Records records = new Records();
+        for (int i = 0; i < 500; i++) {
+            // Payloads of 1 to 4 arguments, so the pool of the recycled payload grows and shrinks
+            records.raw(Records.trace(1 + i % 4).toBytes()).record(i, "ECU1",
+                    StandardHeader.USE_EXTENDED_HEADER_MASK, verboseHeader(1 + i % 4), arguments(i, 1 + i % 4));
+            if (i % 50 == 0) {
+                records.nonExtended(i, "ECU2", new byte[] {1, 0, 0, 0, (byte) i}).garbage(30, i);
+            }
+        }
+        Path path = records.write(dir.resolve("mixed.dlt"));
+
+        List<String> fresh;
+        try (DltFileReader reader = new DltFileReader(path)) {
+            fresh = reader.stream().map(DltFileReaderTest::describe).collect(Collectors.toList());
+        }
+        List<String> recycled = new ArrayList<>();
+        try (DltFileReader reader = new DltFileReader(path)) {
+            reader.setRecycling(true);
+            // Each message is only valid until the next one is read
+            reader.stream().forEach(message -> recycled.add(describe(message)));
+        }
+        assertEquals(fresh, recycled);
+    }
+
+    private static String describe(DltMessage message) {
+        return message + " " + Arrays.toString(message.toBytes());
+    }
+
+    // Verbose Extended Header with the Number of Arguments
+    private static byte[] verboseHeader(int numberOfArguments) {
+        ByteBuffer extHeader = ByteBuffer.allocate(ExtendedHeader.DATA_LENGTH);
+        extHeader.put((byte) (ExtendedHeader.VERBOSE_MASK | 4 << ExtendedHeader.MESSAGE_TYPE_INFO_SHIFT));
+        extHeader.put((byte) numberOfArguments).put("APP2CTX2".getBytes(StandardCharsets.US_ASCII));
+        return extHeader.array();
+    }
+
+    // Strings and 32 bit unsigned numbers in turn
+    private static byte[] arguments(int counter, int numberOfArguments) {
+        ByteBuffer payload = ByteBuffer.allocate(32 * numberOfArguments).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < numberOfArguments; i++) {
+            if (i % 2 == 0) {
+                byte[] text = ("text " + counter + "." + i + "\0").getBytes(StandardCharsets.US_ASCII);
+                payload.putInt(TypeInfo.TYPE_STRING.getValue()).putShort((short) text.length).put(text);
+            } else {
+                payload.putInt(TypeInfo.TYPE_UNSIGNED.getValue() | TypeInfo.TYPE_LENGTH_32BIT.getValue()).putInt(counter * i);
+            }
+        }
+        return Arrays.copyOf(payload.array(), payload.position());
+    }
+}
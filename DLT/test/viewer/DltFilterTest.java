@@ -0,0 +1,30 @@
+package viewer;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class DltFilterTest {
+    @Test
+    void timeOfAMessageWithoutStorageHeaderIsZero() {
+        byte[] record = new Records().verbose(0, "ECU1", "APP1", "CTX1", "message").toBytes();
+        DltMessageView stored = new DltMessageView(true).bind(ByteBuffer.wrap(record), 0);
+        DltMessageView received = new DltMessageView(false)
+                .bind(ByteBuffer.wrap(Arrays.copyOfRange(record, StorageHeader.DATA_LENGTH, record.length)), 0);
+
+        Instant start = Instant.ofEpochSecond(Records.BASE_SECONDS);
+        DltFilter window = new DltFilter().timeRange(start, start.plusSeconds(1));
+        assertTrue(window.test(stored));
+        assertFalse(window.test(received));
+
+        DltFilter fromEpoch = new DltFilter().timeRange(Instant.EPOCH, start);
+        assertFalse(fromEpoch.test(stored));
+        assertTrue(fromEpoch.test(received));
+        assertTrue(new DltFilter().ecuId("ECU1").test(received));
+    }
+}
@@ -0,0 +1,61 @@
+package viewer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DltIdTableTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void keysAreTrimmedLikeTheStrings() {
+        assertEquals(DltIdTable.fromString("APP"), key("APP "));
+        assertEquals(DltIdTable.fromString("APP"), key("APP\0"));
+        assertEquals(DltIdTable.fromString("AP"), key(" AP "));
+        assertEquals(DltIdTable.fromString("AP"), DltIdTable.fromString("AP  "));
+        assertEquals(0, key("    "));
+        assertEquals("APP", DltIdTable.toString(key("APP ")));
+        // Interior bytes are kept, as by String.trim()
+        assertEquals("A\0B", DltIdTable.toString(key("A\0B ")));
+    }
+
+    @Test
+    void spacePaddedIdsMatchTheFilter() throws IOException {
+        Records records = new Records();
+        for (int i = 0; i < 4; i++) {
+            String padding = i % 2 == 0 ? " " : "\0";
+            ByteBuffer extHeader = ByteBuffer.allocate(ExtendedHeader.DATA_LENGTH);
+            extHeader.put((byte) (4 << ExtendedHeader.MESSAGE_TYPE_INFO_SHIFT)).put((byte) 0);
+            extHeader.put(("APP" + padding).getBytes(StandardCharsets.US_ASCII));
+            extHeader.put(("CTX" + padding).getBytes(StandardCharsets.US_ASCII));
+            records.record(i, "EC" + padding + padding, StandardHeader.USE_EXTENDED_HEADER_MASK | StandardHeader.WITH_ECU_ID_MASK,
+                    extHeader.array(), new byte[] {1, 0, 0, 0});
+        }
+        Path path = records.write(dir.resolve("padded.dlt"));
+
+        List<DltMessage> messages = new ArrayList<>();
+        try (DltFileReader reader = new DltFileReader(path)) {
+            reader.stream(new DltFilter().ecuId("EC").applicationId("APP").contextId("CTX")).forEach(messages::add);
+        }
+        assertEquals(4, messages.size());
+        assertEquals(messages.get(0).getExtendedHeader(), messages.get(1).getExtendedHeader());
+        assertEquals("APP", messages.get(0).getExtendedHeader().getApplicationId());
+        assertEquals(Optional.of("EC"), messages.get(0).getStandardHeader().getEcuId());
+    }
+
+    private static int key(String id) {
+        ByteBuffer bytes = ByteBuffer.wrap(id.getBytes(StandardCharsets.US_ASCII)).order(ByteOrder.BIG_ENDIAN);
+        return DltIdTable.fromBytes(bytes, 0);
+    }
+}
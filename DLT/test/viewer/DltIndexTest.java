@@ -0,0 +1,66 @@
+package viewer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DltIndexTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void indexWrittenByReaderMatchesTheRecords() throws IOException {
+        Path path = Records.trace(500).write(dir.resolve("trace.dlt"));
+        List<DltMessage> messages = new ArrayList<>();
+        try (DltFileReader reader = new DltFileReader(path)) {
+            reader.setIndexing(true);
+            reader.forEach(messages::add);
+        }
+
+        Optional<DltIndex> opened = DltIndex.open(path);
+        assertTrue(opened.isPresent());
+        try (DltIndex index = opened.get(); DltFileReader reader = new DltFileReader(path)) {
+            assertEquals(messages.size(), index.size());
+            for (int i = 0; i < messages.size(); i++) {
+                // As written by Records.trace
+                assertEquals(Records.BASE_SECONDS + i / 1000, index.getSeconds(i));
+                assertEquals(i % 2 == 0 ? "APP1" : "SYS", DltIdTable.toString(index.getApplicationId(i)));
+                assertEquals(messages.get(i).toString(), reader.readMessage(index.getOffset(i)).toString());
+            }
+        }
+    }
+
+    @Test
+    void indexOfModifiedFileIsNotOpened() throws IOException {
+        Path path = Records.trace(10).write(dir.resolve("trace.dlt"));
+        try (DltFileReader reader = new DltFileReader(path)) {
+            reader.setIndexing(true);
+            assertEquals(10, reader.countMessages());
+        }
+        Files.write(path, Records.trace(11).toBytes());
+        assertFalse(DltIndex.open(path).isPresent());
+    }
+
+    @Test
+    void indexOfFileAppendedAfterOpeningIsNotOpened() throws IOException {
+        Path path = Records.trace(10).write(dir.resolve("trace.dlt"));
+        try (DltFileReader reader = new DltFileReader(path)) {
+            // Appended after the reader fixed its size, e.g. by a logger followed by DltFileFollower
+            Files.write(path, Records.trace(5).toBytes(), StandardOpenOption.APPEND);
+            reader.setIndexing(true);
+            assertEquals(10, reader.countMessages());
+        }
+        assertFalse(DltIndex.open(path).isPresent());
+    }
+}
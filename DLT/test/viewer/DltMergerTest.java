@@ -0,0 +1,147 @@
+package viewer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DltMergerTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void mergesByTime() throws IOException {
+        Records even = new Records();
+        Records odd = new Records();
+        for (int i = 0; i < 2000; i++) {
+            (i % 2 == 0 ? even : odd).verbose(i, "ECU1", "APP1", "CTX1", "message " + i);
+        }
+        try (DltFileReader first = new DltFileReader(even.write(dir.resolve("even.dlt")));
+                DltFileReader second = new DltFileReader(odd.write(dir.resolve("odd.dlt")));
+                DltMerger merger = new DltMerger(List.of(first, second), 10)) {
+            List<Integer> counters = new ArrayList<>();
+            merger.forEachRemaining(message -> counters.add(message.getStandardHeader().messageCounter));
+            assertEquals(2000, counters.size());
+            for (int i = 0; i < counters.size(); i++) {
+                assertEquals(i & 0xFF, counters.get(i));
+            }
+        }
+    }
+
+    @Test
+    void rejectsRecyclingSource() throws IOException {
+        try (DltFileReader reader = new DltFileReader(Records.trace(10).write(dir.resolve("trace.dlt")));
+                DltMerger merger = new DltMerger(List.of(reader))) {
+            reader.setRecycling(true);
+            assertThrows(IllegalArgumentException.class, merger::hasNext);
+        }
+    }
+
+    @Test
+    void readsAtMostTheReadAheadPerSource() throws Exception {
+        List<DltMessage> messages = new ArrayList<>();
+        new DltFileReader(Records.trace(1000).write(dir.resolve("trace.dlt"))).forEach(messages::add);
+        AtomicInteger read = new AtomicInteger();
+        Iterable<DltMessage> source = () -> new Iterator<DltMessage>() {
+            @Override
+            public boolean hasNext() {
+                return read.get() < messages.size();
+            }
+
+            @Override
+            public DltMessage next() {
+                return messages.get(read.getAndIncrement());
+            }
+        };
+        try (DltMerger merger = new DltMerger(List.of(source), 100)) {
+            assertTrue(merger.hasNext());
+            Thread.sleep(200);
+            assertEquals(100, read.get());
+            for (int i = 0; i < 50; i++) {
+                merger.next();
+            }
+            Thread.sleep(200);
+            assertEquals(150, read.get());
+        }
+    }
+
+    @Test
+    void handsOverMessagesOfALiveSource() throws Exception {
+        List<DltMessage> messages = new ArrayList<>();
+        new DltFileReader(Records.trace(3).write(dir.resolve("trace.dlt"))).forEach(messages::add);
+        BlockingQueue<DltMessage> live = new LinkedBlockingQueue<>(messages);
+        Iterable<DltMessage> source = () -> new Iterator<DltMessage>() {
+            @Override
+            public boolean hasNext() {
+                // Blocks like a source waiting for more data
+                return true;
+            }
+
+            @Override
+            public DltMessage next() {
+                try {
+                    return live.take();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        try (DltMerger merger = new DltMerger(List.of(source))) {
+            // The last message stays the head until the source has the next one
+            for (int i = 0; i < 2; i++) {
+                assertEquals(messages.get(i).toString(), merger.next().toString());
+            }
+        }
+    }
+
+    @Test
+    void closeDoesNotWaitForABlockedSource() throws Exception {
+        List<DltMessage> messages = new ArrayList<>();
+        new DltFileReader(Records.trace(2).write(dir.resolve("trace.dlt"))).forEach(messages::add);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Iterable<DltMessage> source = () -> new Iterator<DltMessage>() {
+            @Override
+            public boolean hasNext() {
+                if (calls.getAndIncrement() < 2) {
+                    return true;
+                }
+                // Waits for more data, ignoring interrupts
+                while (true) {
+                    try {
+                        release.await();
+                        return false;
+                    } catch (InterruptedException e) {
+                        // Keep waiting
+                    }
+                }
+            }
+
+            @Override
+            public DltMessage next() {
+                return messages.get(calls.get() - 1);
+            }
+        };
+        DltMerger merger = new DltMerger(List.of(source));
+        // The second message is the head while the source waits
+        assertEquals(messages.get(0).toString(), merger.next().toString());
+        long start = System.nanoTime();
+        merger.close();
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+        assertTrue(millis < 5000, millis + " ms");
+    }
+}
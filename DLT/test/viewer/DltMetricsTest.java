@@ -0,0 +1,69 @@
+package viewer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+class DltMetricsTest {
+    @Test
+    void countsTheCauseOfDecodeErrors() {
+        byte[] record = new Records().verbose(0, "ECU1", "APP1", "CTX1", "message").toBytes();
+        // Cut off by the end of the data
+        assertCounted(DltMetrics.Cause.TRUNCATED, Arrays.copyOf(record, record.length - 3));
+        // Shorter than the Standard Header
+        assertCounted(DltMetrics.Cause.LENGTH_UNDERFLOW, Arrays.copyOf(record, StorageHeader.DATA_LENGTH + 2));
+        byte[] noPattern = record.clone();
+        noPattern[0] = 'X';
+        assertCounted(DltMetrics.Cause.BAD_PATTERN, noPattern);
+    }
+
+    @Test
+    void countsTheErrorsOfArgumentsDecodedWhenRead() throws Exception {
+        // String Coding 2 is reserved, the length of the argument is still known
+        DltMessage badCoding = message(1, TypeInfo.TYPE_STRING.getValue() | 2 << 15);
+        assertCounted(DltMetrics.Cause.UNSUPPORTED_TYPE_INFO, () -> badCoding.getVerbosePayload().getArguments());
+        assertCounted(DltMetrics.Cause.UNSUPPORTED_TYPE_INFO, () -> badCoding.getVerbosePayload().cursor().next());
+        // No base type, the argument after it cannot be found either
+        DltMessage noType = message(2, 0);
+        assertCounted(DltMetrics.Cause.UNSUPPORTED_TYPE_INFO, () -> noType.getVerbosePayload().argumentAt(1));
+    }
+
+    // Verbose message whose arguments are the Type Info given followed by a 2-byte length of 0
+    private static DltMessage message(int numberOfArguments, int typeInfo) throws Exception {
+        ByteBuffer payload = ByteBuffer.allocate(6 * numberOfArguments).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < numberOfArguments; i++) {
+            payload.putInt(typeInfo).putShort((short) 0);
+        }
+        ByteBuffer extHeader = ByteBuffer.allocate(ExtendedHeader.DATA_LENGTH);
+        extHeader.put((byte) (ExtendedHeader.VERBOSE_MASK | 4 << ExtendedHeader.MESSAGE_TYPE_INFO_SHIFT));
+        extHeader.put((byte) numberOfArguments).put("APP1CTX1".getBytes(StandardCharsets.US_ASCII));
+        byte[] record = new Records().record(0, "ECU1", StandardHeader.USE_EXTENDED_HEADER_MASK,
+                extHeader.array(), payload.array()).toBytes();
+        // The arguments are not decoded yet
+        return DltMessage.createFromBytes(record, true, Optional.empty());
+    }
+
+    private static void assertCounted(DltMetrics.Cause cause, byte[] data) {
+        assertCounted(cause, () -> DltMessage.createFromBytes(data, 0, data.length, true, Optional.empty()));
+    }
+
+    private static void assertCounted(DltMetrics.Cause cause, Executable decode) {
+        Map<String, Long> before = DltMetrics.get().getErrorCounts();
+        DltDecodeException e = assertThrows(DltDecodeException.class, decode);
+        assertEquals(cause, e.getReason());
+        Map<String, Long> after = DltMetrics.get().getErrorCounts();
+        for (DltMetrics.Cause each : DltMetrics.Cause.values()) {
+            long expected = before.get(each.name()) + (each == cause ? 1 : 0);
+            assertEquals(expected, after.get(each.name()), each.name());
+        }
+    }
+}
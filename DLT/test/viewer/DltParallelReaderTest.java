@@ -0,0 +1,83 @@
+package viewer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DltParallelReaderTest {
+    private static ForkJoinPool pool;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void sameMessagesAsSequentialReader() throws IOException {
+        // Payloads with a DLT-Pattern make the resync of some chunks start inside a record
+        Records records = new Records();
+        for (int i = 0; i < 20000; i++) {
+            records.verbose(i, "ECU1", "APP1", "CTX1", i % 7 == 0 ? "DLT\u0001 inside " + i : "message " + i);
+        }
+        Path path = records.write(dir.resolve("trace.dlt"));
+
+        List<String> sequential;
+        try (DltFileReader reader = new DltFileReader(path)) {
+            sequential = reader.stream().map(DltMessage::toString).collect(Collectors.toList());
+        }
+        try (DltParallelReader reader = newReader(path)) {
+            assertEquals(sequential, reader.stream().map(DltMessage::toString).collect(Collectors.toList()));
+
+            List<String> unordered = Collections.synchronizedList(new ArrayList<>());
+            reader.forEach(message -> unordered.add(message.toString()));
+            List<String> sorted = new ArrayList<>(sequential);
+            Collections.sort(sorted);
+            Collections.sort(unordered);
+            assertEquals(sorted, unordered);
+        }
+    }
+
+    @Test
+    void sameMessagesAsSequentialReaderWithDamage() throws IOException {
+        Records records = new Records();
+        for (int i = 0; i < 20000; i++) {
+            records.verbose(i, "ECU1", "APP1", "CTX1", "message " + i);
+            if (i % 1000 == 999) {
+                records.garbage(300, i);
+            }
+        }
+        Path path = records.write(dir.resolve("damaged.dlt"));
+
+        DltFilter filter = new DltFilter().ecuId("ECU1");
+        try (DltFileReader sequential = new DltFileReader(path); DltParallelReader parallel = newReader(path)) {
+            assertEquals(sequential.stream(filter).map(DltMessage::toString).collect(Collectors.toList()),
+                    parallel.stream(filter).map(DltMessage::toString).collect(Collectors.toList()));
+        }
+    }
+
+    private static DltParallelReader newReader(Path path) throws IOException {
+        return new DltParallelReader(path, Optional.of(StandardCharsets.US_ASCII.name()), pool,
+                DltFileReader.MAX_RECORD_LENGTH);
+    }
+}
@@ -0,0 +1,126 @@
+package viewer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+
+class DltTcpSourceTest {
+    @Test
+    void goesOnAfterAFailingSink() throws Exception {
+        // Filled by the thread of the source
+        List<String> texts = new CopyOnWriteArrayList<>();
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+                DltTcpSource source = new DltTcpSource(message -> {
+                    if (texts.isEmpty()) {
+                        texts.add("failed");
+                        throw new IllegalStateException("Sink failed");
+                    }
+                    texts.add(message.toString());
+                }, Optional.empty())) {
+            Thread thread = start(source);
+            source.connect(new InetSocketAddress(server.getInetAddress(), server.getLocalPort()), "ECU1");
+            try (Socket socket = server.accept()) {
+                OutputStream out = socket.getOutputStream();
+                out.write(withoutStorageHeader(new Records().verbose(0, "ECU1", "APP1", "CTX1", "first").toBytes()));
+                out.write(withoutStorageHeader(new Records().verbose(1, "ECU1", "APP1", "CTX1", "second").toBytes()));
+                out.flush();
+                // The message is counted before the sink is called
+                waitFor(() -> texts.size() == 2);
+            }
+            assertEquals(1, source.getSinkErrorCount());
+            assertEquals(2, texts.size());
+            assertTrue(texts.get(1).contains("second"), texts.get(1));
+            assertTrue(thread.isAlive());
+        }
+    }
+
+    @Test
+    void framesMessagesSplitAcrossReads() throws Exception {
+        List<DltMessage> messages = new CopyOnWriteArrayList<>();
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+                DltTcpSource source = new DltTcpSource(messages::add, Optional.empty())) {
+            source.setStorageHeaderStamping(true);
+            start(source);
+            long before = Instant.now().getEpochSecond();
+            source.connect(new InetSocketAddress(server.getInetAddress(), server.getLocalPort()), "CONN");
+            try (Socket socket = server.accept()) {
+                socket.setTcpNoDelay(true);
+                byte[] bytes = withoutStorageHeader(new Records().verbose(0, "ECU1", "APP1", "CTX1", "split").toBytes());
+                byte[] nonExtended = withoutStorageHeader(new Records().nonExtended(1, "ECU1", new byte[] {1, 0, 0, 0}).toBytes());
+                OutputStream out = socket.getOutputStream();
+                // The first read ends in the middle of the record
+                out.write(bytes, 0, bytes.length / 2);
+                out.flush();
+                Thread.sleep(200);
+                out.write(bytes, bytes.length / 2, bytes.length - bytes.length / 2);
+                out.write(nonExtended);
+                out.flush();
+                waitFor(() -> messages.size() == 2);
+            }
+            assertEquals(0, source.getErrorCount());
+            assertTrue(messages.get(0).toString().contains("split"), messages.get(0).toString());
+            // The ECU ID of the Standard Header, else the one of the connection
+            StorageHeader stamped = messages.get(0).getStorageHeader();
+            assertEquals("ECU1", stamped.getEcuId());
+            assertTrue(stamped.seconds >= before, stamped.toString());
+            assertEquals("CONN", messages.get(1).getStorageHeader().getEcuId());
+        }
+    }
+
+    @Test
+    void countsFailedConnections() throws Exception {
+        InetSocketAddress address;
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            address = new InetSocketAddress(server.getInetAddress(), server.getLocalPort());
+        }
+        try (DltTcpSource source = new DltTcpSource(message -> { }, Optional.empty())) {
+            start(source);
+            boolean refused;
+            try {
+                source.connect(address);
+                refused = false;
+            } catch (IOException e) {
+                refused = true;
+            }
+            if (refused) {
+                // Refused before the selector: nothing is counted then
+                assertEquals(0, source.getErrorCount());
+            } else {
+                waitFor(() -> source.getErrorCount() == 1);
+            }
+        }
+    }
+
+    private static Thread start(DltTcpSource source) {
+        Thread thread = new Thread(source, "dlt-tcp-test");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static byte[] withoutStorageHeader(byte[] record) {
+        return Arrays.copyOfRange(record, StorageHeader.DATA_LENGTH, record.length);
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package viewer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DltTimeIndexTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void windowReadFindsTheSameMessagesAsAFilteredScan() throws IOException {
+        // One message per ms, so 10 s of messages
+        Path path = Records.trace(10000).write(dir.resolve("trace.dlt"));
+        DltTimeIndex built = DltTimeIndex.build(path, 100, 4096);
+
+        Optional<DltTimeIndex> opened = DltTimeIndex.open(path);
+        assertTrue(opened.isPresent());
+        DltTimeIndex index = opened.get();
+        assertEquals(built.size(), index.size());
+        assertEquals(built.getEntryCount(), index.getEntryCount());
+
+        Instant from = Instant.ofEpochSecond(Records.BASE_SECONDS + 3, 250_000_000);
+        Instant to = Instant.ofEpochSecond(Records.BASE_SECONDS + 5);
+        try (DltFileReader reader = new DltFileReader(path)) {
+            List<DltMessage> window = new ArrayList<>();
+            index.forEachInRange(reader, from, to, window::add);
+            List<DltMessage> scanned = new ArrayList<>();
+            reader.stream(new DltFilter().timeRange(from, to)).forEach(scanned::add);
+            assertEquals(1750, window.size());
+            assertEquals(Records.texts(scanned), Records.texts(window));
+        }
+    }
+
+    @Test
+    void lookBackFindsMessagesOutOfOrder() throws IOException {
+        // Every 500 ms one message logged 1 s late and one logged 0.5 s early, so no
+        // message is more than the look-back of 2 s older than one before it
+        Records records = new Records();
+        for (int i = 0; i < 10000; i++) {
+            records.verbose(i, "ECU1", "APP1", "CTX1", "message " + i);
+            if (i % 500 == 250) {
+                records.verbose(i - 1000, "ECU1", "APP1", "CTX1", "late " + (i - 1000));
+            } else if (i % 500 == 100) {
+                records.verbose(i + 500, "ECU1", "APP1", "CTX1", "early " + (i + 500));
+            }
+        }
+        Path path = records.write(dir.resolve("unordered.dlt"));
+        DltTimeIndex index = DltTimeIndex.build(path, 100, 4096);
+
+        Instant from = Instant.ofEpochSecond(Records.BASE_SECONDS + 3, 250_000_000);
+        Instant to = Instant.ofEpochSecond(Records.BASE_SECONDS + 5);
+        try (DltFileReader reader = new DltFileReader(path)) {
+            List<DltMessage> scanned = new ArrayList<>();
+            reader.stream(new DltFilter().timeRange(from, to)).forEach(scanned::add);
+            assertEquals(1750 + 4 + 3, scanned.size());
+
+            List<DltMessage> window = new ArrayList<>();
+            index.forEachInRange(reader, from, to, window::add);
+            assertEquals(Records.texts(scanned), Records.texts(window));
+
+            // Without look-back the messages before the window in the file and after it are missed
+            index.setLookBack(Duration.ZERO);
+            List<DltMessage> inOrder = new ArrayList<>();
+            index.forEachInRange(reader, from, to, inOrder::add);
+            List<String> texts = Records.texts(inOrder);
+            assertTrue(texts.size() < scanned.size(), texts.size() + " of " + scanned.size());
+            assertTrue(Records.texts(scanned).containsAll(texts));
+            assertFalse(texts.stream().anyMatch(text -> text.endsWith("early 3600")));
+            assertFalse(texts.stream().anyMatch(text -> text.endsWith("late 4750")));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package viewer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DltTrigramIndexTest {
+    private static final Optional<String> ENCODING = Optional.of(StandardCharsets.US_ASCII.name());
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void searchFindsTheSameMessagesAsAScan() throws IOException {
+        Path path = Records.trace(1000).write(dir.resolve("trace.dlt"));
+        DltTrigramIndex.build(path, ENCODING).close();
+
+        Optional<DltTrigramIndex> opened = DltTrigramIndex.open(path);
+        assertTrue(opened.isPresent());
+        try (DltTrigramIndex index = opened.get(); DltFileReader reader = new DltFileReader(path, ENCODING)) {
+            assertEquals(1000, index.size());
+            assertEquals(scan(reader, Pattern.compile(Pattern.quote("message 17 "))), search(index, reader, "message 17 "));
+            Pattern pattern = Pattern.compile("message 4\\d value 9");
+            assertEquals(scan(reader, pattern), search(index, reader, pattern));
+            assertNull(index.candidates("me"));
+        }
+    }
+
+    @Test
+    void buildSkipsArgumentsBeyondThePayload() throws IOException {
+        Records records = Records.trace(10);
+        // Number of arguments 2 with one argument, the last record of the file
+        byte[] string = "overstated\0".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer payload = ByteBuffer.allocate(4 + 2 + string.length).order(ByteOrder.LITTLE_ENDIAN);
+        payload.putInt(TypeInfo.TYPE_STRING.getValue()).putShort((short) string.length).put(string);
+        byte[] extHeader = {(byte) (ExtendedHeader.VERBOSE_MASK | 4 << ExtendedHeader.MESSAGE_TYPE_INFO_SHIFT), 2,
+                'A', 'P', 'P', '1', 'C', 'T', 'X', '1'};
+        records.record(10, "ECU1", StandardHeader.USE_EXTENDED_HEADER_MASK, extHeader, payload.array());
+        Path path = records.write(dir.resolve("overstated.dlt"));
+
+        try (DltTrigramIndex index = DltTrigramIndex.build(path, ENCODING); DltFileReader reader = new DltFileReader(path, ENCODING)) {
+            assertEquals(11, index.size());
+            List<DltMessage> messages = new ArrayList<>();
+            reader.stream().limit(10).forEach(messages::add);
+            assertEquals(Records.texts(messages.subList(7, 8)), search(index, reader, "message 7 "));
+        }
+    }
+
+    private static List<String> search(DltTrigramIndex index, DltFileReader reader, String text) throws IOException {
+        List<DltMessage> found = new ArrayList<>();
+        index.search(reader, text, found::add);
+        return Records.texts(found);
+    }
+
+    private static List<String> search(DltTrigramIndex index, DltFileReader reader, Pattern pattern) throws IOException {
+        List<DltMessage> found = new ArrayList<>();
+        index.search(reader, pattern, found::add);
+        return Records.texts(found);
+    }
+
+    private static List<String> scan(DltFileReader reader, Pattern pattern) {
+        List<DltMessage> found = new ArrayList<>();
+        for (DltMessage message : reader) {
+            if (pattern.matcher(message.toString()).find()) {
+                found.add(message);
+            }
+        }
+        return Records.texts(found);
+    }
+}
@@ -0,0 +1,65 @@
+package viewer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DltWriterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void writesTheMessagesAsTheyWereRead() throws IOException {
+        Path path = records().write(dir.resolve("in.dlt"));
+        Path out = dir.resolve("messages.dlt");
+        try (DltFileReader reader = new DltFileReader(path); DltWriter writer = smallWriter(out)) {
+            Iterator<DltMessage> messages = reader.iterator();
+            while (messages.hasNext()) {
+                writer.write(messages.next());
+            }
+            // Two buffers cannot hold the file, room() has written them before
+            assertTrue(writer.getBytesWritten() > 0);
+        }
+        assertArrayEquals(Files.readAllBytes(path), Files.readAllBytes(out));
+    }
+
+    @Test
+    void copiesTheBytesOfTheViews() throws IOException {
+        Path path = records().write(dir.resolve("in.dlt"));
+        Path out = dir.resolve("views.dlt");
+        try (DltFileReader reader = new DltFileReader(path); DltWriter writer = smallWriter(out)) {
+            reader.forEachView(view -> {
+                try {
+                    writer.write(view);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            assertTrue(writer.getBytesWritten() > 0);
+        }
+        assertArrayEquals(Files.readAllBytes(path), Files.readAllBytes(out));
+    }
+
+    // More than two buffers of the smallest size, with messages longer than 1024 bytes
+    private static Records records() {
+        Records records = Records.trace(2000);
+        for (int i = 0; i < 20; i++) {
+            records.verbose(2000 + i, "ECU1", "APP1", "CTX1", "long ".repeat(300 + 100 * i) + i);
+        }
+        return records.raw(Records.trace(2000).toBytes());
+    }
+
+    private static DltWriter smallWriter(Path path) throws IOException {
+        return new DltWriter(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE),
+                DltFileReader.MAX_RECORD_LENGTH, 2);
+    }
+}
@@ -0,0 +1,117 @@
+package viewer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * DLT records for the tests, written by hand (not with toBytes of the classes under test).
+ *
+ * All records have a Storage Header; its time is 1700000000 s plus the counter in ms.
+ */
+final class Records {
+    static final int BASE_SECONDS = 1700000000;
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    // Verbose log message (INFO) with the Standard Header ECU ID and one string argument
+    Records verbose(int counter, String ecuId, String applicationId, String contextId, String text) {
+        byte[] string = text.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer payload = ByteBuffer.allocate(4 + 2 + string.length + 1).order(ByteOrder.LITTLE_ENDIAN);
+        payload.putInt(TypeInfo.TYPE_STRING.getValue()).putShort((short) (string.length + 1)).put(string).put((byte) 0);
+        ByteBuffer extHeader = ByteBuffer.allocate(ExtendedHeader.DATA_LENGTH);
+        extHeader.put((byte) (ExtendedHeader.VERBOSE_MASK | 4 << ExtendedHeader.MESSAGE_TYPE_INFO_SHIFT));
+        extHeader.put((byte) 1).put(id(applicationId)).put(id(contextId));
+        return record(counter, ecuId, StandardHeader.USE_EXTENDED_HEADER_MASK | StandardHeader.WITH_ECU_ID_MASK,
+                extHeader.array(), payload.array());
+    }
+
+    // Message without Extended Header, the ECU ID only in the Storage Header
+    Records nonExtended(int counter, String ecuId, byte[] payload) {
+        return record(counter, ecuId, 0, new byte[0], payload);
+    }
+
+    // Record of the headers and bytes given, the length field covers the bytes
+    Records record(int counter, String ecuId, int headerType, byte[] extHeader, byte[] payload) {
+        int stdLength = StandardHeader.DATA_MIN_LENGTH + ((headerType & StandardHeader.WITH_ECU_ID_MASK) != 0 ? 4 : 0);
+        ByteBuffer record = ByteBuffer.allocate(StorageHeader.DATA_LENGTH + stdLength + extHeader.length + payload.length);
+        putStorageHeader(record, counter, ecuId);
+        record.order(ByteOrder.BIG_ENDIAN);
+        record.put((byte) (headerType | 1 << StandardHeader.VERSION_NUMBER_SHIFT));
+        record.put((byte) counter);
+        record.putShort((short) (stdLength + extHeader.length + payload.length));
+        if ((headerType & StandardHeader.WITH_ECU_ID_MASK) != 0) {
+            record.put(id(ecuId));
+        }
+        record.put(extHeader).put(payload);
+        return raw(record.array());
+    }
+
+    // Record whose length field is set to the length given, without the bytes it announces
+    Records truncated(int counter, int headerType, int length) {
+        ByteBuffer record = ByteBuffer.allocate(StorageHeader.DATA_LENGTH + StandardHeader.DATA_MIN_LENGTH);
+        putStorageHeader(record, counter, "ECU1");
+        record.order(ByteOrder.BIG_ENDIAN);
+        record.put((byte) (headerType | 1 << StandardHeader.VERSION_NUMBER_SHIFT));
+        record.put((byte) counter);
+        record.putShort((short) length);
+        return raw(record.array());
+    }
+
+    // Random bytes, e.g. damaged data
+    Records garbage(int length, long seed) {
+        byte[] garbage = new byte[length];
+        new Random(seed).nextBytes(garbage);
+        return raw(garbage);
+    }
+
+    Records raw(byte[] data) {
+        bytes.writeBytes(data);
+        return this;
+    }
+
+    byte[] toBytes() {
+        return bytes.toByteArray();
+    }
+
+    Path write(Path path) throws IOException {
+        return Files.write(path, toBytes());
+    }
+
+    // Trace of verbose messages on two ECUs with some repeating texts
+    static Records trace(int count) {
+        Records records = new Records();
+        for (int i = 0; i < count; i++) {
+            records.verbose(i, i % 3 == 0 ? "ECU2" : "ECU1", i % 2 == 0 ? "APP1" : "SYS", "CTX1",
+                    "message " + (i % 50) + " value " + i);
+        }
+        return records;
+    }
+
+    // Text of the messages, one line each, for comparing readers
+    static List<String> texts(List<DltMessage> messages) {
+        return messages.stream().map(DltMessage::toString).collect(Collectors.toList());
+    }
+
+    private static void putStorageHeader(ByteBuffer record, int counter, String ecuId) {
+        record.order(ByteOrder.LITTLE_ENDIAN);
+        record.put(StorageHeader.DLT_PATTERN);
+        record.putInt(BASE_SECONDS + counter / 1000);
+        record.putInt(counter % 1000 * 1000);
+        record.put(id(ecuId));
+    }
+
+    private static byte[] id(String id) {
+        byte[] bytes = new byte[4];
+        byte[] chars = id.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(chars, 0, bytes, 0, Math.min(chars.length, bytes.length));
+        return bytes;
+    }
+}
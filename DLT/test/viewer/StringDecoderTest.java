@@ -0,0 +1,61 @@
+package viewer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class StringDecoderTest {
+    @Test
+    void sharesStringsSeenTwice() {
+        byte[] bytes = "format %d of %s".getBytes(StandardCharsets.US_ASCII);
+        StringDecoder.decode(bytes, 0, bytes.length, StandardCharsets.US_ASCII);
+        String second = StringDecoder.decode(bytes, 0, bytes.length, StandardCharsets.US_ASCII);
+        assertSame(second, StringDecoder.decode(bytes.clone(), 0, bytes.length, StandardCharsets.US_ASCII));
+        assertEquals("format %d of %s", second);
+
+        // The cache keeps a copy of the bytes, not the array they were read from
+        bytes[0] = 'F';
+        assertEquals("Format %d of %s", StringDecoder.decode(bytes, 0, bytes.length, StandardCharsets.US_ASCII));
+        // Same bytes in another charset
+        byte[] euro = {(byte) 0x80, 'x'};
+        Charset windows = Charset.forName("windows-1252");
+        for (int i = 0; i < 3; i++) {
+            assertEquals("\u20ACx", StringDecoder.decode(euro, 0, euro.length, windows));
+            assertEquals("\u0080x", StringDecoder.decode(euro, 0, euro.length, StandardCharsets.ISO_8859_1));
+            assertEquals("\uFFFDx", StringDecoder.decode(ByteBuffer.wrap(euro), 0, euro.length, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void decodesCollidingAndLongStrings() {
+        // Many more strings than slots, each seen several times in turn
+        int count = 8 * StringDecoder.CACHE_SLOTS;
+        byte[] data = new byte[count * 16];
+        int[] offsets = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            byte[] text = ("value " + i).getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(text, 0, data, offsets[i], text.length);
+            offsets[i + 1] = offsets[i] + text.length;
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < count; i++) {
+                int index = round % 2 == 0 ? i : count - 1 - i;
+                assertEquals("value " + index, StringDecoder.decode(data, offsets[index],
+                        offsets[index + 1] - offsets[index], StandardCharsets.US_ASCII));
+            }
+        }
+        // Prefixes of one another, with lengths around the longest cached one
+        byte[] letters = "abcdefgh".repeat(40).getBytes(StandardCharsets.US_ASCII);
+        for (int round = 0; round < 3; round++) {
+            for (int length = StringDecoder.MAX_CACHED_LENGTH - 9; length < letters.length; length++) {
+                assertEquals("abcdefgh".repeat(40).substring(0, length),
+                        StringDecoder.decode(letters, 0, length, StandardCharsets.US_ASCII));
+            }
+        }
+    }
+}
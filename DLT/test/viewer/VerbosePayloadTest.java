@@ -0,0 +1,35 @@
+package viewer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class VerbosePayloadTest {
+    @Test
+    void rendersIntoAnyAppendable() throws IOException {
+        VerbosePayload payload = new VerbosePayload(List.of(
+                Argument.createString(" \tleading", false, true, StandardCharsets.US_ASCII),
+                new ArgumentBool(true, true),
+                new ArgumentUInt64(-1L, true),
+                new ArgumentSInt8(-5, true),
+                new ArgumentFloat32(1.5f, true),
+                new ArgumentFloat64(-0.25, true),
+                Argument.createString("two  spaces \n", false, true, StandardCharsets.US_ASCII),
+                Argument.createString("", false, true, StandardCharsets.US_ASCII)));
+        String expected = "leading true 18446744073709551615 -5 1.5 -0.25 two  spaces";
+
+        StringBuilder sb = new StringBuilder("> ");
+        payload.render(sb);
+        assertEquals("> " + expected, sb.toString());
+
+        StringWriter writer = new StringWriter();
+        writer.write("> ");
+        payload.render(writer);
+        assertEquals("> " + expected, writer.toString());
+    }
+}
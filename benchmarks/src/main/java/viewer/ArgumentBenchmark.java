@@ -0,0 +1,74 @@
+package viewer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Decoding of one argument for each base type of the Type Info.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ArgumentBenchmark {
+    // Number of different values, so the same bytes are not decoded again and again
+    private static final int VALUES = 256;
+
+    // See Corpus.ARGUMENT_TYPES
+    @Param({"BOOL", "UINT8", "UINT16", "UINT32", "UINT64", "SINT8", "SINT16", "SINT32", "SINT64",
+            "FLOAT32", "FLOAT64", "STRING", "RAW"})
+    public String type;
+
+    @Param({"false", "true"})
+    public boolean msbFirst;
+
+    private final Optional<String> encoding = Optional.of(StandardCharsets.US_ASCII.name());
+    private ByteBuffer buffer;
+    private int[] offsets;
+    private int[] lengths;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        byte[][] arguments = new byte[VALUES][];
+        int size = 0;
+        for (int i = 0; i < VALUES; i++) {
+            arguments[i] = Corpus.argument(type, msbFirst, random);
+            size += arguments[i].length;
+        }
+        buffer = ByteBuffer.allocate(size);
+        offsets = new int[VALUES];
+        lengths = new int[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            offsets[i] = buffer.position();
+            lengths[i] = arguments[i].length;
+            buffer.put(arguments[i]);
+        }
+    }
+
+    @Benchmark
+    public void createFromBytes(Blackhole blackhole) {
+        int i = next;
+        next = (i + 1) % VALUES;
+        blackhole.consume(Argument.createFromBytes(buffer, offsets[i], lengths[i], msbFirst, encoding));
+    }
+}
@@ -0,0 +1,83 @@
+package viewer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import viewer.StandardHeader.MessageLogInfo;
+
+/**
+ * Filtered count over the corpus: the columnar file against scanning the DLT file.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ColumnarBenchmark {
+    @Param("65536")
+    public int messages;
+
+    private final DltFilter filter = new DltFilter()
+            .applicationId("NAV", "DIAG")
+            .logLevel(MessageLogInfo.DLT_LOG_FATAL, MessageLogInfo.DLT_LOG_WARN);
+    private Path dltPath;
+    private Path dltcPath;
+    private DltFileReader fileReader;
+    private DltColumnarReader columnarReader;
+
+    @Setup
+    public void setup() throws IOException {
+        Corpus corpus = new Corpus(messages, 1);
+        dltPath = Files.createTempFile("corpus", ".dlt");
+        dltcPath = Files.createTempFile("corpus", DltColumnarWriter.FILE_EXTENSION);
+        Files.write(dltPath, corpus.data);
+        DltColumnarWriter.export(dltPath, dltcPath);
+        fileReader = new DltFileReader(dltPath);
+        columnarReader = new DltColumnarReader(dltcPath);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fileReader.close();
+        columnarReader.close();
+        Files.delete(dltPath);
+        Files.delete(dltcPath);
+    }
+
+    @Benchmark
+    public long columnar() throws IOException {
+        return columnarReader.count(filter);
+    }
+
+    @Benchmark
+    public long views() throws IOException {
+        long[] count = new long[1];
+        fileReader.forEachView(view -> {
+            if (filter.test(view)) {
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+
+    @Benchmark
+    public long reparse() {
+        return fileReader.stream(filter).count();
+    }
+}
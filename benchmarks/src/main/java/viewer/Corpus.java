@@ -0,0 +1,280 @@
+package viewer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generated DLT data for the benchmarks.
+ *
+ * The bytes are written by hand (not with toBytes of the classes under test) and
+ * look like a recorded trace: mostly verbose log messages with a few arguments of
+ * mixed types, some non-verbose messages, both byte orders, a handful of IDs.
+ * The same seed always gives the same corpus.
+ */
+final class Corpus {
+    // Share of the verbose messages in percent
+    private static final int VERBOSE_PERCENT = 80;
+    // Share of the big endian payloads in percent
+    private static final int MSB_FIRST_PERCENT = 20;
+
+    private static final String[] ECU_IDS = {"ECU1", "ECU2"};
+    private static final String[] APPLICATION_IDS = {"APP1", "SYS", "DIAG", "NAV", "MEDI", "CONN"};
+    private static final String[] CONTEXT_IDS = {"CTX1", "MAIN", "IPC", "TIME", "NET", "DB"};
+    private static final String[] WORDS = {
+        "connection", "established", "to", "service", "timeout", "after", "retry", "state", "changed",
+        "from", "RUNNING", "STOPPED", "received", "message", "id", "value", "out", "of", "range", "ok"
+    };
+
+    // Argument types, see argument()
+    static final String[] ARGUMENT_TYPES = {
+        "BOOL", "UINT8", "UINT16", "UINT32", "UINT64", "SINT8", "SINT16", "SINT32", "SINT64",
+        "FLOAT32", "FLOAT64", "STRING", "RAW"
+    };
+
+    // Standard Header of all messages has ECU ID and timestamp
+    static final int STANDARD_HEADER_LENGTH = StandardHeader.DATA_MIN_LENGTH + 8;
+    // Offset of the payload from the beginning of a message
+    static final int PAYLOAD_OFFSET = StorageHeader.DATA_LENGTH + STANDARD_HEADER_LENGTH + ExtendedHeader.DATA_LENGTH;
+
+    final byte[] data;
+    // Offsets and lengths (with Storage Header) of the messages in data
+    final int[] offsets;
+    final int[] lengths;
+    final boolean[] verbose;
+    final boolean[] msbFirst;
+    final int[] numberOfArguments;
+
+    Corpus(int count, long seed) {
+        Random random = new Random(seed);
+        ByteBuffer buffer = ByteBuffer.allocate(count * 256);
+        offsets = new int[count];
+        lengths = new int[count];
+        verbose = new boolean[count];
+        msbFirst = new boolean[count];
+        numberOfArguments = new int[count];
+        for (int i = 0; i < count; i++) {
+            if (buffer.remaining() < StorageHeader.DATA_LENGTH + 0xFFFF) {
+                buffer = grow(buffer);
+            }
+            offsets[i] = buffer.position();
+            putMessage(buffer, random, i);
+            lengths[i] = buffer.position() - offsets[i];
+            int headerType = buffer.get(offsets[i] + StorageHeader.DATA_LENGTH);
+            int extOffset = offsets[i] + StorageHeader.DATA_LENGTH + STANDARD_HEADER_LENGTH;
+            verbose[i] = (buffer.get(extOffset) & ExtendedHeader.VERBOSE_MASK) != 0;
+            msbFirst[i] = (headerType & StandardHeader.MSB_FIRST_MASK) != 0;
+            numberOfArguments[i] = buffer.get(extOffset + 1);
+        }
+        data = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(data);
+    }
+
+    int size() {
+        return offsets.length;
+    }
+
+    // Indexes of the verbose (or non-verbose) messages
+    int[] indexes(boolean ofVerbose) {
+        int[] indexes = new int[size()];
+        int count = 0;
+        for (int i = 0; i < size(); i++) {
+            if (verbose[i] == ofVerbose) {
+                indexes[count++] = i;
+            }
+        }
+        return Arrays.copyOf(indexes, count);
+    }
+
+    // Bytes of message i (with Storage Header)
+    byte[] message(int i) {
+        byte[] message = new byte[lengths[i]];
+        System.arraycopy(data, offsets[i], message, 0, message.length);
+        return message;
+    }
+
+    /**
+     * Bytes of one argument (Type Info and value) of the type.
+     *
+     * @param type     One of ARGUMENT_TYPES
+     * @param msbFirst Byte order of the argument
+     * @param random   Source of the value
+     * @return Bytes of the argument
+     */
+    static byte[] argument(String type, boolean msbFirst, Random random) {
+        ByteBuffer buffer = ByteBuffer.allocate(512).order(msbFirst ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        putArgument(buffer, type, random);
+        byte[] argument = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(argument);
+        return argument;
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer) {
+        ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2 + StorageHeader.DATA_LENGTH + 0xFFFF);
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+
+    private static void putMessage(ByteBuffer buffer, Random random, int counter) {
+        boolean verbose = random.nextInt(100) < VERBOSE_PERCENT;
+        boolean msbFirst = random.nextInt(100) < MSB_FIRST_PERCENT;
+
+        // Storage Header, little endian
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(StorageHeader.DLT_PATTERN);
+        buffer.putInt(1700000000 + counter / 100);
+        buffer.putInt((counter % 100) * 10000 + random.nextInt(10000));
+        putId(buffer, ECU_IDS[random.nextInt(ECU_IDS.length)]);
+
+        // Standard Header, big endian
+        int stdOffset = buffer.position();
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        int headerType = (1 << StandardHeader.VERSION_NUMBER_SHIFT) | StandardHeader.USE_EXTENDED_HEADER_MASK
+                | StandardHeader.WITH_ECU_ID_MASK | StandardHeader.WITH_TIMESTAMP_MASK;
+        if (msbFirst) {
+            headerType |= StandardHeader.MSB_FIRST_MASK;
+        }
+        buffer.put((byte) headerType);
+        buffer.put((byte) counter);
+        buffer.putShort((short) 0); // Length, set at the end
+        putId(buffer, ECU_IDS[0]);
+        buffer.putInt(counter * 37);
+
+        // Extended Header
+        int numberOfArguments = verbose ? 1 + random.nextInt(4) : 0;
+        int messageInfo = (verbose ? ExtendedHeader.VERBOSE_MASK : 0)
+                | (StandardHeader.MessageType.DLT_TYPE_LOG.getValue() << ExtendedHeader.MESSAGE_TYPE_SHIFT)
+                | ((1 + random.nextInt(6)) << ExtendedHeader.MESSAGE_TYPE_INFO_SHIFT);
+        buffer.put((byte) messageInfo);
+        buffer.put((byte) numberOfArguments);
+        putId(buffer, APPLICATION_IDS[random.nextInt(APPLICATION_IDS.length)]);
+        putId(buffer, CONTEXT_IDS[random.nextInt(CONTEXT_IDS.length)]);
+
+        // Payload
+        buffer.order(msbFirst ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        if (verbose) {
+            // Log lines usually start with a text
+            putArgument(buffer, "STRING", random);
+            for (int i = 1; i < numberOfArguments; i++) {
+                putArgument(buffer, typicalType(random), random);
+            }
+        } else {
+            buffer.putInt(random.nextInt(1 << 16));
+            byte[] nonStaticData = new byte[4 + random.nextInt(28)];
+            random.nextBytes(nonStaticData);
+            buffer.put(nonStaticData);
+        }
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        buffer.putShort(stdOffset + 2, (short) (buffer.position() - stdOffset));
+    }
+
+    private static String typicalType(Random random) {
+        switch (random.nextInt(8)) {
+            case 0:
+                return "BOOL";
+            case 1:
+                return "UINT8";
+            case 2:
+            case 3:
+                return "UINT32";
+            case 4:
+                return "SINT32";
+            case 5:
+                return "FLOAT64";
+            case 6:
+                return "RAW";
+            default:
+                return "STRING";
+        }
+    }
+
+    private static void putArgument(ByteBuffer buffer, String type, Random random) {
+        switch (type) {
+            case "BOOL":
+                buffer.putInt(TypeInfo.TYPE_BOOL.getValue() | TypeInfo.TYPE_LENGTH_8BIT.getValue());
+                buffer.put((byte) random.nextInt(2));
+                break;
+            case "UINT8":
+                buffer.putInt(TypeInfo.TYPE_UNSIGNED.getValue() | TypeInfo.TYPE_LENGTH_8BIT.getValue());
+                buffer.put((byte) random.nextInt());
+                break;
+            case "UINT16":
+                buffer.putInt(TypeInfo.TYPE_UNSIGNED.getValue() | TypeInfo.TYPE_LENGTH_16BIT.getValue());
+                buffer.putShort((short) random.nextInt());
+                break;
+            case "UINT32":
+                buffer.putInt(TypeInfo.TYPE_UNSIGNED.getValue() | TypeInfo.TYPE_LENGTH_32BIT.getValue());
+                buffer.putInt(random.nextInt());
+                break;
+            case "UINT64":
+                buffer.putInt(TypeInfo.TYPE_UNSIGNED.getValue() | TypeInfo.TYPE_LENGTH_64BIT.getValue());
+                buffer.putLong(random.nextLong());
+                break;
+            case "SINT8":
+                buffer.putInt(TypeInfo.TYPE_SIGNED.getValue() | TypeInfo.TYPE_LENGTH_8BIT.getValue());
+                buffer.put((byte) random.nextInt());
+                break;
+            case "SINT16":
+                buffer.putInt(TypeInfo.TYPE_SIGNED.getValue() | TypeInfo.TYPE_LENGTH_16BIT.getValue());
+                buffer.putShort((short) random.nextInt());
+                break;
+            case "SINT32":
+                buffer.putInt(TypeInfo.TYPE_SIGNED.getValue() | TypeInfo.TYPE_LENGTH_32BIT.getValue());
+                buffer.putInt(random.nextInt());
+                break;
+            case "SINT64":
+                buffer.putInt(TypeInfo.TYPE_SIGNED.getValue() | TypeInfo.TYPE_LENGTH_64BIT.getValue());
+                buffer.putLong(random.nextLong());
+                break;
+            case "FLOAT32":
+                buffer.putInt(TypeInfo.TYPE_FLOAT.getValue() | TypeInfo.TYPE_LENGTH_32BIT.getValue());
+                buffer.putFloat(random.nextFloat() * 1000);
+                break;
+            case "FLOAT64":
+                buffer.putInt(TypeInfo.TYPE_FLOAT.getValue() | TypeInfo.TYPE_LENGTH_64BIT.getValue());
+                buffer.putDouble(random.nextDouble() * 1000);
+                break;
+            case "STRING":
+                byte[] text = text(random).getBytes(StandardCharsets.US_ASCII);
+                buffer.putInt(TypeInfo.TYPE_STRING.getValue() | TypeInfo.STRING_CODING_ASCII.getValue());
+                buffer.putShort((short) (text.length + 1));
+                buffer.put(text);
+                buffer.put((byte) 0);
+                break;
+            case "RAW":
+                byte[] raw = new byte[4 + random.nextInt(28)];
+                random.nextBytes(raw);
+                buffer.putInt(TypeInfo.TYPE_RAW.getValue());
+                buffer.putShort((short) raw.length);
+                buffer.put(raw);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown argument type: " + type);
+        }
+    }
+
+    // A few words, 10 to 80 characters
+    private static String text(Random random) {
+        StringBuilder text = new StringBuilder();
+        int length = 10 + random.nextInt(70);
+        while (text.length() < length) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private static void putId(ByteBuffer buffer, String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < 4; i++) {
+            buffer.put(i < bytes.length ? bytes[i] : 0);
+        }
+    }
+}
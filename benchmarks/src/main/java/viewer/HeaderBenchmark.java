@@ -0,0 +1,63 @@
+package viewer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding of each header from the messages of the corpus, one message per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class HeaderBenchmark {
+    @Param("8192")
+    public int messages;
+
+    private Corpus corpus;
+    private ByteBuffer buffer;
+    private int next;
+
+    @Setup
+    public void setup() {
+        corpus = new Corpus(messages, 1);
+        buffer = ByteBuffer.wrap(corpus.data);
+    }
+
+    @Benchmark
+    public StorageHeader storageHeader() {
+        return StorageHeader.createFromBytes(buffer, nextOffset(), StorageHeader.DATA_LENGTH);
+    }
+
+    @Benchmark
+    public StandardHeader standardHeader() {
+        return StandardHeader.createFromBytes(buffer, nextOffset() + StorageHeader.DATA_LENGTH,
+                Corpus.STANDARD_HEADER_LENGTH);
+    }
+
+    @Benchmark
+    public ExtendedHeader extendedHeader() {
+        return ExtendedHeader.createFromBytes(buffer,
+                nextOffset() + StorageHeader.DATA_LENGTH + Corpus.STANDARD_HEADER_LENGTH, ExtendedHeader.DATA_LENGTH);
+    }
+
+    private int nextOffset() {
+        int i = next;
+        next = i + 1 == corpus.size() ? 0 : i + 1;
+        return corpus.offsets[i];
+    }
+}
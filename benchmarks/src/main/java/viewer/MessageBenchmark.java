@@ -0,0 +1,123 @@
+package viewer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole messages of the corpus: decoding, encoding round-trips and formatting.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageBenchmark {
+    @Param("8192")
+    public int messages;
+
+    private final Optional<String> encoding = Optional.of(StandardCharsets.US_ASCII.name());
+    private Corpus corpus;
+    private ByteBuffer buffer;
+    private DltMessage[] decoded;
+    private final DltMessage recycled = DltMessage.createRecyclable();
+    private DltTextWriter textWriter;
+    private ByteBuffer encodeBuffer;
+    private int next;
+
+    @Setup
+    public void setup() {
+        corpus = new Corpus(messages, 1);
+        buffer = ByteBuffer.wrap(corpus.data);
+        decoded = new DltMessage[corpus.size()];
+        for (int i = 0; i < decoded.length; i++) {
+            decoded[i] = DltMessage.createFromBytes(buffer, corpus.offsets[i], corpus.lengths[i], true, encoding);
+        }
+        textWriter = new DltTextWriter(new NullChannel());
+        encodeBuffer = ByteBuffer.allocateDirect(DltFileReader.MAX_RECORD_LENGTH);
+    }
+
+    @Benchmark
+    public DltMessage createFromBytes() {
+        int i = next();
+        return DltMessage.createFromBytes(buffer, corpus.offsets[i], corpus.lengths[i], true, encoding);
+    }
+
+    // Decode into a reused message
+    @Benchmark
+    public DltMessage refill() {
+        int i = next();
+        return recycled.refill(buffer, corpus.offsets[i], corpus.lengths[i], true, encoding);
+    }
+
+    @Benchmark
+    public byte[] toBytes() {
+        return decoded[next()].toBytes();
+    }
+
+    // Encode into a reused buffer
+    @Benchmark
+    public ByteBuffer encodeTo() {
+        encodeBuffer.clear();
+        decoded[next()].encodeTo(encodeBuffer);
+        return encodeBuffer;
+    }
+
+    // Encode a decoded message and decode it again
+    @Benchmark
+    public DltMessage roundTrip() {
+        byte[] bytes = decoded[next()].toBytes();
+        return DltMessage.createFromBytes(bytes, 0, bytes.length, true, encoding);
+    }
+
+    @Benchmark
+    public String toStringOfMessage() {
+        return decoded[next()].toString();
+    }
+
+    // Line of a message written to a channel discarding the bytes
+    @Benchmark
+    public void textWriter() throws IOException {
+        textWriter.write(decoded[next()]);
+    }
+
+    private int next() {
+        int i = next;
+        next = i + 1 == decoded.length ? 0 : i + 1;
+        return i;
+    }
+
+    private static class NullChannel implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer src) {
+            int length = src.remaining();
+            src.position(src.limit());
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package viewer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Decoding of the payloads of the corpus, one payload per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PayloadBenchmark {
+    @Param("8192")
+    public int messages;
+
+    private final Optional<String> encoding = Optional.of(StandardCharsets.US_ASCII.name());
+    private Corpus corpus;
+    private ByteBuffer buffer;
+    private int[] verbose;
+    private int[] nonVerbose;
+    private int nextVerbose;
+    private int nextNonVerbose;
+
+    @Setup
+    public void setup() {
+        corpus = new Corpus(messages, 1);
+        buffer = ByteBuffer.wrap(corpus.data);
+        verbose = corpus.indexes(true);
+        nonVerbose = corpus.indexes(false);
+    }
+
+    // Payload with all its arguments decoded
+    @Benchmark
+    public void verbosePayload(Blackhole blackhole) {
+        int i = verbose[nextVerbose];
+        nextVerbose = nextVerbose + 1 == verbose.length ? 0 : nextVerbose + 1;
+        VerbosePayload payload = VerbosePayload.createFromBytes(buffer, payloadOffset(i), payloadLength(i),
+                corpus.msbFirst[i], corpus.numberOfArguments[i], encoding);
+        payload.forEachArgument(blackhole::consume);
+    }
+
+    // Arguments read with a cursor directly in the buffer
+    @Benchmark
+    public void argumentCursor(Blackhole blackhole) {
+        int i = verbose[nextVerbose];
+        nextVerbose = nextVerbose + 1 == verbose.length ? 0 : nextVerbose + 1;
+        ArgumentCursor cursor = new ArgumentCursor(buffer, payloadOffset(i), payloadLength(i),
+                corpus.msbFirst[i], corpus.numberOfArguments[i], encoding);
+        while (cursor.hasNext()) {
+            blackhole.consume(cursor.next());
+        }
+    }
+
+    @Benchmark
+    public NonVerbosePayload nonVerbosePayload() {
+        int i = nonVerbose[nextNonVerbose];
+        nextNonVerbose = nextNonVerbose + 1 == nonVerbose.length ? 0 : nextNonVerbose + 1;
+        return NonVerbosePayload.createFromBytes(buffer, payloadOffset(i), payloadLength(i), corpus.msbFirst[i]);
+    }
+
+    private int payloadOffset(int i) {
+        return corpus.offsets[i] + Corpus.PAYLOAD_OFFSET;
+    }
+
+    private int payloadLength(int i) {
+        return corpus.lengths[i] - Corpus.PAYLOAD_OFFSET;
+    }
+}
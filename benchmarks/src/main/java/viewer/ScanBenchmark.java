@@ -0,0 +1,69 @@
+package viewer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Search of the DLT-Pattern through random bytes, one whole buffer per operation.
+ * The bytes contain the first byte of the pattern often, like text would.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ScanBenchmark {
+    @Param("16777216")
+    public int bytes;
+
+    private ByteBuffer junk;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        byte[] data = new byte[bytes];
+        random.nextBytes(data);
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == StorageHeader.DLT_PATTERN[3]) {
+                // No pattern at all, the whole buffer is searched
+                data[i]++;
+            }
+        }
+        for (int i = 0; i < data.length; i += 16) {
+            data[i] = StorageHeader.DLT_PATTERN[0];
+        }
+        junk = ByteBuffer.allocateDirect(bytes).order(ByteOrder.BIG_ENDIAN);
+        junk.put(data).clear();
+    }
+
+    @Benchmark
+    public int indexOf() {
+        return PatternScanner.indexOf(junk, 0, bytes);
+    }
+
+    @Benchmark
+    public int byteByByte() {
+        for (int i = 0; i + StorageHeader.DLT_PATTERN.length <= bytes; i++) {
+            if (junk.get(i) == StorageHeader.DLT_PATTERN[0] && junk.get(i + 1) == StorageHeader.DLT_PATTERN[1]
+                    && junk.get(i + 2) == StorageHeader.DLT_PATTERN[2] && junk.get(i + 3) == StorageHeader.DLT_PATTERN[3]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}